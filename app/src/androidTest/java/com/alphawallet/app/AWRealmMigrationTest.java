@@ -0,0 +1,161 @@
+package com.alphawallet.app;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.alphawallet.app.entity.ContractType;
+import com.alphawallet.app.entity.tokens.Token;
+import com.alphawallet.app.entity.tokens.TokenInfo;
+import com.alphawallet.app.repository.AWRealmMigration;
+import com.alphawallet.app.repository.TokensRealmSource;
+import com.alphawallet.app.repository.entity.RealmAuxData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import io.realm.DynamicRealm;
+import io.realm.DynamicRealmObject;
+import io.realm.FieldAttribute;
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Opens a wallet realm written at schema 24 with AWRealmMigration, and checks the RealmAuxData rows come through
+ */
+@RunWith(AndroidJUnit4.class)
+public class AWRealmMigrationTest
+{
+    private static final String REALM_NAME = "aw-migration-test.realm";
+    private static final int CHAIN_ID = 1;
+    private static final String CONTRACT = "0xbc9a1026a4bc6f0ba8bbe486d1d09da5732b39e4";
+    private static final BigInteger TOKEN_ID = new BigInteger("1b", 16);
+    private static final long RESULT_TIME = 1600000000L;
+
+    private static final String ATTRIBUTE_KEY = CONTRACT + "-" + TOKEN_ID.toString(Character.MAX_RADIX) + "-" + CHAIN_ID + "-level-func-key";
+    private static final String ACTIVITY_KEY = TokensRealmSource.eventActivityKey("0xd1e0", "Transfer");
+    private static final String ALL_TOKENS_ACTIVITY_KEY = TokensRealmSource.eventActivityKey("0xd1e1", "Approval");
+    private static final String BLOCK_KEY = TokensRealmSource.eventBlockKey(CHAIN_ID, CONTRACT, "Transfer", "to=${ownerAddress}");
+
+    private RealmConfiguration v24Config;
+
+    @Before
+    public void setUp()
+    {
+        Realm.init(InstrumentationRegistry.getTargetContext());
+        v24Config = new RealmConfiguration.Builder().name(REALM_NAME).schemaVersion(24).build();
+        Realm.deleteRealm(v24Config);
+
+        try (DynamicRealm realm = DynamicRealm.getInstance(v24Config))
+        {
+            realm.executeTransaction(r -> {
+                r.setVersion(24);
+                //RealmAuxData as it was at schema 24
+                r.getSchema().create("RealmAuxData")
+                        .addField("instanceKey", String.class, FieldAttribute.PRIMARY_KEY)
+                        .addField("chainId", int.class)
+                        .addField("tokenAddress", String.class)
+                        .addField("tokenId", String.class)
+                        .addField("functionId", String.class)
+                        .addField("result", String.class)
+                        .addField("resultTime", long.class)
+                        .addField("resultReceivedTime", long.class);
+
+                addAuxRow(r, ATTRIBUTE_KEY, TOKEN_ID.toString(Character.MAX_RADIX), "level", "5");
+                addAuxRow(r, ACTIVITY_KEY, TOKEN_ID.toString(16), "Transfer", "from,0x01;to,0x02;tokenId,27");
+                addAuxRow(r, ALL_TOKENS_ACTIVITY_KEY, "0", "Approval", "owner,0x01;approved,0x03");
+                addAuxRow(r, BLOCK_KEY, "0", "Transfer", "bc614e");
+            });
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        Realm.deleteRealm(v24Config);
+    }
+
+    @Test
+    public void auxRowsSurviveMigration()
+    {
+        RealmConfiguration config = new RealmConfiguration.Builder().name(REALM_NAME)
+                .schemaVersion(BuildConfig.DB_VERSION)
+                .migration(new AWRealmMigration())
+                .build();
+
+        try (Realm realm = Realm.getInstance(config))
+        {
+            RealmAuxData attribute = realm.where(RealmAuxData.class).equalTo("instanceKey", ATTRIBUTE_KEY).findFirst();
+            assertNotNull(attribute);
+            assertEquals(RealmAuxData.RECORD_DATA, attribute.getRecordType());
+            assertEquals(TOKEN_ID, attribute.getTokenId());
+            assertRowIntact(attribute, "level", "5");
+
+            RealmAuxData activity = realm.where(RealmAuxData.class).equalTo("instanceKey", ACTIVITY_KEY).findFirst();
+            assertNotNull(activity);
+            assertEquals(RealmAuxData.RECORD_EVENT, activity.getRecordType());
+            assertEquals(1, realm.where(RealmAuxData.class).equalTo("tokenId", TokensRealmSource.eventTokenId(TOKEN_ID)).count());
+            assertEquals(TOKEN_ID, activity.getTokenId());
+            assertRowIntact(activity, "Transfer", "from,0x01;to,0x02;tokenId,27");
+
+            RealmAuxData allTokens = realm.where(RealmAuxData.class).equalTo("instanceKey", ALL_TOKENS_ACTIVITY_KEY).findFirst();
+            assertNotNull(allTokens);
+            assertEquals(RealmAuxData.RECORD_EVENT, allTokens.getRecordType());
+            assertEquals(BigInteger.ZERO, allTokens.getTokenId());
+            assertRowIntact(allTokens, "Approval", "owner,0x01;approved,0x03");
+
+            //both activity rows are found by the token's activity query, newest first
+            Token token = new Token(new TokenInfo(CONTRACT, "Test", "TST", 0, true, CHAIN_ID),
+                    BigDecimal.ONE, 0, "Ethereum", ContractType.ERC721);
+            List<RealmAuxData> tokenActivity = realm.copyFromRealm(RealmAuxData.getEventQuery(realm, token, TOKEN_ID, 10, 0).findAll());
+            assertEquals(2, tokenActivity.size());
+            assertEquals(ACTIVITY_KEY, tokenActivity.get(0).getInstanceKey());
+            assertEquals(ALL_TOKENS_ACTIVITY_KEY, tokenActivity.get(1).getInstanceKey());
+
+            //the read block marker moves to its own table
+            assertNull(realm.where(RealmAuxData.class).equalTo("instanceKey", BLOCK_KEY).findFirst());
+            RealmEventBlock block = realm.where(RealmEventBlock.class).equalTo("instanceKey", BLOCK_KEY).findFirst();
+            assertNotNull(block);
+            assertEquals(CHAIN_ID, block.getChainId());
+            assertEquals(CONTRACT, block.getContractAddress());
+            assertEquals("Transfer", block.getEventId());
+            assertEquals(12345678L, block.getReadBlock());
+            assertEquals(RESULT_TIME, block.getUpdateTime());
+
+            assertEquals(3, realm.where(RealmAuxData.class).count());
+        }
+    }
+
+    private void addAuxRow(DynamicRealm r, String key, String tokenId, String functionId, String result)
+    {
+        //activity rows are ordered by resultTime, so each row gets its own
+        long resultTime = RESULT_TIME - r.where("RealmAuxData").count();
+        DynamicRealmObject row = r.createObject("RealmAuxData", key);
+        row.setInt("chainId", CHAIN_ID);
+        row.setString("tokenAddress", CONTRACT);
+        row.setString("tokenId", tokenId);
+        row.setString("functionId", functionId);
+        row.setString("result", result);
+        row.setLong("resultTime", key.equals(BLOCK_KEY) ? RESULT_TIME : resultTime);
+        row.setLong("resultReceivedTime", RESULT_TIME);
+    }
+
+    private void assertRowIntact(RealmAuxData row, String functionId, String result)
+    {
+        assertEquals(CHAIN_ID, row.getChainId());
+        assertEquals(CONTRACT, row.getTokenAddress());
+        assertEquals(functionId, row.getFunctionId());
+        assertEquals(result, row.getResult());
+        assertEquals(RESULT_TIME, row.getResultReceivedTime());
+    }
+}
@@ -131,13 +131,15 @@ public class RepositoriesModule {
             TokenLocalSource tokenLocalSource,
 			OkHttpClient httpClient,
 			Context context,
-			TickerService tickerService) {
+			TickerService tickerService,
+			RealmManager realmManager) {
 	    return new TokenRepository(
 	            ethereumNetworkRepository,
 				tokenLocalSource,
 				httpClient,
 				context,
-				tickerService);
+				tickerService,
+				realmManager);
     }
 
     @Singleton
@@ -0,0 +1,232 @@
+package com.alphawallet.app.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the transaction and event activity streams into one newest-first feed, a page at a time.
+ *
+ * Each stream is read in pages of rows at or before its timestamp cursor. An item is only shown once it's newer than
+ * every stream that may still have unread rows, so the merged list never has a gap that a later page fills in. Changes
+ * from the database (eg Realm's change sets) are passed in as they happen; only items that are new or whose displayed
+ * state changed are returned, so the adapter isn't rebuilt for every update.
+ *
+ * A caller that only ever reads the first page of each stream (eg a fixed length history preview) uses an unpaged
+ * feed: nothing is held back, as the newest pageSize items overall are all within the first pages, and the caller
+ * trims what's shown to pageSize.
+ */
+public class ActivityFeed
+{
+    public enum Source
+    {
+        TRANSACTIONS,
+        EVENTS
+    }
+
+    private static class Stream
+    {
+        long cursor = Long.MAX_VALUE; //timestamp in seconds of the oldest row read
+        int atCursor;                 //rows read with the cursor timestamp
+        boolean exhausted;
+        int lastLimit;
+    }
+
+    private final int pageSize;
+    private final boolean paged;
+    private final Map<Source, Stream> streams = new HashMap<>();
+    private final Map<String, String> states = new HashMap<>(); //item key -> displayed state, for all items read
+    private final Map<String, ActivityMeta> withheld = new HashMap<>(); //read but older than the merge boundary
+    private int shownCount;
+
+    public ActivityFeed(int pageSize)
+    {
+        this(pageSize, true);
+    }
+
+    /**
+     * @param paged false if the caller won't read pages beyond the first, using getCursor
+     */
+    public ActivityFeed(int pageSize, boolean paged)
+    {
+        this.pageSize = pageSize;
+        this.paged = paged;
+        for (Source source : Source.values())
+        {
+            streams.put(source, new Stream());
+        }
+    }
+
+    /**
+     * @return the timestamp in seconds the next page of the source starts at (inclusive); Long.MAX_VALUE for the first page
+     */
+    public long getCursor(Source source)
+    {
+        return streams.get(source).cursor;
+    }
+
+    /**
+     * @return rows to read for the next page of the source. Rows at the cursor are read again, so ties across a page
+     * boundary aren't lost.
+     */
+    public int getPageLimit(Source source)
+    {
+        Stream stream = streams.get(source);
+        stream.lastLimit = pageSize + stream.atCursor;
+        return stream.lastLimit;
+    }
+
+    public boolean hasMore(Source source)
+    {
+        return !streams.get(source).exhausted;
+    }
+
+    public boolean hasMore()
+    {
+        for (Stream stream : streams.values())
+        {
+            if (!stream.exhausted) return true;
+        }
+        return false;
+    }
+
+    public int getShownCount()
+    {
+        return shownCount;
+    }
+
+    /**
+     * Add a page read from the source, newest first
+     *
+     * @return items that are now shown, or whose shown state changed, newest first
+     */
+    public List<ActivityMeta> addPage(Source source, List<? extends ActivityMeta> page)
+    {
+        Stream stream = streams.get(source);
+        int limit = stream.lastLimit > 0 ? stream.lastLimit : pageSize;
+        stream.lastLimit = 0;
+
+        long oldest = stream.cursor;
+        int atOldest = 0;
+        for (ActivityMeta item : page)
+        {
+            long ts = item.getTimeStampSeconds();
+            if (ts < oldest)
+            {
+                oldest = ts;
+                atOldest = 0;
+            }
+            if (ts == oldest) atOldest++;
+        }
+
+        //a full page that didn't get past the rows at the cursor means more rows share one timestamp than fit a page
+        boolean progressed = oldest < stream.cursor || atOldest > stream.atCursor;
+        stream.exhausted = page.size() < limit || !progressed;
+        stream.cursor = oldest;
+        stream.atCursor = atOldest;
+
+        List<ActivityMeta> updates = update(page);
+        releaseWithheld(updates);
+        Collections.sort(updates, (a, b) -> Long.compare(b.getTimeStamp(), a.getTimeStamp()));
+        return updates;
+    }
+
+    /**
+     * Inserted or modified items from a source
+     *
+     * @return items that are new, or whose shown state changed
+     */
+    public List<ActivityMeta> update(Collection<? extends ActivityMeta> changed)
+    {
+        List<ActivityMeta> updates = new ArrayList<>();
+        long boundary = getBoundary();
+        for (ActivityMeta item : changed)
+        {
+            String key = getKey(item);
+            String state = getState(item);
+            String previous = states.put(key, state);
+            if (state.equals(previous)) continue;
+
+            boolean isShown = previous != null && !withheld.containsKey(key);
+            if (isShown || item.getTimeStampSeconds() >= boundary)
+            {
+                if (!isShown) shownCount++;
+                withheld.remove(key);
+                updates.add(item);
+            }
+            else
+            {
+                withheld.put(key, item);
+            }
+        }
+
+        return updates;
+    }
+
+    public void clear()
+    {
+        for (Source source : Source.values())
+        {
+            streams.put(source, new Stream());
+        }
+        states.clear();
+        withheld.clear();
+        shownCount = 0;
+    }
+
+    // Timestamp (seconds) items must be at or after to be shown: the oldest point all unfinished streams have read to
+    private long getBoundary()
+    {
+        long boundary = Long.MIN_VALUE;
+        if (!paged) return boundary;
+        for (Stream stream : streams.values())
+        {
+            if (!stream.exhausted && stream.cursor > boundary) boundary = stream.cursor;
+        }
+        return boundary;
+    }
+
+    private void releaseWithheld(List<ActivityMeta> updates)
+    {
+        long boundary = getBoundary();
+        Iterator<ActivityMeta> itr = withheld.values().iterator();
+        while (itr.hasNext())
+        {
+            ActivityMeta item = itr.next();
+            if (item.getTimeStampSeconds() >= boundary)
+            {
+                updates.add(item);
+                shownCount++;
+                itr.remove();
+            }
+        }
+    }
+
+    private static String getKey(ActivityMeta item)
+    {
+        if (item instanceof EventMeta) return item.hash + "-" + ((EventMeta) item).eventName;
+        else return item.hash;
+    }
+
+    // What the activity row displays from the meta; a change to this needs a redraw
+    private static String getState(ActivityMeta item)
+    {
+        StringBuilder sb = new StringBuilder().append(item.getTimeStamp());
+        if (item instanceof TransactionMeta)
+        {
+            TransactionMeta tm = (TransactionMeta) item;
+            sb.append(tm.isPending).append(tm.chainId).append(tm.contractAddress);
+        }
+        else if (item instanceof EventMeta)
+        {
+            EventMeta em = (EventMeta) item;
+            sb.append(em.chainId).append(em.activityCardName);
+        }
+        return sb.toString();
+    }
+}
+
@@ -0,0 +1,46 @@
+package com.alphawallet.app.entity;
+
+/**
+ * What the chain tells us about a token contract, independent of any wallet
+ */
+public class ContractMeta
+{
+    public final int chainId;
+    public final String address;
+    public final String name;       //null if the contract doesn't have one
+    public final String symbol;
+    public final int decimals;      //-1 until read, or if the last read failed
+    public final ContractType type; //NOT_SET until determined
+    public final long updateTime;   //when name and symbol were read
+
+    public ContractMeta(int chainId, String address, String name, String symbol, int decimals, ContractType type, long updateTime)
+    {
+        this.chainId = chainId;
+        this.address = address.toLowerCase();
+        this.name = name;
+        this.symbol = symbol;
+        this.decimals = decimals;
+        this.type = type != null ? type : ContractType.NOT_SET;
+        this.updateTime = updateTime;
+    }
+
+    public ContractMeta withType(ContractType type)
+    {
+        return new ContractMeta(chainId, address, name, symbol, decimals, type, updateTime);
+    }
+
+    public ContractMeta withDecimals(int decimals)
+    {
+        return new ContractMeta(chainId, address, name, symbol, decimals, type, updateTime);
+    }
+
+    public String getKey()
+    {
+        return key(chainId, address);
+    }
+
+    public static String key(int chainId, String address)
+    {
+        return chainId + "-" + address.toLowerCase();
+    }
+}
@@ -69,6 +69,15 @@ public class GasPriceSpread
         timeStamp = System.currentTimeMillis();
     }
 
+    public GasPriceSpread(BigInteger rapid, BigInteger fast, BigInteger standard, BigInteger slow, long timeStamp)
+    {
+        this.rapid = rapid;
+        this.fast = fast;
+        this.standard = standard;
+        this.slow = slow;
+        this.timeStamp = timeStamp;
+    }
+
     public GasPriceSpread(String r, String f, String st, String sl, long timeSt)
     {
         rapid = new BigInteger(r);
@@ -0,0 +1,163 @@
+package com.alphawallet.app.entity.cryptokeys;
+
+import com.alphawallet.app.service.KeystoreAccountService;
+
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.alphawallet.app.service.KeyService.FAILED_SIGNATURE;
+
+/**
+ * A SigningSession holds an unlocked signing key for a bounded time and number of signatures, so bulk operations
+ * (eg generating a market order) pay for the key unlock and derivation once instead of per message.
+ *
+ * Signatures are byte-for-byte identical to those produced by KeyService.signData for the same wallet.
+ * Once the TTL or the signature count is exhausted, or the session is closed, the key material is wiped and
+ * every further signing attempt returns a KEY_AUTHENTICATION_ERROR result.
+ */
+public class SigningSession implements Closeable
+{
+    public static final long DEFAULT_TTL = 60 * 1000; //one minute
+    public static final int MAX_SIGNATURES = 2048;
+
+    /**
+     * Key holder for a session. Implementations must wipe their key material in destroy()
+     */
+    public interface DigestSigner
+    {
+        byte[] sign(byte[] data);
+        void destroy();
+    }
+
+    private DigestSigner signer;
+    private final long expiry;
+    private final int maxSignatures;
+    private final String failMessage;
+    private int signCount;
+
+    public SigningSession(DigestSigner signer, int maxSignatures, long ttlMillis)
+    {
+        this.signer = signer;
+        this.maxSignatures = Math.min(maxSignatures, MAX_SIGNATURES);
+        this.expiry = System.currentTimeMillis() + ttlMillis;
+        this.failMessage = null;
+        this.signCount = 0;
+    }
+
+    private SigningSession(String failMessage)
+    {
+        this.signer = null;
+        this.maxSignatures = 0;
+        this.expiry = 0;
+        this.failMessage = failMessage;
+    }
+
+    /**
+     * Session returned when the key could not be unlocked; all signing attempts fail with the given message
+     */
+    public static SigningSession failed(String failMessage)
+    {
+        return new SigningSession(failMessage);
+    }
+
+    /**
+     * Session over a keystore key. Signatures match KeyService.signWithKeystore
+     */
+    public static SigningSession fromKeyPair(ECKeyPair keyPair, int maxSignatures, long ttlMillis)
+    {
+        return new SigningSession(new KeyPairSigner(keyPair), maxSignatures, ttlMillis);
+    }
+
+    public synchronized boolean isOpen()
+    {
+        if (signer != null && (signCount >= maxSignatures || System.currentTimeMillis() > expiry))
+        {
+            close();
+        }
+
+        return signer != null;
+    }
+
+    public synchronized int remaining()
+    {
+        return isOpen() ? maxSignatures - signCount : 0;
+    }
+
+    public synchronized SignatureFromKey signData(byte[] TBSdata)
+    {
+        SignatureFromKey returnSig = new SignatureFromKey();
+        returnSig.sigType = SignatureReturnType.KEY_AUTHENTICATION_ERROR;
+        returnSig.signature = FAILED_SIGNATURE.getBytes();
+
+        if (!isOpen())
+        {
+            returnSig.failMessage = failMessage != null ? failMessage : "Signing session expired";
+            return returnSig;
+        }
+
+        try
+        {
+            returnSig.signature = signer.sign(TBSdata);
+            returnSig.sigType = SignatureReturnType.SIGNATURE_GENERATED;
+            signCount++;
+        }
+        catch (Exception e)
+        {
+            returnSig.failMessage = e.getMessage();
+        }
+
+        return returnSig;
+    }
+
+    /**
+     * Sign each entry in turn. If the session runs out part way through, the remaining entries are failed signatures
+     */
+    public List<SignatureFromKey> signBatch(List<byte[]> TBSdataList)
+    {
+        List<SignatureFromKey> signatures = new ArrayList<>(TBSdataList.size());
+        for (byte[] data : TBSdataList)
+        {
+            signatures.add(signData(data));
+        }
+
+        return signatures;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (signer != null)
+        {
+            signer.destroy();
+            signer = null;
+        }
+    }
+
+    private static class KeyPairSigner implements DigestSigner
+    {
+        private ECKeyPair keyPair;
+
+        KeyPairSigner(ECKeyPair keyPair)
+        {
+            this.keyPair = keyPair;
+        }
+
+        @Override
+        public byte[] sign(byte[] data)
+        {
+            Sign.SignatureData signatureData = Sign.signMessage(data, keyPair);
+            return KeystoreAccountService.bytesFromSignature(signatureData);
+        }
+
+        @Override
+        public void destroy()
+        {
+            //BigInteger is immutable, so the best we can do is drop the only reference to the key
+            keyPair = null;
+        }
+    }
+}
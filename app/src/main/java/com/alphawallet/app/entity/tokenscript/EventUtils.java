@@ -1,6 +1,7 @@
 package com.alphawallet.app.entity.tokenscript;
 
 import com.alphawallet.app.BuildConfig;
+import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.tokens.Token;
 import com.alphawallet.token.entity.Attribute;
 import com.alphawallet.token.entity.AttributeInterface;
@@ -118,18 +119,25 @@ import org.web3j.abi.datatypes.generated.Uint88;
 import org.web3j.abi.datatypes.generated.Uint96;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.BatchRequest;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.EthLog;
 import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.utils.Numeric;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Single;
 
@@ -153,6 +161,8 @@ import static org.web3j.tx.Contract.staticExtractEventParameters;
  */
 public abstract class EventUtils
 {
+    public static final int MAX_BATCH_REQUESTS = 100; //requests per JSON-RPC batch; public nodes reject very large batches
+
     public static EthFilter generateLogFilter(EventDefinition ev, List<BigInteger> tokenIds, AttributeInterface attrIf) throws Exception
     {
         return generateLogFilter(ev, null, tokenIds, attrIf);
@@ -284,6 +294,69 @@ public abstract class EventUtils
         });
     }
 
+    /**
+     * Fetch the timestamps of several blocks, batching the requests
+     *
+     * @return block hash -> timestamp in seconds. Blocks the node didn't return are absent
+     */
+    public static Map<String, Long> getBlockTimes(Collection<String> blockHashes, Web3j web3j) throws IOException
+    {
+        Map<String, Long> blockTimes = new HashMap<>();
+        List<String> hashes = new ArrayList<>(blockHashes);
+        for (int start = 0; start < hashes.size(); start += MAX_BATCH_REQUESTS)
+        {
+            BatchRequest batch = web3j.newBatch();
+            List<String> chunk = hashes.subList(start, Math.min(hashes.size(), start + MAX_BATCH_REQUESTS));
+            for (String hash : chunk)
+            {
+                batch.add(web3j.ethGetBlockByHash(hash.trim(), false));
+            }
+
+            List<? extends Response<?>> responses = batch.send().getResponses();
+            for (int i = 0; i < responses.size(); i++)
+            {
+                EthBlock.Block block = ((EthBlock) responses.get(i)).getBlock();
+                if (block != null) blockTimes.put(chunk.get(i), block.getTimestamp().longValue());
+            }
+        }
+
+        return blockTimes;
+    }
+
+    /**
+     * Fetch several transactions with their receipts, batching the requests
+     *
+     * @param txTimes transaction hash -> timestamp of the block it's in
+     * @return transactions the node returned with a receipt, ready to store
+     */
+    public static List<Transaction> getTransactions(Map<String, Long> txTimes, int chainId, Web3j web3j) throws IOException
+    {
+        List<Transaction> transactions = new ArrayList<>();
+        List<String> hashes = new ArrayList<>(txTimes.keySet());
+        int txPerBatch = MAX_BATCH_REQUESTS / 2; //transaction and receipt for each
+        for (int start = 0; start < hashes.size(); start += txPerBatch)
+        {
+            BatchRequest batch = web3j.newBatch();
+            List<String> chunk = hashes.subList(start, Math.min(hashes.size(), start + txPerBatch));
+            for (String hash : chunk)
+            {
+                batch.add(web3j.ethGetTransactionByHash(hash.trim()));
+                batch.add(web3j.ethGetTransactionReceipt(hash.trim()));
+            }
+
+            List<? extends Response<?>> responses = batch.send().getResponses();
+            for (int i = 0; i < chunk.size() && 2*i + 1 < responses.size(); i++)
+            {
+                EthTransaction ethTx = (EthTransaction) responses.get(2*i);
+                TransactionReceipt receipt = ((EthGetTransactionReceipt) responses.get(2*i + 1)).getResult();
+                if (ethTx.getResult() == null || receipt == null) continue;
+                transactions.add(new Transaction(ethTx.getResult(), chainId, receipt.isStatusOK(), txTimes.get(chunk.get(i))));
+            }
+        }
+
+        return transactions;
+    }
+
     private static String getValueFromParams(List<Type> responseParams, int selectIndex)
     {
         Type t = responseParams.get(selectIndex);
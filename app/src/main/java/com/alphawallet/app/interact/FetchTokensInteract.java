@@ -31,6 +31,11 @@ public class FetchTokensInteract {
         return tokenRepository.getTokenResponse(address, chainId, method).toObservable();
     }
 
+    public Single<ContractLocator> locateContract(String address, List<Integer> chainIds)
+    {
+        return tokenRepository.locateContract(address, chainIds);
+    }
+
     public Observable<Token> updateDefaultBalance(Token token, Wallet wallet)
     {
         return tokenRepository.fetchActiveTokenBalance(wallet.address, token)
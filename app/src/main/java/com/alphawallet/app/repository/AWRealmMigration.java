@@ -1,11 +1,18 @@
 package com.alphawallet.app.repository;
 
+import com.alphawallet.app.repository.entity.RealmAuxData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
+
 import io.realm.DynamicRealm;
+import io.realm.DynamicRealmObject;
 import io.realm.FieldAttribute;
 import io.realm.RealmMigration;
 import io.realm.RealmObjectSchema;
+import io.realm.RealmResults;
 import io.realm.RealmSchema;
 
+import static com.alphawallet.app.repository.TokensRealmSource.EVENT_CARDS;
+
 
 /**
  * Important! If you make a change to any of the realm objects (eg RealmToken) you need to perform a DataBase migration
@@ -256,6 +263,89 @@ public class AWRealmMigration implements RealmMigration
             if (realmData != null && !realmData.hasField("imageThumbnailUrl")) realmData.addField("imageThumbnailUrl", String.class);
             oldVersion++;
         }
+
+        if (oldVersion == 24)
+        {
+            //Event read blocks move to their own table, and activity rows are typed so they can be found by index
+            RealmObjectSchema eventBlock = schema.get("RealmEventBlock");
+            if (eventBlock == null)
+            {
+                schema.create("RealmEventBlock")
+                        .addField("instanceKey", String.class, FieldAttribute.PRIMARY_KEY)
+                        .addField("chainId", int.class, FieldAttribute.INDEXED)
+                        .addField("contractAddress", String.class, FieldAttribute.INDEXED)
+                        .addField("eventId", String.class)
+                        .addField("readBlock", long.class, FieldAttribute.INDEXED)
+                        .addField("updateTime", long.class);
+            }
+
+            RealmObjectSchema realmData = schema.get("RealmAuxData");
+            if (realmData != null)
+            {
+                if (!realmData.hasIndex("chainId")) realmData.addIndex("chainId");
+                if (!realmData.hasIndex("tokenAddress")) realmData.addIndex("tokenAddress");
+                if (!realmData.hasIndex("tokenId")) realmData.addIndex("tokenId");
+                //Realm may already have added the column for the current model, so type the rows either way
+                if (!realmData.hasField("recordType")) realmData.addField("recordType", int.class);
+                if (!realmData.hasIndex("recordType")) realmData.addIndex("recordType");
+                realmData.transform(obj -> obj.setInt("recordType", obj.getString("instanceKey").endsWith(EVENT_CARDS)
+                        ? RealmAuxData.RECORD_EVENT : RealmAuxData.RECORD_DATA));
+
+                RealmResults<DynamicRealmObject> oldBlocks = realm.where("RealmAuxData")
+                        .endsWith("instanceKey", RealmEventBlock.EVENT_BLOCK)
+                        .findAll();
+                for (DynamicRealmObject oldBlock : oldBlocks)
+                {
+                    String key = oldBlock.getString("instanceKey");
+                    long readBlock = RealmEventBlock.parseReadBlock(oldBlock.getString("result"));
+                    if (!RealmEventBlock.isEventBlockKey(key) || readBlock < 0) continue; //dropped; the event is read again from the start
+                    DynamicRealmObject block = realm.where("RealmEventBlock").equalTo("instanceKey", key).findFirst();
+                    if (block == null) block = realm.createObject("RealmEventBlock", key);
+                    block.setInt("chainId", RealmEventBlock.getKeyChainId(key));
+                    block.setString("contractAddress", RealmEventBlock.getKeyAddress(key));
+                    block.setString("eventId", oldBlock.getString("functionId"));
+                    block.setLong("readBlock", readBlock);
+                    block.setLong("updateTime", oldBlock.getLong("resultTime"));
+                }
+                oldBlocks.deleteAllFromRealm();
+            }
+            oldVersion++;
+        }
+
+        if (oldVersion == 25)
+        {
+            //Token contract metadata shared by all wallets, see ContractMetaRegistry
+            if (schema.get("RealmContractMeta") == null)
+            {
+                schema.create("RealmContractMeta")
+                        .addField("instanceKey", String.class, FieldAttribute.PRIMARY_KEY)
+                        .addField("chainId", int.class, FieldAttribute.INDEXED)
+                        .addField("address", String.class)
+                        .addField("name", String.class)
+                        .addField("symbol", String.class)
+                        .addField("decimals", int.class)
+                        .addField("interfaceType", int.class)
+                        .addField("updateTime", long.class);
+            }
+            oldVersion++;
+        }
+
+        if (oldVersion == 26)
+        {
+            //Event activity tokenIds are stored zero padded, see TokensRealmSource.eventTokenId
+            RealmObjectSchema realmData = schema.get("RealmAuxData");
+            if (realmData != null)
+            {
+                RealmResults<DynamicRealmObject> activity = realm.where("RealmAuxData")
+                        .equalTo("recordType", RealmAuxData.RECORD_EVENT)
+                        .findAll();
+                for (DynamicRealmObject item : activity)
+                {
+                    item.setString("tokenId", TokensRealmSource.eventTokenId(item.getString("tokenId")));
+                }
+            }
+            oldVersion++;
+        }
     }
 
     @Override
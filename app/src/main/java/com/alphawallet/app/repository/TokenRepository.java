@@ -8,6 +8,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.alphawallet.app.entity.ContractLocator;
+import com.alphawallet.app.entity.ContractMeta;
 import com.alphawallet.app.entity.ContractType;
 import com.alphawallet.app.entity.NetworkInfo;
 import com.alphawallet.app.entity.TransferFromEventResponse;
@@ -20,8 +21,13 @@ import com.alphawallet.app.entity.tokens.TokenCardMeta;
 import com.alphawallet.app.entity.tokens.TokenFactory;
 import com.alphawallet.app.entity.tokens.TokenInfo;
 import com.alphawallet.app.entity.tokens.TokenTicker;
+import com.alphawallet.app.repository.entity.RealmContractMeta;
 import com.alphawallet.app.service.AWHttpService;
 import com.alphawallet.app.service.AssetDefinitionService;
+import com.alphawallet.app.service.ContractChainLocator;
+import com.alphawallet.app.service.ContractInterfaceClassifier;
+import com.alphawallet.app.service.ContractMetaRegistry;
+import com.alphawallet.app.service.RealmManager;
 import com.alphawallet.app.service.TickerService;
 import com.alphawallet.app.service.TokensService;
 import com.alphawallet.app.util.AWEnsResolver;
@@ -42,7 +48,6 @@ import org.web3j.abi.datatypes.Utf8String;
 import org.web3j.abi.datatypes.generated.Bytes4;
 import org.web3j.abi.datatypes.generated.Int256;
 import org.web3j.abi.datatypes.generated.Uint256;
-import org.web3j.abi.datatypes.generated.Uint8;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.response.EthBlockNumber;
@@ -56,7 +61,9 @@ import java.math.BigInteger;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -96,6 +103,8 @@ public class TokenRepository implements TokenRepositoryType {
     private static final int CONTRACT_BALANCE_NULL = -2;
 
     private final Map<Integer, Web3j> web3jNodeServers;
+    private final ContractMetaRegistry contractRegistry;
+    private final ContractChainLocator chainLocator;
     private AWEnsResolver ensResolver;
 
     public TokenRepository(
@@ -103,7 +112,8 @@ public class TokenRepository implements TokenRepositoryType {
             TokenLocalSource localSource,
             OkHttpClient okClient,
             Context context,
-            TickerService tickerService) {
+            TickerService tickerService,
+            RealmManager realmManager) {
         this.ethereumNetworkRepository = ethereumNetworkRepository;
         this.localSource = localSource;
         this.ethereumNetworkRepository.addOnChangeDefaultNetwork(this::buildWeb3jClient);
@@ -112,6 +122,8 @@ public class TokenRepository implements TokenRepositoryType {
         this.tickerService = tickerService;
 
         web3jNodeServers = new ConcurrentHashMap<>();
+        contractRegistry = new ContractMetaRegistry(this::getService, new RealmContractMetaStore(realmManager));
+        chainLocator = new ContractChainLocator(this::getService);
     }
 
     private void buildWeb3jClient(NetworkInfo networkInfo)
@@ -975,62 +987,7 @@ public class TokenRepository implements TokenRepositoryType {
 
     private String checkBytesString(String responseValue) throws Exception
     {
-        String name = "";
-        if (responseValue.length() > 0)
-        {
-            //try raw bytes
-            byte[] data = Numeric.hexStringToByteArray(responseValue);
-            //check leading bytes for non-zero
-            if (data[0] != 0)
-            {
-                //truncate zeros
-                int index = data.length - 1;
-                while (data[index] == 0 && index > 0)
-                    index--;
-                if (index != (data.length - 1))
-                {
-                    data = Arrays.copyOfRange(data, 0, index + 1);
-                }
-                name = new String(data, "UTF-8");
-                //now filter out any 'bad' chars
-                name = filterAscii(name);
-            }
-        }
-
-        return name;
-    }
-
-    private String filterAscii(String name)
-    {
-        StringBuilder sb = new StringBuilder();
-        for (char ch : name.toCharArray())
-        {
-            if (Character.isIdeographic(ch) ||
-                    Character.isLetterOrDigit(ch) ||
-                    Character.isWhitespace(ch) ||
-                    (ch >= 0x20 && ch <= 0x7E)) //some other common ASCII
-            {
-                sb.append(ch);
-            }
-        }
-
-        return sb.toString();
-    }
-
-    private int getDecimals(String address, NetworkInfo network) throws Exception {
-        if (EthereumNetworkRepository.decimalOverride(address, network.chainId) > 0) return EthereumNetworkRepository.decimalOverride(address, network.chainId);
-        Function function = decimalsOf();
-        Wallet temp = new Wallet(null);
-        String responseValue = callSmartContractFunction(function, address, network, temp);
-        if (TextUtils.isEmpty(responseValue)) return 18;
-
-        List<Type> response = FunctionReturnDecoder.decode(
-                responseValue, function.getOutputParameters());
-        if (response.size() == 1) {
-            return ((Uint8) response.get(0)).getValue().intValue();
-        } else {
-            return 18;
-        }
+        return ContractMetaRegistry.bytesToString(responseValue);
     }
 
     private static Function balanceOf(String owner) {
@@ -1054,12 +1011,6 @@ public class TokenRepository implements TokenRepositoryType {
                 Collections.singletonList(new TypeReference<DynamicArray<Uint256>>() {}));
     }
 
-    private static Function nameOf() {
-        return new Function("name",
-                Arrays.<Type>asList(),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Utf8String>() {}));
-    }
-
     private static Function supportsInterface(BigInteger value) {
         return new Function(
                 "supportsInterface",
@@ -1097,18 +1048,6 @@ public class TokenRepository implements TokenRepositoryType {
                 Arrays.<TypeReference<?>>asList(new TypeReference<Uint>() {}));
     }
 
-    private static Function symbolOf() {
-        return new Function("symbol",
-                Arrays.<Type>asList(),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Utf8String>() {}));
-    }
-
-    private static Function decimalsOf() {
-        return new Function("decimals",
-                Arrays.<Type>asList(),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Uint8>() {}));
-    }
-
     private static Function addrParam(String param) {
         return new Function(param,
                             Arrays.<Type>asList(),
@@ -1307,44 +1246,64 @@ public class TokenRepository implements TokenRepositoryType {
         });
     }
 
-    private Single<TokenInfo> setupTokensFromLocal(String address, int chainId) //pass exception up the chain
+    /**
+     * Find the chain a contract is deployed on, checking all the chains at once
+     *
+     * @param chainIds chains to check, the selected chain first
+     * @return locator with the contract's chain, or INVALID_CONTRACT if no chain has code at the address
+     */
+    @Override
+    public Single<ContractLocator> locateContract(String address, List<Integer> chainIds)
     {
-        return Single.fromCallable(() -> {
-            NetworkInfo network = ethereumNetworkRepository.getNetworkByChain(chainId);
-            return new TokenInfo(
-                    address,
-                    getContractData(network, address, nameOf(), ""),
-                    getContractData(network, address, symbolOf(), ""),
-                    getDecimals(address, network),
-                    false, chainId);
+        return chainLocator.locateChain(address, chainIds).map(chainId -> {
+            if (chainId == ContractChainLocator.NOT_FOUND) return new ContractLocator(INVALID_CONTRACT, chainIds.isEmpty() ? MAINNET_ID : chainIds.get(0));
+            else return new ContractLocator(address, chainId);
         });
     }
 
+    private Single<TokenInfo> setupTokensFromLocal(String address, int chainId) //pass exception up the chain
+    {
+        return Single.fromCallable(() -> toTokenInfo(address, contractRegistry.fetch(chainId, address)));
+    }
+
     private Single<Token[]> checkTokenData(Token[] tokens)
     {
         return Single.fromCallable(() -> {
-            for (int i = 0; i < tokens.length; i++)
+            //tokens that may need their name refreshed are read together, one batch per chain
+            Map<Integer, List<String>> refresh = new HashMap<>();
+            for (Token t : tokens)
+            {
+                if (!t.mayRequireRefresh()) continue;
+                List<String> addresses = refresh.get(t.tokenInfo.chainId);
+                if (addresses == null)
+                {
+                    addresses = new ArrayList<>();
+                    refresh.put(t.tokenInfo.chainId, addresses);
+                }
+                addresses.add(t.getAddress());
+            }
+
+            for (Map.Entry<Integer, List<String>> chain : refresh.entrySet())
             {
-                tokens[i] = updateTokenNameIfRequired(tokens[i]).blockingGet();
+                Map<String, ContractMeta> metas = contractRegistry.fetch(chain.getKey(), chain.getValue());
+                String networkName = ethereumNetworkRepository.getNetworkByChain(chain.getKey()).getShortName();
+                for (int i = 0; i < tokens.length; i++)
+                {
+                    Token t = tokens[i];
+                    if (t.tokenInfo.chainId != chain.getKey() || !t.mayRequireRefresh()) continue;
+                    ContractMeta meta = metas.get(t.getAddress().toLowerCase());
+                    if (meta != null) tokens[i] = new Token(toTokenInfo(t.getAddress(), meta), BigDecimal.ZERO, 0, networkName, t.getInterfaceSpec());
+                }
             }
 
             return tokens;
         });
     }
 
-    private Single<Token> updateTokenNameIfRequired(final Token t)
+    private TokenInfo toTokenInfo(String address, ContractMeta meta)
     {
-        if (t.mayRequireRefresh())
-        {
-            return setupTokensFromLocal(t.getAddress(), t.tokenInfo.chainId)
-                    .map(updatedInfo -> new Token(updatedInfo, BigDecimal.ZERO, 0,
-                            ethereumNetworkRepository.getNetworkByChain(t.tokenInfo.chainId).getShortName(),
-                            t.getInterfaceSpec()));
-        }
-        else
-        {
-            return Single.fromCallable(() -> t);
-        }
+        int decimals = EthereumNetworkRepository.decimalOverride(address, meta.chainId);
+        return new TokenInfo(address, meta.name, meta.symbol, decimals > 0 ? decimals : meta.decimals, false, meta.chainId);
     }
 
     @Override
@@ -1363,8 +1322,26 @@ public class TokenRepository implements TokenRepositoryType {
     public Single<ContractType> determineCommonType(TokenInfo tokenInfo)
     {
         return Single.fromCallable(() -> {
-            ContractType returnType;
+            //a contract's interface doesn't change; another wallet may have determined it already
+            ContractType returnType = contractRegistry.getContractType(tokenInfo.chainId, tokenInfo.address);
+            if (returnType != ContractType.NOT_SET && returnType != ContractType.OTHER) return returnType;
+
             //could be ERC721, ERC721T, ERC875 or ERC20
+            //the contract code usually tells us, in one call
+            try
+            {
+                returnType = ContractInterfaceClassifier.getInstance().classify(getService(tokenInfo.chainId), tokenInfo.address);
+                if (returnType != null)
+                {
+                    if (returnType != ContractType.OTHER) contractRegistry.setContractType(tokenInfo.chainId, tokenInfo.address, returnType);
+                    return returnType;
+                }
+            }
+            catch (Exception e)
+            {
+                //fall back to probing
+            }
+
             //try some interface values
             NetworkInfo network = ethereumNetworkRepository.getNetworkByChain(tokenInfo.chainId);
             try
@@ -1381,6 +1358,9 @@ public class TokenRepository implements TokenRepositoryType {
                     returnType = ContractType.ERC721;
                 else
                     returnType = ContractType.OTHER;
+
+                //only a declared interface is kept; the balance checks below can be misled by a failing node
+                if (returnType != ContractType.OTHER) contractRegistry.setContractType(tokenInfo.chainId, tokenInfo.address, returnType);
             }
             catch (Exception e)
             {
@@ -1504,4 +1484,45 @@ public class TokenRepository implements TokenRepositoryType {
 
         return false;
     }
+
+    /**
+     * Registry entries are kept in their own realm, as they're shared by every wallet
+     */
+    private static class RealmContractMetaStore implements ContractMetaRegistry.Store
+    {
+        private final RealmManager realmManager;
+
+        RealmContractMetaStore(RealmManager realmManager)
+        {
+            this.realmManager = realmManager;
+        }
+
+        @Override
+        public List<ContractMeta> load()
+        {
+            return realmManager.read(RealmManager.CONTRACT_DATA_DB, r -> {
+                List<ContractMeta> metas = new ArrayList<>();
+                for (RealmContractMeta item : r.where(RealmContractMeta.class).findAll())
+                {
+                    metas.add(item.getMeta());
+                }
+                return metas;
+            });
+        }
+
+        @Override
+        public void save(Collection<ContractMeta> metas)
+        {
+            realmManager.write(RealmManager.CONTRACT_DATA_DB, r -> {
+                for (ContractMeta meta : metas)
+                {
+                    RealmContractMeta item = r.where(RealmContractMeta.class)
+                            .equalTo("instanceKey", meta.getKey())
+                            .findFirst();
+                    if (item == null) item = r.createObject(RealmContractMeta.class, meta.getKey());
+                    item.setMeta(meta);
+                }
+            });
+        }
+    }
 }
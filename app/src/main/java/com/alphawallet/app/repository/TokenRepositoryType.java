@@ -26,6 +26,7 @@ public interface TokenRepositoryType {
     Observable<Token> fetchActiveTokenBalance(String walletAddress, Token token);
     Single<BigDecimal> updateTokenBalance(String walletAddress, Token token);
     Single<ContractLocator> getTokenResponse(String address, int chainId, String method);
+    Single<ContractLocator> locateContract(String address, List<Integer> chainIds);
     Single<Token[]> checkInterface(Token[] tokens, Wallet wallet);
     Completable setEnable(Wallet wallet, Token token, boolean isEnabled);
     Completable setVisibilityChanged(Wallet wallet, Token token);
@@ -51,6 +51,7 @@ public class TokensRealmSource implements TokenLocalSource {
     public static final String ADDRESS_FORMAT = "0x????????????????????????????????????????-*";
 
     public static final String EVENT_CARDS = "-eventName";
+    public static final int EVENT_TOKEN_ID_LENGTH = 64;
 
     private final RealmManager realmManager;
     private final EthereumNetworkRepositoryType ethereumNetworkRepository;
@@ -447,6 +448,34 @@ public class TokensRealmSource implements TokenLocalSource {
         return eventAddress.toLowerCase() + "-" + chainId + "-" + namedType + "-" + filter + "-eventBlock";
     }
 
+    /**
+     * tokenId as stored on event activity rows: 64 digit zero padded hex, so ids compare equal (and sort) as numbers
+     */
+    public static String eventTokenId(BigInteger tokenId)
+    {
+        String hex = tokenId.toString(16);
+        StringBuilder sb = new StringBuilder(EVENT_TOKEN_ID_LENGTH);
+        for (int i = hex.length(); i < EVENT_TOKEN_ID_LENGTH; i++) sb.append('0');
+        return sb.append(hex).toString();
+    }
+
+    /**
+     * Event activity tokenId from the unpadded hex stored before schema 27; anything unreadable is token 0
+     */
+    public static String eventTokenId(String hexTokenId)
+    {
+        try
+        {
+            BigInteger tokenId = new BigInteger(hexTokenId, 16);
+            if (tokenId.signum() >= 0 && tokenId.bitLength() <= 256) return eventTokenId(tokenId);
+        }
+        catch (NumberFormatException | NullPointerException e)
+        {
+            //fall through
+        }
+        return eventTokenId(BigInteger.ZERO);
+    }
+
     @Override
     public void markBalanceChecked(Wallet wallet, int chainId, String tokenAddress)
     {
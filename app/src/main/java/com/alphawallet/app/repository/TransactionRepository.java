@@ -6,9 +6,11 @@ import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.TransactionData;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.entity.cryptokeys.SignatureReturnType;
 import com.alphawallet.app.repository.entity.RealmAuxData;
 import com.alphawallet.app.service.AccountKeystoreService;
+import com.alphawallet.app.service.NonceManager;
 import com.alphawallet.app.service.TransactionsService;
 import com.alphawallet.app.web3.entity.Web3Transaction;
 import com.alphawallet.token.entity.Signable;
@@ -17,6 +19,7 @@ import org.web3j.crypto.RawTransaction;
 import org.web3j.crypto.Sign;
 import org.web3j.crypto.TransactionEncoder;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
@@ -26,6 +29,7 @@ import org.web3j.rlp.RlpType;
 import org.web3j.utils.Numeric;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.reactivex.Single;
@@ -43,6 +47,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 	private final AccountKeystoreService accountKeystoreService;
     private final TransactionLocalSource inDiskCache;
     private final TransactionsService transactionsService;
+	private final NonceManager nonceManager;
 
 	public TransactionRepository(
 			EthereumNetworkRepositoryType networkRepository,
@@ -53,6 +58,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 		this.accountKeystoreService = accountKeystoreService;
 		this.inDiskCache = inDiskCache;
 		this.transactionsService = transactionsService;
+		this.nonceManager = new NonceManager(new NodeNonceSource());
 	}
 
 	@Override
@@ -102,7 +108,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 
 		TransactionData txData = new TransactionData();
 
-		return networkRepository.getLastTransactionNonce(web3j, from.address)
+		return reserveNonce(from, chainId)
 				.flatMap(nonce -> {
 					txData.nonce = nonce;
 					return accountKeystoreService.signTransaction(from, toAddress, subunitAmount, useGasPrice, gasLimit, nonce.longValue(), data, chainId);
@@ -120,9 +126,12 @@ public class TransactionRepository implements TransactionRepositoryType {
 					{
 						throw new Exception(raw.getError().getMessage());
 					}
+					nonceManager.confirm(chainId, from.address, txData.nonce);
 					txData.txHash = raw.getTransactionHash();
 					return txData;
 				}))
+				.doOnError(e -> releaseNonce(from, chainId, txData.nonce, e))
+				.doOnDispose(() -> releaseNonce(from, chainId, txData.nonce, null))
 				.flatMap(tx -> storeUnconfirmedTransaction(from, tx.txHash, toAddress, subunitAmount, tx.nonce, useGasPrice, gasLimit, chainId, data != null ? Numeric.toHexString(data) : "0x"))
 				.subscribeOn(Schedulers.io());
 	}
@@ -134,7 +143,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 
 		TransactionData txData = new TransactionData();
 
-		return getNonceForTransaction(web3j, from.address, nonce)
+		return getNonceForTransaction(from, chainId, nonce)
 				.flatMap(txNonce -> {
 					txData.nonce = txNonce;
 					return accountKeystoreService.signTransaction(from, toAddress, subunitAmount, useGasPrice, gasLimit, txNonce.longValue(), data, chainId);
@@ -151,9 +160,12 @@ public class TransactionRepository implements TransactionRepositoryType {
 					if (raw.hasError()) {
 						throw new Exception(raw.getError().getMessage());
 					}
+					nonceManager.confirm(chainId, from.address, txData.nonce);
 					txData.txHash = raw.getTransactionHash();
 					return txData;
 				}))
+				.doOnError(e -> releaseNonce(from, chainId, txData.nonce, e))
+				.doOnDispose(() -> releaseNonce(from, chainId, txData.nonce, null))
 				.flatMap(tx -> storeUnconfirmedTransaction(from, tx, toAddress, subunitAmount, tx.nonce, useGasPrice, gasLimit, chainId, data != null ? Numeric.toHexString(data) : "0x", ""))
 				.subscribeOn(Schedulers.io());
 	}
@@ -189,7 +201,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 
 		TransactionData txData = new TransactionData();
 
-		return networkRepository.getLastTransactionNonce(web3j, from.address)
+		return reserveNonce(from, chainId)
 				.flatMap(txNonce -> {
 					txData.nonce = txNonce;
 					return getRawTransaction(txNonce, useGasPrice, gasLimit, BigInteger.ZERO, data);
@@ -203,9 +215,12 @@ public class TransactionRepository implements TransactionRepositoryType {
 					if (raw.hasError()) {
 						throw new Exception(raw.getError().getMessage());
 					}
+					nonceManager.confirm(chainId, from.address, txData.nonce);
 					txData.txHash = raw.getTransactionHash();
 					return txData;
 				}))
+				.doOnError(e -> releaseNonce(from, chainId, txData.nonce, e))
+				.doOnDispose(() -> releaseNonce(from, chainId, txData.nonce, null))
 				.flatMap(tx -> storeUnconfirmedTransaction(from, tx, "", BigInteger.ZERO, txData.nonce, useGasPrice, gasLimit, chainId, data, C.BURN_ADDRESS))
 				.subscribeOn(Schedulers.io());
 	}
@@ -286,6 +301,11 @@ public class TransactionRepository implements TransactionRepositoryType {
 		return accountKeystoreService.signTransactionFast(wallet, password, message, chainId);
 	}
 
+	@Override
+	public Single<SigningSession> openSigningSession(Wallet wallet, int maxSignatures) {
+		return accountKeystoreService.openSigningSession(wallet, maxSignatures);
+	}
+
 	/**
 	 * From Web3j to encode a constructor
 	 * @param rawTransaction
@@ -352,7 +372,7 @@ public class TransactionRepository implements TransactionRepositoryType {
 		transactionsService.startUpdateCycle();
 	}
 
-	private Single<BigInteger> getNonceForTransaction(Web3j web3j, String wallet, long nonce)
+	private Single<BigInteger> getNonceForTransaction(Wallet wallet, int chainId, long nonce)
 	{
 		if (nonce != -1) //use supplied nonce
 		{
@@ -360,7 +380,51 @@ public class TransactionRepository implements TransactionRepositoryType {
 		}
 		else
 		{
-			return networkRepository.getLastTransactionNonce(web3j, wallet);
+			return reserveNonce(wallet, chainId);
+		}
+	}
+
+	private Single<BigInteger> reserveNonce(Wallet wallet, int chainId)
+	{
+		return Single.fromCallable(() -> nonceManager.reserve(chainId, wallet.address));
+	}
+
+	/**
+	 * Give back a reserved nonce when the send fails, or is disposed (e is null). A disposed send may already
+	 * have reached the node, so the next reservation checks with the node first.
+	 */
+	private void releaseNonce(Wallet wallet, int chainId, BigInteger nonce, Throwable e)
+	{
+		if (nonce == null) return;
+		boolean resync = e == null || NonceManager.isNonceError(e.getMessage());
+		nonceManager.release(chainId, wallet.address, nonce, resync);
+	}
+
+	/**
+	 * Node transaction count plus the nonces of our own transactions still waiting to be written to a block
+	 */
+	private class NodeNonceSource implements NonceManager.NonceSource
+	{
+		@Override
+		public BigInteger getPendingNonce(int chainId, String walletAddress) throws Exception
+		{
+			return getWeb3jService(chainId)
+					.ethGetTransactionCount(walletAddress, DefaultBlockParameterName.PENDING)
+					.send()
+					.getTransactionCount();
+		}
+
+		@Override
+		public List<BigInteger> getLocalPendingNonces(int chainId, String walletAddress)
+		{
+			List<BigInteger> nonces = new ArrayList<>();
+			long cutoff = (System.currentTimeMillis() - NonceManager.LOCAL_PENDING_TRUST_TIME) / 1000;
+			for (Transaction tx : inDiskCache.fetchPendingTransactions(walletAddress))
+			{
+				//older rows are transactions the node dropped; their nonces are free again
+				if (tx.chainId == chainId && tx.timeStamp >= cutoff) nonces.add(BigInteger.valueOf(tx.nonce));
+			}
+			return nonces;
 		}
 	}
 }
@@ -5,6 +5,7 @@ import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.TransactionData;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.repository.entity.RealmAuxData;
 import com.alphawallet.app.web3.entity.Web3Transaction;
 import com.alphawallet.token.entity.Signable;
@@ -24,6 +25,7 @@ public interface TransactionRepositoryType {
 	Single<TransactionData> getSignatureForTransaction(Wallet wallet, Web3Transaction w3tx, int chainId);
 	Single<SignatureFromKey> getSignature(Wallet wallet, Signable message, int chainId);
 	Single<byte[]> getSignatureFast(Wallet wallet, String password, byte[] message, int chainId);
+	Single<SigningSession> openSigningSession(Wallet wallet, int maxSignatures);
 
     Transaction fetchCachedTransaction(String walletAddr, String hash);
 	long fetchTxCompletionTime(String walletAddr, String hash);
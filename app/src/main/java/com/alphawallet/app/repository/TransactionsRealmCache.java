@@ -8,6 +8,7 @@ import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.TransactionMeta;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.repository.entity.RealmAuxData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
 import com.alphawallet.app.repository.entity.RealmToken;
 import com.alphawallet.app.repository.entity.RealmTransaction;
 import com.alphawallet.app.repository.entity.RealmTransfer;
@@ -25,8 +26,6 @@ import io.realm.RealmQuery;
 import io.realm.RealmResults;
 import io.realm.Sort;
 
-import static com.alphawallet.app.repository.TokensRealmSource.EVENT_CARDS;
-
 public class TransactionsRealmCache implements TransactionLocalSource {
 
     private final RealmManager realmManager;
@@ -148,7 +147,7 @@ public class TransactionsRealmCache implements TransactionLocalSource {
             try (Realm instance = realmManager.getRealmInstance(wallet.address))
             {
                 RealmResults<RealmAuxData> evs = instance.where(RealmAuxData.class)
-                        .endsWith("instanceKey", EVENT_CARDS)
+                        .equalTo("recordType", RealmAuxData.RECORD_EVENT)
                         .findAll();
                 Log.d(TAG, "Found " + evs.size() + " TX Results");
                 for (RealmAuxData item : evs)
@@ -336,6 +335,10 @@ public class TransactionsRealmCache implements TransactionLocalSource {
                             .findAll();
                     data.deleteAllFromRealm();
 
+                    RealmResults<RealmEventBlock> eventBlocks = r.where(RealmEventBlock.class)
+                            .findAll();
+                    eventBlocks.deleteAllFromRealm();
+
                     RealmResults<RealmTransfer> realmTransfers = r.where(RealmTransfer.class)
                             .findAll();
                     realmTransfers.deleteAllFromRealm();
@@ -6,6 +6,7 @@ import com.alphawallet.app.BuildConfig;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.WalletType;
 import com.alphawallet.app.repository.entity.RealmAuxData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
 import com.alphawallet.app.repository.entity.RealmERC721Asset;
 import com.alphawallet.app.repository.entity.RealmKeyType;
 import com.alphawallet.app.repository.entity.RealmToken;
@@ -348,6 +349,7 @@ public class WalletDataRealmSource {
                 RealmResults<RealmERC721Asset> assets = realm.where(RealmERC721Asset.class).findAll();
                 RealmResults<RealmTransaction> transactions = realm.where(RealmTransaction.class).findAll();
                 RealmResults<RealmAuxData>     auxData = realm.where(RealmAuxData.class).findAll();
+                RealmResults<RealmEventBlock>  eventBlocks = realm.where(RealmEventBlock.class).findAll();
                 RealmResults<RealmTransfer>    transfers = realm.where(RealmTransfer.class).findAll();
 
                 realm.executeTransaction(r -> {
@@ -355,6 +357,7 @@ public class WalletDataRealmSource {
                     assets.deleteAllFromRealm();
                     transactions.deleteAllFromRealm();
                     auxData.deleteAllFromRealm();
+                    eventBlocks.deleteAllFromRealm();
                     transfers.deleteAllFromRealm();
                 });
             }
@@ -410,9 +413,9 @@ public class WalletDataRealmSource {
 
     private void storeWalletData(Wallet wallet)
     {
-        try (Realm realm = realmManager.getWalletDataRealmInstance())
+        try
         {
-            realm.executeTransaction(r -> {
+            realmManager.write(RealmManager.WALLET_DATA_DB, r -> {
                 RealmWalletData item = r.where(RealmWalletData.class)
                         .equalTo("address", wallet.address, Case.INSENSITIVE)
                         .findFirst();
@@ -431,51 +434,34 @@ public class WalletDataRealmSource {
 
     private boolean isDismissedInSettings(String wallet)
     {
-        try (Realm realm = realmManager.getWalletDataRealmInstance())
-        {
+        return realmManager.read(RealmManager.WALLET_DATA_DB, realm -> {
             RealmWalletData data = realm.where(RealmWalletData.class)
                     .equalTo("address", wallet, Case.INSENSITIVE)
                     .findFirst();
             return data != null && data.getIsDismissedInSettings();
-        }
+        });
     }
 
     private long getWalletWarningTime(String walletAddr)
     {
-        try (Realm realm = realmManager.getWalletDataRealmInstance())
-        {
+        return realmManager.read(RealmManager.WALLET_DATA_DB, realm -> {
             RealmWalletData data = realm.where(RealmWalletData.class)
                     .equalTo("address", walletAddr, Case.INSENSITIVE)
                     .findFirst();
 
-            if (data != null)
-            {
-                return data.getLastWarning();
-            }
-            else
-            {
-                return 0;
-            }
-        }
+            return data != null ? data.getLastWarning() : 0L;
+        });
     }
 
     private long getKeyBackupTime(String walletAddr)
     {
-        try (Realm realm = realmManager.getWalletTypeRealmInstance())
-        {
+        return realmManager.read(RealmManager.WALLET_TYPE_DB, realm -> {
             RealmKeyType realmKey = realm.where(RealmKeyType.class)
                     .equalTo("address", walletAddr, Case.INSENSITIVE)
                     .findFirst();
 
-            if (realmKey != null)
-            {
-                return realmKey.getLastBackup();
-            }
-            else
-            {
-                return 0;
-            }
-        }
+            return realmKey != null ? realmKey.getLastBackup() : 0L;
+        });
     }
 
     private Boolean requiresBackup(Long backupTime, Long warningTime)
@@ -7,6 +7,7 @@ import com.alphawallet.app.R;
 import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.tokens.Token;
 import com.alphawallet.app.repository.EventResult;
+import com.alphawallet.app.repository.TokensRealmSource;
 import com.alphawallet.app.ui.widget.entity.ENSHandler;
 import com.alphawallet.app.ui.widget.entity.StatusType;
 import com.alphawallet.app.util.Utils;
@@ -22,21 +23,28 @@ import io.realm.RealmObject;
 import io.realm.RealmQuery;
 import io.realm.RealmResults;
 import io.realm.Sort;
+import io.realm.annotations.Index;
 import io.realm.annotations.PrimaryKey;
 
-import static com.alphawallet.app.repository.TokensRealmSource.EVENT_CARDS;
-
 /**
  * Created by James on 6/05/2019.
  * Stormbird in Sydney
  */
 public class RealmAuxData extends RealmObject
 {
+    public static final int RECORD_DATA = 0;  //attribute results and other keyed values
+    public static final int RECORD_EVENT = 1; //event activity, keyed by TokensRealmSource.eventActivityKey
+
     @PrimaryKey
     private String instanceKey; //should be token address, token Id, chainId
+    @Index
     private int chainId;
+    @Index
     private String tokenAddress;
-    private String tokenId;
+    @Index
+    private String tokenId; //base 36 for attribute results; TokensRealmSource.eventTokenId for event activity
+    @Index
+    private int recordType;
     private String functionId;
     private String result;
     private long resultTime;
@@ -90,7 +98,7 @@ public class RealmAuxData extends RealmObject
     {
         try
         {
-            return new BigInteger(tokenId, Character.MAX_RADIX);
+            return new BigInteger(tokenId, recordType == RECORD_EVENT ? 16 : Character.MAX_RADIX);
         }
         catch (Exception e)
         {
@@ -103,6 +111,16 @@ public class RealmAuxData extends RealmObject
         this.tokenId = tokenId;
     }
 
+    public int getRecordType()
+    {
+        return recordType;
+    }
+
+    public void setRecordType(int recordType)
+    {
+        this.recordType = recordType;
+    }
+
     public String getFunctionId()
     {
         return functionId;
@@ -319,14 +337,16 @@ public class RealmAuxData extends RealmObject
 
     public static RealmQuery<RealmAuxData> getEventQuery(Realm realm, Token token, BigInteger tokenId, int historyCount, long timeLimit)
     {
-        String tokenIdHex = tokenId.toString(16);
         return realm.where(RealmAuxData.class)
-                .endsWith("instanceKey", EVENT_CARDS)
-                .sort("resultTime", Sort.DESCENDING)
-                .greaterThan("resultTime", timeLimit)
+                .equalTo("recordType", RECORD_EVENT)
                 .equalTo("chainId", token.tokenInfo.chainId)
-                .beginGroup().equalTo("tokenId", "0").or().equalTo("tokenId", tokenIdHex).endGroup()
                 .equalTo("tokenAddress", token.getAddress())
+                .beginGroup()
+                    .equalTo("tokenId", TokensRealmSource.eventTokenId(BigInteger.ZERO))
+                    .or().equalTo("tokenId", TokensRealmSource.eventTokenId(tokenId))
+                .endGroup()
+                .greaterThan("resultTime", timeLimit)
+                .sort("resultTime", Sort.DESCENDING)
                 .limit(historyCount);
     }
 }
@@ -0,0 +1,48 @@
+package com.alphawallet.app.repository.entity;
+
+import com.alphawallet.app.entity.ContractMeta;
+import com.alphawallet.app.entity.ContractType;
+
+import io.realm.RealmObject;
+import io.realm.annotations.Index;
+import io.realm.annotations.PrimaryKey;
+
+/**
+ * A ContractMetaRegistry entry, keyed by ContractMeta.key. Held in RealmManager.CONTRACT_DATA_DB, shared by all wallets.
+ */
+public class RealmContractMeta extends RealmObject
+{
+    @PrimaryKey
+    private String instanceKey;
+    @Index
+    private int chainId;
+    private String address;
+    private String name;
+    private String symbol;
+    private int decimals;
+    private int interfaceType;
+    private long updateTime;
+
+    public String getInstanceKey()
+    {
+        return instanceKey;
+    }
+
+    public ContractMeta getMeta()
+    {
+        ContractType[] types = ContractType.values();
+        ContractType type = interfaceType >= 0 && interfaceType < types.length ? types[interfaceType] : ContractType.NOT_SET;
+        return new ContractMeta(chainId, address, name, symbol, decimals, type, updateTime);
+    }
+
+    public void setMeta(ContractMeta meta)
+    {
+        chainId = meta.chainId;
+        address = meta.address;
+        name = meta.name;
+        symbol = meta.symbol;
+        decimals = meta.decimals;
+        interfaceType = meta.type.ordinal();
+        updateTime = meta.updateTime;
+    }
+}
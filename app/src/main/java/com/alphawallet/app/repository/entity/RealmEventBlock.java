@@ -0,0 +1,127 @@
+package com.alphawallet.app.repository.entity;
+
+import java.math.BigInteger;
+
+import io.realm.RealmObject;
+import io.realm.annotations.Index;
+import io.realm.annotations.PrimaryKey;
+
+/**
+ * The last block read for a TokenScript event, keyed by TokensRealmSource.eventBlockKey.
+ * These used to be RealmAuxData rows found with a suffix match on the key; they now have their own indexed table.
+ */
+public class RealmEventBlock extends RealmObject
+{
+    public static final String EVENT_BLOCK = "-eventBlock";
+
+    @PrimaryKey
+    private String instanceKey;
+    @Index
+    private int chainId;
+    @Index
+    private String contractAddress;
+    private String eventId; //activity or attribute name the event is declared for
+    @Index
+    private long readBlock;
+    private long updateTime;
+
+    public String getInstanceKey()
+    {
+        return instanceKey;
+    }
+
+    public int getChainId()
+    {
+        return chainId;
+    }
+
+    public void setChainId(int chainId)
+    {
+        this.chainId = chainId;
+    }
+
+    public String getContractAddress()
+    {
+        return contractAddress;
+    }
+
+    public void setContractAddress(String contractAddress)
+    {
+        this.contractAddress = contractAddress.toLowerCase();
+    }
+
+    public String getEventId()
+    {
+        return eventId;
+    }
+
+    public void setEventId(String eventId)
+    {
+        this.eventId = eventId;
+    }
+
+    public long getReadBlock()
+    {
+        return readBlock;
+    }
+
+    public void setReadBlock(long readBlock)
+    {
+        this.readBlock = readBlock;
+    }
+
+    public long getUpdateTime()
+    {
+        return updateTime;
+    }
+
+    public void setUpdateTime(long updateTime)
+    {
+        this.updateTime = updateTime;
+    }
+
+    // Parsing of the old RealmAuxData marker rows, used by the migration
+    // Key is address-chainId-namedType-filter-eventBlock; the filter may itself contain '-'
+
+    public static boolean isEventBlockKey(String instanceKey)
+    {
+        return instanceKey != null && instanceKey.endsWith(EVENT_BLOCK) && getKeyChainId(instanceKey) > 0;
+    }
+
+    public static String getKeyAddress(String instanceKey)
+    {
+        return instanceKey.substring(0, instanceKey.indexOf('-')).toLowerCase();
+    }
+
+    /**
+     * @return chainId of the key, or 0 if it doesn't have one
+     */
+    public static int getKeyChainId(String instanceKey)
+    {
+        String[] split = instanceKey.split("-");
+        if (split.length < 3) return 0;
+        try
+        {
+            return Integer.parseInt(split[1]);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * @return block number from the hex value the marker stored, or -1 if it's not a block number
+     */
+    public static long parseReadBlock(String hexBlock)
+    {
+        try
+        {
+            return new BigInteger(hexBlock, 16).longValue();
+        }
+        catch (NumberFormatException | NullPointerException e)
+        {
+            return -1;
+        }
+    }
+}
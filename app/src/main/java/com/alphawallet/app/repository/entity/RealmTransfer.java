@@ -7,6 +7,7 @@ import com.alphawallet.app.R;
 import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.tokens.Token;
 import com.alphawallet.app.repository.EventResult;
+import com.alphawallet.app.repository.TokensRealmSource;
 import com.alphawallet.app.ui.widget.entity.ENSHandler;
 import com.alphawallet.app.ui.widget.entity.StatusType;
 
@@ -22,8 +23,6 @@ import io.realm.RealmQuery;
 import io.realm.RealmResults;
 import io.realm.Sort;
 
-import static com.alphawallet.app.repository.TokensRealmSource.EVENT_CARDS;
-
 /**
  * Created by JB on 17/12/2020.
  */
@@ -77,14 +76,16 @@ public class RealmTransfer extends RealmObject
 
     public static RealmQuery<RealmAuxData> getEventQuery(Realm realm, Token token, BigInteger tokenId, int historyCount, long timeLimit)
     {
-        String tokenIdHex = tokenId.toString(16);
         return realm.where(RealmAuxData.class)
-                .endsWith("instanceKey", EVENT_CARDS)
-                .sort("resultTime", Sort.DESCENDING)
-                .greaterThan("resultTime", timeLimit)
+                .equalTo("recordType", RealmAuxData.RECORD_EVENT)
                 .equalTo("chainId", token.tokenInfo.chainId)
-                .beginGroup().equalTo("tokenId", "0").or().equalTo("tokenId", tokenIdHex).endGroup()
                 .equalTo("tokenAddress", token.getAddress())
+                .beginGroup()
+                    .equalTo("tokenId", TokensRealmSource.eventTokenId(BigInteger.ZERO))
+                    .or().equalTo("tokenId", TokensRealmSource.eventTokenId(tokenId))
+                .endGroup()
+                .greaterThan("resultTime", timeLimit)
+                .sort("resultTime", Sort.DESCENDING)
                 .limit(historyCount);
     }
 }
@@ -2,6 +2,7 @@ package com.alphawallet.app.service;
 
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.token.entity.Signable;
 
 import java.math.BigInteger;
@@ -75,6 +76,16 @@ public interface AccountKeystoreService {
 			byte[] message,
 			long chainId);
 
+	/**
+	 * Unlock the signing key once for a run of signatures
+	 * @param signer {@link Wallet}
+	 * @param maxSignatures signature count after which the session key is wiped
+	 * @return session; a failed session if the key couldn't be unlocked
+	 */
+	Single<SigningSession> openSigningSession(
+			Wallet signer,
+			int maxSignatures);
+
 	/**
 	 * Check if there is an address in the keystore
 	 * @param address {@link Wallet} address
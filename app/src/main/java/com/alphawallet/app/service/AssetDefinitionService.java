@@ -31,13 +31,17 @@ import com.alphawallet.app.repository.EthereumNetworkRepositoryType;
 import com.alphawallet.app.repository.TokenLocalSource;
 import com.alphawallet.app.repository.TokensRealmSource;
 import com.alphawallet.app.repository.TransactionRepositoryType;
+import com.alphawallet.app.repository.TransactionsRealmCache;
 import com.alphawallet.app.repository.entity.RealmAuxData;
 import com.alphawallet.app.repository.entity.RealmCertificateData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
 import com.alphawallet.app.repository.entity.RealmTokenScriptData;
+import com.alphawallet.app.repository.entity.RealmTransaction;
 import com.alphawallet.app.ui.HomeActivity;
 import com.alphawallet.app.ui.widget.entity.IconItem;
 import com.alphawallet.app.util.Utils;
 import com.alphawallet.app.viewmodel.HomeViewModel;
+import com.alphawallet.app.web3.TokenScriptRenderCache;
 import com.alphawallet.token.entity.Attribute;
 import com.alphawallet.token.entity.AttributeInterface;
 import com.alphawallet.token.entity.ContractAddress;
@@ -63,9 +67,7 @@ import org.web3j.abi.datatypes.Function;
 import org.web3j.crypto.Keys;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.methods.request.EthFilter;
-import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthLog;
-import org.web3j.protocol.core.methods.response.Log;
 import org.xml.sax.SAXException;
 
 import java.io.BufferedOutputStream;
@@ -85,12 +87,15 @@ import java.net.URLEncoder;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
@@ -146,6 +151,7 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
     private final AlphaWalletService alphaWalletService;
     private final TransactionRepositoryType transactionRespository;
     private TokenDefinition cachedDefinition = null;
+    private final TokenScriptRenderCache renderCache = TokenScriptRenderCache.getInstance();
     private final ConcurrentHashMap<String, EventDefinition> eventList = new ConcurrentHashMap<>(); //List of events built during file load
     private final Semaphore assetLoadingLock;  // used to block if someone calls getAssetDefinitionASync() while loading
     private Disposable eventListener;           // timer thread that periodically checks event logs for scripts that require events
@@ -153,6 +159,7 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
     private FragmentMessenger homeMessenger;
 
     private final TokenscriptFunction tokenscriptUtility;
+    private final EventLogIngester eventIngester;
 
     @Nullable
     private Disposable checkEventDisposable;
@@ -177,6 +184,7 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
         tokenscriptUtility = new TokenscriptFunction() { }; //no overridden functions
         tokenLocalSource = trs;
         transactionRespository = trt;
+        eventIngester = new EventLogIngester(new RealmEventStore());
         assetLoadingLock = new Semaphore(1);
         eventConnection = new Semaphore(1);
         //deleteAllEventData();
@@ -333,6 +341,10 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
                         .contains("instanceKey", scriptData.getOriginTokenAddress())
                         .findAll();
                 realmEvents.deleteAllFromRealm();
+                RealmResults<RealmEventBlock> eventBlocks = r.where(RealmEventBlock.class)
+                        .equalTo("contractAddress", scriptData.getOriginTokenAddress().toLowerCase())
+                        .findAll();
+                eventBlocks.deleteAllFromRealm();
             });
         }
         catch (Exception e)
@@ -379,6 +391,9 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
     {
         if (originContracts.size() == 0) return td; //no action needed
 
+        //new or replaced script; drop any views cached from the old one
+        for (ContractLocator cl : originContracts) renderCache.invalidate(cl.chainId, cl.address);
+
         boolean hasEvents = td.hasEvents();
 
         try (Realm realm = realmManager.getRealmInstance(ASSET_DEFINITION_DB))
@@ -1298,146 +1313,112 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
         return EventUtils.generateLogFilter(ev, originToken, this);
     }
 
-    private String processLogs(EventDefinition ev, List<EthLog.LogResult> logs, String walletAddress)
+    private String processLogs(EventDefinition ev, List<EthLog.LogResult> logs, String walletAddress) throws IOException
     {
         if (logs.size() == 0) return ""; //early return
         int chainId = ev.contract.addresses.keySet().iterator().next();
-        Web3j web3j = getWeb3jService(chainId);
-
-        String firstTxHash = "";
-
-        int index = logs.size() - 1;
+        return eventIngester.ingest(walletAddress, ev, logs, getWeb3jService(chainId));
+    }
 
-        for (int i = index; i >= 0; i--)
+    private class RealmEventStore implements EventLogIngester.EventStore
+    {
+        @Override
+        public TransactionResult getFunctionResult(ContractAddress contract, Attribute attr, BigInteger tokenId)
         {
-            EthLog.LogResult ethLog = logs.get(i);
-            String txHash = ((Log)ethLog.get()).getTransactionHash();
-            if (TextUtils.isEmpty(firstTxHash)) firstTxHash = txHash;
-            String selectVal = EventUtils.getSelectVal(ev, ethLog);
-            BigInteger blockNumber = ((Log)ethLog.get()).getBlockNumber();
-
-            if (blockNumber.compareTo(ev.readBlock) > 0)
-            {
-                //Should store the latest event value
-                storeLatestEventBlockTime(walletAddress, ev, blockNumber);
-            }
-
-            if (ev.parentAttribute != null)
-            {
-                storeEventValue(walletAddress, ev, ethLog, ev.parentAttribute, selectVal);
-            }
-            else
-            {
-                EthBlock txBlock = EventUtils.getBlockDetails(((Log)ethLog.get()).getBlockHash(), web3j).blockingGet();
-                long blockTime = txBlock.getBlock().getTimestamp().longValue();
-
-                storeActivityValue(walletAddress, ev, ethLog, blockTime, ev.activityName);
-
-                //do we need to fetch transaction from chain or do we have it already?
-                com.alphawallet.app.entity.Transaction tx = transactionRespository.fetchCachedTransaction(walletAddress, txHash);
-
-                if (tx == null)
-                {
-                    EventUtils.getTransactionDetails(txHash, web3j)
-                            .flatMap(ethTx -> transactionRespository.storeRawTx(new Wallet(walletAddress), ethTx, blockTime))
-                            .subscribeOn(Schedulers.io())
-                            .observeOn(AndroidSchedulers.mainThread())
-                            .subscribe(System.out::println, this::onError)
-                            .isDisposed();
-                }
-            }
+            return AssetDefinitionService.this.getFunctionResult(contract, attr, tokenId);
         }
 
-        return firstTxHash;
-    }
-
-    private void storeLatestEventBlockTime(String walletAddress, EventDefinition ev, BigInteger readBlock)
-    {
-        ev.readBlock = readBlock.add(BigInteger.ONE);
-        try (Realm realm = realmManager.getRealmInstance(walletAddress))
+        @Override
+        public Set<String> getStoredTransactions(String walletAddress, Collection<String> txHashes)
         {
-            int chainId = ev.getEventChainId();
-            String eventAddress = ev.getEventContractAddress();
-            String eventName = ev.activityName != null ? ev.activityName : ev.attributeName;
-            String databaseKey = TokensRealmSource.eventBlockKey(chainId, eventAddress, ev.type.name, ev.filter);
-            realm.executeTransactionAsync(r -> {
-                RealmAuxData realmToken = r.where(RealmAuxData.class)
-                        .equalTo("instanceKey", databaseKey)
-                        .findFirst();
-                if (realmToken == null) realmToken = r.createObject(RealmAuxData.class, databaseKey);
-                realmToken.setResultTime(System.currentTimeMillis());
-                realmToken.setResult(ev.readBlock.toString(16));
-                realmToken.setFunctionId(eventName);
-                realmToken.setChainId(chainId);
-                realmToken.setTokenAddress("");
+            return realmManager.read(realmManager.getRealmInstanceName(walletAddress), r -> {
+                Set<String> stored = new HashSet<>();
+                for (RealmTransaction realmTx : r.where(RealmTransaction.class)
+                        .in("hash", txHashes.toArray(new String[0]))
+                        .findAll())
+                {
+                    stored.add(realmTx.getHash());
+                }
+                return stored;
             });
         }
-        catch (Exception e)
+
+        @Override
+        public void commit(String walletAddress, EventLogIngester.Batch batch)
         {
-            e.printStackTrace();
+            storeEvents(walletAddress, batch);
         }
     }
 
-    private void storeActivityValue(String walletAddress, EventDefinition ev, EthLog.LogResult log, long blockTime, String activityName)
+    /**
+     * Store all the values, activity and transactions from a page of event logs, and the block to read the
+     * event from next, in one transaction
+     */
+    private void storeEvents(String walletAddress, EventLogIngester.Batch batch)
     {
-        BigInteger tokenId = EventUtils.getTokenId(ev, log);
-        //split out all the event data
-        String valueList = EventUtils.getAllTopics(ev, log);
-
-        String selectVal = EventUtils.getSelectVal(ev, log);
-
-        ContractAddress eventContractAddress = new ContractAddress(ev.getEventChainId(),
-                ev.getEventContractAddress());
+        final boolean storeAttributes = hasValidWallet(); //as for storeAuxData
+        realmManager.write(realmManager.getRealmInstanceName(walletAddress), r -> {
+            if (storeAttributes)
+            {
+                for (TransactionResult tResult : batch.attributeResults)
+                {
+                    writeAuxData(r, tResult);
+                }
+            }
 
-        //store this data
-        String txHash = ((Log) log.get()).getTransactionHash();
-        String key = TokensRealmSource.eventActivityKey(txHash, ev.type.name);
-        storeAuxData(walletAddress, key, tokenId, valueList, activityName, eventContractAddress, blockTime); //store the event itself
-    }
+            for (EventLogIngester.Activity activity : batch.activities)
+            {
+                writeActivity(r, activity);
+            }
 
-    private void storeAuxData(String walletAddress, String databaseKey, BigInteger tokenId, String eventData, String activityName, ContractAddress cAddr, long blockTime)
-    {
-        try (Realm realm = realmManager.getRealmInstance(walletAddress))
-        {
-            realm.executeTransactionAsync(r -> {
-                RealmAuxData realmToken = r.where(RealmAuxData.class)
-                        .equalTo("instanceKey", databaseKey)
+            for (com.alphawallet.app.entity.Transaction tx : batch.transactions)
+            {
+                RealmTransaction realmTx = r.where(RealmTransaction.class)
+                        .equalTo("hash", tx.hash)
                         .findFirst();
-                if (realmToken == null) realmToken = r.createObject(RealmAuxData.class, databaseKey);
-                realmToken.setResultTime(blockTime);
-                realmToken.setResult(eventData);
-                realmToken.setFunctionId(activityName);
-                realmToken.setChainId(cAddr.chainId);
-                realmToken.setTokenId(tokenId.toString(16));
-                realmToken.setTokenAddress(cAddr.address);
-                realmToken.setResultReceivedTime(System.currentTimeMillis());
-            });
-        }
-        catch (Exception e)
-        {
-            e.printStackTrace();
-        }
+                if (realmTx != null) realmTx.deleteFromRealm();
+                RealmTransaction item = r.createObject(RealmTransaction.class, tx.hash);
+                TransactionsRealmCache.fill(r, item, tx);
+            }
+
+            if (batch.readBlock != null)
+            {
+                writeEventBlock(r, batch.event, batch.readBlock);
+            }
+        });
     }
 
-    private void storeEventValue(String walletAddress, EventDefinition ev, EthLog.LogResult log, Attribute attr,
-                                 String selectVal)
+    private void writeEventBlock(Realm r, EventDefinition ev, BigInteger readBlock)
     {
-        //store result
-        BigInteger tokenId = EventUtils.getTokenId(ev, log);
-
-        ContractAddress eventContractAddress = new ContractAddress(ev.getEventChainId(),
-                ev.getEventContractAddress());
-        TransactionResult txResult = getFunctionResult(eventContractAddress, attr, tokenId);
-        txResult.result = attr.getSyntaxVal(selectVal);
-
-        long blockNumber = ((Log)log.get()).getBlockNumber().longValue();
-
-        //Update the entry for the attribute if required
-        if (txResult.resultTime == 0 || blockNumber >= txResult.resultTime)
-        {
-            txResult.resultTime = blockNumber;
-            storeAuxData(walletAddress, txResult);
-        }
+        int chainId = ev.getEventChainId();
+        String eventAddress = ev.getEventContractAddress();
+        String eventName = ev.activityName != null ? ev.activityName : ev.attributeName;
+        String databaseKey = TokensRealmSource.eventBlockKey(chainId, eventAddress, ev.type.name, ev.filter);
+        RealmEventBlock eventBlock = r.where(RealmEventBlock.class)
+                .equalTo("instanceKey", databaseKey)
+                .findFirst();
+        if (eventBlock == null) eventBlock = r.createObject(RealmEventBlock.class, databaseKey);
+        eventBlock.setUpdateTime(System.currentTimeMillis());
+        eventBlock.setReadBlock(readBlock.longValue());
+        eventBlock.setEventId(eventName);
+        eventBlock.setChainId(chainId);
+        eventBlock.setContractAddress(eventAddress);
+    }
+
+    private void writeActivity(Realm r, EventLogIngester.Activity activity)
+    {
+        RealmAuxData realmToken = r.where(RealmAuxData.class)
+                .equalTo("instanceKey", activity.databaseKey)
+                .findFirst();
+        if (realmToken == null) realmToken = r.createObject(RealmAuxData.class, activity.databaseKey);
+        realmToken.setResultTime(activity.blockTime);
+        realmToken.setResult(activity.eventData);
+        realmToken.setFunctionId(activity.activityName);
+        realmToken.setChainId(activity.contract.chainId);
+        realmToken.setTokenId(TokensRealmSource.eventTokenId(activity.tokenId));
+        realmToken.setTokenAddress(activity.contract.address);
+        realmToken.setRecordType(RealmAuxData.RECORD_EVENT);
+        realmToken.setResultReceivedTime(System.currentTimeMillis());
     }
 
     private boolean allowableExtension(File file)
@@ -1658,23 +1639,35 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
 
     public String getTokenView(int chainId, String contractAddr, String type)
     {
-        String viewHTML = "";
+        return renderCache.getView(chainId, contractAddr, type, this::loadTokenView);
+    }
+
+    public String getTokenViewStyle(int chainId, String contractAddr, String type)
+    {
+        return renderCache.getViewStyle(chainId, contractAddr, type, this::loadTokenViewStyle);
+    }
+
+    private String loadTokenView(int chainId, String contractAddr, String type)
+    {
+        String viewHTML = null;
         TokenDefinition td = getAssetDefinition(chainId, contractAddr);
         if (td != null)
         {
             viewHTML = td.getTokenView(type);
+            if (viewHTML == null) viewHTML = "";
         }
 
         return viewHTML;
     }
 
-    public String getTokenViewStyle(int chainId, String contractAddr, String type)
+    private String loadTokenViewStyle(int chainId, String contractAddr, String type)
     {
-        String styleData = "";
+        String styleData = null;
         TokenDefinition td = getAssetDefinition(chainId, contractAddr);
         if (td != null)
         {
             styleData = td.getTokenViewStyle(type);
+            if (styleData == null) styleData = "";
         }
 
         return styleData;
@@ -2059,29 +2052,11 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
     @Override
     public TransactionResult storeAuxData(String walletAddress, TransactionResult tResult)
     {
-        if (tokensService.getCurrentAddress() == null || !Utils.isAddressValid(tokensService.getCurrentAddress())) return tResult;
+        if (!hasValidWallet()) return tResult;
         if (tResult.result == null || tResult.resultTime < 0) return tResult;
         try (Realm realm = realmManager.getRealmInstance(walletAddress))
         {
-            ContractAddress cAddr = new ContractAddress(tResult.contractChainId, tResult.contractAddress);
-            String databaseKey = functionKey(cAddr, tResult.tokenId, tResult.attrId);
-            realm.executeTransactionAsync(r -> {
-                RealmAuxData realmToken = r.where(RealmAuxData.class)
-                        .equalTo("instanceKey", databaseKey)
-                        .equalTo("chainId", tResult.contractChainId)
-                        .findFirst();
-
-                if (realmToken == null)
-                {
-                    createAuxData(r, tResult, databaseKey);
-                }
-                else if (tResult.result != null)
-                {
-                    realmToken.setResult(tResult.result);
-                    realmToken.setResultTime(tResult.resultTime);
-                    realmToken.setResultReceivedTime(System.currentTimeMillis());
-                }
-            });
+            realm.executeTransactionAsync(r -> writeAuxData(r, tResult));
         }
         catch (Exception e)
         {
@@ -2091,18 +2066,44 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
         return tResult;
     }
 
+    private boolean hasValidWallet()
+    {
+        return tokensService.getCurrentAddress() != null && Utils.isAddressValid(tokensService.getCurrentAddress());
+    }
+
+    private void writeAuxData(Realm r, TransactionResult tResult)
+    {
+        if (tResult.result == null || tResult.resultTime < 0) return;
+        ContractAddress cAddr = new ContractAddress(tResult.contractChainId, tResult.contractAddress);
+        String databaseKey = functionKey(cAddr, tResult.tokenId, tResult.attrId);
+        RealmAuxData realmToken = r.where(RealmAuxData.class)
+                .equalTo("instanceKey", databaseKey)
+                .equalTo("chainId", tResult.contractChainId)
+                .findFirst();
+
+        if (realmToken == null)
+        {
+            createAuxData(r, tResult, databaseKey);
+        }
+        else
+        {
+            realmToken.setResult(tResult.result);
+            realmToken.setResultTime(tResult.resultTime);
+            realmToken.setResultReceivedTime(System.currentTimeMillis());
+        }
+    }
+
     private void updateEventBlockTimes()
     {
         try (Realm realm = realmManager.getRealmInstance(tokensService.getCurrentAddress()))
         {
-            RealmResults<RealmAuxData> realmEvents = realm.where(RealmAuxData.class)
-                    .endsWith("instanceKey", "-eventBlock")
-                    .sort("resultTime", Sort.ASCENDING)
+            RealmResults<RealmEventBlock> eventBlocks = realm.where(RealmEventBlock.class)
+                    .sort("updateTime", Sort.ASCENDING)
                     .findAll();
 
-            for (RealmAuxData eventData : realmEvents)
+            for (RealmEventBlock eventBlock : eventBlocks)
             {
-                updateEventList(eventData);
+                updateEventList(eventBlock);
             }
         }
         catch (Exception e)
@@ -2124,6 +2125,9 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
                 RealmResults<RealmAuxData> realmEvents = r.where(RealmAuxData.class)
                         .findAll();
                 realmEvents.deleteAllFromRealm();
+                RealmResults<RealmEventBlock> eventBlocks = r.where(RealmEventBlock.class)
+                        .findAll();
+                eventBlocks.deleteAllFromRealm();
             });
         }
         catch (Exception e)
@@ -2151,19 +2155,13 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
         }
     }
 
-    private void updateEventList(RealmAuxData eventData)
+    private void updateEventList(RealmEventBlock eventBlock)
     {
-        String[] contractDetails = eventData.getInstanceKey().split("-");
-        if (contractDetails.length != 5) return;
-        String eventAddress = contractDetails[0];
-        int chainId = Integer.parseInt(contractDetails[1]);
-        String eventId = eventData.getFunctionId();
-
-        String eventKey = EventDefinition.getEventKey(chainId, eventAddress, eventId, null);
+        String eventKey = EventDefinition.getEventKey(eventBlock.getChainId(), eventBlock.getContractAddress(), eventBlock.getEventId(), null);
         EventDefinition ev = eventList.get(eventKey);
         if (ev != null)
         {
-            ev.readBlock = new BigInteger(eventData.getResult(), 16).add(BigInteger.ONE); // add one so we don't pick up the same event again
+            ev.readBlock = BigInteger.valueOf(eventBlock.getReadBlock()).add(BigInteger.ONE); // add one so we don't pick up the same event again
         }
     }
 
@@ -2363,6 +2361,7 @@ public class AssetDefinitionService implements ParseResult, AttributeInterface
     public void clearCache()
     {
         cachedDefinition = null;
+        renderCache.invalidateAll();
     }
 
     public ContractLocator getHoldingContract(String importFileName)
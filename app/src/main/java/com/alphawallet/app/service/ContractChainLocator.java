@@ -0,0 +1,219 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.util.BoundedLruCache;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetCode;
+import org.web3j.utils.Numeric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+
+/**
+ * Finds the chain a contract address is deployed on, for token import.
+ *
+ * Every chain is checked at once with eth_getCode. The first chain given is the user's selected chain: if it has code
+ * the search ends there and the other checks are cancelled. If it doesn't, the first other chain to report code is
+ * used. A chain that timed out on its last check gets a short timeout, so an unresponsive node doesn't hold up the
+ * import screen every time. Chains with no code at the address are remembered for a while and not checked again.
+ */
+public class ContractChainLocator
+{
+    public static final int NOT_FOUND = 0;
+    public static final long PROBE_TIMEOUT = 10 * 1000;
+    public static final long SLOW_PROBE_TIMEOUT = 3 * 1000;
+    public static final long NO_CODE_RECHECK = 10 * 60 * 1000;
+    private static final int MAX_NO_CODE_ENTRIES = 512;
+
+    public interface NodeProvider
+    {
+        Web3j getService(int chainId);
+    }
+
+    private enum Answer { CODE, NO_CODE, FAILED }
+
+    private static class Probe
+    {
+        final int chainId;
+        final Answer answer;
+
+        Probe(int chainId, Answer answer)
+        {
+            this.chainId = chainId;
+            this.answer = answer;
+        }
+    }
+
+    private final NodeProvider nodes;
+    private final long probeTimeout;
+    private final long slowProbeTimeout;
+    private final ExecutorService probePool = Executors.newCachedThreadPool();
+    private final BoundedLruCache<String, Long> noCode = new BoundedLruCache<>(MAX_NO_CODE_ENTRIES); //chain-address -> time to check again
+    private final Set<Integer> slowChains = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    public ContractChainLocator(NodeProvider nodes)
+    {
+        this(nodes, PROBE_TIMEOUT, SLOW_PROBE_TIMEOUT);
+    }
+
+    public ContractChainLocator(NodeProvider nodes, long probeTimeout, long slowProbeTimeout)
+    {
+        this.nodes = nodes;
+        this.probeTimeout = probeTimeout;
+        this.slowProbeTimeout = slowProbeTimeout;
+    }
+
+    /**
+     * Blocks until the chain is known, or every chain has answered or timed out, so call from an IO thread.
+     * Interrupting the caller cancels the checks.
+     *
+     * @param chainIds chains to check, the selected chain first
+     * @return chain the contract is on, or NOT_FOUND
+     */
+    public int locate(String address, List<Integer> chainIds) throws InterruptedException
+    {
+        if (chainIds.isEmpty()) return NOT_FOUND;
+        String contract = address.toLowerCase();
+        int primaryChain = chainIds.get(0);
+        long now = System.currentTimeMillis();
+
+        CompletionService<Probe> completion = new ExecutorCompletionService<>(probePool);
+        Map<Integer, Future<Probe>> pending = new HashMap<>();
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int chainId : chainIds)
+        {
+            if (pending.containsKey(chainId)) continue;
+            Long recheckTime = noCode.get(noCodeKey(chainId, contract));
+            if (recheckTime != null && recheckTime > now) continue;
+            pending.put(chainId, completion.submit(() -> probe(chainId, contract)));
+            deadlines.put(chainId, now + (slowChains.contains(chainId) ? slowProbeTimeout : probeTimeout));
+        }
+
+        List<Integer> found = new ArrayList<>(); //chains other than the primary with code, in the order they answered
+        try
+        {
+            while (!pending.isEmpty())
+            {
+                Future<Probe> done = completion.poll(nextDeadline(deadlines) - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if (done == null)
+                {
+                    expireProbes(pending, deadlines);
+                }
+                else if (!done.isCancelled())
+                {
+                    Probe probe = getProbe(done);
+                    if (pending.remove(probe.chainId) == null) continue; //answered just as it expired
+                    deadlines.remove(probe.chainId);
+                    if (probe.answer != Answer.FAILED) slowChains.remove(probe.chainId);
+
+                    if (probe.answer == Answer.CODE)
+                    {
+                        if (probe.chainId == primaryChain) return primaryChain;
+                        found.add(probe.chainId);
+                    }
+                    else if (probe.answer == Answer.NO_CODE)
+                    {
+                        noCode.put(noCodeKey(probe.chainId, contract), System.currentTimeMillis() + NO_CODE_RECHECK);
+                    }
+                }
+
+                //a hit elsewhere is only used once the selected chain is ruled out
+                if (!found.isEmpty() && !pending.containsKey(primaryChain)) return found.get(0);
+            }
+
+            return NOT_FOUND;
+        }
+        finally
+        {
+            for (Future<Probe> probe : pending.values()) probe.cancel(true);
+        }
+    }
+
+    /**
+     * locate, run when subscribed. Disposing cancels the checks; the interrupt that does this ends the search with
+     * NOT_FOUND, which is dropped, rather than an error with no one left to receive it.
+     */
+    public Single<Integer> locateChain(String address, List<Integer> chainIds)
+    {
+        return Single.fromCallable(() -> {
+            try
+            {
+                return locate(address, chainIds);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return NOT_FOUND;
+            }
+        });
+    }
+
+    private Probe probe(int chainId, String address)
+    {
+        try
+        {
+            Web3j web3j = nodes.getService(chainId);
+            EthGetCode response = web3j.ethGetCode(address, DefaultBlockParameterName.LATEST).send();
+            if (response.hasError() || response.getCode() == null) return new Probe(chainId, Answer.FAILED);
+            //some nodes answer "0x0" for an account with no code
+            boolean hasCode = Numeric.cleanHexPrefix(response.getCode()).replace("0", "").length() > 0;
+            return new Probe(chainId, hasCode ? Answer.CODE : Answer.NO_CODE);
+        }
+        catch (Exception e)
+        {
+            return new Probe(chainId, Answer.FAILED); //node unreachable, or the check was cancelled
+        }
+    }
+
+    // Cancel the checks that have run past their timeout, and give their chains the short timeout next time
+    private void expireProbes(Map<Integer, Future<Probe>> pending, Map<Integer, Long> deadlines)
+    {
+        long now = System.currentTimeMillis();
+        for (Integer chainId : new ArrayList<>(pending.keySet()))
+        {
+            if (deadlines.get(chainId) > now) continue;
+            pending.remove(chainId).cancel(true);
+            deadlines.remove(chainId);
+            slowChains.add(chainId);
+        }
+    }
+
+    private static long nextDeadline(Map<Integer, Long> deadlines)
+    {
+        long next = Long.MAX_VALUE;
+        for (long deadline : deadlines.values()) next = Math.min(next, deadline);
+        return next;
+    }
+
+    private static Probe getProbe(Future<Probe> done) throws InterruptedException
+    {
+        try
+        {
+            return done.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException(e.getCause()); //probe catches everything
+        }
+    }
+
+    private static String noCodeKey(int chainId, String address)
+    {
+        return chainId + "-" + address;
+    }
+}
@@ -0,0 +1,334 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.entity.ContractType;
+import com.alphawallet.app.util.BoundedLruCache;
+
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetCode;
+import org.web3j.protocol.core.methods.response.EthGetStorageAt;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Works out a token contract's interface from its bytecode, fetched with a single eth_getCode, instead of probing it
+ * with supportsInterface and other calls.
+ *
+ * Solidity's function dispatcher compares the call's selector with each of the contract's function selectors (PUSH4
+ * selector EQ, or PUSH4 selector GT where the dispatcher is split), so those comparisons give the contract's own
+ * functions. A PUSH4 that isn't compared this way, eg the selector of a call the contract makes to a token, isn't
+ * counted. Interface ids checked by supportsInterface are shifted to the top of the word before they're compared, and
+ * are read as a separate signal. Classification follows the order of the probes in
+ * TokenRepository.determineCommonType. Where the code doesn't settle it (eg interface ids held in storage, Vyper
+ * selector tables, unknown proxies) the result is null and the caller probes as before.
+ *
+ * Results are cached by the keccak hash of the code, so every deployment and every EIP-1167 clone of the same contract
+ * is classified once. Proxies are classified by their implementation's code.
+ */
+public class ContractInterfaceClassifier
+{
+    private static final int MAX_CACHED_CODE = 2048;
+
+    private static final int TRANSFER = selector("transfer(address,uint256)");
+    private static final int BALANCE_OF = selector("balanceOf(address)");
+    private static final int OWNER_OF = selector("ownerOf(uint256)");
+    private static final int SAFE_TRANSFER_FROM = selector("safeTransferFrom(address,address,uint256)");
+    private static final int SAFE_TRANSFER_FROM_DATA = selector("safeTransferFrom(address,address,uint256,bytes)");
+    private static final int GET_BALANCES = selector("getBalances(address)");
+    private static final int[] ERC875_FUNCTIONS = {
+            selector("isStormBirdContract()"),
+            selector("transfer(address,uint16[])"),
+            selector("transferFrom(address,address,uint16[])"),
+            selector("trade(uint256,uint16[],uint8,bytes32,bytes32)"),
+            selector("transfer(address,uint256[])"),
+            selector("transferFrom(address,address,uint256[])"),
+            selector("trade(uint256,uint256[],uint8,bytes32,bytes32)")
+    };
+
+    //interface ids probed in TokenRepository
+    private static final int INTERFACE_BALANCES_721_TICKET = 0xc84aae17;
+    private static final int INTERFACE_OFFICIAL_ERC721 = 0x80ac58cd;
+    private static final int INTERFACE_CRYPTOKITTIES = 0x9a20483d;
+    private static final int INTERFACE_OLD_ERC721 = 0x6466353c;
+    private static final int INTERFACE_SUPERRARE = 0x5b5e139f;
+
+    private static final int OP_MUL = 0x02;
+    private static final int OP_GT = 0x11;
+    private static final int OP_EQ = 0x14;
+    private static final int OP_AND = 0x16;
+    private static final int OP_NOT = 0x19;
+    private static final int OP_SHL = 0x1b;
+    private static final int OP_PUSH1 = 0x60;
+    private static final int OP_PUSH4 = 0x63;
+    private static final int OP_PUSH29 = 0x7c;
+    private static final int OP_PUSH32 = 0x7f;
+    private static final int OP_DUP2 = 0x81;
+    private static final int OP_SWAP16 = 0x9f;
+    private static final int OP_DELEGATECALL = 0xf4;
+
+    //EIP-1167 minimal proxy: prefix, 20 byte implementation address, suffix
+    private static final byte[] CLONE_PREFIX = Numeric.hexStringToByteArray("363d3d373d3d3d363d73");
+    private static final byte[] CLONE_SUFFIX = Numeric.hexStringToByteArray("5af43d82803e903d91602b57fd5bf3");
+    //storage slots holding the implementation address: EIP-1967, and the earlier OpenZeppelin (zos) proxy
+    private static final BigInteger[] IMPLEMENTATION_SLOTS = {
+            Numeric.toBigInt("0x360894a13ba1a3210667c828492db98dca3e2076cc3735a920a3ca505d382bbc"),
+            Numeric.toBigInt("0x7050c9e0f4ca769c69bd3a8ef740bc37934f8e2c036e5a723fd8ee048ed3f8c3")
+    };
+
+    private static ContractInterfaceClassifier instance;
+
+    //code hash -> type; NOT_SET where the code couldn't be classified
+    private final BoundedLruCache<String, ContractType> codeTypes = new BoundedLruCache<>(MAX_CACHED_CODE);
+
+    public static synchronized ContractInterfaceClassifier getInstance()
+    {
+        if (instance == null) instance = new ContractInterfaceClassifier();
+        return instance;
+    }
+
+    /**
+     * @return the contract's type, OTHER if there's no code at the address, or null if it needs probing
+     */
+    public ContractType classify(Web3j web3j, String address) throws IOException
+    {
+        byte[] code = getCode(web3j, address);
+        if (code.length == 0) return ContractType.OTHER;
+
+        String codeHash = Numeric.toHexStringNoPrefix(Hash.sha3(code));
+        ContractType type = codeTypes.get(codeHash);
+        if (type == null)
+        {
+            type = classifyCode(code);
+            String implementation = type == null ? getCloneImplementation(code) : null;
+            if (implementation != null)
+            {
+                //a clone's code includes its implementation address, so the clone's type can be cached too
+                type = classifyImplementation(web3j, implementation);
+            }
+            else if (type == null && hasOpcode(code, OP_DELEGATECALL))
+            {
+                //other proxies can be repointed, so only the implementation's result is cached
+                implementation = getStoredImplementation(web3j, address);
+                return implementation != null ? classifyImplementation(web3j, implementation) : null;
+            }
+
+            codeTypes.put(codeHash, type != null ? type : ContractType.NOT_SET);
+        }
+
+        return type != ContractType.NOT_SET ? type : null;
+    }
+
+    /**
+     * Type from the contract code alone
+     *
+     * @return type, or null if the code doesn't show it
+     */
+    public static ContractType classifyCode(byte[] code)
+    {
+        int[] ops = getInstructions(code);
+        Set<Integer> functions = getDispatcherSelectors(code, ops);
+        Set<Integer> interfaces = getInterfaceIds(code, ops);
+
+        if (functions.contains(OWNER_OF))
+        {
+            if (functions.contains(GET_BALANCES) || interfaces.contains(INTERFACE_BALANCES_721_TICKET)) return ContractType.ERC721_TICKET;
+            if (interfaces.contains(INTERFACE_OFFICIAL_ERC721) || functions.contains(SAFE_TRANSFER_FROM)
+                    || functions.contains(SAFE_TRANSFER_FROM_DATA)) return ContractType.ERC721;
+            if (interfaces.contains(INTERFACE_CRYPTOKITTIES) || interfaces.contains(INTERFACE_OLD_ERC721)) return ContractType.ERC721_LEGACY;
+            if (interfaces.contains(INTERFACE_SUPERRARE)) return ContractType.ERC721;
+            return null; //pre-ERC165 NFT: the probes decide how it's treated
+        }
+
+        for (int function : ERC875_FUNCTIONS)
+        {
+            if (functions.contains(function)) return ContractType.ERC875;
+        }
+
+        if (functions.contains(BALANCE_OF) && functions.contains(TRANSFER)) return ContractType.ERC20;
+
+        return null;
+    }
+
+    public static int selector(String signature)
+    {
+        byte[] hash = Hash.sha3(signature.getBytes());
+        return ((hash[0] & 0xFF) << 24) | ((hash[1] & 0xFF) << 16) | ((hash[2] & 0xFF) << 8) | (hash[3] & 0xFF);
+    }
+
+    private ContractType classifyImplementation(Web3j web3j, String implementation) throws IOException
+    {
+        byte[] code = getCode(web3j, implementation);
+        if (code.length == 0) return null;
+
+        String codeHash = Numeric.toHexStringNoPrefix(Hash.sha3(code));
+        ContractType type = codeTypes.get(codeHash);
+        if (type == null)
+        {
+            type = classifyCode(code);
+            codeTypes.put(codeHash, type != null ? type : ContractType.NOT_SET);
+        }
+
+        return type != ContractType.NOT_SET ? type : null;
+    }
+
+    private static byte[] getCode(Web3j web3j, String address) throws IOException
+    {
+        EthGetCode response = web3j.ethGetCode(address, DefaultBlockParameterName.LATEST).send();
+        if (response.hasError() || response.getCode() == null) throw new IOException("Unable to fetch code for " + address);
+        return Numeric.hexStringToByteArray(response.getCode());
+    }
+
+    private static String getStoredImplementation(Web3j web3j, String address) throws IOException
+    {
+        for (BigInteger slot : IMPLEMENTATION_SLOTS)
+        {
+            EthGetStorageAt response = web3j.ethGetStorageAt(address, slot, DefaultBlockParameterName.LATEST).send();
+            if (response.hasError() || response.getData() == null) continue;
+            BigInteger value = Numeric.toBigInt(response.getData());
+            if (value.signum() > 0 && value.bitLength() <= 160) return Numeric.toHexStringWithPrefixZeroPadded(value, 40);
+        }
+
+        return null;
+    }
+
+    private static String getCloneImplementation(byte[] code)
+    {
+        if (code.length != CLONE_PREFIX.length + 20 + CLONE_SUFFIX.length) return null;
+        for (int i = 0; i < CLONE_PREFIX.length; i++)
+        {
+            if (code[i] != CLONE_PREFIX[i]) return null;
+        }
+        for (int i = 0; i < CLONE_SUFFIX.length; i++)
+        {
+            if (code[CLONE_PREFIX.length + 20 + i] != CLONE_SUFFIX[i]) return null;
+        }
+
+        return Numeric.toHexString(code, CLONE_PREFIX.length, 20, true);
+    }
+
+    // Offset of each instruction in the code, stepping over push data so it isn't read as opcodes
+    private static int[] getInstructions(byte[] code)
+    {
+        int[] ops = new int[code.length];
+        int count = 0;
+        for (int i = 0; i < code.length; i++)
+        {
+            ops[count++] = i;
+            int op = code[i] & 0xFF;
+            if (op >= OP_PUSH1 && op <= OP_PUSH32) i += op - OP_PUSH1 + 1;
+        }
+
+        return Arrays.copyOf(ops, count);
+    }
+
+    // Selectors the dispatcher compares the call with: PUSH4 selector EQ (or DUP2 EQ in older solc), or GT in a split dispatcher
+    private static Set<Integer> getDispatcherSelectors(byte[] code, int[] ops)
+    {
+        Set<Integer> selectors = new HashSet<>();
+        for (int k = 0; k + 1 < ops.length; k++)
+        {
+            if (opAt(code, ops, k) != OP_PUSH4 || ops[k] + 4 >= code.length) continue;
+            int next = opAt(code, ops, k + 1);
+            if (next == OP_EQ || next == OP_GT || (next == OP_DUP2 && opAt(code, ops, k + 2) == OP_EQ))
+            {
+                selectors.add(readInt(code, ops[k] + 1));
+            }
+        }
+
+        return selectors;
+    }
+
+    // Four byte values moved to the top of the word and then compared, as supportsInterface does with interface ids:
+    // PUSH4 id, shifted left by 224 bits (SHL, or MUL in older solc), or a PUSH32 already in that form, then EQ
+    private static Set<Integer> getInterfaceIds(byte[] code, int[] ops)
+    {
+        Set<Integer> ids = new HashSet<>();
+        for (int k = 0; k < ops.length; k++)
+        {
+            int op = opAt(code, ops, k);
+            int start = ops[k] + 1;
+            boolean shifted;
+            if (op == OP_PUSH32 && start + 32 <= code.length && isZero(code, start + 4, 28))
+            {
+                shifted = true;
+            }
+            else if (op == OP_PUSH4 && start + 4 <= code.length)
+            {
+                shifted = false;
+            }
+            else
+            {
+                continue;
+            }
+
+            //the comparison follows within a few stack and masking operations; anything else (eg MSTORE for a call) ends it
+            for (int j = k + 1; j < ops.length && j <= k + 6; j++)
+            {
+                int next = opAt(code, ops, j);
+                if (next == OP_EQ)
+                {
+                    if (shifted) ids.add(readInt(code, start));
+                    break;
+                }
+                else if (next == OP_SHL || next == OP_MUL)
+                {
+                    shifted = shifted || isShift224(code, ops, j - 1, next);
+                }
+                else if (!(next >= OP_PUSH1 && next <= OP_SWAP16) && next != OP_AND && next != OP_NOT)
+                {
+                    break;
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    // PUSH1 0xe0 before SHL, or PUSH29 0x01 followed by 28 zero bytes before MUL
+    private static boolean isShift224(byte[] code, int[] ops, int k, int shiftOp)
+    {
+        int op = opAt(code, ops, k);
+        int start = ops[k] + 1;
+        if (shiftOp == OP_SHL) return op == OP_PUSH1 && start < code.length && (code[start] & 0xFF) == 0xe0;
+        return op == OP_PUSH29 && start + 29 <= code.length && code[start] == 1 && isZero(code, start + 1, 28);
+    }
+
+    private static int opAt(byte[] code, int[] ops, int k)
+    {
+        return k < ops.length ? code[ops[k]] & 0xFF : -1;
+    }
+
+    private static int readInt(byte[] code, int start)
+    {
+        return ((code[start] & 0xFF) << 24) | ((code[start + 1] & 0xFF) << 16)
+                | ((code[start + 2] & 0xFF) << 8) | (code[start + 3] & 0xFF);
+    }
+
+    private static boolean isZero(byte[] code, int start, int length)
+    {
+        for (int i = start; i < start + length; i++)
+        {
+            if (code[i] != 0) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean hasOpcode(byte[] code, int opcode)
+    {
+        for (int i = 0; i < code.length; i++)
+        {
+            int op = code[i] & 0xFF;
+            if (op == opcode) return true;
+            if (op >= OP_PUSH1 && op <= OP_PUSH32) i += op - OP_PUSH1 + 1;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,331 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.entity.ContractMeta;
+import com.alphawallet.app.entity.ContractType;
+
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token contract metadata keyed by chain and address, shared by every wallet.
+ *
+ * Decimals and interface type never change once read, so they're fetched once and persisted. Name and symbol can be
+ * changed by some contracts and are re-read after a long TTL. Contracts are read in batches: the name, symbol and
+ * decimals calls for many contracts go to the node as one JSON-RPC batch, and only contracts that are missing or stale
+ * are included, so a wallet holding tokens another wallet has already seen costs nothing.
+ */
+public class ContractMetaRegistry
+{
+    public static final long NAME_TTL = 1000L * 60 * 60 * 24 * 7;
+    private static final int MAX_BATCH_CONTRACTS = 30; //up to 90 calls per batch
+    private static final int DEFAULT_DECIMALS = 18;
+
+    private static final Function NAME = stringFunction("name");
+    private static final Function SYMBOL = stringFunction("symbol");
+    private static final Function DECIMALS = new Function("decimals",
+            Collections.<Type>emptyList(),
+            Collections.<TypeReference<?>>singletonList(new TypeReference<Uint8>() {}));
+
+    public interface NodeProvider
+    {
+        Web3j getService(int chainId);
+    }
+
+    public interface Store
+    {
+        List<ContractMeta> load();
+        void save(Collection<ContractMeta> metas);
+    }
+
+    private final NodeProvider nodes;
+    private final Store store;
+    private final long nameTtl;
+    private final Map<String, ContractMeta> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public ContractMetaRegistry(NodeProvider nodes, Store store)
+    {
+        this(nodes, store, NAME_TTL);
+    }
+
+    public ContractMetaRegistry(NodeProvider nodes, Store store, long nameTtl)
+    {
+        this.nodes = nodes;
+        this.store = store;
+        this.nameTtl = nameTtl;
+    }
+
+    /**
+     * @return the stored metadata without going to the node, or null if the contract hasn't been read
+     */
+    public ContractMeta get(int chainId, String address)
+    {
+        ContractMeta meta = getEntry(chainId, address);
+        return meta != null && meta.decimals >= 0 ? meta : null;
+    }
+
+    /**
+     * @return metadata for the contract, read from the node if it's not stored or its name is stale
+     * @throws IOException if the node can't be reached, or the contract doesn't answer name or symbol
+     */
+    public ContractMeta fetch(int chainId, String address) throws IOException
+    {
+        ContractMeta meta = fetch(chainId, Collections.singletonList(address)).get(address.toLowerCase());
+        if (meta == null) throw new IOException("Unable to read contract " + address);
+        return meta;
+    }
+
+    /**
+     * Metadata for many contracts on a chain; those not already stored and fresh are read in batched calls.
+     *
+     * @return metadata by lower case address. A contract that couldn't be read is left out, unless an older entry is
+     * stored, which is returned instead.
+     * @throws IOException if the node can't be reached
+     */
+    public Map<String, ContractMeta> fetch(int chainId, Collection<String> addresses) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        Map<String, ContractMeta> result = new HashMap<>();
+        List<String> toRead = new ArrayList<>();
+        for (String address : new LinkedHashSet<>(addresses))
+        {
+            ContractMeta meta = getEntry(chainId, address);
+            if (meta != null && meta.decimals >= 0 && now - meta.updateTime < nameTtl)
+            {
+                result.put(meta.address, meta);
+            }
+            else
+            {
+                if (meta != null && meta.decimals >= 0) result.put(meta.address, meta); //stale is better than nothing
+                toRead.add(address.toLowerCase());
+            }
+        }
+
+        if (toRead.isEmpty()) return result;
+
+        Web3j web3j = nodes.getService(chainId);
+        List<ContractMeta> updated = new ArrayList<>();
+        for (int start = 0; start < toRead.size(); start += MAX_BATCH_CONTRACTS)
+        {
+            List<String> chunk = toRead.subList(start, Math.min(toRead.size(), start + MAX_BATCH_CONTRACTS));
+            for (ContractMeta meta : readBatch(web3j, chainId, chunk, now))
+            {
+                entries.put(meta.getKey(), meta);
+                //decimals the node failed to read are read again on the next fetch; until then the default is used
+                result.put(meta.address, meta.decimals >= 0 ? meta : meta.withDecimals(DEFAULT_DECIMALS));
+                updated.add(meta);
+            }
+        }
+
+        if (!updated.isEmpty()) store.save(updated);
+        return result;
+    }
+
+    /**
+     * @return the interface type determined for the contract, or NOT_SET if it hasn't been
+     */
+    public ContractType getContractType(int chainId, String address)
+    {
+        ContractMeta meta = getEntry(chainId, address);
+        return meta != null ? meta.type : ContractType.NOT_SET;
+    }
+
+    public void setContractType(int chainId, String address, ContractType type)
+    {
+        ContractMeta meta = getEntry(chainId, address);
+        if (meta != null && meta.type == type) return;
+        //a contract not yet read is held with unread decimals, so fetch still reads it
+        meta = meta != null ? meta.withType(type) : new ContractMeta(chainId, address, null, null, -1, type, 0);
+        entries.put(meta.getKey(), meta);
+        store.save(Collections.singletonList(meta));
+    }
+
+    private ContractMeta getEntry(int chainId, String address)
+    {
+        if (!loaded) load();
+        return entries.get(ContractMeta.key(chainId, address));
+    }
+
+    private synchronized void load()
+    {
+        if (loaded) return;
+        for (ContractMeta meta : store.load())
+        {
+            entries.put(meta.getKey(), meta);
+        }
+        loaded = true;
+    }
+
+    private List<ContractMeta> readBatch(Web3j web3j, int chainId, List<String> addresses, long now) throws IOException
+    {
+        BatchRequest batch = web3j.newBatch();
+        List<Boolean> readDecimals = new ArrayList<>();
+        for (String address : addresses)
+        {
+            ContractMeta known = entries.get(ContractMeta.key(chainId, address));
+            boolean needDecimals = known == null || known.decimals < 0;
+            batch.add(web3j.ethCall(call(address, NAME), DefaultBlockParameterName.LATEST));
+            batch.add(web3j.ethCall(call(address, SYMBOL), DefaultBlockParameterName.LATEST));
+            if (needDecimals) batch.add(web3j.ethCall(call(address, DECIMALS), DefaultBlockParameterName.LATEST));
+            readDecimals.add(needDecimals);
+        }
+
+        List<? extends Response<?>> responses = batch.send().getResponses();
+
+        List<ContractMeta> metas = new ArrayList<>();
+        int index = 0;
+        for (int i = 0; i < addresses.size(); i++)
+        {
+            String address = addresses.get(i);
+            EthCall name = getCall(responses, index++);
+            EthCall symbol = getCall(responses, index++);
+            EthCall decimals = readDecimals.get(i) ? getCall(responses, index++) : null;
+            if (!isValid(name) || !isValid(symbol)) continue; //not a token, or the node failed this call; try again later
+
+            try
+            {
+                ContractMeta known = entries.get(ContractMeta.key(chainId, address));
+                metas.add(new ContractMeta(chainId, address,
+                        decodeString(name.getValue()),
+                        decodeString(symbol.getValue()),
+                        decimals != null ? decodeDecimals(decimals) : known.decimals,
+                        known != null ? known.type : ContractType.NOT_SET,
+                        now));
+            }
+            catch (RuntimeException e)
+            {
+                //unreadable return value
+            }
+        }
+
+        return metas;
+    }
+
+    private static EthCall getCall(List<? extends Response<?>> responses, int index)
+    {
+        return index < responses.size() && responses.get(index) instanceof EthCall ? (EthCall) responses.get(index) : null;
+    }
+
+    private static boolean isValid(EthCall response)
+    {
+        return response != null && !response.hasError() && response.getValue() != null && response.getValue().length() > 0;
+    }
+
+    private static Transaction call(String address, Function function)
+    {
+        return Transaction.createEthCallTransaction(null, address, FunctionEncoder.encode(function));
+    }
+
+    /**
+     * @return decimals; DEFAULT_DECIMALS if the contract returned nothing or an unreadable value, or -1 if the call
+     * failed, so it's read again
+     */
+    private static int decodeDecimals(EthCall response)
+    {
+        if (response == null || response.hasError() || response.getValue() == null) return -1;
+        try
+        {
+            List<Type> values = FunctionReturnDecoder.decode(response.getValue(), DECIMALS.getOutputParameters());
+            return values.size() == 1 ? ((Uint8) values.get(0)).getValue().intValue() : DEFAULT_DECIMALS;
+        }
+        catch (RuntimeException e)
+        {
+            return DEFAULT_DECIMALS;
+        }
+    }
+
+    /**
+     * Decodes a string return as TokenRepository.getContractData does, including contracts that return a bytes32
+     *
+     * @return the string, or null if the contract returned nothing
+     */
+    public static String decodeString(String responseValue)
+    {
+        if (responseValue.equals("0x")) return null;
+
+        //a correct string return starts with the 0x20 offset; anything else is read as raw bytes
+        String hex = Numeric.cleanHexPrefix(responseValue);
+        int firstValueEndIndex = Math.min(hex.length(), 64);
+        if (firstValueEndIndex > 0 && new BigInteger(hex.substring(0, firstValueEndIndex), 16).compareTo(BigInteger.valueOf(0x20)) != 0)
+        {
+            return bytesToString(hex);
+        }
+
+        List<Type> values = FunctionReturnDecoder.decode(responseValue, NAME.getOutputParameters());
+        return values.size() == 1 ? (String) values.get(0).getValue() : null;
+    }
+
+    /**
+     * @return string held in raw bytes, with trailing zeros and control characters removed; "" if it starts with zero
+     */
+    public static String bytesToString(String hexValue)
+    {
+        String name = "";
+        if (hexValue.length() > 0)
+        {
+            byte[] data = Numeric.hexStringToByteArray(hexValue);
+            if (data.length > 0 && data[0] != 0)
+            {
+                int index = data.length - 1;
+                while (data[index] == 0 && index > 0)
+                    index--;
+                if (index != (data.length - 1))
+                {
+                    data = Arrays.copyOfRange(data, 0, index + 1);
+                }
+                name = filterAscii(new String(data, StandardCharsets.UTF_8));
+            }
+        }
+
+        return name;
+    }
+
+    private static String filterAscii(String name)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (char ch : name.toCharArray())
+        {
+            if (Character.isIdeographic(ch) ||
+                    Character.isLetterOrDigit(ch) ||
+                    Character.isWhitespace(ch) ||
+                    (ch >= 0x20 && ch <= 0x7E)) //some other common ASCII
+            {
+                sb.append(ch);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static Function stringFunction(String name)
+    {
+        return new Function(name,
+                Collections.<Type>emptyList(),
+                Collections.<TypeReference<?>>singletonList(new TypeReference<Utf8String>() {}));
+    }
+}
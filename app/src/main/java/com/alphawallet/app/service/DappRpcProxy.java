@@ -0,0 +1,232 @@
+package com.alphawallet.app.service;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.SingleSubject;
+
+import static org.web3j.protocol.core.methods.request.Transaction.createEthCallTransaction;
+
+/**
+ * Read-only calls from a dapp, sent to the node of one chain.
+ *
+ * Identical calls share one request while it's in flight, and their results are kept until the node reports a new
+ * head block. Calls arriving within BATCH_WINDOW of each other go out as one JSON-RPC batch, which also fetches the
+ * block number, so the head is checked on every round trip. A cached result is only used within HEAD_TTL of the last
+ * check; after that the call goes to the node again along with a new head check. invalidate starts a new generation:
+ * calls already sent aren't shared with later callers, and their results aren't cached.
+ */
+public class DappRpcProxy
+{
+    public static final long BATCH_WINDOW = 15;    //ms to wait for more calls before sending a batch
+    public static final long HEAD_TTL = 3000;      //ms a head block number is trusted without checking again
+    public static final int MAX_BATCH_CALLS = 50;  //calls per batch; public nodes reject very large batches
+    private static final int MAX_CACHED_RESULTS = 512;
+
+    private static class PendingCall
+    {
+        final String from;
+        final String to;
+        final String data;
+        final DefaultBlockParameter block;
+        final SingleSubject<String> result = SingleSubject.create();
+
+        PendingCall(String from, String to, String data, DefaultBlockParameter block)
+        {
+            this.from = from;
+            this.to = to;
+            this.data = data;
+            this.block = block;
+        }
+    }
+
+    private final int chainId;
+    private final Web3j web3j;
+    private final Object lock = new Object();
+    //all guarded by lock
+    private final Map<String, PendingCall> pending = new LinkedHashMap<>();  //waiting for the next batch
+    private final Map<String, PendingCall> inFlight = new HashMap<>();       //in a batch that hasn't returned
+    private final Map<String, String> results = new HashMap<>();             //results at headBlock
+    private BigInteger headBlock;
+    private long headCheckTime;
+    private boolean flushScheduled;
+    private long generation;                                                 //count of invalidate calls
+
+    public DappRpcProxy(int chainId, Web3j web3j)
+    {
+        this.chainId = chainId;
+        this.web3j = web3j;
+    }
+
+    public int getChainId()
+    {
+        return chainId;
+    }
+
+    /**
+     * eth_call on behalf of the dapp
+     *
+     * @return the call's result; an error from the node (eg a revert) is an error here
+     */
+    public Single<String> ethCall(String from, String to, String data, DefaultBlockParameter block)
+    {
+        String key = callKey(from, to, data, block);
+        synchronized (lock)
+        {
+            String cached = results.get(key);
+            if (cached != null && System.currentTimeMillis() - headCheckTime < HEAD_TTL)
+            {
+                return Single.just(cached);
+            }
+
+            PendingCall call = inFlight.get(key);
+            if (call == null) call = pending.get(key);
+            if (call == null)
+            {
+                call = new PendingCall(from, to, data, block);
+                pending.put(key, call);
+                if (pending.size() == MAX_BATCH_CALLS)
+                {
+                    Completable.fromAction(this::flush).subscribeOn(Schedulers.io()).subscribe();
+                }
+                else if (!flushScheduled)
+                {
+                    flushScheduled = true;
+                    Completable.timer(BATCH_WINDOW, TimeUnit.MILLISECONDS, Schedulers.io())
+                            .subscribe(this::flush);
+                }
+            }
+
+            return call.result;
+        }
+    }
+
+    /**
+     * Forget all results, eg after the dapp sends a transaction
+     */
+    public void invalidate()
+    {
+        synchronized (lock)
+        {
+            results.clear();
+            inFlight.clear(); //sent before the change; later calls go to the node again
+            headCheckTime = 0;
+            generation++;
+        }
+    }
+
+    private void flush()
+    {
+        Map<String, PendingCall> batchCalls = new LinkedHashMap<>();
+        long batchGeneration;
+        synchronized (lock)
+        {
+            flushScheduled = false;
+            batchGeneration = generation;
+            for (Map.Entry<String, PendingCall> entry : pending.entrySet())
+            {
+                if (batchCalls.size() == MAX_BATCH_CALLS) break;
+                batchCalls.put(entry.getKey(), entry.getValue());
+            }
+            if (batchCalls.isEmpty()) return;
+            pending.keySet().removeAll(batchCalls.keySet());
+            inFlight.putAll(batchCalls);
+            if (!pending.isEmpty()) //more than a batch arrived
+            {
+                Completable.fromAction(this::flush).subscribeOn(Schedulers.io()).subscribe();
+            }
+        }
+
+        List<? extends Response<?>> responses;
+        try
+        {
+            BatchRequest batch = web3j.newBatch();
+            batch.add(web3j.ethBlockNumber());
+            for (PendingCall call : batchCalls.values())
+            {
+                Transaction transaction = createEthCallTransaction(call.from, call.to, call.data);
+                batch.add(web3j.ethCall(transaction, call.block));
+            }
+            responses = batch.send().getResponses();
+            if (responses.size() != batchCalls.size() + 1) throw new Exception("Incomplete batch response from node");
+        }
+        catch (Exception e)
+        {
+            synchronized (lock)
+            {
+                removeInFlight(batchCalls);
+            }
+            for (PendingCall call : batchCalls.values()) call.result.onError(e);
+            return;
+        }
+
+        int index = 1;
+        synchronized (lock)
+        {
+            EthBlockNumber blockNumber = (EthBlockNumber) responses.get(0);
+            boolean atHead = false;
+            if (!blockNumber.hasError() && batchGeneration == generation) //results from before an invalidate aren't used
+            {
+                int compare = headBlock == null ? 1 : blockNumber.getBlockNumber().compareTo(headBlock);
+                if (compare > 0)
+                {
+                    results.clear(); //new head; all results are stale
+                    headBlock = blockNumber.getBlockNumber();
+                }
+                if (compare >= 0) headCheckTime = System.currentTimeMillis();
+                atHead = compare >= 0; //an older batch returning late isn't cached
+            }
+
+            removeInFlight(batchCalls);
+            for (Map.Entry<String, PendingCall> entry : batchCalls.entrySet())
+            {
+                EthCall response = (EthCall) responses.get(index++);
+                if (atHead && !response.hasError() && response.getValue() != null)
+                {
+                    if (results.size() >= MAX_CACHED_RESULTS) results.clear();
+                    results.put(entry.getKey(), response.getValue());
+                }
+            }
+        }
+
+        //complete outside the lock, as subscribers may call again
+        index = 1;
+        for (PendingCall call : batchCalls.values())
+        {
+            EthCall response = (EthCall) responses.get(index++);
+            if (response.hasError()) call.result.onError(new Exception(response.getError().getMessage()));
+            else if (response.getValue() == null) call.result.onError(new Exception("No result from node"));
+            else call.result.onSuccess(response.getValue());
+        }
+    }
+
+    // Remove the batch's calls from inFlight, leaving any later call with the same key that was sent after an invalidate
+    private void removeInFlight(Map<String, PendingCall> batchCalls)
+    {
+        for (Map.Entry<String, PendingCall> entry : batchCalls.entrySet())
+        {
+            if (inFlight.get(entry.getKey()) == entry.getValue()) inFlight.remove(entry.getKey());
+        }
+    }
+
+    private static String callKey(String from, String to, String data, DefaultBlockParameter block)
+    {
+        return (from != null ? from.toLowerCase() : "") + "-" + (to != null ? to.toLowerCase() : "") + "-"
+                + (data != null ? data.toLowerCase() : "") + "-" + block.getValue();
+    }
+}
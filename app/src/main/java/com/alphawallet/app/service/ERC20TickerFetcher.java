@@ -0,0 +1,173 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.BuildConfig;
+import com.alphawallet.app.entity.CoinGeckoTicker;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Fetches ERC20 tickers from the Coingecko token price API.
+ *
+ * Contract addresses are split into chunks that keep the query within URL length limits, and chunks are fetched
+ * concurrently within the host's rate limit. Contracts Coingecko doesn't list are remembered for a day so they
+ * aren't re-queried every cycle. A chunk that fails doesn't affect the others.
+ */
+public class ERC20TickerFetcher
+{
+    public static final int MAX_CHUNK_CHARS = 1800; //keep request URLs under ~2000 characters
+    public static final long UNLISTED_RECHECK = 24 * 60 * 60 * 1000;
+    private static final int FETCH_THREADS = 3;
+    private static final String CONTRACT_ADDR = "[CONTRACT_ADDR]";
+
+    private final OkHttpClient httpClient;
+    private final HostRateLimiter rateLimiter;
+    private final String apiTemplate;
+    private final ExecutorService fetchPool = Executors.newFixedThreadPool(FETCH_THREADS);
+    private final Map<String, Long> unlisted = new ConcurrentHashMap<>(); //address -> time to check again
+
+    /**
+     * @param apiTemplate API url with [CONTRACT_ADDR] in place of the comma separated addresses
+     */
+    public ERC20TickerFetcher(OkHttpClient httpClient, HostRateLimiter rateLimiter, String apiTemplate)
+    {
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.apiTemplate = apiTemplate;
+    }
+
+    /**
+     * Fetch tickers for the contracts. Blocks until all chunks are complete, so call from an IO thread.
+     *
+     * @return map of lower case contract address to its ticker, for the contracts that are listed
+     */
+    public Map<String, CoinGeckoTicker> fetchTickers(List<String> addresses) throws InterruptedException
+    {
+        List<Future<List<CoinGeckoTicker>>> results = new ArrayList<>();
+        for (List<String> chunk : buildChunks(addresses))
+        {
+            results.add(fetchPool.submit(() -> fetchChunk(chunk)));
+        }
+
+        Map<String, CoinGeckoTicker> tickers = new HashMap<>();
+        for (Future<List<CoinGeckoTicker>> result : results)
+        {
+            try
+            {
+                for (CoinGeckoTicker t : result.get()) tickers.put(t.address, t);
+            }
+            catch (ExecutionException e)
+            {
+                if (BuildConfig.DEBUG) e.printStackTrace(); //chunk failed; try again next cycle
+            }
+        }
+
+        return tickers;
+    }
+
+    /**
+     * Split addresses into request-sized chunks, leaving out duplicates and contracts known to be unlisted
+     */
+    public List<List<String>> buildChunks(List<String> addresses)
+    {
+        long now = System.currentTimeMillis();
+        Set<String> seen = new HashSet<>();
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int chunkChars = 0;
+        for (String address : addresses)
+        {
+            String lower = address.toLowerCase();
+            Long recheck = unlisted.get(lower);
+            if (!seen.add(lower) || (recheck != null && now < recheck)) continue;
+
+            if (!chunk.isEmpty() && chunkChars + lower.length() + 1 > MAX_CHUNK_CHARS)
+            {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkChars = 0;
+            }
+            chunk.add(lower);
+            chunkChars += lower.length() + 1;
+        }
+
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    public boolean isUnlisted(String address)
+    {
+        Long recheck = unlisted.get(address.toLowerCase());
+        return recheck != null && System.currentTimeMillis() < recheck;
+    }
+
+    private List<CoinGeckoTicker> fetchChunk(List<String> chunk) throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for (String address : chunk)
+        {
+            if (sb.length() > 0) sb.append(",");
+            sb.append(address);
+        }
+
+        Request request = new Request.Builder()
+                .url(apiTemplate.replace(CONTRACT_ADDR, sb.toString()))
+                .get()
+                .build();
+
+        try (Response response = rateLimiter.execute(httpClient, request))
+        {
+            if (response.code() / 100 != 2 || response.body() == null)
+            {
+                throw new Exception("Ticker request failed: " + response.code());
+            }
+
+            List<CoinGeckoTicker> tickers = parseTickers(response.body().string());
+
+            //contracts missing from a good response aren't listed
+            Set<String> listed = new HashSet<>();
+            for (CoinGeckoTicker t : tickers) listed.add(t.address);
+            long recheck = System.currentTimeMillis() + UNLISTED_RECHECK;
+            for (String address : chunk)
+            {
+                if (!listed.contains(address)) unlisted.put(address, recheck);
+            }
+
+            return tickers;
+        }
+    }
+
+    private static List<CoinGeckoTicker> parseTickers(String jsonData)
+    {
+        List<CoinGeckoTicker> res = new ArrayList<>();
+        JsonObject data = JsonParser.parseString(jsonData).getAsJsonObject();
+        for (Map.Entry<String, JsonElement> entry : data.entrySet())
+        {
+            if (!entry.getValue().isJsonObject()) continue;
+            JsonObject obj = entry.getValue().getAsJsonObject();
+            if (!obj.has("usd") || obj.get("usd").isJsonNull()) continue;
+
+            JsonElement change = obj.get("usd_24h_change");
+            double usdChange = change != null && !change.isJsonNull() ? change.getAsDouble() : 0.0;
+            res.add(new CoinGeckoTicker(entry.getKey().toLowerCase(), obj.get("usd").getAsDouble(), usdChange));
+        }
+
+        return res;
+    }
+}
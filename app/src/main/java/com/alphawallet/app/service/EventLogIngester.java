@@ -0,0 +1,215 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.entity.Transaction;
+import com.alphawallet.app.entity.tokenscript.EventUtils;
+import com.alphawallet.app.repository.TokensRealmSource;
+import com.alphawallet.token.entity.Attribute;
+import com.alphawallet.token.entity.ContractAddress;
+import com.alphawallet.token.entity.EventDefinition;
+import com.alphawallet.token.entity.TransactionResult;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a page of TokenScript event logs (one eth_getLogs response) into a single write.
+ *
+ * Block times for all the logs are fetched in one batched call, as are the transactions the wallet doesn't have yet
+ * together with their receipts. The attribute values, activity rows, transactions and the event's read block marker
+ * are then handed to the store as one batch, to be committed in one transaction. If anything can't be fetched nothing
+ * is written and the read block isn't advanced, so the page is read again on the next check.
+ */
+public class EventLogIngester
+{
+    public interface EventStore
+    {
+        /**
+         * @return the stored value of the attribute, with resultTime 0 if there is none
+         */
+        TransactionResult getFunctionResult(ContractAddress contract, Attribute attr, BigInteger tokenId);
+
+        /**
+         * @return the hashes the wallet already has transactions for
+         */
+        Set<String> getStoredTransactions(String walletAddress, Collection<String> txHashes);
+
+        /**
+         * Write the whole batch in one transaction
+         */
+        void commit(String walletAddress, Batch batch);
+    }
+
+    /**
+     * An event activity row, stored as the event's topic values keyed by transaction hash
+     */
+    public static class Activity
+    {
+        public final String databaseKey;
+        public final BigInteger tokenId;
+        public final String eventData;
+        public final String activityName;
+        public final ContractAddress contract;
+        public final long blockTime;
+
+        Activity(String databaseKey, BigInteger tokenId, String eventData, String activityName, ContractAddress contract, long blockTime)
+        {
+            this.databaseKey = databaseKey;
+            this.tokenId = tokenId;
+            this.eventData = eventData;
+            this.activityName = activityName;
+            this.contract = contract;
+            this.blockTime = blockTime;
+        }
+    }
+
+    /**
+     * Everything to write for one page of logs
+     */
+    public static class Batch
+    {
+        public final EventDefinition event;
+        public final List<TransactionResult> attributeResults;
+        public final List<Activity> activities;
+        public final List<Transaction> transactions;
+        public final BigInteger readBlock; //next block to read events from, or null if unchanged
+
+        Batch(EventDefinition event, List<TransactionResult> attributeResults, List<Activity> activities,
+              List<Transaction> transactions, BigInteger readBlock)
+        {
+            this.event = event;
+            this.attributeResults = attributeResults;
+            this.activities = activities;
+            this.transactions = transactions;
+            this.readBlock = readBlock;
+        }
+
+        public boolean isEmpty()
+        {
+            return attributeResults.isEmpty() && activities.isEmpty() && transactions.isEmpty() && readBlock == null;
+        }
+    }
+
+    private final EventStore store;
+
+    public EventLogIngester(EventStore store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Store a page of logs for the event. On success ev.readBlock is moved past the newest log.
+     *
+     * @return hash of the newest log's transaction, or "" if there were no logs
+     * @throws IOException if the block times or transactions couldn't be fetched; nothing is stored
+     */
+    public String ingest(String walletAddress, EventDefinition ev, List<EthLog.LogResult> logs, Web3j web3j) throws IOException
+    {
+        if (logs.size() == 0) return ""; //early return
+
+        ContractAddress eventContract = new ContractAddress(ev.getEventChainId(), ev.getEventContractAddress());
+        BigInteger newestBlock = BigInteger.ZERO;
+        for (EthLog.LogResult ethLog : logs)
+        {
+            BigInteger blockNumber = ((Log) ethLog.get()).getBlockNumber();
+            if (blockNumber.compareTo(newestBlock) > 0) newestBlock = blockNumber;
+        }
+        BigInteger readBlock = newestBlock.compareTo(ev.readBlock) > 0 ? newestBlock.add(BigInteger.ONE) : null;
+
+        List<TransactionResult> attributeResults = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+
+        if (ev.parentAttribute != null)
+        {
+            attributeResults = getAttributeResults(ev, logs, eventContract);
+        }
+        else
+        {
+            Map<String, Long> blockTimes = fetchBlockTimes(logs, web3j);
+            Map<String, Long> txTimes = new LinkedHashMap<>();
+            for (int i = logs.size() - 1; i >= 0; i--)
+            {
+                EthLog.LogResult ethLog = logs.get(i);
+                Log log = (Log) ethLog.get();
+                long blockTime = blockTimes.get(log.getBlockHash());
+                String key = TokensRealmSource.eventActivityKey(log.getTransactionHash(), ev.type.name);
+                activities.add(new Activity(key, EventUtils.getTokenId(ev, ethLog), EventUtils.getAllTopics(ev, ethLog),
+                        ev.activityName, eventContract, blockTime));
+                txTimes.put(log.getTransactionHash(), blockTime);
+            }
+
+            //fetch the transactions we don't have yet
+            txTimes.keySet().removeAll(store.getStoredTransactions(walletAddress, txTimes.keySet()));
+            if (txTimes.size() > 0)
+            {
+                transactions = EventUtils.getTransactions(txTimes, eventContract.chainId, web3j);
+            }
+        }
+
+        Batch batch = new Batch(ev, attributeResults, activities, transactions, readBlock);
+        if (!batch.isEmpty()) store.commit(walletAddress, batch);
+        if (readBlock != null) ev.readBlock = readBlock;
+
+        return ((Log) logs.get(logs.size() - 1).get()).getTransactionHash();
+    }
+
+    /**
+     * Newest value of the attribute for each token in the page. Logs are newest last, so they're applied in order
+     * and a later log in the same block replaces an earlier one; a stored value from a later block than a log is kept.
+     */
+    private List<TransactionResult> getAttributeResults(EventDefinition ev, List<EthLog.LogResult> logs, ContractAddress eventContract)
+    {
+        Map<BigInteger, TransactionResult> results = new HashMap<>();
+        Set<TransactionResult> updated = new LinkedHashSet<>();
+        for (EthLog.LogResult ethLog : logs)
+        {
+            BigInteger tokenId = EventUtils.getTokenId(ev, ethLog);
+            TransactionResult txResult = results.get(tokenId);
+            if (txResult == null)
+            {
+                txResult = store.getFunctionResult(eventContract, ev.parentAttribute, tokenId);
+                results.put(tokenId, txResult);
+            }
+
+            long blockNumber = ((Log) ethLog.get()).getBlockNumber().longValue();
+            if (txResult.resultTime == 0 || blockNumber >= txResult.resultTime)
+            {
+                txResult.result = ev.parentAttribute.getSyntaxVal(EventUtils.getSelectVal(ev, ethLog));
+                txResult.resultTime = blockNumber;
+                updated.add(txResult);
+            }
+        }
+
+        return new ArrayList<>(updated);
+    }
+
+    private Map<String, Long> fetchBlockTimes(List<EthLog.LogResult> logs, Web3j web3j) throws IOException
+    {
+        Set<String> blockHashes = new HashSet<>();
+        for (EthLog.LogResult ethLog : logs)
+        {
+            blockHashes.add(((Log) ethLog.get()).getBlockHash());
+        }
+
+        Map<String, Long> blockTimes = new HashMap<>(EventUtils.getBlockTimes(blockHashes, web3j));
+        if (!blockTimes.keySet().containsAll(blockHashes))
+        {
+            throw new IOException("Unable to fetch block times for event logs");
+        }
+
+        return blockTimes;
+    }
+}
@@ -0,0 +1,223 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.entity.GasPriceSpread;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gas price oracle built from the transactions in each chain's most recent blocks.
+ *
+ * For each chain a sliding window of the last BLOCK_WINDOW blocks is kept along with a count of every gas price
+ * seen in it. An update only fetches blocks newer than the window head and retires the oldest, so percentiles are
+ * maintained incrementally rather than recomputed from scratch. At most MAX_BLOCKS_PER_UPDATE blocks are fetched per
+ * update, so a chain that hasn't been sampled for a while is refilled from its newest blocks over several updates
+ * instead of in one burst. The latest spread per chain is held in memory so estimates are served instantly, eg when
+ * the user switches chain on the send screen. A spread saved by an earlier session can be seeded to serve until the
+ * chain's first update.
+ */
+public class FeeOracle
+{
+    public static final int BLOCK_WINDOW = 20;
+    public static final int MAX_BLOCKS_PER_UPDATE = 4;
+
+    //percentiles of recent inclusion prices for each speed
+    private static final int SLOW_PERCENTILE = 30;
+    private static final int STANDARD_PERCENTILE = 60;
+    private static final int FAST_PERCENTILE = 75;
+    private static final int RAPID_PERCENTILE = 90;
+
+    public interface BlockSource
+    {
+        long getLatestBlockNumber(int chainId) throws Exception;
+
+        /**
+         * @return gas prices of the transactions in the block, empty if the block has none
+         */
+        List<BigInteger> getBlockGasPrices(int chainId, long blockNumber) throws Exception;
+    }
+
+    private final BlockSource blockSource;
+    private final int blockWindow;
+    private final int maxBlocksPerUpdate;
+    private final Map<Integer, ChainWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong lastTimeStamp = new AtomicLong(0);
+
+    public FeeOracle(BlockSource source)
+    {
+        this(source, BLOCK_WINDOW);
+    }
+
+    public FeeOracle(BlockSource source, int blockWindow)
+    {
+        this(source, blockWindow, MAX_BLOCKS_PER_UPDATE);
+    }
+
+    public FeeOracle(BlockSource source, int blockWindow, int maxBlocksPerUpdate)
+    {
+        this.blockSource = source;
+        this.blockWindow = blockWindow;
+        this.maxBlocksPerUpdate = maxBlocksPerUpdate;
+    }
+
+    /**
+     * Latest spread for the chain, without any network access
+     *
+     * @return spread, or null if the chain hasn't been sampled or its recent blocks had no transactions
+     */
+    public GasPriceSpread getSpread(int chainId)
+    {
+        ChainWindow window = windows.get(chainId);
+        return window != null ? window.spread : null;
+    }
+
+    /**
+     * Bring the chain's window up to the latest block and recompute its spread
+     *
+     * @return the new spread, or null if there are no recent transactions to sample
+     * @throws Exception if the node couldn't be reached
+     */
+    public GasPriceSpread update(int chainId) throws Exception
+    {
+        ChainWindow window = getWindow(chainId);
+        synchronized (window)
+        {
+            long latest = blockSource.getLatestBlockNumber(chainId);
+            if (latest <= window.head) return window.spread;
+
+            long oldest = latest - blockWindow + 1;
+            long from = Math.max(window.head + 1, Math.max(oldest, latest - maxBlocksPerUpdate + 1));
+            //blocks skipped over leave a gap; anything older than the window is out of date
+            while (!window.blocks.isEmpty() && window.blocks.peekFirst().blockNumber < oldest) window.retireOldest();
+            for (long blockNumber = from; blockNumber <= latest; blockNumber++)
+            {
+                window.addBlock(blockNumber, blockSource.getBlockGasPrices(chainId, blockNumber));
+                while (window.blocks.size() > blockWindow) window.retireOldest();
+            }
+
+            window.spread = window.computeSpread(nextTimeStamp());
+            return window.spread;
+        }
+    }
+
+    /**
+     * Serve this spread, eg the last one persisted, until the chain is first updated. It isn't added to the samples.
+     * Ignored once the chain has a spread.
+     */
+    public void seed(int chainId, GasPriceSpread spread)
+    {
+        if (spread == null) return;
+        ChainWindow window = getWindow(chainId);
+        synchronized (window)
+        {
+            if (window.spread == null && window.head < 0) window.spread = spread;
+        }
+    }
+
+    /**
+     * Number of gas prices currently sampled for the chain
+     */
+    public int getSampleCount(int chainId)
+    {
+        ChainWindow window = windows.get(chainId);
+        return window != null ? window.sampleCount : 0;
+    }
+
+    /**
+     * Timestamps key the persisted spreads, so they're unique across chains
+     */
+    public long nextTimeStamp()
+    {
+        long now = System.currentTimeMillis();
+        return lastTimeStamp.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+    }
+
+    private ChainWindow getWindow(int chainId)
+    {
+        ChainWindow window = windows.get(chainId);
+        if (window == null)
+        {
+            windows.putIfAbsent(chainId, new ChainWindow());
+            window = windows.get(chainId);
+        }
+
+        return window;
+    }
+
+    private static class BlockSample
+    {
+        final long blockNumber;
+        final List<BigInteger> prices;
+
+        BlockSample(long blockNumber, List<BigInteger> prices)
+        {
+            this.blockNumber = blockNumber;
+            this.prices = prices;
+        }
+    }
+
+    private static class ChainWindow
+    {
+        final Deque<BlockSample> blocks = new ArrayDeque<>();
+        final TreeMap<BigInteger, Integer> priceCounts = new TreeMap<>();
+        long head = -1;
+        int sampleCount = 0;
+        volatile GasPriceSpread spread;
+
+        void addBlock(long blockNumber, List<BigInteger> prices)
+        {
+            blocks.addLast(new BlockSample(blockNumber, prices));
+            head = blockNumber;
+            for (BigInteger price : prices)
+            {
+                if (price.signum() <= 0) continue; //zero price transactions (eg miner payouts) don't reflect the market
+                Integer count = priceCounts.get(price);
+                priceCounts.put(price, count == null ? 1 : count + 1);
+                sampleCount++;
+            }
+        }
+
+        void retireOldest()
+        {
+            BlockSample oldest = blocks.pollFirst();
+            if (oldest == null) return;
+            for (BigInteger price : oldest.prices)
+            {
+                if (price.signum() <= 0) continue;
+                Integer count = priceCounts.get(price);
+                if (count == null) continue;
+                if (count == 1) priceCounts.remove(price);
+                else priceCounts.put(price, count - 1);
+                sampleCount--;
+            }
+        }
+
+        GasPriceSpread computeSpread(long timeStamp)
+        {
+            if (sampleCount == 0) return null;
+
+            int[] percentiles = { SLOW_PERCENTILE, STANDARD_PERCENTILE, FAST_PERCENTILE, RAPID_PERCENTILE };
+            BigInteger[] values = new BigInteger[percentiles.length];
+            int index = 0;
+            int seen = 0;
+            for (Map.Entry<BigInteger, Integer> entry : priceCounts.entrySet())
+            {
+                seen += entry.getValue();
+                //nearest rank: smallest price with at least p% of samples at or below it
+                while (index < percentiles.length && (long) seen * 100 >= (long) percentiles[index] * sampleCount)
+                {
+                    values[index++] = entry.getKey();
+                }
+                if (index == percentiles.length) break;
+            }
+
+            return new GasPriceSpread(values[3], values[2], values[1], values[0], timeStamp);
+        }
+    }
+}
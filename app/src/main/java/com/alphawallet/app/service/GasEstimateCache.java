@@ -0,0 +1,182 @@
+package com.alphawallet.app.service;
+
+import com.alphawallet.app.util.BoundedLruCache;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Recent gas limit estimates by call shape: chain, sender, target contract, value, function selector and calldata
+ * length class.
+ *
+ * A repeat of a recent call (eg another transfer of the same token) is answered from the cache straight away, raised
+ * by ESTIMATE_MARGIN_PERCENT as state may have changed since it was estimated, and the node is asked again in the
+ * background so the next repeat uses a current estimate. The entry is dropped if that estimate fails or the target's
+ * code hash has changed (eg a proxy was upgraded); the next call is then estimated by the node before it returns, so a
+ * call that would fail is reported as failing. Entries expire after ESTIMATE_TTL.
+ */
+public class GasEstimateCache
+{
+    public static final long ESTIMATE_TTL = 1000 * 60 * 10;
+    public static final int ESTIMATE_MARGIN_PERCENT = 10;
+    private static final int MAX_ENTRIES = 256;
+
+    public interface Estimator
+    {
+        /**
+         * @return gas limit from the node; throw if it couldn't be estimated
+         */
+        BigInteger estimateGas() throws Exception;
+    }
+
+    public interface CodeHashSource
+    {
+        /**
+         * @return hash of the code at the address ("" for no address); throw if the node couldn't be reached
+         */
+        String getCodeHash(int chainId, String address) throws Exception;
+    }
+
+    private static class Entry
+    {
+        final BigInteger estimate;
+        final long expiry;
+        final String codeHash; //null until the background check has fetched it
+
+        Entry(BigInteger estimate, long expiry, String codeHash)
+        {
+            this.estimate = estimate;
+            this.expiry = expiry;
+            this.codeHash = codeHash;
+        }
+    }
+
+    private final BoundedLruCache<String, Entry> estimates = new BoundedLruCache<>(MAX_ENTRIES);
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final CodeHashSource codeHashSource;
+    private final Executor refreshExecutor;
+    private final long ttl;
+
+    public GasEstimateCache(CodeHashSource codeHashSource)
+    {
+        this(codeHashSource, r -> Schedulers.io().scheduleDirect(r), ESTIMATE_TTL);
+    }
+
+    /**
+     * @param refreshExecutor runs the background re-estimates
+     */
+    public GasEstimateCache(CodeHashSource codeHashSource, Executor refreshExecutor, long ttl)
+    {
+        this.codeHashSource = codeHashSource;
+        this.refreshExecutor = refreshExecutor;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Estimate for the call: a recent estimate for the same call shape plus the margin, or the estimator's result if
+     * there is none.
+     *
+     * @throws Exception from the estimator when there's no cached estimate; the call shape is not cached
+     */
+    public BigInteger getEstimate(int chainId, String fromAddress, String toAddress, BigInteger value, byte[] data,
+                                  Estimator estimator) throws Exception
+    {
+        String key = callShape(chainId, fromAddress, toAddress, value, data);
+        Entry entry = estimates.get(key);
+        if (entry != null && System.currentTimeMillis() < entry.expiry)
+        {
+            refresh(key, chainId, toAddress, entry, estimator);
+            return withMargin(entry.estimate);
+        }
+
+        BigInteger estimate;
+        try
+        {
+            estimate = estimator.estimateGas();
+        }
+        catch (Exception e)
+        {
+            estimates.remove(key);
+            throw e;
+        }
+
+        estimates.put(key, new Entry(estimate, System.currentTimeMillis() + ttl, null));
+        refresh(key, chainId, toAddress, null, null); //record the code hash the estimate was made against
+        return estimate;
+    }
+
+    public int size()
+    {
+        return estimates.size();
+    }
+
+    /**
+     * Re-check the entry in the background: its target's code hash and, given an estimator, the estimate itself
+     */
+    private void refresh(String key, int chainId, String toAddress, Entry cached, Estimator estimator)
+    {
+        if (!refreshing.add(key)) return;
+        refreshExecutor.execute(() -> {
+            try
+            {
+                String codeHash = codeHashSource.getCodeHash(chainId, toAddress);
+                Entry current = estimates.get(key);
+                if (current == null) return;
+                if (current.codeHash != null && !current.codeHash.equals(codeHash))
+                {
+                    estimates.remove(key); //contract changed; estimate it afresh next time
+                }
+                else if (estimator != null)
+                {
+                    estimates.put(key, new Entry(estimator.estimateGas(), System.currentTimeMillis() + ttl, codeHash));
+                }
+                else
+                {
+                    estimates.put(key, new Entry(current.estimate, current.expiry, codeHash));
+                }
+            }
+            catch (Exception e)
+            {
+                if (cached != null) estimates.remove(key); //the call may now fail; let the next caller see why
+            }
+            finally
+            {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private static BigInteger withMargin(BigInteger estimate)
+    {
+        return estimate.multiply(BigInteger.valueOf(100 + ESTIMATE_MARGIN_PERCENT)).divide(BigInteger.valueOf(100));
+    }
+
+    /**
+     * Cache key for the call: chain, sender, target, value, selector and number of 32 byte argument words (bucketed
+     * when large, as dynamic arrays and strings vary in length)
+     */
+    public static String callShape(int chainId, String fromAddress, String toAddress, BigInteger value, byte[] data)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(chainId).append("-")
+                .append(fromAddress != null ? fromAddress.toLowerCase() : "").append("-")
+                .append(toAddress != null ? toAddress.toLowerCase() : "").append("-")
+                .append(value != null ? value.toString(16) : "0").append("-");
+        if (data == null || data.length < 4)
+        {
+            sb.append("0x");
+            return sb.toString();
+        }
+
+        for (int i = 0; i < 4; i++) sb.append(String.format("%02x", data[i] & 0xff));
+        int words = (data.length - 4 + 31) / 32;
+        int lengthClass = words <= 8 ? words : 8 + (32 - Integer.numberOfLeadingZeros(words));
+        sb.append("-").append(lengthClass);
+        return sb.toString();
+    }
+}
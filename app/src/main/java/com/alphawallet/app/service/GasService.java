@@ -15,19 +15,33 @@ import com.alphawallet.token.tools.Numeric;
 
 import org.jetbrains.annotations.Nullable;
 import org.web3j.protocol.Web3j;
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthEstimateGas;
 import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetCode;
 import org.web3j.tx.gas.ContractGasProvider;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
+import io.realm.Realm;
+import io.realm.RealmResults;
+import io.realm.Sort;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 
@@ -45,12 +59,17 @@ import static com.alphawallet.ethereum.EthereumNetworkBase.MAINNET_ID;
  *
  * Starts a cycle to update the gas settings stored in the database
  * Service automatically cleans up after itself - erasing readings older than 12 hours
+ *
+ * Gas prices come from FeeOracle, which samples recent blocks; the node's eth_gasPrice (or GasNow on mainnet) is only
+ * used if there are no recent transactions to sample. The active chain is sampled every cycle, the other enabled
+ * chains only every OTHER_CHAIN_INTERVAL.
  */
 public class GasService implements ContractGasProvider
 {
     private final static String GAS_NOW_API = "https://www.gasnow.org/api/v3/gas/price?utm_source=AlphaWallet";
     public final static long FETCH_GAS_PRICE_INTERVAL_SECONDS = 15;
     private final static long TWELVE_HOURS = 12 * DateUtils.HOUR_IN_MILLIS;
+    private final static long OTHER_CHAIN_INTERVAL = 5 * DateUtils.MINUTE_IN_MILLIS;
 
     private final EthereumNetworkRepositoryType networkRepository;
     private final OkHttpClient httpClient;
@@ -58,6 +77,13 @@ public class GasService implements ContractGasProvider
     private int currentChainId;
     private Web3j web3j;
     private BigInteger currentGasPrice;
+    private final FeeOracle feeOracle;
+    private final Map<Integer, GasPriceSpread> storedSpreads = new ConcurrentHashMap<>();
+    private final Map<Integer, Web3j> nodes = new ConcurrentHashMap<>();
+    private final GasEstimateCache estimateCache;
+    private final Map<Integer, Long> lastSampled = new ConcurrentHashMap<>();
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private final AtomicBoolean seeded = new AtomicBoolean(false);
 
     @Nullable
     private Disposable gasFetchDisposable;
@@ -69,12 +95,15 @@ public class GasService implements ContractGasProvider
         this.realmManager = realm;
         gasFetchDisposable = null;
         currentChainId = MAINNET_ID;
+        feeOracle = new FeeOracle(new NodeBlockSource());
+        estimateCache = new GasEstimateCache(this::getCodeHash);
 
         web3j = null;
     }
 
     public void startGasPriceCycle(int chainId)
     {
+        if (seeded.compareAndSet(false, true)) seedFromRealm();
         updateChainId(chainId);
         if (gasFetchDisposable == null || gasFetchDisposable.isDisposed())
         {
@@ -93,6 +122,10 @@ public class GasService implements ContractGasProvider
 
     public void updateChainId(int chainId)
     {
+        //serve the sampled price for this chain straight away, rather than waiting for the next fetch
+        GasPriceSpread cached = feeOracle.getSpread(chainId);
+        if (cached != null && (chainId != currentChainId || currentGasPrice == null)) currentGasPrice = fixGasPrice(cached.standard, chainId);
+
         if (networkRepository.getNetworkByChain(chainId) == null)
         {
             if (BuildConfig.DEBUG) System.out.println("Network error, no chain, trying to pick: " + chainId);
@@ -104,14 +137,39 @@ public class GasService implements ContractGasProvider
         else if (web3j == null || web3j.ethChainId().getId() != chainId)
         {
             currentChainId = chainId;
-            web3j = getWeb3jService(chainId);
+            web3j = getNode(chainId);
+        }
+    }
+
+    /**
+     * Serve the prices saved by the last session until each chain is sampled again
+     */
+    private void seedFromRealm()
+    {
+        try (Realm realm = realmManager.getRealmInstance(TICKER_DB))
+        {
+            RealmResults<RealmGasSpread> stored = realm.where(RealmGasSpread.class)
+                    .sort("timeStamp", Sort.DESCENDING)
+                    .findAll();
+            for (RealmGasSpread rgs : stored)
+            {
+                GasPriceSpread spread = rgs.getGasPrice();
+                if (spread.standard.signum() > 0) feeOracle.seed(rgs.getChainId(), spread); //newest for each chain
+            }
+        }
+        catch (Exception e)
+        {
+            if (BuildConfig.DEBUG) e.printStackTrace();
         }
     }
 
     private void fetchCurrentGasPrice()
     {
+        if (!updating.compareAndSet(false, true)) return; //previous cycle is still fetching blocks
+
         updateCurrentGasPrices()
                 .subscribeOn(Schedulers.io())
+                .doFinally(() -> updating.set(false))
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(updated -> { if (BuildConfig.DEBUG) System.out.println("Updated gas prices: " + updated); },
                         Throwable::printStackTrace)
@@ -144,39 +202,77 @@ public class GasService implements ContractGasProvider
 
     private Single<Boolean> updateCurrentGasPrices()
     {
-        if (currentChainId == MAINNET_ID)
+        final int chainId = currentChainId;
+        return Single.fromCallable(() -> {
+            boolean updated = updateChainGasPrice(chainId);
+            lastSampled.put(chainId, System.currentTimeMillis());
+
+            //the other chains are only kept roughly current; at most one is sampled per cycle
+            for (int enabledChainId : networkRepository.getFilterNetworkList())
+            {
+                Long sampled = lastSampled.get(enabledChainId);
+                if (enabledChainId == chainId || (sampled != null && System.currentTimeMillis() - sampled < OTHER_CHAIN_INTERVAL)) continue;
+                lastSampled.put(enabledChainId, System.currentTimeMillis());
+                updateChainGasPrice(enabledChainId);
+                break;
+            }
+            return updated;
+        });
+    }
+
+    private boolean updateChainGasPrice(int chainId)
+    {
+        GasPriceSpread spread;
+        if (EthereumNetworkRepository.hasGasOverride(chainId))
         {
-            return updateGasNow();
+            spread = new GasPriceSpread(EthereumNetworkRepository.gasOverrideValue(chainId));
         }
         else
         {
-            //use node to get chain price
-            return useNodeEstimate();
+            spread = sampleBlocks(chainId);
+            if (spread == null) spread = chainId == MAINNET_ID ? fetchGasNow() : fetchNodeGasPrice(chainId);
+        }
+
+        if (spread == null) return false;
+        if (chainId == currentChainId) currentGasPrice = fixGasPrice(spread.standard, chainId);
+        if (storedSpreads.get(chainId) != spread) //oracle returns the same spread if there's no new block
+        {
+            if (spread != feeOracle.getSpread(chainId))
+            {
+                //spreads are keyed by timestamp; keep them unique now several chains update in one cycle
+                spread = new GasPriceSpread(spread.rapid, spread.fast, spread.standard, spread.slow, feeOracle.nextTimeStamp());
+            }
+            storedSpreads.put(chainId, spread);
+            updateRealm(spread, chainId);
         }
+        return true;
     }
 
-    private Single<Boolean> useNodeEstimate()
+    private GasPriceSpread sampleBlocks(int chainId)
     {
-        if (EthereumNetworkRepository.hasGasOverride(currentChainId))
+        try
         {
-            updateRealm(new GasPriceSpread(EthereumNetworkRepository.gasOverrideValue(currentChainId)), currentChainId);
-            currentGasPrice = EthereumNetworkRepository.gasOverrideValue(currentChainId);
-            return Single.fromCallable(() -> true);
+            return feeOracle.update(chainId);
         }
-        else
+        catch (Exception e)
         {
-            final int nodeId = currentChainId;
-            return Single.fromCallable(() -> web3j
-                    .ethGasPrice().send())
-                    .map(price -> updateGasPrice(price, nodeId));
+            if (BuildConfig.DEBUG) e.printStackTrace();
+            return null;
         }
     }
 
-    private Boolean updateGasPrice(EthGasPrice ethGasPrice, int chainId)
+    private GasPriceSpread fetchNodeGasPrice(int chainId)
     {
-        currentGasPrice = fixGasPrice(ethGasPrice.getGasPrice(), chainId);
-        updateRealm(new GasPriceSpread(currentGasPrice), chainId);
-        return true;
+        try
+        {
+            EthGasPrice ethGasPrice = getNode(chainId).ethGasPrice().send();
+            return new GasPriceSpread(fixGasPrice(ethGasPrice.getGasPrice(), chainId));
+        }
+        catch (Exception e)
+        {
+            if (BuildConfig.DEBUG) e.printStackTrace();
+            return null;
+        }
     }
 
     private BigInteger fixGasPrice(BigInteger gasPrice, int chainId)
@@ -199,36 +295,31 @@ public class GasService implements ContractGasProvider
         }
     }
 
-    private Single<Boolean> updateGasNow()
+    private GasPriceSpread fetchGasNow()
     {
-        return Single.fromCallable(() -> {
-            boolean update = false;
-            try
-            {
-                Request request = new Request.Builder()
-                        .url(GAS_NOW_API)
-                        .get()
-                        .build();
-                okhttp3.Response response = httpClient.newCall(request)
-                        .execute();
-
-                if (response.code() / 200 == 1)
-                {
-                    String result = response.body()
-                            .string();
-                    GasPriceSpread gps = new GasPriceSpread(result);
-                    updateRealm(gps, MAINNET_ID);
-                    update = true;
-                    currentGasPrice = gps.standard;
-                }
-            }
-            catch (Exception e)
+        try
+        {
+            Request request = new Request.Builder()
+                    .url(GAS_NOW_API)
+                    .get()
+                    .build();
+            okhttp3.Response response = httpClient.newCall(request)
+                    .execute();
+
+            if (response.code() / 200 == 1)
             {
-                e.printStackTrace();
+                String result = response.body()
+                        .string();
+                GasPriceSpread gps = new GasPriceSpread(result);
+                if (gps.standard.compareTo(BigInteger.ZERO) > 0) return gps;
             }
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
 
-            return update;
-        });
+        return null;
     }
 
     /**
@@ -256,6 +347,10 @@ public class GasService implements ContractGasProvider
         });
     }
 
+    /**
+     * Estimate gas limit for the transaction. A repeat of a recent call shape is answered from the estimate cache
+     * and re-estimated in the background; otherwise the node estimates the call.
+     */
     public Single<EthEstimateGas> calculateGasEstimate(byte[] transactionBytes, int chainId, String toAddress, BigInteger amount, Wallet wallet)
     {
         String txData = "";
@@ -265,16 +360,21 @@ public class GasService implements ContractGasProvider
         }
 
         updateChainId(chainId);
-        String finalTxData = txData;
-
-        return networkRepository.getLastTransactionNonce(web3j, wallet.address)
-                .flatMap(nonce -> ethEstimateGas(wallet.address, nonce, getGasPrice(), getGasLimit(), toAddress, amount, finalTxData));
+        final String finalTxData = txData;
+        final BigInteger gasPrice = getGasPrice();
+
+        return Single.fromCallable(() -> estimateCache.getEstimate(chainId, wallet.address, toAddress, amount, transactionBytes,
+                        () -> ethEstimateGas(chainId, wallet.address, gasPrice, getGasLimit(), toAddress, amount, finalTxData)))
+                .map(GasService::toEstimateResponse)
+                .onErrorResumeNext((Throwable e) -> e instanceof EstimateFailedException
+                        ? Single.just(((EstimateFailedException) e).response) : Single.error(e));
     }
 
-    private Single<EthEstimateGas> ethEstimateGas(String fromAddress, BigInteger nonce, BigInteger gasPrice,
-                                                  BigInteger gasLimit, String toAddress,
-                                                  BigInteger amount, String txData)
+    private BigInteger ethEstimateGas(int chainId, String fromAddress, BigInteger gasPrice, BigInteger gasLimit,
+                                      String toAddress, BigInteger amount, String txData) throws Exception
     {
+        Web3j node = getNode(chainId);
+        BigInteger nonce = networkRepository.getLastTransactionNonce(node, fromAddress).blockingGet();
         final Transaction transaction = new Transaction (
                 fromAddress,
                 nonce,
@@ -284,7 +384,80 @@ public class GasService implements ContractGasProvider
                 amount,
                 txData);
 
-        return Single.fromCallable(() -> web3j.ethEstimateGas(transaction).send());
+        EthEstimateGas estimate = node.ethEstimateGas(transaction).send();
+        if (estimate.hasError()) throw new EstimateFailedException(estimate);
+        return estimate.getAmountUsed();
+    }
+
+    private String getCodeHash(int chainId, String address) throws Exception
+    {
+        if (address == null || address.length() == 0) return "";
+        EthGetCode response = getNode(chainId).ethGetCode(address, DefaultBlockParameterName.LATEST).send();
+        if (response.hasError()) throw new IOException(response.getError().getMessage());
+        return Hash.sha3(response.getCode() != null ? response.getCode() : "0x");
+    }
+
+    private static EthEstimateGas toEstimateResponse(BigInteger gasLimit)
+    {
+        EthEstimateGas estimate = new EthEstimateGas();
+        estimate.setResult(Numeric.toHexStringWithPrefix(gasLimit));
+        return estimate;
+    }
+
+    private Web3j getNode(int chainId)
+    {
+        Web3j node = nodes.get(chainId);
+        if (node == null)
+        {
+            node = getWeb3jService(chainId);
+            nodes.put(chainId, node);
+        }
+        return node;
+    }
+
+    /**
+     * Node's error response to an estimate; passed through to the caller as before
+     */
+    private static class EstimateFailedException extends Exception
+    {
+        final EthEstimateGas response;
+
+        EstimateFailedException(EthEstimateGas response)
+        {
+            super(response.getError().getMessage());
+            this.response = response;
+        }
+    }
+
+    /**
+     * Reads recent blocks through a Web3j instance per chain
+     */
+    private class NodeBlockSource implements FeeOracle.BlockSource
+    {
+        @Override
+        public long getLatestBlockNumber(int chainId) throws Exception
+        {
+            return getNode(chainId).ethBlockNumber().send().getBlockNumber().longValue();
+        }
+
+        @Override
+        public List<BigInteger> getBlockGasPrices(int chainId, long blockNumber) throws Exception
+        {
+            EthBlock.Block block = getNode(chainId)
+                    .ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber)), true)
+                    .send().getBlock();
+
+            List<BigInteger> prices = new ArrayList<>();
+            if (block == null || block.getTransactions() == null) return prices;
+            for (EthBlock.TransactionResult<?> result : block.getTransactions())
+            {
+                if (result instanceof EthBlock.TransactionObject)
+                {
+                    prices.add(((EthBlock.TransactionObject) result).getGasPrice());
+                }
+            }
+            return prices;
+        }
     }
 
     public static BigInteger getDefaultGasLimit(Token token, Web3Transaction tx)
@@ -0,0 +1,187 @@
+package com.alphawallet.app.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Shares a request budget between all callers that hit the same API host.
+ *
+ * Several chains are served by the same explorer host (eg the Etherscan family, Covalent), so when chains are
+ * synced concurrently they must respect a single budget for that host. Each host gets a fair (FIFO) concurrency
+ * limit and a minimum spacing between requests. The spacing backs off when the host returns HTTP 429 or starts
+ * failing, and relaxes back towards the base rate as requests succeed.
+ */
+public class HostRateLimiter
+{
+    public static final int DEFAULT_CONCURRENCY = 2;
+    public static final long DEFAULT_MIN_INTERVAL = 220; //Etherscan free tier allows 5 calls per second
+    public static final long MAX_INTERVAL = 60 * 1000;
+    private static final long BACKOFF_STEP = 100; //minimum backoff applied when base interval is zero
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final double ERROR_WEIGHT = 0.2; //weighting of latest result in the error rate average
+    private static final double ERROR_THRESHOLD = 0.5;
+
+    private final Map<String, HostBudget> hosts = new ConcurrentHashMap<>();
+    private final int concurrency;
+    private final long minInterval;
+
+    public HostRateLimiter()
+    {
+        this(DEFAULT_CONCURRENCY, DEFAULT_MIN_INTERVAL);
+    }
+
+    public HostRateLimiter(int concurrency, long minInterval)
+    {
+        this.concurrency = concurrency;
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * Execute the request once the host budget allows, and feed the result back into the host's backoff.
+     * Blocks the calling thread, so call from an IO thread as with any OkHttp execute.
+     *
+     * @param client
+     * @param request
+     * @return response from the host
+     * @throws IOException on network error, or InterruptedIOException if interrupted while waiting for the budget
+     */
+    public Response execute(OkHttpClient client, Request request) throws IOException
+    {
+        HostBudget budget = getBudget(request.url().host());
+        budget.acquire();
+        try
+        {
+            Response response = client.newCall(request).execute();
+            budget.onResult(response.code(), response.header("Retry-After"));
+            return response;
+        }
+        catch (IOException e)
+        {
+            budget.onError();
+            throw e;
+        }
+        finally
+        {
+            budget.release();
+        }
+    }
+
+    /**
+     * @param host
+     * @return current spacing between requests to this host in milliseconds
+     */
+    public long getInterval(String host)
+    {
+        return getBudget(host).getInterval();
+    }
+
+    private HostBudget getBudget(String host)
+    {
+        HostBudget budget = hosts.get(host);
+        if (budget == null)
+        {
+            hosts.putIfAbsent(host, new HostBudget(concurrency, minInterval));
+            budget = hosts.get(host);
+        }
+
+        return budget;
+    }
+
+    private static class HostBudget
+    {
+        private final Semaphore permits;
+        private final long baseInterval;
+        private long interval;
+        private long nextSlot;
+        private double errorRate;
+
+        HostBudget(int concurrency, long baseInterval)
+        {
+            this.permits = new Semaphore(concurrency, true);
+            this.baseInterval = baseInterval;
+            this.interval = baseInterval;
+            this.nextSlot = 0;
+            this.errorRate = 0.0;
+        }
+
+        void acquire() throws IOException
+        {
+            try
+            {
+                permits.acquire();
+                long wait = reserveSlot();
+                if (wait > 0) Thread.sleep(wait);
+            }
+            catch (InterruptedException e)
+            {
+                throw new InterruptedIOException("Interrupted waiting for host budget");
+            }
+        }
+
+        void release()
+        {
+            permits.release();
+        }
+
+        private synchronized long reserveSlot()
+        {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + interval;
+            return slot - now;
+        }
+
+        synchronized long getInterval()
+        {
+            return interval;
+        }
+
+        synchronized void onResult(int code, String retryAfter)
+        {
+            if (code == HTTP_TOO_MANY_REQUESTS)
+            {
+                interval = Math.min(Math.max(interval * 2, BACKOFF_STEP), MAX_INTERVAL);
+                long retryTime = parseRetryAfter(retryAfter);
+                nextSlot = Math.max(nextSlot, System.currentTimeMillis() + Math.max(interval, retryTime));
+            }
+            else if (code >= 500)
+            {
+                onError();
+            }
+            else
+            {
+                errorRate = errorRate * (1.0 - ERROR_WEIGHT);
+                interval = Math.max(baseInterval, (interval * 3) / 4); //relax back towards base rate
+            }
+        }
+
+        synchronized void onError()
+        {
+            errorRate = errorRate * (1.0 - ERROR_WEIGHT) + ERROR_WEIGHT;
+            if (errorRate > ERROR_THRESHOLD)
+            {
+                interval = Math.min(Math.max(interval * 2, BACKOFF_STEP), MAX_INTERVAL);
+            }
+        }
+
+        private long parseRetryAfter(String retryAfter)
+        {
+            if (retryAfter == null) return 0;
+            try
+            {
+                return Math.min(Long.parseLong(retryAfter.trim()) * 1000, MAX_INTERVAL);
+            }
+            catch (NumberFormatException e)
+            {
+                return 0; //HTTP-date form; fall back to our own backoff
+            }
+        }
+    }
+}
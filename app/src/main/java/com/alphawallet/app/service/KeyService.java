@@ -33,6 +33,7 @@ import com.alphawallet.app.entity.cryptokeys.KeyEncodingType;
 import com.alphawallet.app.entity.cryptokeys.KeyServiceException;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
 import com.alphawallet.app.entity.cryptokeys.SignatureReturnType;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.widget.AWalletAlertDialog;
 import com.alphawallet.app.widget.SignTransactionDialog;
 import com.google.firebase.crashlytics.FirebaseCrashlytics;
@@ -384,6 +385,83 @@ public class KeyService implements AuthenticationCallback, PinAuthenticationCall
         return returnSig;
     }
 
+    /**
+     * Unlock the key once for a run of signatures, eg generating a market order of over a thousand trades.
+     * Same authentication gate as signData: the authentication event must be generated prior to opening the session.
+     * The derived key is held only in the returned session, and is wiped after the TTL or signature count expires.
+     *
+     * @param wallet
+     * @param maxSignatures
+     * @param ttlMillis
+     * @return open session, or a failed session carrying the reason the key couldn't be unlocked
+     */
+    synchronized SigningSession openSigningSession(Wallet wallet, int maxSignatures, long ttlMillis)
+    {
+        currentWallet = wallet;
+        try
+        {
+            switch (wallet.type)
+            {
+                case KEYSTORE_LEGACY:
+                case KEYSTORE:
+                    String password = wallet.type == WalletType.KEYSTORE ? unpackMnemonic()
+                            : new String(getLegacyPassword(context, wallet.address));
+                    File keyFolder = new File(context.getFilesDir(), KEYSTORE_FOLDER);
+                    Credentials credentials = KeystoreAccountService.getCredentials(keyFolder, wallet.address, password);
+                    if (credentials == null) return SigningSession.failed(context.getString(R.string.no_key));
+                    return SigningSession.fromKeyPair(credentials.getEcKeyPair(), maxSignatures, ttlMillis);
+
+                case HDKEY:
+                    String mnemonic = unpackMnemonic();
+                    HDWallet newWallet = new HDWallet(mnemonic, "");
+                    return new SigningSession(new HDKeySigner(newWallet.getKeyForCoin(CoinType.ETHEREUM)), maxSignatures, ttlMillis);
+
+                case WATCH:
+                    return SigningSession.failed(context.getString(R.string.watch_wallet));
+                case NOT_DEFINED:
+                case TEXT_MARKER:
+                default:
+                    return SigningSession.failed(context.getString(R.string.no_key));
+            }
+        }
+        catch (ServiceErrorException e)
+        {
+            //Legacy keystore error
+            if (!BuildConfig.DEBUG) FirebaseCrashlytics.getInstance().recordException(e);
+            return SigningSession.failed(e.getMessage());
+        }
+        catch (Exception e)
+        {
+            return SigningSession.failed(e.getMessage());
+        }
+    }
+
+    /**
+     * Signs exactly as the HDKEY path of signData
+     */
+    private static class HDKeySigner implements SigningSession.DigestSigner
+    {
+        private PrivateKey pk;
+
+        HDKeySigner(PrivateKey pk)
+        {
+            this.pk = pk;
+        }
+
+        @Override
+        public byte[] sign(byte[] data)
+        {
+            byte[] digest = Hash.keccak256(data);
+            return pk.sign(digest, Curve.SECP256K1);
+        }
+
+        @Override
+        public void destroy()
+        {
+            pk = null; //native key is released when the wrapper is collected
+        }
+    }
+
     /**
      * Fetches keystore password for export/backup of keystore
      *
@@ -6,6 +6,7 @@ import com.alphawallet.app.BuildConfig;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.WalletType;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.entity.cryptokeys.SignatureReturnType;
 import com.alphawallet.app.util.Utils;
 import com.alphawallet.token.entity.Signable;
@@ -368,6 +369,13 @@ public class KeystoreAccountService implements AccountKeystoreService
         });
     }
 
+    @Override
+    public Single<SigningSession> openSigningSession(Wallet signer, int maxSignatures)
+    {
+        return Single.fromCallable(() -> keyService.openSigningSession(signer, maxSignatures, SigningSession.DEFAULT_TTL))
+                .subscribeOn(Schedulers.io());
+    }
+
     @Override
     public boolean hasAccount(String address) {
         address = Numeric.cleanHexPrefix(address);
@@ -436,7 +444,7 @@ public class KeystoreAccountService implements AccountKeystoreService
      * @param signature
      * @return
      */
-    private byte[] patchSignatureVComponent(byte[] signature)
+    public static byte[] patchSignatureVComponent(byte[] signature)
     {
         if (signature != null && signature.length == 65 && signature[64] < 27)
         {
@@ -8,6 +8,8 @@ import com.alphawallet.app.entity.CryptoFunctions;
 import com.alphawallet.app.entity.TradeInstance;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SignatureReturnType;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.repository.EthereumNetworkRepository;
 import com.alphawallet.app.repository.TransactionRepositoryType;
 import com.alphawallet.token.entity.MagicLinkData;
@@ -42,6 +44,7 @@ import retrofit2.http.Body;
 import retrofit2.http.POST;
 
 import static com.alphawallet.app.entity.CryptoFunctions.sigFromByteArray;
+import static com.alphawallet.app.service.KeystoreAccountService.patchSignatureVComponent;
 
 /**
  * Created by James on 7/02/2018.
@@ -219,34 +222,51 @@ public class MarketQueueService {
         return transactionRepository.getSignature(wallet, data, chainId);
     }
 
-    private Single<TradeInstance> tradesInnerLoop(Wallet wallet, String password, BigInteger price, int[] tickets, String contractAddr, BigInteger firstTicketId, int chainId) {
-        return Single.fromCallable(() ->
-        {
-            long initialExpiry = (System.currentTimeMillis() / 1000L) + MARKET_INTERVAL;
-            //Recover public key
-            BigInteger recoveredKey = ecRecoverPublicKey(wallet, password, chainId);
+    private Single<TradeInstance> tradesInnerLoop(Wallet wallet, BigInteger price, int[] tickets, String contractAddr, BigInteger firstTicketId) {
+        //unlock the key once for the whole order rather than once per trade
+        return transactionRepository.openSigningSession(wallet, TRADE_AMOUNT + 1)
+                .map(session -> {
+                    try (SigningSession s = session)
+                    {
+                        return signTrades(s, price, tickets, contractAddr, firstTicketId);
+                    }
+                });
+    }
 
-            TradeInstance trade = new TradeInstance(price, BigInteger.valueOf(initialExpiry), tickets, contractAddr, recoveredKey, firstTicketId);
+    private TradeInstance signTrades(SigningSession session, BigInteger price, int[] tickets, String contractAddr, BigInteger firstTicketId) throws Exception
+    {
+        long initialExpiry = (System.currentTimeMillis() / 1000L) + MARKET_INTERVAL;
+        //Recover public key
+        BigInteger recoveredKey = ecRecoverPublicKey(session);
 
-            for (int i = 0; i < TRADE_AMOUNT; i++)
-            {
-                trade.expiry =  BigInteger.valueOf(initialExpiry + (i * MARKET_INTERVAL));
-                trade.addSignature(getTradeSignature(wallet, password, trade, chainId).blockingGet());
-                float upd = ((float)i/TRADE_AMOUNT)*100.0f;
-                messageCallback.queueUpdate((int)upd);
-            }
-            trade.expiry = BigInteger.valueOf(initialExpiry); //ensure expiry of first order is correct
-            return trade;
-        });
+        TradeInstance trade = new TradeInstance(price, BigInteger.valueOf(initialExpiry), tickets, contractAddr, recoveredKey, firstTicketId);
+
+        for (int i = 0; i < TRADE_AMOUNT; i++)
+        {
+            trade.expiry =  BigInteger.valueOf(initialExpiry + (i * MARKET_INTERVAL));
+            trade.addSignature(getTradeSignature(session, trade));
+            float upd = ((float)i/TRADE_AMOUNT)*100.0f;
+            messageCallback.queueUpdate((int)upd);
+        }
+        trade.expiry = BigInteger.valueOf(initialExpiry); //ensure expiry of first order is correct
+        return trade;
     }
 
     private Single<TradeInstance> getTradeMessages(Wallet wallet, BigInteger price, int[] tickets, String contractAddr, BigInteger firstTicketId, int chainId) {
-        return tradesInnerLoop(wallet, "password", price, tickets, contractAddr, firstTicketId, chainId);
+        return tradesInnerLoop(wallet, price, tickets, contractAddr, firstTicketId);
+    }
+
+    private byte[] getTradeSignature(SigningSession session, TradeInstance trade) throws Exception {
+        return signWithSession(session, trade.getTradeBytes());
     }
 
-    private Single<byte[]> getTradeSignature(Wallet wallet, String password, TradeInstance trade, int chainId) {
-        return encodeMessageForTrade(trade)
-                .flatMap(tradeBytes -> transactionRepository.getSignatureFast(wallet, password, tradeBytes, chainId));
+    private byte[] signWithSession(SigningSession session, byte[] message) throws Exception {
+        SignatureFromKey sig = session.signData(message);
+        if (sig.sigType != SignatureReturnType.SIGNATURE_GENERATED)
+        {
+            throw new Exception(sig.failMessage);
+        }
+        return patchSignatureVComponent(sig.signature);
     }
 
     private Single<byte[]> encodeMessageForTrade(TradeInstance trade) {
@@ -373,10 +393,10 @@ public class MarketQueueService {
         return sb.toString();
     }
 
-    private BigInteger ecRecoverPublicKey(Wallet wallet, String password, int chainId) throws Exception
+    private BigInteger ecRecoverPublicKey(SigningSession session) throws Exception
     {
         String testSigMsg = "obtain public key";
-        byte[] testSigBytes = transactionRepository.getSignatureFast(wallet, password, testSigMsg.getBytes(), chainId).blockingGet();
+        byte[] testSigBytes = signWithSession(session, testSigMsg.getBytes());
         Sign.SignatureData testSig = sigFromByteArray(testSigBytes);
         BigInteger recoveredKey = Sign.signedMessageToKey(testSigMsg.getBytes(), testSig);
         String publicKeyString = Keys.getAddress(recoveredKey); //TODO: Remove - this is here for debug/testing
@@ -0,0 +1,199 @@
+package com.alphawallet.app.service;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocates transaction nonces locally, per wallet and chain.
+ *
+ * Fetching the PENDING transaction count before every send costs a round trip, and back-to-back sends race because
+ * the node's pending pool lags behind our submissions - two transactions can be given the same nonce.
+ * Here the node is only asked when we first see a wallet/chain pair, when there is nothing in flight and the last
+ * reconciliation is stale, or after a submission error hints we are out of step with the node.
+ * Reconciliation also takes into account transactions we've stored as pending but the node may not yet report.
+ * Only recent ones count, and only where they follow on from the node's count without a gap: a transaction the node
+ * has dropped would otherwise keep its nonce reserved, and every later send would be stuck behind the gap.
+ *
+ * Each reserved nonce must be followed by either confirm (the node accepted the transaction) or release (submission
+ * failed, or was abandoned). Released nonces are handed out again before new ones so a failed send doesn't leave a gap
+ * that would block every later transaction. A reservation that's neither confirmed nor released within
+ * RESERVATION_TIMEOUT is dropped at the next reconciliation, so one lost reservation can't stop the node being checked.
+ */
+public class NonceManager
+{
+    private static final long RECONCILE_INTERVAL = 60 * 1000; //re-check the node if idle for a minute
+    public static final long LOCAL_PENDING_TRUST_TIME = 5 * 60 * 1000; //a node that hasn't seen a tx by now has dropped it
+    public static final long RESERVATION_TIMEOUT = 5 * 60 * 1000; //longer than any sign and send, including authentication
+
+    public interface NonceSource
+    {
+        /**
+         * @return transaction count including pending transactions, as reported by the node
+         */
+        BigInteger getPendingNonce(int chainId, String walletAddress) throws Exception;
+
+        /**
+         * @return nonces of transactions we've stored as submitted within LOCAL_PENDING_TRUST_TIME, but not yet seen
+         * written to a block
+         */
+        List<BigInteger> getLocalPendingNonces(int chainId, String walletAddress);
+    }
+
+    private final NonceSource nonceSource;
+    private final long reservationTimeout;
+    private final Map<String, NonceState> nonceStates = new ConcurrentHashMap<>();
+
+    public NonceManager(NonceSource source)
+    {
+        this(source, RESERVATION_TIMEOUT);
+    }
+
+    public NonceManager(NonceSource source, long reservationTimeout)
+    {
+        this.nonceSource = source;
+        this.reservationTimeout = reservationTimeout;
+    }
+
+    /**
+     * Reserve the next nonce for this wallet on this chain
+     *
+     * @param chainId
+     * @param walletAddress
+     * @return nonce to use
+     * @throws Exception if the node couldn't be reached when a reconciliation was required
+     */
+    public BigInteger reserve(int chainId, String walletAddress) throws Exception
+    {
+        NonceState state = getState(chainId, walletAddress);
+        synchronized (state)
+        {
+            long now = System.currentTimeMillis();
+            if (state.requiresReconcile(now, reservationTimeout))
+            {
+                reconcile(state, chainId, walletAddress);
+            }
+
+            long nonce = state.gaps.isEmpty() ? state.next++ : state.gaps.pollFirst();
+            state.inFlight.put(nonce, now);
+            return BigInteger.valueOf(nonce);
+        }
+    }
+
+    /**
+     * The node accepted a transaction with this nonce
+     */
+    public void confirm(int chainId, String walletAddress, BigInteger nonce)
+    {
+        NonceState state = getState(chainId, walletAddress);
+        synchronized (state)
+        {
+            state.inFlight.remove(nonce.longValue());
+        }
+    }
+
+    /**
+     * Submission with this nonce failed; make the nonce available again
+     *
+     * @param resync true if the failure suggests we're out of step with the node (eg 'nonce too low')
+     */
+    public void release(int chainId, String walletAddress, BigInteger nonce, boolean resync)
+    {
+        NonceState state = getState(chainId, walletAddress);
+        synchronized (state)
+        {
+            long value = nonce.longValue();
+            if (state.inFlight.remove(value) == null) return;
+
+            state.gaps.add(value);
+            //fold gaps at the top back into the counter
+            while (!state.gaps.isEmpty() && state.gaps.last() == state.next - 1)
+            {
+                state.next = state.gaps.pollLast();
+            }
+
+            if (resync) state.lastReconcile = 0;
+        }
+    }
+
+    /**
+     * Forget everything known about this wallet/chain, next reserve will reconcile against the node
+     */
+    public void reset(int chainId, String walletAddress)
+    {
+        nonceStates.remove(stateKey(chainId, walletAddress));
+    }
+
+    /**
+     * Helper to classify a node's error response to a send
+     */
+    public static boolean isNonceError(String errorMessage)
+    {
+        if (errorMessage == null) return false;
+        String msg = errorMessage.toLowerCase();
+        return msg.contains("nonce") || msg.contains("already known") || msg.contains("replacement transaction");
+    }
+
+    private void reconcile(NonceState state, int chainId, String walletAddress) throws Exception
+    {
+        long nodeNonce = nonceSource.getPendingNonce(chainId, walletAddress).longValue();
+        long next = nodeNonce;
+
+        //node's pending pool may lag our own submissions; follow them on from the node's count, stopping at a gap
+        TreeSet<Long> localPending = new TreeSet<>();
+        for (BigInteger pending : nonceSource.getLocalPendingNonces(chainId, walletAddress))
+        {
+            localPending.add(pending.longValue());
+        }
+        while (localPending.contains(next)) next++;
+
+        //a reservation held this long was lost without confirm or release; the node's count decides its nonce
+        state.inFlight.values().removeIf(reserved -> reserved < System.currentTimeMillis() - reservationTimeout);
+
+        //never hand out a nonce that's still reserved
+        if (!state.inFlight.isEmpty()) next = Math.max(next, state.inFlight.lastKey() + 1);
+
+        state.next = next;
+        //gaps below the node's count have been filled by transactions from elsewhere
+        state.gaps.headSet(nodeNonce).clear();
+        state.gaps.tailSet(next).clear();
+        state.lastReconcile = System.currentTimeMillis();
+    }
+
+    private NonceState getState(int chainId, String walletAddress)
+    {
+        String key = stateKey(chainId, walletAddress);
+        NonceState state = nonceStates.get(key);
+        if (state == null)
+        {
+            nonceStates.putIfAbsent(key, new NonceState());
+            state = nonceStates.get(key);
+        }
+
+        return state;
+    }
+
+    private static String stateKey(int chainId, String walletAddress)
+    {
+        return walletAddress.toLowerCase() + "-" + chainId;
+    }
+
+    private static class NonceState
+    {
+        long next = 0;
+        long lastReconcile = 0;
+        final TreeMap<Long, Long> inFlight = new TreeMap<>(); //nonce -> time reserved
+        final TreeSet<Long> gaps = new TreeSet<>();
+
+        boolean requiresReconcile(long now, long reservationTimeout)
+        {
+            return lastReconcile == 0
+                    || (inFlight.isEmpty() && now > lastReconcile + RECONCILE_INTERVAL)
+                    || (!inFlight.isEmpty() && now > Collections.min(inFlight.values()) + reservationTimeout);
+        }
+    }
+}
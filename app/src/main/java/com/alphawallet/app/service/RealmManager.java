@@ -3,8 +3,10 @@ package com.alphawallet.app.service;
 import com.alphawallet.app.BuildConfig;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.repository.AWRealmMigration;
+import com.alphawallet.app.util.ScopedInstanceTracker;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.realm.Realm;
@@ -13,22 +15,111 @@ import io.realm.exceptions.RealmMigrationNeededException;
 
 public class RealmManager {
 
+    public static final String WALLET_DATA_DB = "WalletData-db.realm";
+    public static final String WALLET_TYPE_DB = "WalletType-db.realm";
+    public static final String CONTRACT_DATA_DB = "ContractData-db.realm";
+
+    public interface RealmReader<T> {
+        T read(Realm realm);
+    }
+
+    // guarded by itself; configurations are built once per name, and replaced at most once if migration fails
     private final Map<String, RealmConfiguration> realmConfigurations = new HashMap<>();
+    private final ScopedInstanceTracker<Realm> scopedRealms =
+            new ScopedInstanceTracker<>(this::getRealmInstanceInternal, Realm::close, BuildConfig.DEBUG);
 
     public String getRealmInstanceName(Wallet wallet) {
         return wallet.address.toLowerCase() + "-db.realm";
     }
 
+    public String getRealmInstanceName(String walletAddress) {
+        return walletAddress.toLowerCase() + "-db.realm";
+    }
+
     public Realm getRealmInstance(Wallet wallet) {
         return getRealmInstanceInternal(getRealmInstanceName(wallet));
     }
 
     public Realm getRealmInstance(String walletAddress) {
-        return getRealmInstanceInternal(walletAddress.toLowerCase() + "-db.realm");
+        return getRealmInstanceInternal(getRealmInstanceName(walletAddress));
     }
 
     Realm getRealmInstanceInternal(String name) {
+        RealmConfiguration config = getConfiguration(name);
         try
+        {
+            return Realm.getInstance(config);
+        }
+        catch (RealmMigrationNeededException e)
+        {
+            //we require a realm migration, but this wasn't provided.
+            return Realm.getInstance(getFallbackConfiguration(name, config));
+        }
+    }
+
+    public Realm getWalletDataRealmInstance() {
+        return getRealmInstanceInternal(WALLET_DATA_DB);
+    }
+
+    public Realm getWalletTypeRealmInstance() {
+        return getRealmInstanceInternal(WALLET_TYPE_DB);
+    }
+
+    /**
+     * Run a query on the named realm. Nested reads and writes on the same thread share one Realm instance.
+     * Don't return managed objects; they're invalid once the outermost scope closes the instance.
+     */
+    public <T> T read(String name, RealmReader<T> reader) {
+        Realm realm = scopedRealms.acquire(name);
+        try
+        {
+            return reader.read(realm);
+        }
+        finally
+        {
+            scopedRealms.release(name);
+        }
+    }
+
+    /**
+     * Run a transaction on the named realm, joining the thread's transaction if one is already open
+     */
+    public void write(String name, Realm.Transaction transaction) {
+        Realm realm = scopedRealms.acquire(name);
+        try
+        {
+            if (realm.isInTransaction()) transaction.execute(realm);
+            else realm.executeTransaction(transaction);
+        }
+        finally
+        {
+            scopedRealms.release(name);
+        }
+    }
+
+    /**
+     * Realm instances currently open through read and write; should be 0 when no scope is active
+     */
+    public int getScopedInstanceCount() {
+        return scopedRealms.getOpenCount();
+    }
+
+    /**
+     * Open scoped instances, with the call site that opened each in debug builds. Empty if nothing has leaked.
+     */
+    public List<String> describeOpenInstances() {
+        return scopedRealms.describeOpen();
+    }
+
+    /**
+     * Total open instances of the named realm across all threads, including those opened by getRealmInstance
+     */
+    public int getGlobalInstanceCount(String name) {
+        return Realm.getGlobalInstanceCount(getConfiguration(name));
+    }
+
+    private RealmConfiguration getConfiguration(String name) {
+        synchronized (realmConfigurations)
         {
             RealmConfiguration config = realmConfigurations.get(name);
             if (config == null)
@@ -39,13 +130,15 @@ public class RealmManager {
                         .build();
                 realmConfigurations.put(name, config);
             }
-            return Realm.getInstance(config);
+            return config;
         }
-        catch (RealmMigrationNeededException e)
+    }
+
+    private RealmConfiguration getFallbackConfiguration(String name, RealmConfiguration failed) {
+        synchronized (realmConfigurations)
         {
-            //we require a realm migration, but this wasn't provided.
             RealmConfiguration config = realmConfigurations.get(name);
-            if (config == null)
+            if (config == failed) //only the first thread to fail replaces it
             {
                 config = new RealmConfiguration.Builder().name(name)
                         .schemaVersion(BuildConfig.DB_VERSION)
@@ -53,15 +146,7 @@ public class RealmManager {
                         .build();
                 realmConfigurations.put(name, config);
             }
-            return Realm.getInstance(config);
+            return config;
         }
     }
-
-    public Realm getWalletDataRealmInstance() {
-        return getRealmInstanceInternal("WalletData-db.realm");
-    }
-
-    public Realm getWalletTypeRealmInstance() {
-        return getRealmInstanceInternal("WalletType-db.realm");
-    }
 }
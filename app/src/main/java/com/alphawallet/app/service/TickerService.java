@@ -33,6 +33,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -66,6 +67,8 @@ public class TickerService
     private static final String MARKET_ORACLE_CONTRACT = "0xf155a7eb4a2993c8cf08a76bca137ee9ac0a01d8";
     private static final String CONTRACT_ADDR = "[CONTRACT_ADDR]";
     private static final String COINGECKO_API = "https://api.coingecko.com/api/v3/simple/token_price/ethereum?contract_addresses=" +CONTRACT_ADDR + "&vs_currencies=USD&include_24hr_change=true";
+    private static final int COINGECKO_CONCURRENCY = 2;
+    private static final long COINGECKO_MIN_INTERVAL = 1200; //free tier allows 50 calls per minute
     private static final String COINGECKO_COINS_API = "https://api.coingecko.com/api/v3/simple/price?ids=ethereum%2Cxdai%2Cetc&vs_currencies=USD&include_24hr_change=true";
 
     public static final long TICKER_TIMEOUT = DateUtils.HOUR_IN_MILLIS; //remove ticker if not seen in one hour
@@ -76,6 +79,7 @@ public class TickerService
     private final Context context;
     private final TokenLocalSource localSource;
     private final Map<Integer, TokenTicker> ethTickers = new ConcurrentHashMap<>();
+    private final ERC20TickerFetcher erc20TickerFetcher;
     private Disposable tickerUpdateTimer;
     private double currentConversionRate = 0.0;
     private static String currentCurrencySymbolTxt;
@@ -88,6 +92,8 @@ public class TickerService
         this.gson = gson;
         this.context = ctx;
         this.localSource = localSource;
+        this.erc20TickerFetcher = new ERC20TickerFetcher(httpClient,
+                new HostRateLimiter(COINGECKO_CONCURRENCY, COINGECKO_MIN_INTERVAL), COINGECKO_API);
 
         initCurrency();
     }
@@ -170,28 +176,13 @@ public class TickerService
             final Map<String, TokenTicker> erc20Tickers = new HashMap<>();
             try
             {
-                //build ticker header
-                StringBuilder sb = new StringBuilder();
-                boolean isFirst = true;
-                for (TokenCardMeta t : erc20Tokens)
-                {
-                    if (!isFirst) sb.append(",");
-                    sb.append(t.getAddress());
-                    isFirst = false;
-                }
-
-                 Request request = new Request.Builder()
-                        .url(COINGECKO_API.replace(CONTRACT_ADDR, sb.toString()))
-                        .get()
-                        .build();
-
-                okhttp3.Response response = httpClient.newCall(request)
-                        .execute();
+                List<String> addresses = new ArrayList<>();
+                for (TokenCardMeta t : erc20Tokens) addresses.add(t.getAddress());
 
-                List<CoinGeckoTicker> tickers = CoinGeckoTicker.buildTickerList(response.body().string());
+                Map<String, CoinGeckoTicker> tickers = erc20TickerFetcher.fetchTickers(addresses);
                 newSize = tickers.size();
 
-                for (CoinGeckoTicker t : tickers)
+                for (CoinGeckoTicker t : tickers.values())
                 {
                     BigDecimal changeValue = new BigDecimal(t.usdChange);
                     TokenTicker tTicker = new TokenTicker(String.valueOf(t.usdPrice * currentConversionRate),
@@ -38,6 +38,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -86,7 +87,7 @@ public class TokensService
     private boolean appHasFocus = true;
     private boolean mainNetActive = true;
     private static boolean walletStartup = false;
-    private int transferCheckChain;
+    private final Set<Integer> transferCheckChains = Collections.newSetFromMap(new ConcurrentHashMap<>()); //chains having transfers synced
 
     @Nullable
     private Disposable eventTimer;
@@ -122,7 +123,6 @@ public class TokensService
         this.baseTokenCheck = new ConcurrentLinkedQueue<>();
         setCurrentAddress(ethereumNetworkRepository.getCurrentWalletAddress()); //set current wallet address at service startup
         appHasFocus = true;
-        transferCheckChain = 0;
     }
 
     private void checkUnknownTokens()
@@ -571,7 +571,7 @@ public class TokensService
             NetworkInfo info = ethereumNetworkRepository.getNetworkByChain(MAINNET_ID);
             final Wallet wallet = new Wallet(currentAddress);
 
-            if (info.chainId == transferCheckChain) return; //currently checking this chainId
+            if (transferCheckChains.contains(info.chainId)) return; //currently checking this chainId
 
             openSeaCheck = false;
 
@@ -1021,6 +1021,11 @@ public class TokensService
 
     public void checkingChain(int chainId)
     {
-        transferCheckChain = chainId;
+        transferCheckChains.add(chainId);
+    }
+
+    public void checkedChain(int chainId)
+    {
+        transferCheckChains.remove(chainId);
     }
 }
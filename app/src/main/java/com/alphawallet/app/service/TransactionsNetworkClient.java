@@ -19,6 +19,7 @@ import com.alphawallet.app.entity.tokens.TokenInfo;
 import com.alphawallet.app.entity.tokenscript.EventUtils;
 import com.alphawallet.app.repository.TransactionsRealmCache;
 import com.alphawallet.app.repository.entity.RealmAuxData;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
 import com.alphawallet.app.repository.entity.RealmToken;
 import com.alphawallet.app.repository.entity.RealmTransaction;
 import com.alphawallet.app.repository.entity.RealmTransfer;
@@ -73,6 +74,7 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
     private final OkHttpClient httpClient;
     private final Gson gson;
     private final RealmManager realmManager;
+    private final HostRateLimiter rateLimiter;
 
     public TransactionsNetworkClient(
             OkHttpClient httpClient,
@@ -82,6 +84,7 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
         this.httpClient = httpClient;
         this.gson = gson;
         this.realmManager = realmManager;
+        this.rateLimiter = new HostRateLimiter();
     }
 
     @Override
@@ -100,6 +103,9 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
                     RealmResults<RealmAuxData> realmEvents = r.where(RealmAuxData.class)
                             .findAll();
                     realmEvents.deleteAllFromRealm();
+                    RealmResults<RealmEventBlock> eventBlocks = r.where(RealmEventBlock.class)
+                            .findAll();
+                    eventBlocks.deleteAllFromRealm();
                     RealmResults<RealmTransfer> realmTransfers = r.where(RealmTransfer.class)
                             .findAll();
                     realmTransfers.deleteAllFromRealm();
@@ -394,7 +400,7 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
                         .get()
                         .build();
 
-                response = httpClient.newCall(request).execute();
+                response = rateLimiter.execute(httpClient, request);
 
                 result = response.body().string();
                 if (result.length() < 80 && result.contains("No transactions found"))
@@ -627,7 +633,7 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
                     .get()
                     .build();
 
-            response = httpClient.newCall(request).execute();
+            response = rateLimiter.execute(httpClient, request);
 
             result = response.body().string();
             if (result.length() < 80 && result.contains("No transactions found"))
@@ -671,7 +677,7 @@ public class TransactionsNetworkClient implements TransactionsNetworkClientType
                     .get()
                     .build();
 
-            response = httpClient.newCall(request).execute();
+            response = rateLimiter.execute(httpClient, request);
 
             result = response.body().string();
             if (result != null && result.length() < 80 && result.contains("No transactions found"))
@@ -27,6 +27,8 @@ import org.web3j.protocol.core.methods.response.EthTransaction;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
@@ -48,8 +50,7 @@ public class TransactionsService
     private final EthereumNetworkRepositoryType ethereumNetworkRepository;
     private final TransactionsNetworkClientType transactionsClient;
     private final TransactionLocalSource transactionsCache;
-    private int currentChainIndex;
-    private boolean nftCheck;
+    private final Map<Integer, Disposable> transferFetches = new ConcurrentHashMap<>();
 
     private final static int TRANSACTION_DROPPED = -1;
     private final static int TRANSACTION_SEEN = -2;
@@ -61,8 +62,6 @@ public class TransactionsService
     @Nullable
     private Disposable erc20EventCheckCycle;
     @Nullable
-    private Disposable eventFetch;
-    @Nullable
     private Disposable pendingTransactionFetch;
 
     public TransactionsService(TokensService tokensService,
@@ -82,9 +81,6 @@ public class TransactionsService
     {
         if (TextUtils.isEmpty(tokensService.getCurrentAddress())) return;
 
-        currentChainIndex = 0;
-        nftCheck = true; //check nft first to filter out NFT tokens
-
         transactionsClient.checkRequiresAuxReset(tokensService.getCurrentAddress());
 
         if (fetchTransactionDisposable != null && !fetchTransactionDisposable.isDisposed())
@@ -122,56 +118,63 @@ public class TransactionsService
     /**
      * Start the token transaction checker
      * This uses the Etherscan API routes returning ERC20 and ERC721 token transfers, both incoming and outgoing.
+     * All enabled chains are synced concurrently; chains sharing an explorer host are throttled by that host's
+     * budget in the network client, so a slow explorer only holds up its own chains.
      */
     private void checkTransactions()
     {
         List<Integer> filters = tokensService.getNetworkFilters();
-        if (tokensService.getCurrentAddress() == null || filters.size() == 0 ||
-                (eventFetch != null && !eventFetch.isDisposed())) { return; } //skip check if the service isn't set up or if a current check is in progress
-        if (currentChainIndex >= filters.size()) currentChainIndex = 0;
+        if (tokensService.getCurrentAddress() == null || filters.size() == 0) { return; } //skip check if the service isn't set up
 
-        if (readTokenMoves(filters.get(currentChainIndex), nftCheck) && !nftCheck) //check NFTs for same chain on next iteration or advance to next chain
-        {
-            nftCheck = true;
-        }
-        else
+        for (int chainId : filters)
         {
-            nftCheck = false;
-            currentChainIndex++;
+            readTokenMoves(chainId);
         }
     }
 
-    private boolean readTokenMoves(int chainId, boolean isNFT)
+    private void readTokenMoves(int chainId)
     {
-        //check if this route has combined NFT
+        Disposable d = transferFetches.get(chainId);
+        if (d != null && !d.isDisposed()) return; //a check for this chain is already in progress
+
+        final String walletAddress = tokensService.getCurrentAddress();
         NetworkInfo info = ethereumNetworkRepository.getNetworkByChain(chainId);
-        if (isNFT) tokensService.checkingChain(chainId);
-        eventFetch = transactionsClient.readTransfers(tokensService.getCurrentAddress(), info, tokensService, isNFT)
+        if (info == null) return;
+
+        //check NFT first (when on a separate route) to filter out NFT tokens, then the fungible transfers
+        Single<Integer> fetch = info.usesSeparateNFTTransferQuery()
+                ? readAllTransfers(walletAddress, info, true).flatMap(count -> readAllTransfers(walletAddress, info, false))
+                : readAllTransfers(walletAddress, info, false);
+
+        transferFetches.put(chainId, fetch
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(count -> handleMoveCheck(count, chainId, isNFT), this::gotReadErr);
-
-        return info.usesSeparateNFTTransferQuery();
+                .subscribe(count -> transferFetches.remove(chainId), e -> gotReadErr(chainId, e)));
     }
 
-    private void gotReadErr(Throwable e)
+    private Single<Integer> readAllTransfers(String walletAddress, NetworkInfo info, boolean isNFT)
     {
-        eventFetch = null;
-        if (BuildConfig.DEBUG) e.printStackTrace();
+        return Single.fromCallable(() -> {
+                    if (isNFT) tokensService.checkingChain(info.chainId);
+                    return true;
+                })
+                .flatMap(b -> transactionsClient.readTransfers(walletAddress, info, tokensService, isNFT))
+                .flatMap(count -> {
+                    if (count == TRANSFER_RESULT_MAX && walletAddress.equals(tokensService.getCurrentAddress()))
+                    {
+                        //there's more moves to fetch
+                        return readAllTransfers(walletAddress, info, isNFT).map(more -> more + count);
+                    }
+                    if (isNFT) tokensService.checkedChain(info.chainId);
+                    return Single.just(count);
+                });
     }
 
-    private void handleMoveCheck(int count, int chainId, boolean isNFT)
+    private void gotReadErr(int chainId, Throwable e)
     {
-        if (isNFT) tokensService.checkingChain(0);
-        if (count == TRANSFER_RESULT_MAX)
-        {
-            //there's more moves to fetch
-            readTokenMoves(chainId, isNFT);
-        }
-        else
-        {
-            eventFetch = null;
-        }
+        transferFetches.remove(chainId);
+        tokensService.checkedChain(chainId);
+        if (BuildConfig.DEBUG) e.printStackTrace();
     }
 
     private void checkTransactionQueue()
@@ -298,6 +301,12 @@ public class TransactionsService
             erc20EventCheckCycle = null;
         }
         eventTimer = null;
+
+        for (Disposable d : transferFetches.values())
+        {
+            if (!d.isDisposed()) d.dispose();
+        }
+        transferFetches.clear();
     }
 
     public void markPending(Transaction tx)
@@ -381,7 +390,7 @@ public class TransactionsService
                 case RECEIVED:
                 case SEND:
                     if (BuildConfig.DEBUG) Log.d(TAG, "Checking Token moves for " + t.getFullName());
-                    readTokenMoves(transaction.chainId, t.isERC721());
+                    readTokenMoves(transaction.chainId);
                 default:
                     break;
             }
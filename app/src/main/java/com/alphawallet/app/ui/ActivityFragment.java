@@ -2,6 +2,7 @@ package com.alphawallet.app.ui;
 
 import android.os.Bundle;
 import android.os.Handler;
+import android.text.TextUtils;
 import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,6 +34,7 @@ import com.alphawallet.app.widget.SystemView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -80,6 +82,7 @@ public class ActivityFragment extends BaseFragment implements View.OnClickListen
                     .get(ActivityViewModel.class);
             viewModel.defaultWallet().observe(getViewLifecycleOwner(), this::onDefaultWallet);
             viewModel.activityItems().observe(getViewLifecycleOwner(), this::onItemsLoaded);
+            viewModel.ensNames().observe(getViewLifecycleOwner(), this::onEnsNames);
         }
     }
 
@@ -88,6 +91,7 @@ public class ActivityFragment extends BaseFragment implements View.OnClickListen
         realm = viewModel.getRealmInstance();
         adapter.updateActivityItems(buildTransactionList(activityItems).toArray(new ActivityMeta[0]));
         showEmptyTx();
+        viewModel.fetchEnsNames(getContext(), activityItems);
         long lastUpdateTime = 0;
 
         for (ActivityMeta am : activityItems)
@@ -98,6 +102,19 @@ public class ActivityFragment extends BaseFragment implements View.OnClickListen
         startTxListener(lastUpdateTime - 60*10); //adjust for timestamp delay
     }
 
+    private void onEnsNames(Map<String, String> ensNames)
+    {
+        //rows read names from the ENS cache; rebind them if any were found
+        for (String name : ensNames.values())
+        {
+            if (!TextUtils.isEmpty(name))
+            {
+                adapter.notifyDataSetChanged();
+                break;
+            }
+        }
+    }
+
     private void startTxListener(long lastUpdateTime)
     {
         String walletAddress = viewModel.defaultWallet().getValue() != null ? viewModel.defaultWallet().getValue().address : "";
@@ -30,6 +30,7 @@ import com.alphawallet.app.ui.widget.entity.ActionSheetCallback;
 import com.alphawallet.app.viewmodel.TokenFunctionViewModel;
 import com.alphawallet.app.viewmodel.TokenFunctionViewModelFactory;
 import com.alphawallet.app.web3.Web3TokenView;
+import com.alphawallet.app.web3.WebViewPool;
 import com.alphawallet.app.web3.entity.PageReadyCallback;
 import com.alphawallet.app.web3.entity.Web3Transaction;
 import com.alphawallet.app.widget.AWalletAlertDialog;
@@ -129,6 +130,7 @@ public class AssetDisplayActivity extends BaseActivity implements StandardFuncti
         testView = findViewById(R.id.test_web3);
 
         tokenView = findViewById(R.id.token_view);
+        WebViewPool.prewarm(this); //card holders pick these up as the list scrolls
         toolbarView = findViewById(R.id.toolbar);
 
         viewModel = new ViewModelProvider(this, tokenFunctionViewModelFactory)
@@ -77,6 +77,7 @@ import com.alphawallet.app.repository.EthereumNetworkRepository;
 import com.alphawallet.app.repository.TokenRepository;
 import com.alphawallet.app.repository.TokensRealmSource;
 import com.alphawallet.app.repository.entity.RealmToken;
+import com.alphawallet.app.service.DappRpcProxy;
 import com.alphawallet.app.service.WalletConnectService;
 import com.alphawallet.app.ui.widget.OnDappClickListener;
 import com.alphawallet.app.ui.widget.OnDappHomeNavClickListener;
@@ -121,8 +122,6 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.web3j.crypto.Keys;
 import org.web3j.crypto.Sign;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.methods.response.EthCall;
 import org.web3j.protocol.core.methods.response.EthEstimateGas;
 
 import java.math.BigDecimal;
@@ -136,7 +135,6 @@ import javax.inject.Inject;
 
 import dagger.android.support.AndroidSupportInjection;
 import io.reactivex.Observable;
-import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
@@ -151,7 +149,6 @@ import static com.alphawallet.app.ui.MyAddressActivity.KEY_ADDRESS;
 import static com.alphawallet.app.util.KeyboardUtils.showKeyboard;
 import static com.alphawallet.app.widget.AWalletAlertDialog.ERROR;
 import static com.alphawallet.app.widget.AWalletAlertDialog.WARNING;
-import static org.web3j.protocol.core.methods.request.Transaction.createEthCallTransaction;
 
 public class DappBrowserFragment extends Fragment implements OnSignTransactionListener, OnSignPersonalMessageListener,
         OnSignTypedMessageListener, OnSignMessageListener, OnEthCallListener, OnWalletAddEthereumChainObjectListener,
@@ -193,6 +190,7 @@ public class DappBrowserFragment extends Fragment implements OnSignTransactionLi
     private ProgressBar progressBar;
     private Wallet wallet;
     private NetworkInfo activeNetwork;
+    private DappRpcProxy rpcProxy;
     private AWalletAlertDialog resultDialog;
     private DappBrowserSuggestionsAdapter adapter;
     private AlertDialog chainSwapDialog;
@@ -1078,14 +1076,7 @@ public class DappBrowserFragment extends Fragment implements OnSignTransactionLi
     @Override
     public void onEthCall(Web3Call call)
     {
-        Single.fromCallable(() -> {
-            //let's make the call
-            Web3j web3j = TokenRepository.getWeb3jService(activeNetwork.chainId);
-            //construct call
-            org.web3j.protocol.core.methods.request.Transaction transaction
-                    = createEthCallTransaction(wallet.address, call.to.toString(), call.payload);
-            return web3j.ethCall(transaction, call.blockParam).send();
-        }).map(EthCall::getValue)
+        getRpcProxy().ethCall(wallet.address, call.to.toString(), call.payload, call.blockParam)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(result -> web3.onCallFunctionSuccessful(call.leafPosition, result),
@@ -1093,6 +1084,15 @@ public class DappBrowserFragment extends Fragment implements OnSignTransactionLi
                 .isDisposed();
     }
 
+    private DappRpcProxy getRpcProxy()
+    {
+        if (rpcProxy == null || rpcProxy.getChainId() != activeNetwork.chainId)
+        {
+            rpcProxy = new DappRpcProxy(activeNetwork.chainId, TokenRepository.getWeb3jService(activeNetwork.chainId));
+        }
+        return rpcProxy;
+    }
+
     @Override
     public void OnWalletAddEthereumChainObject(WalletAddEthereumChainObject chainObj)
     {
@@ -1870,6 +1870,7 @@ public class DappBrowserFragment extends Fragment implements OnSignTransactionLi
             {
                 confirmationDialog.transactionWritten(hashData);
                 web3.onSignTransactionSuccessful(web3Tx, hashData);
+                if (rpcProxy != null) rpcProxy.invalidate(); //dapp will read the state its transaction changes
             }
 
             @Override
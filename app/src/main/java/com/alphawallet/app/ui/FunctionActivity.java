@@ -113,7 +113,7 @@ public class FunctionActivity extends BaseActivity implements FunctionCallback,
             return;
         }
 
-        tokenView = findViewById(R.id.web3_tokenview);
+        tokenView = Web3TokenView.inflateFrom(this);
 
         tokenView.setChainId(token.tokenInfo.chainId);
         tokenView.setWalletAddress(new Address(token.getWallet()));
@@ -102,7 +102,7 @@ public class ImportTokenActivity extends BaseActivity implements View.OnClickLis
         priceUSD = findViewById(R.id.textImportPriceUSD);
         priceUSDLabel = findViewById(R.id.fiat_price_txt);
         toolbarView = findViewById(R.id.toolbar);
-        tokenView = findViewById(R.id.web3_tokenview);
+        tokenView = Web3TokenView.inflateFrom(this);
         webWrapper = findViewById(R.id.layout_webwrapper);
         priceETH.setVisibility(View.GONE);
         priceUSD.setVisibility(View.GONE);
@@ -83,7 +83,7 @@ public class RedeemSignatureDisplayActivity extends BaseActivity implements View
         token = getIntent().getParcelableExtra(TICKET);
         wallet = getIntent().getParcelableExtra(WALLET);
         ticketRange = getIntent().getParcelableExtra(TICKET_RANGE);
-        tokenView = findViewById(R.id.web3_tokenview);
+        tokenView = Web3TokenView.inflateFrom(this);
         webWrapper = findViewById(R.id.layout_webwrapper);
         findViewById(R.id.advanced_options).setVisibility(View.GONE); //setOnClickListener(this);
 
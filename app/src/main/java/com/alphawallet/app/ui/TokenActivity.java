@@ -170,7 +170,7 @@ public class TokenActivity extends BaseActivity implements PageReadyCallback, St
 
     private void initViews()
     {
-        tokenView = findViewById(R.id.web3_tokenview);
+        tokenView = Web3TokenView.inflateFrom(this);
         functionBar = findViewById(R.id.layoutButtons);
     }
 
@@ -81,7 +81,7 @@ public class TokenFunctionActivity extends BaseActivity implements StandardFunct
     private void initViews(Token t) {
         token = t;
         String displayIds = getIntent().getStringExtra(C.EXTRA_TOKEN_ID);
-        tokenView = findViewById(R.id.web3_tokenview);
+        tokenView = Web3TokenView.inflateFrom(this);
         webWrapper = findViewById(R.id.layout_webwrapper);
         idList = token.stringHexToBigIntegerList(displayIds);
         reloaded = false;
@@ -0,0 +1,98 @@
+package com.alphawallet.app.ui.widget.adapter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keyed index over the items of a sorted list, so an item can be found, replaced or removed without scanning the list.
+ *
+ * The index holds the item instance that is in the list for each key; the list finds it again by binary search.
+ * All changes to keyed items must go through the index. An update that keeps the item's sort position is made in
+ * place with updateItemAt, so inside a batched update consecutive changes are sent as one notification.
+ */
+public class SortedItemIndex<T>
+{
+    /**
+     * The operations of the sorted list the index is kept in sync with (eg androidx SortedList)
+     */
+    public interface ItemList<T>
+    {
+        int add(T item);
+
+        boolean remove(T item);
+
+        int indexOf(T item);
+
+        void updateItemAt(int index, T item);
+
+        /**
+         * @return the list's sort order of the two items; 0 if they sort to the same place
+         */
+        int compare(T item1, T item2);
+    }
+
+    private final ItemList<T> items;
+    private final Map<String, T> index = new HashMap<>();
+
+    public SortedItemIndex(ItemList<T> items)
+    {
+        this.items = items;
+    }
+
+    /**
+     * Add the item, or replace the item already in the list with this key
+     *
+     * @return position of the item in the list
+     */
+    public int put(String key, T item)
+    {
+        key = key.toLowerCase();
+        T existing = index.get(key);
+        int position = existing != null ? items.indexOf(existing) : -1;
+        index.put(key, item);
+
+        if (position >= 0 && items.compare(existing, item) == 0)
+        {
+            items.updateItemAt(position, item);
+            return position;
+        }
+        else
+        {
+            if (position >= 0) items.remove(existing); //sort position changed
+            return items.add(item);
+        }
+    }
+
+    public T get(String key)
+    {
+        return index.get(key.toLowerCase());
+    }
+
+    public int indexOf(String key)
+    {
+        T item = get(key);
+        return item != null ? items.indexOf(item) : -1;
+    }
+
+    /**
+     * @return true if there was an item with this key
+     */
+    public boolean remove(String key)
+    {
+        T item = index.remove(key.toLowerCase());
+        return item != null && items.remove(item);
+    }
+
+    /**
+     * Call when the list is cleared
+     */
+    public void clear()
+    {
+        index.clear();
+    }
+
+    public int size()
+    {
+        return index.size();
+    }
+}
@@ -96,6 +96,40 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
         }
     });
 
+    // tokenId keyed index of the TokenSortedItems in items; token items are only added and removed through this
+    protected final SortedItemIndex<SortedItem> tokenIndex = new SortedItemIndex<>(new SortedItemIndex.ItemList<SortedItem>()
+    {
+        @Override
+        public int add(SortedItem item)
+        {
+            return items.add(item);
+        }
+
+        @Override
+        public boolean remove(SortedItem item)
+        {
+            return items.remove(item);
+        }
+
+        @Override
+        public int indexOf(SortedItem item)
+        {
+            return items.indexOf(item);
+        }
+
+        @Override
+        public void updateItemAt(int index, SortedItem item)
+        {
+            items.updateItemAt(index, item);
+        }
+
+        @Override
+        public int compare(SortedItem item1, SortedItem item2)
+        {
+            return item1.compare(item2);
+        }
+    });
+
     protected TotalBalanceSortedItem total = new TotalBalanceSortedItem(null);
 
     public TokensAdapter(OnTokenClickListener onTokenClickListener, AssetDefinitionService aService, TokensService tService, Context context) {
@@ -231,7 +265,8 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
     }
 
     /**
-     * Update a single item in the recycler view
+     * Update a single item in the recycler view. If the token keeps its sort position it's replaced in place,
+     * otherwise (eg name has changed) it's moved.
      *
      * @param token
      */
@@ -239,19 +274,9 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
     {
         if (canDisplayToken(token))
         {
-            //does this token already exist with a different weight (ie name has changed)?
-            removeMatchingTokenDifferentWeight(token);
-            int position = -1;
-            if (gridFlag)
-            {
-                position = items.add(new TokenSortedItem(TokenGridHolder.VIEW_TYPE, token, token.nameWeight));
-            }
-            else
-            {
-                TokenSortedItem tsi = new TokenSortedItem(TokenHolder.VIEW_TYPE, token, token.nameWeight);
-                if (debugView) tsi.debug();
-                position = items.add(tsi);
-            }
+            TokenSortedItem tsi = new TokenSortedItem(gridFlag ? TokenGridHolder.VIEW_TYPE : TokenHolder.VIEW_TYPE, token, token.nameWeight);
+            if (debugView && !gridFlag) tsi.debug();
+            int position = tokenIndex.put(token.tokenId, tsi);
 
             if (notify) notifyItemChanged(position);
         }
@@ -261,69 +286,18 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
         }
     }
 
-    private void removeMatchingTokenDifferentWeight(TokenCardMeta token)
-    {
-        for (int i = 0; i < items.size(); i++)
-        {
-            if (items.get(i) instanceof TokenSortedItem)
-            {
-                TokenSortedItem tsi = (TokenSortedItem) items.get(i);
-                if (tsi.value.equals(token))
-                {
-                    if (tsi.value.nameWeight != token.nameWeight)
-                    {
-                        notifyItemChanged(i);
-                        items.removeItemAt(i);
-                        break;
-                    }
-                }
-            }
-        }
-    }
-
     private TokenCardMeta getToken(int chainId, String tokenAddress)
     {
-        String id = TokensRealmSource.databaseKey(chainId, tokenAddress);
-        for (int i = 0; i < items.size(); i++) {
-            Object si = items.get(i);
-            if (si instanceof TokenSortedItem) {
-                TokenSortedItem tsi = (TokenSortedItem) si;
-                if (tsi.value.tokenId.equalsIgnoreCase(id)) {
-                    return tsi.value;
-                }
-            }
-        }
-
-        return null;
+        SortedItem si = tokenIndex.get(TokensRealmSource.databaseKey(chainId, tokenAddress));
+        return si != null ? ((TokenSortedItem) si).value : null;
     }
 
     public void removeToken(TokenCardMeta token) {
-        for (int i = 0; i < items.size(); i++) {
-            Object si = items.get(i);
-            if (si instanceof TokenSortedItem) {
-                TokenSortedItem tsi = (TokenSortedItem) si;
-                TokenCardMeta thisToken = tsi.value;
-                if (thisToken.tokenId.equalsIgnoreCase(token.tokenId)) {
-                    items.removeItemAt(i);
-                    break;
-                }
-            }
-        }
+        tokenIndex.remove(token.tokenId);
     }
 
     public void removeToken(int chainId, String tokenAddress) {
-        String id = TokensRealmSource.databaseKey(chainId, tokenAddress);
-        for (int i = 0; i < items.size(); i++) {
-            Object si = items.get(i);
-            if (si instanceof TokenSortedItem) {
-                TokenSortedItem tsi = (TokenSortedItem) si;
-                TokenCardMeta thisToken = tsi.value;
-                if (thisToken.tokenId.equalsIgnoreCase(id)) {
-                    items.removeItemAt(i);
-                    break;
-                }
-            }
-        }
+        tokenIndex.remove(TokensRealmSource.databaseKey(chainId, tokenAddress));
     }
 
     private boolean canDisplayToken(TokenCardMeta token)
@@ -371,6 +345,7 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
         items.beginBatchedUpdates();
         if (clear) {
             items.clear();
+            tokenIndex.clear();
         }
         addManageTokensLayout();
         for (TokenCardMeta token : tokens)
@@ -430,6 +405,7 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
     {
         items.beginBatchedUpdates();
         items.clear();
+        tokenIndex.clear();
         items.endBatchedUpdates();
 
         notifyDataSetChanged();
@@ -449,19 +425,11 @@ public class TokensAdapter extends RecyclerView.Adapter<BinderViewHolder> {
     {
         if (scrollToken != null)
         {
-            for (int i = 0; i < items.size(); i++)
+            int position = tokenIndex.indexOf(TokensRealmSource.databaseKey(scrollToken.chainId, scrollToken.address));
+            if (position >= 0)
             {
-                Object si = items.get(i);
-                if (si instanceof TokenSortedItem)
-                {
-                    TokenSortedItem tsi   = (TokenSortedItem) si;
-                    TokenCardMeta   token = tsi.value;
-                    if (scrollToken.equals(token))
-                    {
-                        scrollToken = null;
-                        return i;
-                    }
-                }
+                scrollToken = null;
+                return position;
             }
         }
 
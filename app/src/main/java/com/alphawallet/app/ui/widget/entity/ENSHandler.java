@@ -22,11 +22,11 @@ import com.alphawallet.app.util.AWEnsResolver;
 import com.alphawallet.app.util.Utils;
 import com.alphawallet.app.widget.InputAddress;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import org.web3j.crypto.Keys;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
@@ -270,20 +270,9 @@ public class ENSHandler implements Runnable
      * This method will fetch stored ENS cached history of Reverse lookup
      * @return Key Value pair of Address vs ENS name
      */
-    private static HashMap<String, String> getENSHistoryFromPrefs(Context ctx)
+    private static Map<String, String> getENSHistoryFromPrefs(Context ctx)
     {
-        HashMap<String, String> history;
-        String historyJson = PreferenceManager.getDefaultSharedPreferences(ctx).getString(C.ENS_HISTORY_PAIR, "");
-        if (!historyJson.isEmpty())
-        {
-            history = new Gson().fromJson(historyJson, new TypeToken<HashMap<String, String>>(){}.getType());
-        }
-        else
-        {
-            history = new HashMap<>();
-        }
-
-        return history;
+        return AWEnsResolver.getENSHistory(ctx);
     }
 
     public static String matchENSOrFormat(Context ctx, String ethAddress)
@@ -292,10 +281,11 @@ public class ENSHandler implements Runnable
         String checkSumAddr = Keys.toChecksumAddress(ethAddress);
         if (!TextUtils.isEmpty(ethAddress) && Utils.isAddressValid(ethAddress))
         {
-            HashMap<String, String> ensMap = getENSHistoryFromPrefs(ctx);
+            Map<String, String> ensMap = getENSHistoryFromPrefs(ctx);
             String ensName = ensMap.get(ethAddress.toLowerCase());
             if (ensName == null) ensName = ensMap.get(checkSumAddr);
-            return ensName != null ? ensName : Utils.formatAddress(ethAddress);
+            if (ensName == null) ensName = AWEnsResolver.getCachedName(ethAddress); //reverse resolved for a list
+            return !TextUtils.isEmpty(ensName) ? ensName : Utils.formatAddress(ethAddress);
         }
         else
         {
@@ -308,7 +298,7 @@ public class ENSHandler implements Runnable
         String returnAddress = shrinkAddress ? Utils.formatAddress(ethAddress) : ethAddress;
         if (!TextUtils.isEmpty(ethAddress) && Utils.isAddressValid(ethAddress))
         {
-            HashMap<String, String> ensMap = getENSHistoryFromPrefs(ctx);
+            Map<String, String> ensMap = getENSHistoryFromPrefs(ctx);
             String ensName = ensMap.get(ethAddress);
             returnAddress = ensName != null ? ensName : returnAddress;
         }
@@ -328,7 +318,7 @@ public class ENSHandler implements Runnable
      */
     private void storeItem(String address, String ensName)
     {
-        HashMap<String, String> history = getENSHistoryFromPrefs(host.getContext());
+        HashMap<String, String> history = new HashMap<>(getENSHistoryFromPrefs(host.getContext()));
 
         if (!history.containsKey(address.toLowerCase()))
         {
@@ -21,6 +21,7 @@ import com.alphawallet.app.ui.TokenFunctionActivity;
 import com.alphawallet.app.ui.widget.OnTokenClickListener;
 import com.alphawallet.app.util.Utils;
 import com.alphawallet.app.web3.Web3TokenView;
+import com.alphawallet.app.web3.WebViewPool;
 import com.alphawallet.app.web3.entity.PageReadyCallback;
 import com.alphawallet.token.entity.TicketRange;
 
@@ -34,7 +35,8 @@ public class AssetInstanceScriptHolder extends BinderViewHolder<TicketRange> imp
 {
     public static final int VIEW_TYPE = 1011;
 
-    private final Web3TokenView tokenView;
+    private Web3TokenView tokenView;
+    private TicketRange boundData;
     private final Token token;
     private final LinearLayout clickWrapper;
     private final LinearLayout webWrapper;
@@ -48,14 +50,27 @@ public class AssetInstanceScriptHolder extends BinderViewHolder<TicketRange> imp
     public AssetInstanceScriptHolder(int resId, ViewGroup parent, Token t, AssetDefinitionService assetService, boolean iconified)
     {
         super(resId, parent);
-        tokenView = findViewById(R.id.web3_tokenview);
         webWrapper = findViewById(R.id.layout_webwrapper);
         assetDefinitionService = assetService;
         clickWrapper = findViewById(R.id.click_layer);
         itemSelect = findViewById(R.id.radioBox);
         token = t;
-        tokenView.setOnReadyCallback(this);
         this.iconified = iconified;
+        itemView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener()
+        {
+            @Override
+            public void onViewAttachedToWindow(View v)
+            {
+                //re-attached without a rebind, eg from the RecyclerView's view cache
+                if (tokenView == null && boundData != null) bind(boundData, Bundle.EMPTY);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View v)
+            {
+                onDestroyView();
+            }
+        });
     }
 
     @SuppressLint("ClickableViewAccessibility")
@@ -63,6 +78,8 @@ public class AssetInstanceScriptHolder extends BinderViewHolder<TicketRange> imp
     public void bind(@Nullable TicketRange data, @NonNull Bundle addition)
     {
         activeClick = false;
+        boundData = data;
+        acquireTokenView();
         try
         {
             tokenView.setLayout(token, iconified);
@@ -93,6 +110,26 @@ public class AssetInstanceScriptHolder extends BinderViewHolder<TicketRange> imp
         }
     }
 
+    private void acquireTokenView()
+    {
+        if (tokenView != null) return;
+        tokenView = WebViewPool.acquire(getContext());
+        webWrapper.addView(tokenView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+        tokenView.setOnReadyCallback(this);
+    }
+
+    /**
+     * Hand the WebView back to the pool when the row is recycled or leaves the screen
+     */
+    @Override
+    public void onDestroyView()
+    {
+        if (tokenView == null) return;
+        webWrapper.setVisibility(View.GONE);
+        WebViewPool.release(tokenView);
+        tokenView = null;
+    }
+
     private void fillEmpty()
     {
         tokenView.loadData("<html><body>No Data</body></html>", "text/html", "utf-8");
@@ -16,6 +16,7 @@ import com.alphawallet.app.entity.tokens.Token;
 
 import com.alphawallet.app.service.AssetDefinitionService;
 import com.alphawallet.app.web3.Web3TokenView;
+import com.alphawallet.app.web3.WebViewPool;
 import com.alphawallet.app.web3.entity.PageReadyCallback;
 import com.alphawallet.token.entity.TicketRange;
 import com.alphawallet.app.ui.widget.OnTokenClickListener;
@@ -24,7 +25,7 @@ public class BaseTicketHolder extends BinderViewHolder<TicketRange> implements V
 {
     private TicketRange thisData;
     private Token token;
-    private final Web3TokenView tokenView;
+    private Web3TokenView tokenView;
     private final LinearLayout webWrapper;
     private OnTokenClickListener onTokenClickListener;
     private final AssetDefinitionService assetService; //need to cache this locally, unless we cache every string we need in the constructor
@@ -36,13 +37,26 @@ public class BaseTicketHolder extends BinderViewHolder<TicketRange> implements V
         super(resId, parent);
 
         activityView = this.itemView;
-        tokenView = findViewById(R.id.web3_tokenview);
         webWrapper = findViewById(R.id.layout_webwrapper);
         itemView.setOnClickListener(this);
         ticketLayout = findViewById(R.id.layout_select_ticket);
         assetService = service;
         token = ticket;
-        tokenView.setOnReadyCallback(this);
+        itemView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener()
+        {
+            @Override
+            public void onViewAttachedToWindow(View v)
+            {
+                //re-attached without a rebind, eg from the RecyclerView's view cache
+                if (tokenView == null && thisData != null) bind(thisData, Bundle.EMPTY);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View v)
+            {
+                onDestroyView();
+            }
+        });
     }
 
     @Override
@@ -52,10 +66,28 @@ public class BaseTicketHolder extends BinderViewHolder<TicketRange> implements V
 
         if (data.tokenIds.size() > 0)
         {
+            if (tokenView == null)
+            {
+                tokenView = WebViewPool.acquire(getContext());
+                webWrapper.addView(tokenView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+                tokenView.setOnReadyCallback(this);
+            }
             tokenView.displayTicketHolder(token, data, assetService, true);
         }
     }
 
+    /**
+     * Hand the WebView back to the pool when the row is recycled or leaves the screen
+     */
+    @Override
+    public void onDestroyView()
+    {
+        if (tokenView == null) return;
+        webWrapper.setVisibility(View.GONE);
+        WebViewPool.release(tokenView);
+        tokenView = null;
+    }
+
     @Override
     public void onClick(View v) {
         if (onTokenClickListener != null) {
@@ -1,6 +1,7 @@
 package com.alphawallet.app.util;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
 
@@ -10,12 +11,16 @@ import com.alphawallet.app.entity.UnableToResolveENS;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import org.web3j.ens.EnsResolutionException;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.exceptions.ClientConnectionException;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Single;
-import io.reactivex.schedulers.Schedulers;
 
 /**
  * Created by James on 29/05/2019.
@@ -24,11 +29,15 @@ import io.reactivex.schedulers.Schedulers;
 public class AWEnsResolver extends EnsResolver
 {
     static final long DEFAULT_SYNC_THRESHOLD = 1000 * 60 * 3;
+    private static EnsCache ensCache; //ENS lives on mainnet, so all resolvers share one cache
+    private static Map<String, String> ensHistory;
+    private static String ensHistoryJson;
     private final Context context;
+    private final ResolverBackend backend = new ResolverBackend(); //cache misses are resolved through this node
 
     public AWEnsResolver(Web3j web3j, Context context) {
         super(web3j, DEFAULT_SYNC_THRESHOLD);
-        this.context = context;
+        this.context = context.getApplicationContext();
     }
 
     /**
@@ -38,75 +47,115 @@ public class AWEnsResolver extends EnsResolver
      */
     public Single<String> resolveEnsName(String address)
     {
-        return Single.fromCallable(() -> {
-            String ensName = checkENSHistoryForAddress(address); //First check known ENS names
+        return Single.fromCallable(() -> getCache().lookupName(address, backend));
+    }
 
-            try
-            {
-                if (TextUtils.isEmpty(ensName))
-                {
-                    ensName = reverseResolve(address); //no known ENS for this address, resolve from reverse resolver
-                }
-                if (!TextUtils.isEmpty(ensName))
-                {
-                    //check ENS name integrity - it must point to the wallet address
-                    String resolveAddress = resolve(ensName);
-                    if (!resolveAddress.equalsIgnoreCase(address))
-                    {
-                        ensName = "";
-                    }
-                }
-            }
-            catch (UnableToResolveENS resolve)
-            {
-                ensName = fetchPreviouslyUsedENS(address);
-            }
-            catch (Exception e)
-            {
-                e.printStackTrace();
-                // no action
-            }
-            return ensName;
-        });
+    /**
+     * Find ENS names for a list of addresses (eg all wallets) with a single resolver call for any not already known
+     * @param addresses Ethereum addresses
+     * @return map of lower case address to ENS name (empty string if none)
+     */
+    public Single<Map<String, String>> resolveEnsNames(List<String> addresses)
+    {
+        return Single.fromCallable(() -> getCache().lookupNames(addresses, backend));
+    }
+
+    /**
+     * ENS name already found for an address by any resolver, without a lookup. For list rows, which are
+     * filled in by a batch resolveEnsNames call and rebound when it completes.
+     * @return ENS name or empty string
+     */
+    public static String getCachedName(String address)
+    {
+        synchronized (AWEnsResolver.class)
+        {
+            return ensCache != null ? ensCache.peekName(address) : "";
+        }
     }
 
     //Only checks wallet history for ENS name
     //TODO: Check address book for name, once addressbook is implemented
     public String checkENSHistoryForAddress(String address)
     {
-        String ensName = "";
-        //try previously resolved names
-        String historyJson = PreferenceManager.getDefaultSharedPreferences(context).getString(C.ENS_HISTORY_PAIR, "");
-        if (historyJson.length() > 0)
+        String ensName = getENSHistory(context).get(address.toLowerCase());
+        return ensName != null ? ensName : "";
+    }
+
+    /**
+     * Address to ENS name pairs the user has previously entered. Parsed once and re-parsed only when the stored
+     * history changes.
+     */
+    public static synchronized Map<String, String> getENSHistory(Context ctx)
+    {
+        String historyJson = PreferenceManager.getDefaultSharedPreferences(ctx).getString(C.ENS_HISTORY_PAIR, "");
+        if (ensHistory == null || !historyJson.equals(ensHistoryJson))
+        {
+            Map<String, String> history = historyJson.length() > 0
+                    ? new Gson().fromJson(historyJson, new TypeToken<HashMap<String, String>>() {}.getType())
+                    : null;
+            ensHistory = history != null ? history : new HashMap<>();
+            ensHistoryJson = historyJson;
+        }
+
+        return ensHistory;
+    }
+
+    /**
+     * Reverse resolve with verification. Runs on the calling thread
+     */
+    private String verifiedReverseResolve(String address)
+    {
+        String ensName = checkENSHistoryForAddress(address); //First check known ENS names
+
+        try
         {
-            HashMap<String, String> history = new Gson().fromJson(historyJson, new TypeToken<HashMap<String, String>>() {}.getType());
-            if (history.containsKey(address.toLowerCase()))
+            if (TextUtils.isEmpty(ensName))
+            {
+                ensName = reverseResolve(address); //no known ENS for this address, resolve from reverse resolver
+            }
+            if (!TextUtils.isEmpty(ensName))
             {
-                ensName = history.get(address.toLowerCase());
+                //check ENS name integrity - it must point to the wallet address
+                String resolveAddress = forwardResolve(ensName);
+                if (!resolveAddress.equalsIgnoreCase(address))
+                {
+                    ensName = "";
+                }
             }
         }
+        catch (UnableToResolveENS resolve)
+        {
+            ensName = fetchPreviouslyUsedENS(address);
+        }
 
         return ensName;
     }
 
+    /**
+     * Resolve on the calling thread. A node that can't be reached throws; a name with no address gives ""
+     */
+    private String forwardResolve(String ensName)
+    {
+        try
+        {
+            return resolve(ensName);
+        }
+        catch (RuntimeException e)
+        {
+            if (isLookupFailure(e)) throw e; //couldn't ask the node; don't record as unresolved
+            return "";                       //name doesn't resolve
+        }
+    }
+
     private String fetchPreviouslyUsedENS(String address)
     {
         String ensName = "";
         //try previously resolved names
-        String historyJson = PreferenceManager.getDefaultSharedPreferences(context).getString(C.ENS_HISTORY_PAIR, "");
-        if (historyJson.length() > 0)
+        String previouslyUsedDomain = getENSHistory(context).get(address.toLowerCase());
+        if (!TextUtils.isEmpty(previouslyUsedDomain))
         {
-            HashMap<String, String> history = new Gson().fromJson(historyJson, new TypeToken<HashMap<String, String>>() {}.getType());
-            if (history.containsKey(address.toLowerCase()))
-            {
-                String previouslyUsedDomain = history.get(address.toLowerCase());
-                //perform an additional check, to ensure this ENS name is still valid, try this ENS name to see if it resolves to the address
-                ensName = resolveENSAddress(previouslyUsedDomain)
-                        .map(resolvedAddress -> checkResolvedAddressMatches(resolvedAddress, address, previouslyUsedDomain))
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(Schedulers.io())
-                        .blockingGet();
-            }
+            //perform an additional check, to ensure this ENS name is still valid, try this ENS name to see if it resolves to the address
+            ensName = checkResolvedAddressMatches(resolveAddress(previouslyUsedDomain), address, previouslyUsedDomain);
         }
 
         return ensName;
@@ -133,21 +182,35 @@ public class AWEnsResolver extends EnsResolver
     {
         return Single.fromCallable(() -> {
             if (BuildConfig.DEBUG) System.out.println("Verify: " + ensName);
-            String address = "";
             if (!isValidEnsName(ensName)) return "";
-            try
-            {
-                address = resolve(ensName);
-            }
-            catch (Exception e)
-            {
-                System.out.println("Verify: error: " + e.getMessage());
-                // no action
-            }
-            return address;
+            return getCache().lookupAddress(ensName, backend);
         });
     }
 
+    private String resolveAddress(String ensName)
+    {
+        String address = "";
+        try
+        {
+            address = resolve(ensName);
+        }
+        catch (Exception e)
+        {
+            System.out.println("Verify: error: " + e.getMessage());
+            // no action
+        }
+        return address;
+    }
+
+    private EnsCache getCache()
+    {
+        synchronized (AWEnsResolver.class)
+        {
+            if (ensCache == null) ensCache = new EnsCache(new PreferenceStore(context));
+            return ensCache;
+        }
+    }
+
     public static boolean couldBeENS(String address)
     {
         if (address == null || address.length() == 0) return false;
@@ -161,4 +224,88 @@ public class AWEnsResolver extends EnsResolver
 
         return false;
     }
+
+    /**
+     * Resolver calls made on a cache miss
+     */
+    private class ResolverBackend implements EnsCache.Backend
+    {
+        @Override
+        public String reverseResolve(String address)
+        {
+            return verifiedReverseResolve(address);
+        }
+
+        @Override
+        public String resolve(String ensName)
+        {
+            return forwardResolve(ensName);
+        }
+
+        @Override
+        public List<String> reverseResolveBatch(List<String> addresses) throws Exception
+        {
+            List<String> names = AWEnsResolver.this.reverseResolveBatch(addresses);
+            //an address may have no reverse record but a name the user entered; check those individually as before
+            for (int i = 0; i < names.size(); i++)
+            {
+                if (TextUtils.isEmpty(names.get(i)) && !TextUtils.isEmpty(checkENSHistoryForAddress(addresses.get(i))))
+                {
+                    names.set(i, verifiedReverseResolve(addresses.get(i)));
+                }
+            }
+
+            return names;
+        }
+    }
+
+    /**
+     * @return true if the resolve failed because the node couldn't be reached or isn't synced, rather than because the
+     * name has no resolver or address
+     */
+    private static boolean isLookupFailure(Throwable e)
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof IOException
+                    || cause instanceof ClientConnectionException
+                    || cause instanceof EnsResolutionException) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Persists the ENS cache in shared preferences
+     */
+    private static class PreferenceStore implements EnsCache.Store
+    {
+        private final SharedPreferences pref;
+
+        PreferenceStore(Context context)
+        {
+            pref = PreferenceManager.getDefaultSharedPreferences(context);
+        }
+
+        @Override
+        public Map<String, EnsCache.Entry> load()
+        {
+            String json = pref.getString(C.ENS_CACHE, "");
+            if (json.length() == 0) return null;
+            try
+            {
+                return new Gson().fromJson(json, new TypeToken<HashMap<String, EnsCache.Entry>>() {}.getType());
+            }
+            catch (Exception e)
+            {
+                return null; //corrupt cache is simply rebuilt
+            }
+        }
+
+        @Override
+        public void save(Map<String, EnsCache.Entry> entries)
+        {
+            pref.edit().putString(C.ENS_CACHE, new Gson().toJson(entries)).apply();
+        }
+    }
 }
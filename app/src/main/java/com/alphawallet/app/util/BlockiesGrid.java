@@ -0,0 +1,167 @@
+package com.alphawallet.app.util;
+
+import java.util.Arrays;
+
+/**
+ * The blockies identicon pattern and colours for a seed, without any rendering.
+ * All generator state is local to the call, so grids can be generated concurrently.
+ */
+public class BlockiesGrid
+{
+    public static final int SIZE = 8;
+
+    public static final int BACKGROUND = 0;
+    public static final int MAIN = 1;
+    public static final int SPOT = 2;
+
+    public final int[] cells;          //SIZE * SIZE, row major: BACKGROUND, MAIN or SPOT
+    public final int color;            //ARGB
+    public final int bgColor;
+    public final int spotColor;
+
+    private BlockiesGrid(int[] cells, int color, int bgColor, int spotColor)
+    {
+        this.cells = cells;
+        this.color = color;
+        this.bgColor = bgColor;
+        this.spotColor = spotColor;
+    }
+
+    public static BlockiesGrid generate(String seed)
+    {
+        Rand rand = new Rand(seed);
+        int color = rand.nextColor();
+        int bgColor = rand.nextColor();
+        int spotColor = rand.nextColor();
+        return new BlockiesGrid(createImageData(rand), color, bgColor, spotColor);
+    }
+
+    public int getWidth()
+    {
+        return SIZE;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof BlockiesGrid)) return false;
+        BlockiesGrid other = (BlockiesGrid) o;
+        return color == other.color && bgColor == other.bgColor && spotColor == other.spotColor
+                && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(cells) * 31 + color;
+    }
+
+    private static int[] createImageData(Rand rand)
+    {
+        int dataWidth = SIZE / 2;
+        int[] data = new int[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++)
+        {
+            for (int x = 0; x < dataWidth; x++)
+            {
+                int value = (int) Math.floor(rand.next() * 2.3d);
+                data[y * SIZE + x] = value;
+                data[y * SIZE + (SIZE - 1 - x)] = value; //mirror
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * xorshift generator seeded from the string, as in the reference blockies implementation
+     */
+    private static class Rand
+    {
+        private final long[] randSeed = new long[4];
+
+        Rand(String seed)
+        {
+            for (int i = 0; i < seed.length(); i++)
+            {
+                long test = randSeed[i % 4] << 5;
+                if (test > Integer.MAX_VALUE << 1 || test < Integer.MIN_VALUE << 1)
+                    test = (int) test;
+
+                long test2 = test - randSeed[i % 4];
+                randSeed[i % 4] = (test2 + Character.codePointAt(seed, i));
+            }
+
+            for (int i = 0; i < randSeed.length; i++)
+                randSeed[i] = (int) randSeed[i];
+        }
+
+        double next()
+        {
+            int t = (int) (randSeed[0] ^ (randSeed[0] << 11));
+            randSeed[0] = randSeed[1];
+            randSeed[1] = randSeed[2];
+            randSeed[2] = randSeed[3];
+            randSeed[3] = (randSeed[3] ^ (randSeed[3] >> 19) ^ t ^ (t >> 8));
+            double t1 = Math.abs(randSeed[3]);
+            return (t1 / Integer.MAX_VALUE);
+        }
+
+        int nextColor()
+        {
+            double h = Math.floor(next() * 360d);
+            double s = ((next() * 60d) + 40d);
+            double l = ((next() + next() + next() + next()) * 25d);
+            return toRGB((int) h, (int) s, (int) l);
+        }
+    }
+
+    private static int toRGB(float h, float s, float l)
+    {
+        h = h % 360.0f;
+        h /= 360f;
+        s /= 100f;
+        l /= 100f;
+
+        float q;
+
+        if (l < 0.5)
+            q = l * (1 + s);
+        else
+            q = (l + s) - (s * l);
+
+        float p = 2 * l - q;
+
+        float r = Math.max(0, hueToRGB(p, q, h + (1.0f / 3.0f)));
+        float g = Math.max(0, hueToRGB(p, q, h));
+        float b = Math.max(0, hueToRGB(p, q, h - (1.0f / 3.0f)));
+
+        r = Math.min(r, 1.0f);
+        g = Math.min(g, 1.0f);
+        b = Math.min(b, 1.0f);
+
+        int red = (int) (r * 255);
+        int green = (int) (g * 255);
+        int blue = (int) (b * 255);
+        return 0xff000000 | (red << 16) | (green << 8) | blue; //same as Color.rgb
+    }
+
+    private static float hueToRGB(float p, float q, float h)
+    {
+        if (h < 0) h += 1;
+        if (h > 1) h -= 1;
+        if (6 * h < 1)
+        {
+            return p + ((q - p) * 6 * h);
+        }
+        if (2 * h < 1)
+        {
+            return q;
+        }
+        if (3 * h < 2)
+        {
+            return p + ((q - p) * 6 * ((2.0f / 3.0f) - h));
+        }
+        return p;
+    }
+}
@@ -0,0 +1,137 @@
+package com.alphawallet.app.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread safe least-recently-used cache bounded by total weight (eg entry count, or bytes for bitmaps).
+ * Pure Java so the eviction logic can be tested on the JVM; android.util.LruCache is a stub there.
+ */
+public class BoundedLruCache<K, V>
+{
+    public interface Weigher<K, V>
+    {
+        int weigh(K key, V value);
+    }
+
+    public interface KeyFilter<K>
+    {
+        boolean matches(K key);
+    }
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true); //access order
+    private final long maxWeight;
+    private final Weigher<K, V> weigher;
+    private long currentWeight;
+    private long hits;
+    private long misses;
+
+    /**
+     * Cache holding at most maxEntries entries
+     */
+    public BoundedLruCache(int maxEntries)
+    {
+        this(maxEntries, (k, v) -> 1);
+    }
+
+    public BoundedLruCache(long maxWeight, Weigher<K, V> weigher)
+    {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key)
+    {
+        V value = entries.get(key);
+        if (value != null) hits++;
+        else misses++;
+        return value;
+    }
+
+    /**
+     * Add an entry, evicting the least recently used entries until the cache is within its weight.
+     * An entry heavier than the whole cache is not stored.
+     */
+    public synchronized void put(K key, V value)
+    {
+        if (key == null || value == null) return;
+        int weight = weigher.weigh(key, value);
+        V previous = entries.remove(key);
+        if (previous != null) currentWeight -= weigher.weigh(key, previous);
+        if (weight > maxWeight) return;
+
+        entries.put(key, value);
+        currentWeight += weight;
+        trimToWeight();
+    }
+
+    public synchronized V remove(K key)
+    {
+        V value = entries.remove(key);
+        if (value != null) currentWeight -= weigher.weigh(key, value);
+        return value;
+    }
+
+    /**
+     * Remove every entry whose key matches the filter
+     *
+     * @return entries removed
+     */
+    public synchronized List<V> removeIf(KeyFilter<K> filter)
+    {
+        List<V> removed = new ArrayList<>();
+        Iterator<Map.Entry<K, V>> itr = entries.entrySet().iterator();
+        while (itr.hasNext())
+        {
+            Map.Entry<K, V> entry = itr.next();
+            if (filter.matches(entry.getKey()))
+            {
+                currentWeight -= weigher.weigh(entry.getKey(), entry.getValue());
+                removed.add(entry.getValue());
+                itr.remove();
+            }
+        }
+
+        return removed;
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+        currentWeight = 0;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long weight()
+    {
+        return currentWeight;
+    }
+
+    public synchronized long hitCount()
+    {
+        return hits;
+    }
+
+    public synchronized long missCount()
+    {
+        return misses;
+    }
+
+    private void trimToWeight()
+    {
+        Iterator<Map.Entry<K, V>> itr = entries.entrySet().iterator();
+        while (currentWeight > maxWeight && itr.hasNext())
+        {
+            Map.Entry<K, V> eldest = itr.next();
+            currentWeight -= weigher.weigh(eldest.getKey(), eldest.getValue());
+            itr.remove();
+        }
+    }
+}
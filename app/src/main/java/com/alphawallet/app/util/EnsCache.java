@@ -0,0 +1,260 @@
+package com.alphawallet.app.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * ENS lookup cache sitting in front of the resolver contracts.
+ *
+ * Both successful and empty results are cached, each with its own TTL, in memory and in a persistent store so
+ * they survive restarts. Concurrent lookups of the same key share a single resolver call. If the resolver fails
+ * (eg no connection) an expired entry is returned rather than nothing. Writes to the store are batched: a burst of
+ * lookups (eg an activity list scrolling into view) is saved once, shortly after it ends.
+ *
+ * Reverse lookups for many addresses (wallet list, activity list) can be made in one resolver call with lookupNames.
+ *
+ * The cache can be shared between resolvers for the same chain: each lookup is made through the caller's Backend.
+ */
+public class EnsCache
+{
+    public static final long POSITIVE_TTL = 1000 * 60 * 60 * 24; //names rarely change; re-check daily
+    public static final long NEGATIVE_TTL = 1000 * 60 * 30;      //an address may gain a reverse record at any time
+    private static final String NAME_PREFIX = "n:";             //address -> ENS name
+    private static final String ADDRESS_PREFIX = "a:";          //ENS name -> address
+    public static final long PERSIST_DELAY = 2000;
+
+    /**
+     * The resolver calls. Results are verified: a name from reverseResolve must resolve forward to the address.
+     * Return "" for no result; throw if the lookup could not be made.
+     */
+    public interface Backend
+    {
+        String reverseResolve(String address) throws Exception;
+        String resolve(String ensName) throws Exception;
+
+        /**
+         * @return names in the same order as addresses, "" where there is none
+         */
+        List<String> reverseResolveBatch(List<String> addresses) throws Exception;
+    }
+
+    public interface Store
+    {
+        Map<String, Entry> load();
+        void save(Map<String, Entry> entries);
+    }
+
+    public static class Entry
+    {
+        public final String value;
+        public final long expiry;
+
+        public Entry(String value, long expiry)
+        {
+            this.value = value;
+            this.expiry = expiry;
+        }
+
+        boolean isFresh(long now)
+        {
+            return now < expiry;
+        }
+    }
+
+    private final Store store;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<String>> inFlight = new ConcurrentHashMap<>();
+    private final long persistDelay;
+    private final AtomicBoolean persistPending = new AtomicBoolean(false);
+
+    public EnsCache(Store store)
+    {
+        this(store, PERSIST_DELAY);
+    }
+
+    /**
+     * @param persistDelay how long after a change the store is written; 0 to write on every change
+     */
+    public EnsCache(Store store, long persistDelay)
+    {
+        this.store = store;
+        this.persistDelay = persistDelay;
+        Map<String, Entry> stored = store != null ? store.load() : null;
+        if (stored != null)
+        {
+            for (Map.Entry<String, Entry> e : stored.entrySet())
+            {
+                if (e.getKey() != null && e.getValue() != null && e.getValue().value != null) entries.put(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return verified ENS name for the address, or ""
+     */
+    public String lookupName(String address, Backend backend)
+    {
+        if (address == null) return "";
+        return lookup(NAME_PREFIX + address.toLowerCase(), () -> backend.reverseResolve(address));
+    }
+
+    /**
+     * @return the last name found for the address, even if it's due a re-check, or "" if none is known. Doesn't
+     * call the resolver, so it's safe on the main thread.
+     */
+    public String peekName(String address)
+    {
+        Entry entry = address != null ? entries.get(NAME_PREFIX + address.toLowerCase()) : null;
+        return entry != null ? entry.value : "";
+    }
+
+    /**
+     * @return address the ENS name resolves to, or ""
+     */
+    public String lookupAddress(String ensName, Backend backend)
+    {
+        if (ensName == null) return "";
+        return lookup(ADDRESS_PREFIX + ensName.toLowerCase(), () -> backend.resolve(ensName));
+    }
+
+    /**
+     * Reverse lookup for many addresses. Only those without a fresh entry go to the resolver, in a single call.
+     *
+     * @return map of lower case address to ENS name ("" for none)
+     */
+    public Map<String, String> lookupNames(List<String> addresses, Backend backend)
+    {
+        long now = System.currentTimeMillis();
+        Map<String, String> results = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String address : addresses)
+        {
+            String lower = address.toLowerCase();
+            Entry entry = entries.get(NAME_PREFIX + lower);
+            if (entry != null && entry.isFresh(now)) results.put(lower, entry.value);
+            else if (!results.containsKey(lower) && !misses.contains(lower)) misses.add(lower);
+        }
+
+        if (misses.isEmpty()) return results;
+
+        try
+        {
+            List<String> names = backend.reverseResolveBatch(misses);
+            for (int i = 0; i < misses.size(); i++)
+            {
+                String name = i < names.size() && names.get(i) != null ? names.get(i) : "";
+                putEntry(NAME_PREFIX + misses.get(i), name);
+                results.put(misses.get(i), name);
+            }
+            persist();
+        }
+        catch (Exception e)
+        {
+            //batch unavailable: fall back to stale values
+            for (String address : misses)
+            {
+                Entry stale = entries.get(NAME_PREFIX + address);
+                results.put(address, stale != null ? stale.value : "");
+            }
+        }
+
+        return results;
+    }
+
+    public void clear()
+    {
+        entries.clear();
+        persist();
+    }
+
+    private interface Lookup
+    {
+        String fetch() throws Exception;
+    }
+
+    private String lookup(String key, Lookup lookup)
+    {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) return entry.value;
+
+        //single flight: the first caller for a key runs the lookup, any others arriving meanwhile wait for its result
+        FutureTask<String> task = new FutureTask<>(() -> {
+            String value = lookup.fetch();
+            putEntry(key, value != null ? value : "");
+            persist();
+            return value != null ? value : "";
+        });
+
+        FutureTask<String> running = inFlight.putIfAbsent(key, task);
+        if (running == null)
+        {
+            running = task;
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                inFlight.remove(key, task);
+            }
+        }
+
+        try
+        {
+            return running.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            return entry != null ? entry.value : ""; //resolver unavailable; stale is better than nothing
+        }
+    }
+
+    private void putEntry(String key, String value)
+    {
+        long ttl = value.length() > 0 ? POSITIVE_TTL : NEGATIVE_TTL;
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttl));
+    }
+
+    private void persist()
+    {
+        if (store == null) return;
+        if (persistDelay <= 0)
+        {
+            saveEntries();
+        }
+        else if (persistPending.compareAndSet(false, true))
+        {
+            //changes made before the write runs are included in it
+            Completable.timer(persistDelay, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .subscribe(() -> {
+                        persistPending.set(false);
+                        saveEntries();
+                    }, Throwable::printStackTrace);
+        }
+    }
+
+    private void saveEntries()
+    {
+        //drop expired negative results; keep expired names as they're the fallback when offline
+        long now = System.currentTimeMillis();
+        Map<String, Entry> snapshot = new HashMap<>(entries);
+        Iterator<Map.Entry<String, Entry>> itr = snapshot.entrySet().iterator();
+        while (itr.hasNext())
+        {
+            Entry e = itr.next().getValue();
+            if (e.value.length() == 0 && !e.isFresh(now)) itr.remove();
+        }
+        store.save(snapshot);
+    }
+}
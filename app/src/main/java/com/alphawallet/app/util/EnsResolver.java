@@ -11,6 +11,7 @@ import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicArray;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Type;
 import org.web3j.abi.datatypes.Utf8String;
@@ -29,6 +30,7 @@ import org.web3j.utils.Numeric;
 import java.io.InterruptedIOException;
 import java.math.BigInteger;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -44,6 +46,7 @@ public class EnsResolver {
     public static final String REVERSE_NAME_SUFFIX = ".addr.reverse";
     public static final String CRYPTO_RESOLVER = "0xD1E5b0FF1287aA9f9A268759062E4Ab08b9Dacbe";
     public static final String CRYPTO_ETH_KEY = "crypto.ETH.address";
+    public static final String REVERSE_RECORDS = "0x3671aE578E63FdF66ad4F3E12CC0c0d71Ac7510C"; //ENS ReverseRecords helper
 
     private final Web3j web3j;
     private final int addressLength;
@@ -168,6 +171,33 @@ public class EnsResolver {
         }
     }
 
+    /**
+     * Reverse resolve many addresses in a single call, using the ENS ReverseRecords contract.
+     * The contract only returns a name if it also resolves forward to the address, so results are verified.
+     *
+     * @param addresses ethereum addresses
+     * @return ENS names in the same order as the addresses, empty string where there is no (valid) name
+     */
+    public List<String> reverseResolveBatch(List<String> addresses) throws Exception
+    {
+        List<Address> addressList = new ArrayList<>();
+        for (String address : addresses) addressList.add(new Address(address));
+        List<Utf8String> names = getContractData(MAINNET_ID, REVERSE_RECORDS, getNames(addressList));
+        if (names == null || names.size() != addresses.size())
+        {
+            throw new EnsResolutionException("Unable to batch resolve names");
+        }
+
+        List<String> results = new ArrayList<>();
+        for (Utf8String name : names)
+        {
+            String ensName = name.getValue();
+            results.add(!TextUtils.isEmpty(ensName) && isValidEnsName(ensName, addressLength) ? ensName : "");
+        }
+
+        return results;
+    }
+
     private String lookupResolver(String ensName) throws Exception
     {
         NetVersion netVersion = web3j.netVersion().send();
@@ -222,6 +252,15 @@ public class EnsResolver {
                             }));
     }
 
+    private Function getNames(List<Address> addresses)
+    {
+        return new Function("getNames",
+                            Arrays.<Type>asList(new DynamicArray<>(Address.class, addresses)),
+                            Arrays.<TypeReference<?>>asList(new TypeReference<DynamicArray<Utf8String>>()
+                            {
+                            }));
+    }
+
     boolean isSynced() throws Exception {
         EthSyncing ethSyncing = web3j.ethSyncing().send();
         if (ethSyncing.isSyncing()) {
@@ -0,0 +1,125 @@
+package com.alphawallet.app.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-thread reference counted instances, for resources that must be opened and closed on the same thread
+ * (eg Realm). Nested acquires of the same name on a thread share one instance, which is closed when the outermost
+ * scope releases it. Every open instance is recorded so leaks can be reported.
+ */
+public class ScopedInstanceTracker<T>
+{
+    public interface Opener<T>
+    {
+        T open(String name);
+    }
+
+    public interface Closer<T>
+    {
+        void close(T instance);
+    }
+
+    private static class Scope<T>
+    {
+        final T instance;
+        final Throwable openedAt; //null unless recording call sites
+        int depth;
+
+        Scope(T instance, Throwable openedAt)
+        {
+            this.instance = instance;
+            this.openedAt = openedAt;
+        }
+    }
+
+    private final Opener<T> opener;
+    private final Closer<T> closer;
+    private final boolean recordCallSites;
+    private final Map<Scope<T>, String> openScopes = new ConcurrentHashMap<>(); //scope -> "thread: name"
+    private final ThreadLocal<Map<String, Scope<T>>> threadScopes = new ThreadLocal<Map<String, Scope<T>>>()
+    {
+        @Override
+        protected Map<String, Scope<T>> initialValue()
+        {
+            return new HashMap<>();
+        }
+    };
+
+    /**
+     * @param recordCallSites keep a stack trace of where each instance was opened, for leak reports (debug only)
+     */
+    public ScopedInstanceTracker(Opener<T> opener, Closer<T> closer, boolean recordCallSites)
+    {
+        this.opener = opener;
+        this.closer = closer;
+        this.recordCallSites = recordCallSites;
+    }
+
+    /**
+     * The thread's instance for the name, opened if the thread doesn't have one. Must be paired with release.
+     */
+    public T acquire(String name)
+    {
+        Map<String, Scope<T>> scopes = threadScopes.get();
+        Scope<T> scope = scopes.get(name);
+        if (scope == null)
+        {
+            scope = new Scope<>(opener.open(name), recordCallSites ? new Throwable("Opened here") : null);
+            scopes.put(name, scope);
+            openScopes.put(scope, Thread.currentThread().getName() + ": " + name);
+        }
+        scope.depth++;
+        return scope.instance;
+    }
+
+    public void release(String name)
+    {
+        Map<String, Scope<T>> scopes = threadScopes.get();
+        Scope<T> scope = scopes.get(name);
+        if (scope == null)
+        {
+            throw new IllegalStateException("Release of " + name + " without acquire");
+        }
+        if (--scope.depth == 0)
+        {
+            scopes.remove(name);
+            openScopes.remove(scope);
+            closer.close(scope.instance);
+        }
+    }
+
+    /**
+     * Number of instances currently open across all threads
+     */
+    public int getOpenCount()
+    {
+        return openScopes.size();
+    }
+
+    /**
+     * One line per open instance, "thread: name", with where it was opened if call sites are recorded.
+     * Empty when everything acquired has been released.
+     */
+    public List<String> describeOpen()
+    {
+        List<String> open = new ArrayList<>();
+        for (Map.Entry<Scope<T>, String> entry : openScopes.entrySet())
+        {
+            StringBuilder sb = new StringBuilder(entry.getValue());
+            Throwable openedAt = entry.getKey().openedAt;
+            if (openedAt != null)
+            {
+                for (StackTraceElement element : openedAt.getStackTrace())
+                {
+                    sb.append("\n    at ").append(element);
+                }
+            }
+            open.add(sb.toString());
+        }
+        return open;
+    }
+}
@@ -1,26 +1,36 @@
 package com.alphawallet.app.viewmodel;
 
+import android.content.Context;
+
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.alphawallet.app.entity.ActivityMeta;
 import com.alphawallet.app.entity.Transaction;
+import com.alphawallet.app.entity.TransactionMeta;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.interact.FetchTransactionsInteract;
 import com.alphawallet.app.interact.GenericWalletInteract;
 import com.alphawallet.app.service.AssetDefinitionService;
 import com.alphawallet.app.service.TokensService;
+import com.alphawallet.app.repository.TokenRepository;
 import com.alphawallet.app.service.TransactionsService;
+import com.alphawallet.app.util.AWEnsResolver;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
 import io.realm.Realm;
 
+import static com.alphawallet.ethereum.EthereumNetworkBase.MAINNET_ID;
+
 /**
  * Created by JB on 26/06/2020.
  */
@@ -30,6 +40,7 @@ public class ActivityViewModel extends BaseViewModel
 
     private final MutableLiveData<Wallet> wallet = new MutableLiveData<>();
     private final MutableLiveData<ActivityMeta[]> activityItems = new MutableLiveData<>();
+    private final MutableLiveData<Map<String, String>> ensNames = new MutableLiveData<>();
 
     private final GenericWalletInteract genericWalletInteract;
     private final FetchTransactionsInteract fetchTransactionsInteract;
@@ -39,11 +50,15 @@ public class ActivityViewModel extends BaseViewModel
 
     @Nullable
     private Disposable queryUnknownTokensDisposable;
+    @Nullable
+    private Disposable ensDisposable;
+    private AWEnsResolver ensResolver;
 
     public LiveData<Wallet> defaultWallet() {
         return wallet;
     }
     public LiveData<ActivityMeta[]> activityItems() { return activityItems; }
+    public LiveData<Map<String, String>> ensNames() { return ensNames; }
 
     ActivityViewModel(
             GenericWalletInteract genericWalletInteract,
@@ -106,12 +121,57 @@ public class ActivityViewModel extends BaseViewModel
 //                        .subscribe(activityItems::postValue, this::onError);
     }
 
+    /**
+     * Reverse resolve the other party of each transaction in one batch; rows show the names once it completes
+     */
+    public void fetchEnsNames(Context ctx, ActivityMeta[] metas)
+    {
+        Wallet currentWallet = wallet.getValue();
+        if (currentWallet == null || !hasTransactions(metas)) return; //event lists have no counterparty to resolve
+        if (ensResolver == null) ensResolver = new AWEnsResolver(TokenRepository.getWeb3jService(MAINNET_ID), ctx);
+        if (ensDisposable != null && !ensDisposable.isDisposed()) ensDisposable.dispose();
+
+        ensDisposable = Single.fromCallable(() -> getCounterparties(currentWallet, metas))
+                .flatMap(addresses -> ensResolver.resolveEnsNames(addresses))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(ensNames::postValue, this::onError);
+    }
+
+    private boolean hasTransactions(ActivityMeta[] metas)
+    {
+        for (ActivityMeta meta : metas)
+        {
+            if (meta instanceof TransactionMeta) return true;
+        }
+
+        return false;
+    }
+
+    private List<String> getCounterparties(Wallet currentWallet, ActivityMeta[] metas)
+    {
+        List<String> addresses = new ArrayList<>();
+        for (ActivityMeta meta : metas)
+        {
+            if (!(meta instanceof TransactionMeta)) continue;
+            Transaction tx = fetchTransactionsInteract.fetchCached(currentWallet.address, meta.hash);
+            if (tx == null) continue;
+            String counterparty = tx.from.equalsIgnoreCase(currentWallet.address) ? tx.to : tx.from;
+            if (counterparty != null && !addresses.contains(counterparty)) addresses.add(counterparty);
+        }
+
+        return addresses;
+    }
+
     public void onDestroy()
     {
         if (queryUnknownTokensDisposable != null && !queryUnknownTokensDisposable.isDisposed())
             queryUnknownTokensDisposable.dispose();
+        if (ensDisposable != null && !ensDisposable.isDisposed())
+            ensDisposable.dispose();
 
         queryUnknownTokensDisposable = null;
+        ensDisposable = null;
     }
 
     public TokensService getTokensService()
@@ -31,7 +31,6 @@ import java.util.List;
 
 import javax.annotation.Nullable;
 
-import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
@@ -54,8 +53,6 @@ public class AddTokenViewModel extends BaseViewModel {
     private final AssetDefinitionService assetDefinitionService;
     private final TokensService tokensService;
 
-    private boolean foundNetwork;
-    private int networkCount;
     private int primaryChainId = 1;
     private String testAddress;
 
@@ -222,65 +219,26 @@ public class AddTokenViewModel extends BaseViewModel {
     public void testNetworks(String address, NetworkInfo networkInfo)
     {
         testAddress = address;
-        foundNetwork = false;
-        networkCount = ethereumNetworkRepository.getAvailableNetworkList().length;
-        //first test the network selected, then do all the others
-        scanNetworksDisposable = fetchTokensInteract.getContractResponse(testAddress, networkInfo.chainId, "name")
+        //all networks are checked at once; the selected network is used if the contract is on it
+        List<Integer> networkIds = getNetworkIds();
+        networkIds.remove((Integer)networkInfo.chainId);
+        networkIds.add(0, networkInfo.chainId);
+
+        if (scanNetworksDisposable != null && !scanNetworksDisposable.isDisposed()) scanNetworksDisposable.dispose();
+        scanNetworksDisposable = fetchTokensInteract.locateContract(testAddress, networkIds)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(this::checkSelectedNetwork, this::onTestError);
+                .subscribe(this::onContractLocated, this::onError);
     }
 
-    private void checkSelectedNetwork(ContractLocator result)
+    private void onContractLocated(ContractLocator result)
     {
         if (!result.address.equals(TokenRepository.INVALID_CONTRACT))
         {
-            foundNetwork = true;
-            switchNetwork.postValue(result.chainId);
-            setupToken(result.chainId, testAddress);
-        }
-        else
-        {
-            //test all the other networks
-            List<Integer> networkIds = getNetworkIds();
-            networkIds.remove((Integer)result.chainId);
-            networkCount--;
-
-            scanNetworksDisposable = Observable.fromCallable(() -> networkIds)
-                    .flatMapIterable(networkId -> networkId)
-                    .filter(networkId -> !foundNetwork)
-                    .flatMap(networkId -> fetchTokensInteract.getContractResponse(testAddress, networkId, "name"))
-                    .subscribeOn(Schedulers.io())
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(this::testNetworkResult, this::onTestError);
-        }
-    }
-
-    private void onTestError(Throwable throwable)
-    {
-        checkNetworkCount();
-        onError(throwable);
-    }
-
-    private void testNetworkResult(ContractLocator result)
-    {
-        if (!foundNetwork && !result.address.equals(TokenRepository.INVALID_CONTRACT))
-        {
-            foundNetwork = true;
-            if (scanNetworksDisposable != null && !scanNetworksDisposable.isDisposed()) scanNetworksDisposable.dispose(); //stop scanning
             switchNetwork.postValue(result.chainId);
             setupToken(result.chainId, testAddress);
         }
         else
-        {
-            checkNetworkCount();
-        }
-    }
-
-    private void checkNetworkCount()
-    {
-        networkCount--;
-        if (networkCount == 0 && !foundNetwork)
         {
             testAddress = null;
             noContract.postValue(true);
@@ -27,7 +27,9 @@ import com.alphawallet.app.service.KeyService;
 import com.alphawallet.app.service.TokensService;
 import com.alphawallet.app.util.AWEnsResolver;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -172,19 +174,38 @@ public class WalletsViewModel extends BaseViewModel
     public void swipeRefreshWallets()
     {
         //check for updates
-        //check names first
-        disposable = fetchWalletsInteract.fetch().toObservable()
+        //check names first, all wallets in one lookup
+        disposable = fetchWalletsInteract.fetch()
+                .flatMap(wallets -> ensResolver.resolveEnsNames(getAddresses(wallets))
+                        .map(names -> applyENSNames(wallets, names)))
+                .toObservable()
                 .flatMap(Observable::fromArray)
-                .forEach(wallet -> ensResolver.resolveEnsName(wallet.address)
-                        .map(ensName -> { wallet.ENSname = ensName; return wallet;})
-                        .flatMap(fetchWalletsInteract::updateWalletData)
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .subscribe(w -> { }, this::onError).isDisposed());
+                .flatMapSingle(fetchWalletsInteract::updateWalletData)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(w -> { }, this::onError);
 
         updateWallets();
     }
 
+    private List<String> getAddresses(Wallet[] wallets)
+    {
+        List<String> addresses = new ArrayList<>();
+        for (Wallet wallet : wallets) addresses.add(wallet.address);
+        return addresses;
+    }
+
+    private Wallet[] applyENSNames(Wallet[] wallets, Map<String, String> names)
+    {
+        for (Wallet wallet : wallets)
+        {
+            String ensName = names.get(wallet.address.toLowerCase());
+            wallet.ENSname = ensName != null ? ensName : "";
+        }
+
+        return wallets;
+    }
+
     public void fetchWallets()
     {
         progress.postValue(true);
@@ -0,0 +1,44 @@
+package com.alphawallet.app.web3;
+
+import com.alphawallet.app.util.BoundedLruCache;
+
+/**
+ * Assembled dapp browser injections (the JS library plus its init for a chain, wallet and RPC) as UTF-8 bytes, shared
+ * by every JsInjectorClient. The library is around 700KB, so formatting it into every page load is a large part of the
+ * cost of injecting.
+ */
+public class DappInjectionCache
+{
+    private static final int MAX_INJECTION_BYTES = 4 * 1024 * 1024;
+
+    public interface InjectionBuilder
+    {
+        byte[] build();
+    }
+
+    private static DappInjectionCache instance;
+
+    private final BoundedLruCache<String, byte[]> injections = new BoundedLruCache<>(MAX_INJECTION_BYTES, (k, v) -> v.length);
+
+    public static synchronized DappInjectionCache getInstance()
+    {
+        if (instance == null) instance = new DappInjectionCache();
+        return instance;
+    }
+
+    /**
+     * Injection for a page template on a chain, wallet and RPC. Any change to those gives a new entry, so this is never stale.
+     */
+    public byte[] getInjection(String template, int chainId, String wallet, String rpcUrl, InjectionBuilder builder)
+    {
+        String key = chainId + "-" + wallet + "-" + rpcUrl + "-" + template;
+        byte[] injection = injections.get(key);
+        if (injection == null)
+        {
+            injection = builder.build();
+            injections.put(key, injection);
+        }
+
+        return injection;
+    }
+}
@@ -5,6 +5,7 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.RawRes;
 
 import com.alphawallet.app.R;
 import com.alphawallet.app.repository.EthereumNetworkRepository;
@@ -12,8 +13,12 @@ import com.alphawallet.app.web3.entity.Address;
 
 import org.web3j.crypto.Keys;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -21,9 +26,13 @@ import java.util.regex.Pattern;
 
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ByteString;
 
 import static com.alphawallet.app.util.Utils.loadFile;
 import static com.alphawallet.ethereum.EthereumNetworkBase.MAINNET_ID;
@@ -33,12 +42,13 @@ public class JsInjectorClient {
     private static final String DEFAULT_CHARSET = "utf-8";
     private static final String DEFAULT_MIME_TYPE = "text/html";
     private final static String JS_TAG_TEMPLATE = "<script type=\"text/javascript\">%1$s%2$s</script>";
+    private static final ByteString UTF16_BE_BOM = ByteString.decodeHex("feff");
+    private static final ByteString UTF16_LE_BOM = ByteString.decodeHex("fffe");
+    private static final ByteString UTF32_BE_BOM = ByteString.decodeHex("0000feff");
 
     private final Context context;
     private final OkHttpClient httpClient;
 
-    private String jsLibrary;
-
     private int chainId = 1;
     private Address walletAddress;
     //Note: this default RPC is overriden before injection
@@ -87,28 +97,35 @@ public class JsInjectorClient {
     }
 
     String assembleJs(Context context, String template) {
-        if (TextUtils.isEmpty(jsLibrary)) {
-            jsLibrary = loadFile(context, R.raw.alphawallet_min);
-        }
-        String initJs = loadInitJs(context);
-        return String.format(template, jsLibrary, initJs);
+        return new String(getInjection(template), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The JS library and its init for the current chain, wallet and RPC, formatted into the template
+     */
+    byte[] getInjection(String template) {
+        String address = walletAddress == null ? Address.EMPTY.toString() : Keys.toChecksumAddress(walletAddress.toString());
+        return DappInjectionCache.getInstance().getInjection(template, chainId, address, rpcUrl,
+                () -> String.format(template, loadTemplate(context, R.raw.alphawallet_min), loadInitJs(context))
+                        .getBytes(StandardCharsets.UTF_8));
     }
 
     @Nullable
     private JsInjectorResponse buildResponse(Response response) {
-        String body = null;
+        InputStream result = null;
         int code = response.code();
+        Request request = response.request();
+        Response prior = response.priorResponse();
+        boolean isRedirect = prior != null && prior.isRedirect();
         try {
-            if (response.isSuccessful()) {
-                body = response.body().string();
+            if (response.isSuccessful() && !isRedirect) {
+                result = injectJS(response.body());
+            } else {
+                response.close(); //redirected pages are reloaded by the WebView, so the body isn't used
             }
         } catch (IOException ex) {
             Log.d("READ_BODY_ERROR", "Ex", ex);
         }
-        Request request = response.request();
-        Response prior = response.priorResponse();
-        boolean isRedirect = prior != null && prior.isRedirect();
-        String result = injectJS(body);
         String contentType = getContentTypeHeader(response);
         String charset = getCharset(contentType);
         String mime = getMimeType(contentType);
@@ -121,9 +138,43 @@ public class JsInjectorClient {
         return injectJS(html, js);
     }
 
+    /**
+     * UTF-8 pages are injected as they stream in, without reading the whole page into a String. Pages in any other
+     * charset are decoded and injected as a String, which re-encodes them as UTF-8.
+     *
+     * @return injected page, or null if the page is empty
+     */
+    @Nullable
+    private InputStream injectJS(ResponseBody body) throws IOException {
+        boolean streaming = false;
+        try {
+            if (isUtf8(body)) {
+                InputStream page = StreamingHtmlInjector.inject(body.byteStream(), getInjection(JS_TAG_TEMPLATE));
+                streaming = page != null; //the body is closed with the stream, once the WebView has read the page
+                return page;
+            }
+            String html = injectJS(body.string());
+            return TextUtils.isEmpty(html) ? null : new ByteArrayInputStream(html.getBytes());
+        } finally {
+            if (!streaming) body.close();
+        }
+    }
+
+    private boolean isUtf8(ResponseBody body) throws IOException {
+        MediaType contentType = body.contentType();
+        Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return false;
+        }
+        //a UTF-16 or UTF-32 byte order mark overrides the header when the body is read as a String
+        BufferedSource source = body.source();
+        return !source.rangeEquals(0, UTF16_BE_BOM) && !source.rangeEquals(0, UTF16_LE_BOM)
+                && !source.rangeEquals(0, UTF32_BE_BOM);
+    }
+
     String injectWeb3TokenInit(Context ctx, String view, String tokenContent, BigInteger tokenId)
     {
-        String initSrc = loadFile(ctx, R.raw.init_token);
+        String initSrc = loadTemplate(ctx, R.raw.init_token);
         //put the view in here
         String tokenIdWrapperName = "token-card-" + tokenId.toString(10);
         initSrc = String.format(initSrc, tokenContent, walletAddress, EthereumNetworkRepository.getDefaultNodeURL(chainId), chainId, tokenIdWrapperName);
@@ -202,11 +253,19 @@ public class JsInjectorClient {
     }
 
     private String loadInitJs(Context context) {
-        String initSrc = loadFile(context, R.raw.init);
+        String initSrc = loadTemplate(context, R.raw.init);
         String address = walletAddress == null ? Address.EMPTY.toString() : Keys.toChecksumAddress(walletAddress.toString());
         return String.format(initSrc, address, rpcUrl, chainId);
     }
 
+    /**
+     * Raw resource templates are read from the APK once and shared by every injector
+     */
+    private static String loadTemplate(Context context, @RawRes int resId)
+    {
+        return TokenScriptRenderCache.getInstance().getTemplate(resId, id -> loadFile(context, id));
+    }
+
     String injectStyleAndWrap(String view, String style)
     {
         if (style == null) style = "";
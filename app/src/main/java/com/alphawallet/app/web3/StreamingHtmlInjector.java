@@ -0,0 +1,134 @@
+package com.alphawallet.app.web3;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts code into a UTF-8 HTML page as it streams to the WebView.
+ *
+ * The insertion point is the same as JsInjectorClient.injectJS: before the first '<script' or '<!--[if' tag (an IE
+ * detect tag only counts if the page also has a script tag), or if there are none, before the first '</head', or else at
+ * the start. Only the page up to the insertion point is held in memory; the rest is passed straight through from the
+ * network. A page with no script tags is read to the end, as the fallback can't be decided until then.
+ *
+ * Tag matching is on ASCII bytes, which never occur inside a multi-byte UTF-8 sequence, so the output is byte for byte
+ * the UTF-8 encoding of what the String based injection produces.
+ */
+public class StreamingHtmlInjector
+{
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final byte[] SCRIPT_TAG = "<script".getBytes();
+    private static final byte[] IE_DETECT_TAG = "<!--[if".getBytes();
+    private static final byte[] HEAD_END_TAG = "</head".getBytes();
+
+    private byte[] buffer = new byte[CHUNK_SIZE];
+    private int length;
+    private int start;          //first byte of the page after any byte order mark
+    private int scanned;        //bytes before this have been checked for tags
+    private int ieDetectIndex = -1;
+    private int headEndIndex = -1;
+    private boolean bomChecked;
+    private boolean endOfPage;
+
+    private StreamingHtmlInjector() { }
+
+    /**
+     * @param page page body in UTF-8; closed when the returned stream is closed, or here if the page is empty
+     * @param code UTF-8 bytes to insert
+     * @return the page with the code inserted, or null if the page is empty
+     */
+    public static InputStream inject(InputStream page, byte[] code) throws IOException
+    {
+        StreamingHtmlInjector injector = new StreamingHtmlInjector();
+        int position;
+        try
+        {
+            position = injector.findInjectionPosition(page);
+        }
+        catch (IOException e)
+        {
+            page.close();
+            throw e;
+        }
+
+        if (injector.length == injector.start)
+        {
+            page.close();
+            return null;
+        }
+
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(new ByteArrayInputStream(injector.buffer, injector.start, position - injector.start));
+        parts.add(new ByteArrayInputStream(code));
+        parts.add(new ByteArrayInputStream(injector.buffer, position, injector.length - position));
+        parts.add(page);
+        return new SequenceInputStream(Collections.enumeration(parts));
+    }
+
+    private int findInjectionPosition(InputStream page) throws IOException
+    {
+        while (!endOfPage)
+        {
+            readChunk(page);
+            if (!bomChecked)
+            {
+                if (length < 3 && !endOfPage) continue;
+                //ResponseBody.string() drops a UTF-8 byte order mark, so the String injection never sees it
+                if (length >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF)
+                {
+                    start = 3;
+                }
+                scanned = start;
+                bomChecked = true;
+            }
+
+            int tagIndex = scan();
+            if (tagIndex >= 0) return tagIndex;
+        }
+
+        return headEndIndex >= 0 ? headEndIndex : start;
+    }
+
+    private void readChunk(InputStream page) throws IOException
+    {
+        if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        int read = page.read(buffer, length, buffer.length - length);
+        if (read < 0) endOfPage = true;
+        else length += read;
+    }
+
+    // Insertion point if a script tag has been read, otherwise -1
+    private int scan()
+    {
+        for (; scanned < length; scanned++)
+        {
+            if (buffer[scanned] != '<') continue;
+            //a tag cut off by the end of the chunk is checked again when there's more
+            if (!endOfPage && scanned + SCRIPT_TAG.length > length) return -1;
+
+            if (matches(scanned, SCRIPT_TAG)) return ieDetectIndex >= 0 ? ieDetectIndex : scanned;
+            if (ieDetectIndex < 0 && matches(scanned, IE_DETECT_TAG)) ieDetectIndex = scanned;
+            if (headEndIndex < 0 && matches(scanned, HEAD_END_TAG)) headEndIndex = scanned;
+        }
+
+        return -1;
+    }
+
+    private boolean matches(int index, byte[] tag)
+    {
+        if (index + tag.length > length) return false;
+        for (int i = 0; i < tag.length; i++)
+        {
+            int b = buffer[index + i];
+            if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+            if (b != tag[i]) return false;
+        }
+        return true;
+    }
+}
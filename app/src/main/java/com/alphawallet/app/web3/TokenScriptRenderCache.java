@@ -0,0 +1,128 @@
+package com.alphawallet.app.web3;
+
+import com.alphawallet.app.util.BoundedLruCache;
+
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches shared by every TokenScript card render:
+ *
+ * - Raw resource templates (injected JS), read from the APK once rather than per card.
+ * - Per-contract view HTML and style. Fetching these otherwise re-parses the TokenScript whenever the single cached
+ *   definition in AssetDefinitionService belongs to another contract, which happens constantly in a mixed list.
+ *
+ * Also computes the render key for a card: a hash over everything that goes into the rendered page, so a card whose
+ * view, style and attribute results are unchanged can be redrawn from a cached bitmap without running any JS.
+ */
+public class TokenScriptRenderCache
+{
+    private static final int MAX_VIEW_ENTRIES = 128;
+    private static final String STYLE_PART = "style";
+    private static final String VIEW_PART = "view";
+
+    public interface TemplateLoader
+    {
+        String load(int resId);
+    }
+
+    public interface ViewLoader
+    {
+        /**
+         * @return view content, or null if the definition isn't available (yet)
+         */
+        String load(int chainId, String address, String viewName);
+    }
+
+    private static TokenScriptRenderCache instance;
+
+    private final Map<Integer, String> templates = new ConcurrentHashMap<>();
+    private final BoundedLruCache<String, String> views = new BoundedLruCache<>(MAX_VIEW_ENTRIES);
+
+    public static synchronized TokenScriptRenderCache getInstance()
+    {
+        if (instance == null) instance = new TokenScriptRenderCache();
+        return instance;
+    }
+
+    public String getTemplate(int resId, TemplateLoader loader)
+    {
+        String template = templates.get(resId);
+        if (template == null)
+        {
+            template = loader.load(resId);
+            if (template != null && template.length() > 0) templates.put(resId, template);
+        }
+
+        return template;
+    }
+
+    public String getView(int chainId, String address, String viewName, ViewLoader loader)
+    {
+        return getPart(chainId, address, viewName, VIEW_PART, loader);
+    }
+
+    public String getViewStyle(int chainId, String address, String viewName, ViewLoader loader)
+    {
+        return getPart(chainId, address, viewName, STYLE_PART, loader);
+    }
+
+    /**
+     * Drop cached views for a contract, eg when its TokenScript is replaced
+     */
+    public void invalidate(int chainId, String address)
+    {
+        if (address == null) return;
+        final String prefix = contractPrefix(chainId, address);
+        views.removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void invalidateAll()
+    {
+        views.clear();
+    }
+
+    /**
+     * Key identifying a rendered card's content. Any change to the view, style, resolved attributes or token gives a new key.
+     */
+    public static String renderKey(String view, String style, String attrs, BigInteger tokenId)
+    {
+        StringBuilder sb = new StringBuilder();
+        appendField(sb, view);
+        appendField(sb, style);
+        appendField(sb, attrs);
+        appendField(sb, tokenId != null ? tokenId.toString(16) : "");
+        return Numeric.toHexStringNoPrefix(Hash.sha256(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String getPart(int chainId, String address, String viewName, String part, ViewLoader loader)
+    {
+        String key = contractPrefix(chainId, address) + viewName + "-" + part;
+        String value = views.get(key);
+        if (value == null)
+        {
+            value = loader.load(chainId, address, viewName);
+            if (value == null) return ""; //definition may not be loaded yet; don't pin the miss
+            views.put(key, value);
+        }
+
+        return value;
+    }
+
+    private static String contractPrefix(int chainId, String address)
+    {
+        return chainId + "-" + address.toLowerCase() + "-";
+    }
+
+    //length prefix each field so adjacent fields can't run into each other and collide
+    private static void appendField(StringBuilder sb, String field)
+    {
+        if (field == null) field = "";
+        sb.append(field.length()).append(':').append(field);
+    }
+}
@@ -1,7 +1,10 @@
 package com.alphawallet.app.web3;
 
 import android.annotation.SuppressLint;
+import android.app.Activity;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.os.Build;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -12,6 +15,8 @@ import android.util.Base64;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.webkit.ConsoleMessage;
 import android.webkit.JavascriptInterface;
 import android.webkit.WebChromeClient;
@@ -31,6 +36,7 @@ import com.alphawallet.app.entity.tokenscript.WebCompletionCallback;
 import com.alphawallet.app.repository.EthereumNetworkRepository;
 import com.alphawallet.app.repository.entity.RealmAuxData;
 import com.alphawallet.app.service.AssetDefinitionService;
+import com.alphawallet.app.util.BoundedLruCache;
 import com.alphawallet.app.util.Utils;
 import com.alphawallet.app.web3.entity.Address;
 import com.alphawallet.app.web3.entity.FunctionCallback;
@@ -73,6 +79,11 @@ public class Web3TokenView extends WebView
     private static final String JS_PROTOCOL_ON_SUCCESSFUL = "executeCallback(%1$s, null, \"%2$s\")";
     private static final String JS_PROTOCOL_ON_FAILURE = "executeCallback(%1$s, \"%2$s\", null)";
     private static final String REFRESH_ERROR = "refresh is not defined";
+    private static final long RENDER_SETTLE_TIME = 750; //allow the card's refresh() to complete before capturing
+
+    //rendered iconified cards, keyed by render key and width; sized to a fraction of the heap
+    private static final BoundedLruCache<String, Bitmap> renderedCards =
+            new BoundedLruCache<>(Runtime.getRuntime().maxMemory() / 16, (key, bitmap) -> bitmap.getByteCount());
 
     private JsInjectorClient jsInjectorClient;
     private TokenScriptClient tokenScriptClient;
@@ -80,6 +91,8 @@ public class Web3TokenView extends WebView
     private boolean showingError = false;
     private String unencodedPage;
     private RealmResults<RealmAuxData> realmAuxUpdates;
+    private String contentKey;          //render key of the card currently loading, captured once it settles
+    private Bitmap cachedRender;        //if set, the card is drawn from this bitmap instead of the page
 
     protected WebCompletionCallback keyPressCallback;
 
@@ -103,6 +116,22 @@ public class Web3TokenView extends WebView
         init();
     }
 
+    /**
+     * The token view of an Activity built on item_ticket, inflated on first use. Card lists add a pooled view
+     * to that layout instead, so it keeps this one in a ViewStub.
+     */
+    public static Web3TokenView inflateFrom(@NonNull Activity activity)
+    {
+        Web3TokenView view = activity.findViewById(R.id.web3_tokenview);
+        if (view == null)
+        {
+            ViewStub stub = activity.findViewById(R.id.web3_tokenview_stub);
+            view = (Web3TokenView) stub.inflate();
+        }
+
+        return view;
+    }
+
     @SuppressLint("SetJavaScriptEnabled")
     private void init() {
         tokenScriptClient = new TokenScriptClient(this);
@@ -178,6 +207,7 @@ public class Web3TokenView extends WebView
     public void showError(String error)
     {
         showingError = true;
+        clearCachedRender();
         setVisibility(View.VISIBLE);
         loadData(error, "text/html", "utf-8");
     }
@@ -341,6 +371,11 @@ public class Web3TokenView extends WebView
         {
             super.onPageFinished(view, url);
             unencodedPage = null;
+            if (contentKey != null)
+            {
+                final String key = contentKey;
+                postDelayed(() -> captureRender(key), RENDER_SETTLE_TIME);
+            }
             if (assetHolder != null)
                 assetHolder.onPageRendered(view);
         }
@@ -425,6 +460,7 @@ public class Web3TokenView extends WebView
     private void showLegacyView(Token token, TicketRange range)
     {
         setVisibility(View.VISIBLE);
+        clearCachedRender();
         String displayData = "<!DOCTYPE html>\n" +
                 "<html><style>" +
                 "h4 { display: inline; color: green; font: 20px Helvetica, Sans-Serif; padding: 6px; font-weight: bold;}\n" +
@@ -468,14 +504,28 @@ public class Web3TokenView extends WebView
         String view = assetService.getTokenView(token.tokenInfo.chainId, token.getAddress(), viewName);
         if (TextUtils.isEmpty(view)) view = buildViewError(token, range, viewName);
         String style = assetService.getTokenViewStyle(token.tokenInfo.chainId, token.getAddress(), viewName);
-        unencodedPage = injectWeb3TokenInit(view, attrs.toString(), range.tokenIds.get(0));
-        unencodedPage = injectStyleAndWrapper(unencodedPage, style); //style injected last so it comes first
 
-        String base64 = android.util.Base64.encodeToString(unencodedPage.getBytes(StandardCharsets.UTF_8), Base64.DEFAULT);
-        loadData(base64, "text/html; charset=utf-8", "base64");
+        //unchanged card: redraw the previous render without loading the page or running any JS
+        String renderKey = iconified ? TokenScriptRenderCache.renderKey(view, style, attrs.toString(), range.tokenIds.get(0)) : null;
+        Bitmap rendered = renderKey != null && getWidth() > 0 ? renderedCards.get(bitmapKey(renderKey, getWidth())) : null;
+        if (rendered != null)
+        {
+            showCachedRender(rendered);
+        }
+        else
+        {
+            clearCachedRender();
+            contentKey = renderKey;
+            unencodedPage = injectWeb3TokenInit(view, attrs.toString(), range.tokenIds.get(0));
+            unencodedPage = injectStyleAndWrapper(unencodedPage, style); //style injected last so it comes first
+
+            String base64 = android.util.Base64.encodeToString(unencodedPage.getBytes(StandardCharsets.UTF_8), Base64.DEFAULT);
+            loadData(base64, "text/html; charset=utf-8", "base64");
+        }
 
         //TODO: Re-do this to use the JavaScript minimal interface
         //now set realm listener ready to refresh view
+        if (realmAuxUpdates != null) realmAuxUpdates.removeAllChangeListeners();
         Realm realm = assetService.getEventRealm();
         long lastUpdateTime = getLastUpdateTime(realm, token, range.tokenIds.get(0));
         realmAuxUpdates = RealmAuxData.getEventListener(realm, token, range.tokenIds.get(0), 1, lastUpdateTime);
@@ -486,6 +536,91 @@ public class Web3TokenView extends WebView
         });
     }
 
+    private void showCachedRender(Bitmap rendered)
+    {
+        contentKey = null;
+        cachedRender = rendered;
+        ViewGroup.LayoutParams params = getLayoutParams();
+        if (params != null && params.height != rendered.getHeight())
+        {
+            params.height = rendered.getHeight();
+            setLayoutParams(params);
+        }
+        invalidate();
+        if (assetHolder != null) assetHolder.onPageRendered(this);
+    }
+
+    private void clearCachedRender()
+    {
+        contentKey = null;
+        if (cachedRender != null)
+        {
+            cachedRender = null;
+            ViewGroup.LayoutParams params = getLayoutParams();
+            if (params != null)
+            {
+                params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
+                setLayoutParams(params);
+            }
+            invalidate();
+        }
+    }
+
+    /**
+     * Snapshot the settled card so it can be redrawn next time it's bound with the same content
+     */
+    private void captureRender(String key)
+    {
+        if (!key.equals(contentKey) || showingError || getWidth() == 0 || getHeight() == 0) return;
+        contentKey = null;
+        try
+        {
+            Bitmap bitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            draw(new Canvas(bitmap));
+            renderedCards.put(bitmapKey(key, getWidth()), bitmap);
+        }
+        catch (OutOfMemoryError e)
+        {
+            renderedCards.clear();
+        }
+    }
+
+    private static String bitmapKey(String renderKey, int width)
+    {
+        return renderKey + "@" + width;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas)
+    {
+        if (cachedRender != null)
+        {
+            canvas.drawBitmap(cachedRender, 0, 0, null);
+        }
+        else
+        {
+            super.onDraw(canvas);
+        }
+    }
+
+    /**
+     * Clear per-card state so the view can be handed to another holder by WebViewPool
+     */
+    void resetForReuse()
+    {
+        stopLoading();
+        if (realmAuxUpdates != null) realmAuxUpdates.removeAllChangeListeners();
+        realmAuxUpdates = null;
+        clearCachedRender();
+        assetHolder = null;
+        keyPressCallback = null;
+        onSignPersonalMessageListener = null;
+        onSetValuesListener = null;
+        unencodedPage = null;
+        showingError = false;
+        loadUrl("about:blank");
+    }
+
     private long getLastUpdateTime(Realm realm, Token token, BigInteger tokenId)
     {
         long lastResultTime = 0;
@@ -528,6 +663,7 @@ public class Web3TokenView extends WebView
      */
     private void onError(Token token, Throwable throwable, TicketRange range)
     {
+        clearCachedRender();
         String displayData = "<h3><span style=\"color:Green\">x" + range.tokenIds.size() + "</span><span style=\"color:Black\"> " + token.getFullName() + "</span></h3>";
         if (BuildConfig.DEBUG) displayData += ("<br /><body>" + throwable.getLocalizedMessage() + "</body>");
         loadData(displayData, "text/html", "utf-8");
@@ -21,7 +21,6 @@ import androidx.fragment.app.FragmentActivity;
 import com.alphawallet.app.R;
 import com.alphawallet.app.widget.AWalletAlertDialog;
 
-import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -152,12 +151,11 @@ public class Web3ViewClient extends WebViewClient {
         }
         if (response == null || response.isRedirect) {
             return null;
-        } else if (TextUtils.isEmpty(response.data)){
+        } else if (response.data == null){
             return null;
         } else {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(response.data.getBytes());
             WebResourceResponse webResourceResponse = new WebResourceResponse(
-                    response.mime, response.charset, inputStream);
+                    response.mime, response.charset, response.data);
             synchronized (lock) {
                 isInjected = true;
             }
@@ -173,8 +171,7 @@ public class Web3ViewClient extends WebViewClient {
     public void injectScriptFileFinal(WebView view) {
         Log.d("W3VIEW", "Inject2: ");
         isInjected = true;
-        String js = jsInjectorClient.assembleJs(view.getContext(), "%1$s%2$s");
-        byte[] buffer = js.getBytes();
+        byte[] buffer = jsInjectorClient.getInjection("%1$s%2$s");
         String encoded = Base64.encodeToString(buffer, Base64.NO_WRAP);
 
         view.loadUrl("javascript:(function() {" +
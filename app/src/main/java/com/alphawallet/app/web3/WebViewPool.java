@@ -0,0 +1,145 @@
+package com.alphawallet.app.web3;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Bundle;
+import android.os.Looper;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded pool of pre-warmed Web3TokenViews for token card lists.
+ *
+ * Constructing and configuring a WebView (renderer start-up, settings, JS interface) is the most expensive part of
+ * showing a TokenScript card, and previously happened for every card holder. Pooled views are built on a
+ * MutableContextWrapper so they can be handed to whichever Activity needs them and parked on the application context
+ * in between. Card holders release their view when the row is recycled or detached; anything still leased to an
+ * Activity is returned when it's destroyed.
+ *
+ * Main thread only.
+ */
+public class WebViewPool
+{
+    private static final int MAX_POOL_SIZE = 6;
+    private static final int PREWARM_COUNT = 3;
+
+    private static final Deque<Web3TokenView> pool = new ArrayDeque<>();
+    private static final Map<Web3TokenView, Activity> leased = new HashMap<>();
+    private static boolean lifecycleRegistered = false;
+
+    /**
+     * Take a view from the pool, or build a new one if the pool is empty
+     */
+    public static Web3TokenView acquire(@NonNull Context context)
+    {
+        registerLifecycle(context);
+        Web3TokenView view = pool.pollFirst();
+        if (view == null)
+        {
+            view = new Web3TokenView(new MutableContextWrapper(context));
+        }
+        else
+        {
+            ((MutableContextWrapper) view.getContext()).setBaseContext(context);
+        }
+
+        if (context instanceof Activity) leased.put(view, (Activity) context);
+        return view;
+    }
+
+    /**
+     * Return a view to the pool. Views beyond the pool size are destroyed.
+     */
+    public static void release(@Nullable Web3TokenView view)
+    {
+        if (view == null) return;
+        leased.remove(view);
+        if (view.getParent() instanceof ViewGroup) ((ViewGroup) view.getParent()).removeView(view);
+
+        if (pool.size() < MAX_POOL_SIZE && view.getContext() instanceof MutableContextWrapper && !pool.contains(view))
+        {
+            view.resetForReuse();
+            MutableContextWrapper wrapper = (MutableContextWrapper) view.getContext();
+            wrapper.setBaseContext(wrapper.getApplicationContext());
+            pool.push(view);
+        }
+        else
+        {
+            view.destroy();
+        }
+    }
+
+    /**
+     * Build a few views while the main thread is idle, so the first cards of a list don't pay for WebView start-up
+     */
+    public static void prewarm(@NonNull Context context)
+    {
+        final Context appContext = context.getApplicationContext();
+        Looper.myQueue().addIdleHandler(() -> {
+            if (pool.size() >= PREWARM_COUNT) return false;
+            Web3TokenView view = new Web3TokenView(new MutableContextWrapper(appContext));
+            view.resetForReuse();
+            pool.push(view);
+            return pool.size() < PREWARM_COUNT; //one view per idle pass
+        });
+    }
+
+    public static int pooledCount()
+    {
+        return pool.size();
+    }
+
+    private static void releaseLeases(Activity activity)
+    {
+        List<Web3TokenView> toRelease = new ArrayList<>();
+        for (Map.Entry<Web3TokenView, Activity> entry : leased.entrySet())
+        {
+            if (entry.getValue() == activity) toRelease.add(entry.getKey());
+        }
+
+        for (Web3TokenView view : toRelease) release(view);
+    }
+
+    private static void registerLifecycle(Context context)
+    {
+        if (lifecycleRegistered || !(context.getApplicationContext() instanceof Application)) return;
+        lifecycleRegistered = true;
+        ((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks()
+        {
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity)
+            {
+                releaseLeases(activity);
+            }
+
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) { }
+
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) { }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) { }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) { }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) { }
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) { }
+        });
+    }
+}
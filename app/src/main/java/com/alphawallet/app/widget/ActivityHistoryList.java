@@ -13,6 +13,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.alphawallet.app.R;
+import com.alphawallet.app.entity.ActivityFeed;
 import com.alphawallet.app.entity.ActivityMeta;
 import com.alphawallet.app.entity.EventMeta;
 import com.alphawallet.app.entity.TransactionMeta;
@@ -26,11 +27,9 @@ import com.alphawallet.app.ui.widget.adapter.ActivityAdapter;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-import io.reactivex.Observable;
-import io.reactivex.disposables.Disposable;
 import io.realm.Case;
+import io.realm.OrderedCollectionChangeSet;
 import io.realm.Realm;
 import io.realm.RealmQuery;
 import io.realm.RealmResults;
@@ -44,9 +43,8 @@ public class ActivityHistoryList extends LinearLayout
     private ActivityAdapter activityAdapter;
     private Realm realm;
     private RealmResults<RealmTransaction> realmTransactionUpdates;
-    private RealmQuery<RealmTransaction> realmUpdateQuery;
     private RealmResults<RealmAuxData> auxRealmUpdates;
-    @Nullable private Disposable updateCheck; //performs a background check to ensure we get completion
+    private ActivityFeed activityFeed;
     private final RecyclerView recentTransactionsView;
     private final LinearLayout noTxNotice;
     private final ProgressBar loadingTransactions;
@@ -81,33 +79,29 @@ public class ActivityHistoryList extends LinearLayout
         if (realmTransactionUpdates != null) realmTransactionUpdates.removeAllChangeListeners();
         if (auxRealmUpdates != null) auxRealmUpdates.removeAllChangeListeners();
 
+        //the newest page of each stream is watched; the change sets give just the rows inserted or modified.
+        //Only that page is read, so the feed doesn't hold back older rows; the adapter trims to historyCount
+        activityFeed = new ActivityFeed(historyCount, false);
+        int txLimit = activityFeed.getPageLimit(ActivityFeed.Source.TRANSACTIONS);
+        RealmQuery<RealmTransaction> txQuery;
         if (!token.isEthereum() || svs.isChainToken(token.tokenInfo.chainId, token.getAddress()))
         {
-            realmUpdateQuery = getContractListener(token.tokenInfo.chainId, token.getAddress(), historyCount);
+            txQuery = getContractListener(token.tokenInfo.chainId, token.getAddress(), txLimit);
             initViews(false);
         }
         else
         {
-            realmUpdateQuery = getEthListener(token.tokenInfo.chainId, wallet, historyCount);
+            txQuery = getEthListener(token.tokenInfo.chainId, wallet, txLimit);
             initViews(true);
         }
 
-        realmTransactionUpdates = realmUpdateQuery.findAllAsync();
+        realmTransactionUpdates = txQuery.findAllAsync();
+        realmTransactionUpdates.addChangeListener((realmTransactions, changeSet) ->
+                handleChanges(ActivityFeed.Source.TRANSACTIONS, realmTransactions, changeSet));
 
-        //handle updated realm transactions
-        realmTransactionUpdates.addChangeListener(this::handleRealmTransactions);
-
-        auxRealmUpdates = RealmAuxData.getEventListener(realm, token, tokenId, historyCount, 0);
-        auxRealmUpdates.addChangeListener(realmEvents -> {
-            List<ActivityMeta> metas = new ArrayList<>();
-            for (RealmAuxData item : realmEvents)
-            {
-                EventMeta newMeta = new EventMeta(item.getTransactionHash(), item.getEventName(), item.getFunctionId(), item.getResultTime(), item.getChainId());
-                metas.add(newMeta);
-            }
-
-            addItems(metas);
-        });
+        auxRealmUpdates = RealmAuxData.getEventListener(realm, token, tokenId, activityFeed.getPageLimit(ActivityFeed.Source.EVENTS), 0);
+        auxRealmUpdates.addChangeListener((realmEvents, changeSet) ->
+                handleChanges(ActivityFeed.Source.EVENTS, realmEvents, changeSet));
     }
 
     public boolean resetAdapter()
@@ -123,26 +117,34 @@ public class ActivityHistoryList extends LinearLayout
         }
     }
 
-    private void handleRealmTransactions(RealmResults<RealmTransaction> realmTransactions)
+    private void handleChanges(ActivityFeed.Source source, RealmResults<?> results, OrderedCollectionChangeSet changeSet)
     {
-        boolean hasPending = false;
         List<ActivityMeta> metas = new ArrayList<>();
-        for (RealmTransaction item : realmTransactions)
+        if (changeSet.getState() == OrderedCollectionChangeSet.State.INITIAL)
         {
-            TransactionMeta tm = new TransactionMeta(item.getHash(), item.getTimeStamp(), item.getTo(), item.getChainId(), item.getBlockNumber());
-            metas.add(tm);
-            if (tm.isPending) hasPending = true;
+            for (int i = 0; i < results.size(); i++) metas.add(getMeta(results.get(i)));
+            addItems(activityFeed.addPage(source, metas));
         }
+        else
+        {
+            //rows that drop off the end of the page are already shown, so deletions don't need handling
+            for (int i : changeSet.getInsertions()) metas.add(getMeta(results.get(i)));
+            for (int i : changeSet.getChanges()) metas.add(getMeta(results.get(i)));
+            addItems(activityFeed.update(metas));
+        }
+    }
 
-        addItems(metas);
-
-        if (hasPending)
+    private ActivityMeta getMeta(Object row)
+    {
+        if (row instanceof RealmTransaction)
         {
-            startUpdateCheck();
+            RealmTransaction item = (RealmTransaction) row;
+            return new TransactionMeta(item.getHash(), item.getTimeStamp(), item.getTo(), item.getChainId(), item.getBlockNumber());
         }
         else
         {
-            stopUpdateCheck();
+            RealmAuxData item = (RealmAuxData) row;
+            return new EventMeta(item.getTransactionHash(), item.getEventName(), item.getFunctionId(), item.getResultTime(), item.getChainId());
         }
     }
 
@@ -195,7 +197,7 @@ public class ActivityHistoryList extends LinearLayout
                 recentTransactionsView.setVisibility(View.VISIBLE);
                 noTxNotice.setVisibility(View.GONE);
             }
-            else if (metas.size() == 0 && activityAdapter.getItemCount() == 0)
+            else if (metas.size() == 0 && activityAdapter.getItemCount() == 0 && !activityFeed.hasMore())
             {
                 noTxNotice.setVisibility(View.VISIBLE);
             }
@@ -208,34 +210,6 @@ public class ActivityHistoryList extends LinearLayout
         if (auxRealmUpdates != null) auxRealmUpdates.removeAllChangeListeners();
         if (realm != null && !realm.isClosed()) realm.close();
         handler.removeCallbacksAndMessages(null);
-        stopUpdateCheck();
         if (activityAdapter != null && recentTransactionsView != null) activityAdapter.onDestroy(recentTransactionsView);
     }
-
-    //Start update check on the database if anything is pending. Sometimes the listener doesn't pick up the change.
-    private void startUpdateCheck()
-    {
-        if (updateCheck == null || updateCheck.isDisposed())
-        {
-            updateCheck = Observable.interval(0, 10, TimeUnit.SECONDS)
-                    .doOnNext(l -> checkTransactions()).subscribe();
-        }
-    }
-
-    private void stopUpdateCheck()
-    {
-        if (updateCheck != null && !updateCheck.isDisposed()) updateCheck.dispose();
-        updateCheck = null;
-    }
-
-    private void checkTransactions()
-    {
-        if (realmUpdateQuery != null)
-        {
-            handler.post(() -> {
-                RealmResults<RealmTransaction> rTx = realmUpdateQuery.findAll();
-                handleRealmTransactions(rTx);
-            });
-        }
-    }
 }
@@ -0,0 +1,229 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.ActivityFeed;
+import com.alphawallet.app.entity.ActivityMeta;
+import com.alphawallet.app.entity.EventMeta;
+import com.alphawallet.app.entity.TransactionMeta;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ActivityFeedTest
+{
+    private static final int PAGE_SIZE = 5;
+    private static final int CHAIN_ID = 1;
+
+    @Test
+    public void pagesMergeWithoutGaps()
+    {
+        Random rand = new Random(45);
+        for (int run = 0; run < 50; run++)
+        {
+            List<ActivityMeta> txs = new ArrayList<>();
+            List<ActivityMeta> events = new ArrayList<>();
+            int txCount = rand.nextInt(40);
+            int eventCount = rand.nextInt(40);
+            //narrow time range so there are plenty of equal timestamps
+            for (int i = 0; i < txCount; i++) txs.add(tx("0xt" + i, 1000 + rand.nextInt(30), false));
+            for (int i = 0; i < eventCount; i++) events.add(event("0xe" + i, 1000 + rand.nextInt(30)));
+
+            ActivityFeed feed = new ActivityFeed(PAGE_SIZE);
+            Set<ActivityMeta> shown = new HashSet<>();
+            int pages = 0;
+            while (feed.hasMore())
+            {
+                //read the source whose cursor is newest, as that's the one holding the others back
+                ActivityFeed.Source source = ActivityFeed.Source.TRANSACTIONS;
+                if (!feed.hasMore(source) || (feed.hasMore(ActivityFeed.Source.EVENTS)
+                        && feed.getCursor(ActivityFeed.Source.EVENTS) > feed.getCursor(source)))
+                {
+                    source = ActivityFeed.Source.EVENTS;
+                }
+                List<ActivityMeta> rows = source == ActivityFeed.Source.TRANSACTIONS ? txs : events;
+
+                for (ActivityMeta item : feed.addPage(source, readPage(rows, feed.getCursor(source), feed.getPageLimit(source))))
+                {
+                    assertTrue("shown twice: " + item.hash, shown.add(item));
+                }
+                checkNoGap(shown, txs, events);
+                assertEquals(shown.size(), feed.getShownCount());
+                assertTrue(pages++ < 100);
+            }
+
+            assertEquals(txCount + eventCount, shown.size());
+        }
+    }
+
+    @Test
+    public void tiesAcrossPagesAreRead()
+    {
+        List<ActivityMeta> txs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) txs.add(tx("0xt" + i, 2000, false));
+        txs.add(tx("0xold", 1500, false));
+
+        ActivityFeed feed = new ActivityFeed(PAGE_SIZE);
+        feed.addPage(ActivityFeed.Source.EVENTS, new ArrayList<>());
+        Set<String> shown = new HashSet<>();
+        while (feed.hasMore())
+        {
+            long cursor = feed.getCursor(ActivityFeed.Source.TRANSACTIONS);
+            for (ActivityMeta item : feed.addPage(ActivityFeed.Source.TRANSACTIONS,
+                    readPage(txs, cursor, feed.getPageLimit(ActivityFeed.Source.TRANSACTIONS))))
+            {
+                assertTrue(shown.add(item.hash));
+            }
+        }
+
+        assertEquals(13, shown.size());
+    }
+
+    @Test
+    public void onlyChangesAreEmitted()
+    {
+        ActivityFeed feed = new ActivityFeed(PAGE_SIZE);
+        List<ActivityMeta> txPage = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) txPage.add(tx("0xt" + i, 3000 - i, i == 0));
+        List<ActivityMeta> eventPage = new ArrayList<>();
+        eventPage.add(event("0xe0", 2999));
+        eventPage.add(event("0xe1", 100)); //older than the last transaction read: held back
+
+        assertEquals(0, feed.addPage(ActivityFeed.Source.TRANSACTIONS, txPage).size()); //events not read yet
+        List<ActivityMeta> first = feed.addPage(ActivityFeed.Source.EVENTS, eventPage);
+        assertEquals(PAGE_SIZE + 1, first.size());
+        assertEquals(3000, first.get(0).getTimeStampSeconds());
+
+        //the same rows again, eg a change set that touched nothing displayed
+        assertEquals(0, feed.update(txPage).size());
+
+        //pending transaction is mined
+        ActivityMeta mined = tx("0xt0", 3000, false);
+        List<ActivityMeta> updates = feed.update(Collections.singletonList(mined));
+        assertEquals(1, updates.size());
+        assertSame(mined, updates.get(0));
+        assertEquals(0, feed.update(Collections.singletonList(tx("0xt0", 3000, false))).size());
+
+        //new transaction at the top
+        updates = feed.update(Collections.singletonList(tx("0xnew", 3100, true)));
+        assertEquals(1, updates.size());
+        assertEquals(PAGE_SIZE + 2, feed.getShownCount());
+
+        //an event for the same transaction hash is a different item
+        assertEquals(1, feed.update(Collections.singletonList(event("0xnew", 3100))).size());
+
+        //the transactions run out: the held back event is released
+        updates = feed.addPage(ActivityFeed.Source.TRANSACTIONS, new ArrayList<>());
+        assertEquals(1, updates.size());
+        assertEquals("0xe1", updates.get(0).hash);
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    public void unequalStreamsAreAllShown()
+    {
+        //a few recent transactions and a long run of older events
+        List<ActivityMeta> txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) txs.add(tx("0xt" + i, 5000 - i * 10, false));
+        List<ActivityMeta> events = new ArrayList<>();
+        for (int i = 0; i < 23; i++) events.add(event("0xe" + i, 4995 - i * 7));
+
+        ActivityFeed feed = new ActivityFeed(PAGE_SIZE);
+        Set<String> shown = new HashSet<>();
+        for (ActivityFeed.Source source : ActivityFeed.Source.values())
+        {
+            List<ActivityMeta> rows = source == ActivityFeed.Source.TRANSACTIONS ? txs : events;
+            for (ActivityMeta item : feed.addPage(source, readPage(rows, feed.getCursor(source), feed.getPageLimit(source))))
+            {
+                assertTrue(shown.add(item.hash));
+            }
+        }
+
+        //the events page on at their cursor until both streams run out
+        while (feed.hasMore())
+        {
+            ActivityFeed.Source source = feed.hasMore(ActivityFeed.Source.EVENTS) ? ActivityFeed.Source.EVENTS : ActivityFeed.Source.TRANSACTIONS;
+            List<ActivityMeta> rows = source == ActivityFeed.Source.TRANSACTIONS ? txs : events;
+            for (ActivityMeta item : feed.addPage(source, readPage(rows, feed.getCursor(source), feed.getPageLimit(source))))
+            {
+                assertTrue(shown.add(item.hash));
+            }
+        }
+
+        assertEquals(txs.size() + events.size(), shown.size());
+    }
+
+    @Test
+    public void unpagedFeedShowsEveryRowRead()
+    {
+        //transactions fill the first page, and all events are older: a paged feed would hold the events back
+        List<ActivityMeta> txs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) txs.add(tx("0xt" + i, 5000 - i, false));
+        List<ActivityMeta> events = new ArrayList<>();
+        for (int i = 0; i < 2; i++) events.add(event("0xe" + i, 1000 - i));
+
+        ActivityFeed feed = new ActivityFeed(PAGE_SIZE, false);
+        Set<String> shown = new HashSet<>();
+        for (ActivityMeta item : feed.addPage(ActivityFeed.Source.TRANSACTIONS,
+                readPage(txs, Long.MAX_VALUE, feed.getPageLimit(ActivityFeed.Source.TRANSACTIONS))))
+        {
+            assertTrue(shown.add(item.hash));
+        }
+        for (ActivityMeta item : feed.addPage(ActivityFeed.Source.EVENTS,
+                readPage(events, Long.MAX_VALUE, feed.getPageLimit(ActivityFeed.Source.EVENTS))))
+        {
+            assertTrue(shown.add(item.hash));
+        }
+        assertEquals(PAGE_SIZE + events.size(), shown.size());
+
+        //the caller never pages, so rows arriving later are shown whatever their age
+        List<ActivityMeta> updates = feed.update(Collections.singletonList(event("0xlate", 500)));
+        assertEquals(1, updates.size());
+        assertEquals(PAGE_SIZE + events.size() + 1, feed.getShownCount());
+    }
+
+    private static void checkNoGap(Set<ActivityMeta> shown, List<ActivityMeta> txs, List<ActivityMeta> events)
+    {
+        long oldestShown = Long.MAX_VALUE;
+        for (ActivityMeta item : shown) oldestShown = Math.min(oldestShown, item.getTimeStampSeconds());
+        List<ActivityMeta> rows = new ArrayList<>(txs);
+        rows.addAll(events);
+        for (ActivityMeta item : rows)
+        {
+            if (!shown.contains(item)) assertTrue("gap at " + item.getTimeStampSeconds(), item.getTimeStampSeconds() <= oldestShown);
+        }
+    }
+
+    /**
+     * The query a page is read with: rows at or before the cursor, newest first, limited
+     */
+    private static List<ActivityMeta> readPage(List<ActivityMeta> rows, long cursor, int limit)
+    {
+        List<ActivityMeta> page = new ArrayList<>();
+        for (ActivityMeta item : rows)
+        {
+            if (item.getTimeStampSeconds() <= cursor) page.add(item);
+        }
+        Collections.sort(page, (a, b) -> Long.compare(b.getTimeStamp(), a.getTimeStamp()));
+        return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+    }
+
+    private static TransactionMeta tx(String hash, long timeStamp, boolean pending)
+    {
+        return new TransactionMeta(hash, timeStamp, "0xbc9a1026a4bc6f0ba8bbe486d1d09da5732b39e4", CHAIN_ID, pending ? "0" : "123");
+    }
+
+    private static EventMeta event(String hash, long timeStamp)
+    {
+        return new EventMeta(hash, "Transfer", "received", timeStamp, CHAIN_ID);
+    }
+}
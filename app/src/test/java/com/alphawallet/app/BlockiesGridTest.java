@@ -0,0 +1,165 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.util.BlockiesGrid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Blockies grids must be identical to the original generator and unaffected by concurrent generation
+ */
+public class BlockiesGridTest
+{
+    private static final int ADDRESS_COUNT = 64;
+
+    private static List<String> addresses()
+    {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < ADDRESS_COUNT; i++)
+        {
+            addresses.add(String.format("0x%040x", (long) i * 0x9E3779B97F4A7C15L).toLowerCase());
+        }
+        addresses.add("0x007bee82bdd9e866b2bd114780a47f2261c684e3");
+        return addresses;
+    }
+
+    @Test
+    public void matchesOriginalGenerator()
+    {
+        for (String address : addresses())
+        {
+            BlockiesGrid grid = BlockiesGrid.generate(address);
+            LegacyBlockies legacy = new LegacyBlockies(address);
+            assertEquals(legacy.color, grid.color);
+            assertEquals(legacy.bgColor, grid.bgColor);
+            assertEquals(legacy.spotColor, grid.spotColor);
+            assertArrayEquals(legacy.cells, grid.cells);
+        }
+    }
+
+    @Test
+    public void deterministicUnderConcurrentGeneration() throws Exception
+    {
+        List<String> addresses = addresses();
+        List<BlockiesGrid> expected = new ArrayList<>();
+        for (String address : addresses) expected.add(BlockiesGrid.generate(address));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<BlockiesGrid>>> runs = new ArrayList<>();
+        for (int t = 0; t < 16; t++)
+        {
+            runs.add(pool.submit((Callable<List<BlockiesGrid>>) () -> {
+                List<BlockiesGrid> grids = new ArrayList<>();
+                for (String address : addresses) grids.add(BlockiesGrid.generate(address));
+                return grids;
+            }));
+        }
+
+        for (Future<List<BlockiesGrid>> run : runs)
+        {
+            assertEquals(expected, run.get());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void gridIsMirrored()
+    {
+        BlockiesGrid grid = BlockiesGrid.generate("0x007bee82bdd9e866b2bd114780a47f2261c684e3");
+        int w = grid.getWidth();
+        for (int y = 0; y < w; y++)
+        {
+            for (int x = 0; x < w / 2; x++)
+            {
+                assertEquals(grid.cells[y * w + x], grid.cells[y * w + (w - 1 - x)]);
+            }
+        }
+    }
+
+    /**
+     * The previous static-state generator, less rendering, as a reference
+     */
+    private static class LegacyBlockies
+    {
+        private final long[] randSeed = new long[4];
+        final int color;
+        final int bgColor;
+        final int spotColor;
+        final int[] cells = new int[64];
+
+        LegacyBlockies(String seed)
+        {
+            for (int i = 0; i < seed.length(); i++)
+            {
+                long test = randSeed[i % 4] << 5;
+                if (test > Integer.MAX_VALUE << 1 || test < Integer.MIN_VALUE << 1) test = (int) test;
+                long test2 = test - randSeed[i % 4];
+                randSeed[i % 4] = (test2 + Character.codePointAt(seed, i));
+            }
+            for (int i = 0; i < randSeed.length; i++) randSeed[i] = (int) randSeed[i];
+
+            color = createColor();
+            bgColor = createColor();
+            spotColor = createColor();
+
+            int count = 0;
+            for (int y = 0; y < 8; y++)
+            {
+                double[] row = new double[4];
+                for (int x = 0; x < 4; x++) row[x] = Math.floor(rand() * 2.3d);
+                for (int x = 0; x < 4; x++) cells[count++] = (int) row[x];
+                for (int x = 3; x >= 0; x--) cells[count++] = (int) row[x];
+            }
+        }
+
+        private double rand()
+        {
+            int t = (int) (randSeed[0] ^ (randSeed[0] << 11));
+            randSeed[0] = randSeed[1];
+            randSeed[1] = randSeed[2];
+            randSeed[2] = randSeed[3];
+            randSeed[3] = (randSeed[3] ^ (randSeed[3] >> 19) ^ t ^ (t >> 8));
+            return Math.abs(randSeed[3]) / (double) Integer.MAX_VALUE;
+        }
+
+        private int createColor()
+        {
+            double h = Math.floor(rand() * 360d);
+            double s = ((rand() * 60d) + 40d);
+            double l = ((rand() + rand() + rand() + rand()) * 25d);
+            return toRGB((int) h, (int) s, (int) l);
+        }
+
+        private static int toRGB(float h, float s, float l)
+        {
+            h = (h % 360.0f) / 360f;
+            s /= 100f;
+            l /= 100f;
+            float q = l < 0.5 ? l * (1 + s) : (l + s) - (s * l);
+            float p = 2 * l - q;
+            int r = (int) (Math.min(Math.max(0, hueToRGB(p, q, h + (1.0f / 3.0f))), 1.0f) * 255);
+            int g = (int) (Math.min(Math.max(0, hueToRGB(p, q, h)), 1.0f) * 255);
+            int b = (int) (Math.min(Math.max(0, hueToRGB(p, q, h - (1.0f / 3.0f))), 1.0f) * 255);
+            return 0xff000000 | (r << 16) | (g << 8) | b;
+        }
+
+        private static float hueToRGB(float p, float q, float h)
+        {
+            if (h < 0) h += 1;
+            if (h > 1) h -= 1;
+            if (6 * h < 1) return p + ((q - p) * 6 * h);
+            if (2 * h < 1) return q;
+            if (3 * h < 2) return p + ((q - p) * 6 * ((2.0f / 3.0f) - h));
+            return p;
+        }
+    }
+}
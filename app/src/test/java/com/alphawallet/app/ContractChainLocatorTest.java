@@ -0,0 +1,198 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.service.ContractChainLocator;
+
+import org.junit.After;
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContractChainLocatorTest
+{
+    private static final String CONTRACT = "0x5D3a536E4D6DbD6114cc1Ead35777bAB948E3643";
+    private static final String CODE = "0x6080604052348015600f57600080fd5b50";
+
+    private final Map<Integer, StubRpcNode> nodes = new ConcurrentHashMap<>();
+
+    @After
+    public void tearDown()
+    {
+        for (StubRpcNode node : nodes.values()) node.stop();
+    }
+
+    @Test
+    public void selectedChainEndsSearch() throws Exception
+    {
+        addNode(1, 50, CODE);
+        addNode(137, 3000, CODE);
+        addNode(56, 2000, "0x");
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+
+        long start = System.currentTimeMillis();
+        assertEquals(1, locator.locate(CONTRACT, Arrays.asList(1, 137, 56)));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        //the slow checks were started at once, and abandoned
+        assertEquals(1, nodes.get(137).getHttpCalls());
+        assertEquals(1, nodes.get(56).getHttpCalls());
+    }
+
+    @Test
+    public void selectedChainIsPreferred() throws Exception
+    {
+        addNode(1, 600, CODE);
+        addNode(137, 20, CODE);
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+
+        long start = System.currentTimeMillis();
+        assertEquals(1, locator.locate(CONTRACT, Arrays.asList(1, 137)));
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test
+    public void otherChainsCheckedInParallel() throws Exception
+    {
+        addNode(1, 100, "0x");
+        addNode(3, 300, "0x0");
+        addNode(137, 300, "0x");
+        addNode(56, 600, CODE);
+        addNode(100, 300, "0x");
+        addNode(250, 5000, CODE);
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+
+        long start = System.currentTimeMillis();
+        assertEquals(56, locator.locate(CONTRACT, Arrays.asList(1, 3, 137, 56, 100, 250)));
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("took " + elapsed, elapsed < 1500); //not one after another, and the slow chain didn't hold it up
+
+        //chains found empty aren't asked again; the others are
+        assertEquals(56, locator.locate(CONTRACT.toLowerCase(), Arrays.asList(1, 3, 137, 56, 100, 250)));
+        assertEquals(1, nodes.get(1).getHttpCalls());
+        assertEquals(1, nodes.get(3).getHttpCalls());
+        assertEquals(2, nodes.get(56).getHttpCalls());
+        assertEquals(2, nodes.get(250).getHttpCalls());
+
+        //nothing anywhere
+        assertEquals(ContractChainLocator.NOT_FOUND, locator.locate("0x0000000000000000000000000000000000000001", Arrays.asList(1, 137)));
+    }
+
+    @Test
+    public void timedOutChainsAreDeprioritised() throws Exception
+    {
+        addNode(1, 20, "0x");
+        addNode(42, 4000, CODE); //unresponsive
+        ContractChainLocator locator = new ContractChainLocator(this::getService, 800, 200);
+
+        long start = System.currentTimeMillis();
+        assertEquals(ContractChainLocator.NOT_FOUND, locator.locate(CONTRACT, Arrays.asList(1, 42)));
+        long first = System.currentTimeMillis() - start;
+        assertTrue("took " + first, first >= 800 && first < 2000);
+
+        start = System.currentTimeMillis();
+        assertEquals(ContractChainLocator.NOT_FOUND, locator.locate(CONTRACT, Arrays.asList(1, 42)));
+        long second = System.currentTimeMillis() - start;
+        assertTrue("took " + second, second >= 200 && second < 600);
+        assertEquals(1, nodes.get(1).getHttpCalls()); //no code there, from the first search
+    }
+
+    @Test
+    public void failedNodeIsNotConclusive() throws Exception
+    {
+        addNode(1, 20, null); //node error
+        addNode(137, 200, CODE);
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+
+        assertEquals(137, locator.locate(CONTRACT, Arrays.asList(1, 137)));
+        //an error isn't remembered as no code
+        locator.locate(CONTRACT, Arrays.asList(1, 137));
+        assertEquals(2, nodes.get(1).getHttpCalls());
+    }
+
+    @Test
+    public void interruptCancelsChecks() throws Exception
+    {
+        addNode(1, 3000, CODE);
+        addNode(137, 3000, CODE);
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+
+        Thread caller = Thread.currentThread();
+        new Thread(() -> {
+            try
+            {
+                Thread.sleep(300);
+            }
+            catch (InterruptedException e)
+            {
+                //ignore
+            }
+            caller.interrupt();
+        }).start();
+
+        long start = System.currentTimeMillis();
+        try
+        {
+            locator.locate(CONTRACT, Arrays.asList(1, 137));
+            fail("not interrupted");
+        }
+        catch (InterruptedException e)
+        {
+            //expected
+        }
+        assertTrue(System.currentTimeMillis() - start < 1500);
+        Thread.interrupted();
+    }
+
+    @Test
+    public void disposeMidSearchIsQuiet() throws Exception
+    {
+        addNode(1, 3000, CODE);
+        addNode(137, 3000, CODE);
+        ContractChainLocator locator = new ContractChainLocator(this::getService);
+        List<Throwable> undelivered = new CopyOnWriteArrayList<>();
+        RxJavaPlugins.setErrorHandler(undelivered::add);
+        try
+        {
+            //as the import screen does when it's closed during the search
+            Disposable search = locator.locateChain(CONTRACT, Arrays.asList(1, 137))
+                    .subscribeOn(Schedulers.io())
+                    .subscribe(chainId -> fail("disposed"), error -> fail("disposed"));
+            Thread.sleep(300);
+            search.dispose();
+            Thread.sleep(300);
+
+            //the interrupt that cancelled the checks isn't raised as an undeliverable error, which would crash the app
+            assertTrue(undelivered.toString(), undelivered.isEmpty());
+        }
+        finally
+        {
+            RxJavaPlugins.reset();
+        }
+    }
+
+    private Web3j getService(int chainId)
+    {
+        return nodes.get(chainId).getWeb3j();
+    }
+
+    // Stub node for one chain: answers eth_getCode with code after a delay, or an error if code is null
+    private void addNode(int chainId, long latency, String code) throws Exception
+    {
+        StubRpcNode node = new StubRpcNode(call -> code != null
+                ? StubRpcNode.result(call, code)
+                : StubRpcNode.error(call, -32000, "header not found"));
+        node.setLatency(latency);
+        nodes.put(chainId, node);
+    }
+}
@@ -0,0 +1,236 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.ContractType;
+import com.alphawallet.app.service.ContractInterfaceClassifier;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.utils.Numeric;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContractInterfaceClassifierTest
+{
+    private static final String SLOT_1967 = "360894a13ba1a3210667c828492db98dca3e2076cc3735a920a3ca505d382bbc";
+    private static final String METADATA = "a2646970667358221220" + repeat("5e", 32) + "64736f6c63430008040033";
+
+    private StubRpcNode node;
+    private Web3j web3j;
+    private final Map<String, String> codes = new ConcurrentHashMap<>();
+    private final Map<String, String> storage = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        node = new StubRpcNode(this::answer);
+        web3j = node.getWeb3j();
+    }
+
+    @After
+    public void tearDown()
+    {
+        node.stop();
+    }
+
+    /**
+     * Token contract deployments from the transaction decoding corpus. These are the creation transactions' init code,
+     * not the code eth_getCode returns; the init code carries the runtime code, dispatcher included, after the
+     * constructor, so it classifies the same way.
+     */
+    @Test
+    public void deploymentCodeCorpus() throws Exception
+    {
+        assertEquals(ContractType.ERC875, classify(fixture("erc875_stormbird_trade.hex")));
+        assertEquals(ContractType.ERC875, classify(fixture("erc875_stormbird_flag.hex")));
+        assertEquals(ContractType.ERC875, classify(fixture("erc875_uint256.hex")));
+        assertEquals(ContractType.ERC20, classify(fixture("erc20_basic.hex")));
+        assertEquals(ContractType.ERC20, classify(fixture("erc20_full.hex")));
+        //balanceOf without a recognised transfer: the probes tell ERC20 from ERC875 by the balance length
+        assertNull(classify(fixture("erc875_unflagged.hex")));
+    }
+
+    /**
+     * Dispatchers laid out as solc emits them, for interfaces the corpus doesn't cover
+     */
+    @Test
+    public void nftVariants()
+    {
+        String erc20 = dispatcher("transfer(address,uint256)", "balanceOf(address)", "totalSupply()");
+        String erc721 = dispatcher("balanceOf(address)", "ownerOf(uint256)", "safeTransferFrom(address,address,uint256)",
+                "safeTransferFrom(address,address,uint256,bytes)", "setApprovalForAll(address,bool)", "transferFrom(address,address,uint256)");
+        //OpenZeppelin 4 supportsInterface: interfaceId == type(IERC721).interfaceId
+        String erc721Interface = dispatcher("balanceOf(address)", "ownerOf(uint256)", "supportsInterface(bytes4)")
+                + "6380ac58cd60e01b14";
+        //with the optimizer the shifted id is a single PUSH32
+        String erc721Folded = dispatcher("balanceOf(address)", "ownerOf(uint256)", "supportsInterface(bytes4)")
+                + "7f80ac58cd" + repeat("00", 28) + "8214";
+        //large contracts split the dispatcher with PUSH4 selector GT, comparing against a selector of their own
+        String erc20Split = dispatcher("transfer(address,uint256)") + "5b8063" + hex("balanceOf(address)") + "11610200575b";
+        String ticket = dispatcher("balanceOf(address)", "ownerOf(uint256)", "getBalances(address)",
+                "safeTransferFrom(address,address,uint256)", "passTo(uint256,uint256[],uint8,bytes32,bytes32,address)");
+        String kitties = dispatcher("balanceOf(address)", "ownerOf(uint256)", "transfer(address,uint256)",
+                "tokensOfOwner(address)", "supportsInterface(bytes4)") + "639a20483d60e01b14" + "6301ffc9a760e01b14";
+        String oldErc721 = dispatcher("ownerOf(uint256)", "transfer(address,uint256)") + "636466353c60e01b14";
+        String superRare = dispatcher("ownerOf(uint256)", "transfer(address,uint256)", "supportsInterface(bytes4)") + "635b5e139f60e01b14";
+        String preErc165 = dispatcher("balanceOf(address)", "ownerOf(uint256)", "transfer(address,uint256)");
+        //selectors that only appear inside push data aren't functions
+        String hidden = dispatcher("balanceOf(address)", "transfer(address,uint256)")
+                + "7f" + "63" + hex("ownerOf(uint256)") + "63" + hex("getBalances(address)") + repeat("00", 22);
+
+        assertEquals(ContractType.ERC20, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(erc20)));
+        assertEquals(ContractType.ERC721, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(erc721)));
+        assertEquals(ContractType.ERC721, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(erc721Interface)));
+        assertEquals(ContractType.ERC721, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(erc721Folded)));
+        assertEquals(ContractType.ERC20, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(erc20Split)));
+        assertEquals(ContractType.ERC721_TICKET, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(ticket)));
+        assertEquals(ContractType.ERC721_LEGACY, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(kitties)));
+        assertEquals(ContractType.ERC721_LEGACY, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(oldErc721)));
+        assertEquals(ContractType.ERC721, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(superRare)));
+        assertNull(ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(preErc165)));
+        assertEquals(ContractType.ERC20, ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(hidden)));
+    }
+
+    /**
+     * A contract that calls tokens has their selectors in its code, but they aren't its own functions
+     */
+    @Test
+    public void tokenCallerIsNotToken()
+    {
+        //vault: deposit and withdraw, each building a token call (PUSH4 selector PUSH1 0xe0 SHL DUP2 MSTORE)
+        String vault = dispatcher("deposit(address,uint256)", "withdraw(address,uint256)")
+                + "5b" + tokenCall("transferFrom(address,address,uint256)") + tokenCall("balanceOf(address)")
+                + "5b" + tokenCall("transfer(address,uint256)") + tokenCall("ownerOf(uint256)");
+        //older solc: the selector is moved up with PUSH29 0x01000.. MUL
+        String legacyVault = dispatcher("deposit(address,uint256)")
+                + "5b63" + hex("balanceOf(address)") + "7c01" + repeat("00", 28) + "028152"
+                + "63" + hex("transfer(address,uint256)") + "7c01" + repeat("00", 28) + "028152";
+        //and a marketplace that checks an NFT's interface before taking it isn't an NFT either
+        String market = dispatcher("list(address,uint256)", "buy(uint256)")
+                + "5b" + tokenCall("supportsInterface(bytes4)") + "6380ac58cd60e01b8252" + tokenCall("ownerOf(uint256)");
+
+        assertNull(ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(vault)));
+        assertNull(ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(legacyVault)));
+        assertNull(ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(market)));
+    }
+
+    @Test
+    public void clonesAndProxies() throws Exception
+    {
+        ContractInterfaceClassifier classifier = new ContractInterfaceClassifier();
+        String implementation = "0x5d3a536e4d6dbd6114cc1ead35777bab948e3643";
+        codes.put(implementation, fixture("erc20_full.hex"));
+
+        //EIP-1167 clones of one implementation: after the first, each is a single eth_getCode
+        String cloneCode = "0x363d3d373d3d3d363d73" + Numeric.cleanHexPrefix(implementation) + "5af43d82803e903d91602b57fd5bf3";
+        codes.put("0x0000000000000000000000000000000000000c01", cloneCode);
+        codes.put("0x0000000000000000000000000000000000000c02", cloneCode);
+        assertEquals(ContractType.ERC20, classifier.classify(web3j, "0x0000000000000000000000000000000000000c01"));
+        assertEquals(2, node.getCalls("eth_getCode"));
+        assertEquals(ContractType.ERC20, classifier.classify(web3j, "0x0000000000000000000000000000000000000c02"));
+        assertEquals(3, node.getCalls("eth_getCode"));
+
+        //the same contract deployed again, eg on another chain
+        codes.put("0x0000000000000000000000000000000000000d01", fixture("erc20_full.hex"));
+        assertEquals(ContractType.ERC20, classifier.classify(web3j, "0x0000000000000000000000000000000000000d01"));
+        assertEquals(4, node.getCalls("eth_getCode"));
+
+        //EIP-1967 proxies are read through the implementation slot, as they can be upgraded
+        String proxyCode = "0x363d3d373d3d3d363d7f" + SLOT_1967 + "545af43d82803e903d91603e57fd5bf3";
+        String ticketImplementation = "0x00000000000000000000000000000000000000a2";
+        codes.put(ticketImplementation, dispatcher("ownerOf(uint256)", "getBalances(address)"));
+        codes.put("0x0000000000000000000000000000000000000e01", proxyCode);
+        codes.put("0x0000000000000000000000000000000000000e02", proxyCode);
+        storage.put("0x0000000000000000000000000000000000000e01", implementation);
+        storage.put("0x0000000000000000000000000000000000000e02", ticketImplementation);
+        assertEquals(ContractType.ERC20, classifier.classify(web3j, "0x0000000000000000000000000000000000000e01"));
+        assertEquals(ContractType.ERC721_TICKET, classifier.classify(web3j, "0x0000000000000000000000000000000000000e02"));
+        assertEquals(2, node.getCalls("eth_getStorageAt"));
+
+        //no code at the address
+        assertEquals(ContractType.OTHER, classifier.classify(web3j, "0x0000000000000000000000000000000000000f01"));
+        //a proxy with nothing in its slots needs probing
+        codes.put("0x0000000000000000000000000000000000000f02", proxyCode);
+        assertNull(classifier.classify(web3j, "0x0000000000000000000000000000000000000f02"));
+
+        assertEquals(0, node.getCalls("eth_call"));
+    }
+
+    private ContractType classify(String code) throws Exception
+    {
+        return ContractInterfaceClassifier.classifyCode(Numeric.hexStringToByteArray(code));
+    }
+
+    private JsonObject answer(JsonObject call)
+    {
+        JsonArray params = call.getAsJsonArray("params");
+        switch (call.get("method").getAsString())
+        {
+            case "eth_getCode":
+                String code = codes.get(params.get(0).getAsString().toLowerCase());
+                return StubRpcNode.result(call, code != null ? code : "0x");
+            case "eth_getStorageAt":
+                String implementation = storage.get(params.get(0).getAsString().toLowerCase());
+                boolean is1967 = Numeric.toBigInt(params.get(1).getAsString()).equals(Numeric.toBigInt(SLOT_1967));
+                return StubRpcNode.result(call, Numeric.toHexStringWithPrefixZeroPadded(
+                        implementation != null && is1967 ? Numeric.toBigInt(implementation) : BigInteger.ZERO, 64));
+            default:
+                return StubRpcNode.error(call, -32601, "method not found");
+        }
+    }
+
+    /**
+     * Runtime code with solc's dispatcher: DUP1 PUSH4 selector EQ PUSH2 dest JUMPI for each function, then CBOR metadata
+     */
+    private static String dispatcher(String... signatures)
+    {
+        StringBuilder sb = new StringBuilder("0x6080604052348015600f57600080fd5b506004361060325760003560e01c");
+        int dest = 0x100;
+        for (String signature : signatures)
+        {
+            sb.append("8063").append(hex(signature)).append("1461").append(String.format("%04x", dest)).append("57");
+            dest += 0x40;
+        }
+        sb.append("5b600080fd5b").append("fe").append(METADATA);
+        return sb.toString();
+    }
+
+    // Start of an external call: the selector is shifted into place and stored as the first word of the calldata
+    private static String tokenCall(String signature)
+    {
+        return "63" + hex(signature) + "60e01b8152" + "6020816004601c85" + "5afa";
+    }
+
+    private static String hex(String signature)
+    {
+        return String.format("%08x", ContractInterfaceClassifier.selector(signature));
+    }
+
+    private static String repeat(String s, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append(s);
+        return sb.toString();
+    }
+
+    private static String fixture(String name) throws Exception
+    {
+        try (InputStream in = ContractInterfaceClassifierTest.class.getClassLoader().getResourceAsStream("bytecode/" + name);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            return reader.readLine().trim();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.ContractMeta;
+import com.alphawallet.app.entity.ContractType;
+import com.alphawallet.app.service.ContractMetaRegistry;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.abi.TypeEncoder;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.protocol.Web3j;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContractMetaRegistryTest
+{
+    private static final int CHAIN = 1;
+    private static final String NAME = "0x06fdde03";
+    private static final String SYMBOL = "0x95d89b41";
+    private static final String DECIMALS = "0x313ce567";
+
+    private StubRpcNode node;
+    private Web3j web3j;
+    //address -> selector -> return value; a missing value is answered with a revert
+    private final Map<String, Map<String, String>> contracts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> contractCalls = new ConcurrentHashMap<>();
+    private final MemoryStore store = new MemoryStore();
+
+    /**
+     * What the Realm store does, in memory
+     */
+    private static class MemoryStore implements ContractMetaRegistry.Store
+    {
+        final Map<String, ContractMeta> saved = new ConcurrentHashMap<>();
+        int loads;
+
+        @Override
+        public List<ContractMeta> load()
+        {
+            loads++;
+            return new ArrayList<>(saved.values());
+        }
+
+        @Override
+        public void save(Collection<ContractMeta> metas)
+        {
+            for (ContractMeta meta : metas) saved.put(meta.getKey(), meta);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        node = new StubRpcNode(this::answer);
+        web3j = node.getWeb3j();
+
+        for (int i = 1; i <= 40; i++)
+        {
+            addToken(address(i), "Token " + i, "TK" + i, i % 19);
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        node.stop();
+    }
+
+    @Test
+    public void sharedAcrossWallets() throws IOException
+    {
+        ContractMetaRegistry registry = new ContractMetaRegistry(chainId -> web3j, store);
+
+        //first wallet holds tokens 1-10, read in one batch
+        Map<String, ContractMeta> first = registry.fetch(CHAIN, addresses(1, 10));
+        assertEquals(10, first.size());
+        assertEquals(1, node.getHttpCalls());
+        assertEquals("Token 3", first.get(address(3)).name);
+        assertEquals("TK3", first.get(address(3)).symbol);
+        assertEquals(3, first.get(address(3)).decimals);
+
+        //second wallet holds tokens 6-15: only 11-15 go to the node, again in one batch
+        Map<String, ContractMeta> second = registry.fetch(CHAIN, addresses(6, 15));
+        assertEquals(10, second.size());
+        assertEquals(2, node.getHttpCalls());
+        for (int i = 1; i <= 15; i++) assertEquals(3, contractCalls.get(address(i)).get());
+
+        //a third wallet whose tokens have all been seen costs nothing
+        registry.fetch(CHAIN, addresses(3, 12));
+        assertEquals("Token 12", registry.fetch(CHAIN, address(12).toUpperCase().replace("0X", "0x")).name);
+        assertEquals(2, node.getHttpCalls());
+
+        //after a restart the persisted entries are used; each instance reads the store once
+        ContractMetaRegistry restarted = new ContractMetaRegistry(chainId -> web3j, store);
+        assertEquals(15, restarted.fetch(CHAIN, addresses(1, 15)).size());
+        assertEquals("Token 7", restarted.get(CHAIN, address(7)).name);
+        assertEquals(2, node.getHttpCalls());
+        assertEquals(2, store.loads);
+
+        //same address on another chain is another contract
+        registry.fetch(2, addresses(1, 1));
+        assertEquals(3, node.getHttpCalls());
+    }
+
+    @Test
+    public void largeListIsBatched() throws IOException
+    {
+        ContractMetaRegistry registry = new ContractMetaRegistry(chainId -> web3j, store);
+        assertEquals(40, registry.fetch(CHAIN, addresses(1, 40)).size());
+        assertEquals(2, node.getHttpCalls());
+    }
+
+    @Test
+    public void namesRefreshAfterTtl() throws Exception
+    {
+        ContractMetaRegistry registry = new ContractMetaRegistry(chainId -> web3j, store, 500);
+        registry.fetch(CHAIN, addresses(1, 5));
+        registry.setContractType(CHAIN, address(2), ContractType.ERC20);
+
+        addToken(address(2), "Renamed", "RN", 2);
+        assertEquals("Token 2", registry.fetch(CHAIN, address(2)).name);
+        Thread.sleep(600);
+
+        Map<String, ContractMeta> refreshed = registry.fetch(CHAIN, addresses(1, 5));
+        assertEquals(2, node.getHttpCalls());
+        assertEquals("Renamed", refreshed.get(address(2)).name);
+        assertEquals("RN", store.saved.get(ContractMeta.key(CHAIN, address(2))).symbol);
+        assertEquals(ContractType.ERC20, refreshed.get(address(2)).type);
+        //decimals aren't read again
+        assertEquals(5, contractCalls.get(address(2)).get());
+    }
+
+    @Test
+    public void unreadableContracts() throws IOException
+    {
+        ContractMetaRegistry registry = new ContractMetaRegistry(chainId -> web3j, store);
+        String notToken = address(100);
+        contracts.put(notToken, new ConcurrentHashMap<>()); //reverts every call
+        String noName = address(101);
+        contracts.put(noName, new ConcurrentHashMap<>());
+        contracts.get(noName).put(NAME, "0x");
+        contracts.get(noName).put(SYMBOL, "0x");
+        String bytes32Name = address(102);
+        contracts.put(bytes32Name, new ConcurrentHashMap<>());
+        contracts.get(bytes32Name).put(NAME, "0x" + Numeric.toHexStringNoPrefix("Maker".getBytes()) + repeat("00", 27));
+        contracts.get(bytes32Name).put(SYMBOL, "0x" + Numeric.toHexStringNoPrefix("MKR".getBytes()) + repeat("00", 29));
+        contracts.get(bytes32Name).put(DECIMALS, "0x" + repeat("00", 31) + "12");
+
+        Map<String, ContractMeta> result = registry.fetch(CHAIN, Arrays.asList(address(1), notToken, noName, bytes32Name));
+        assertEquals(1, node.getHttpCalls());
+        assertEquals(3, result.size());
+        assertNull(result.get(notToken));
+        assertNull(result.get(noName).name);
+        assertEquals(18, result.get(noName).decimals); //no decimals function
+        assertEquals("Maker", result.get(bytes32Name).name);
+        assertEquals("MKR", result.get(bytes32Name).symbol);
+
+        try
+        {
+            registry.fetch(CHAIN, notToken);
+            fail();
+        }
+        catch (IOException e)
+        {
+            //expected: not a token
+        }
+        assertNull(registry.get(CHAIN, notToken));
+
+        //type recorded before the contract is read doesn't stop it being read
+        registry.setContractType(CHAIN, address(20), ContractType.ERC721);
+        assertNull(registry.get(CHAIN, address(20)));
+        ContractMeta meta = registry.fetch(CHAIN, address(20));
+        assertEquals("Token 20", meta.name);
+        assertEquals(ContractType.ERC721, meta.type);
+        assertTrue(store.saved.containsKey(meta.getKey()));
+    }
+
+    @Test
+    public void failedDecimalsReadIsRetried() throws IOException
+    {
+        ContractMetaRegistry registry = new ContractMetaRegistry(chainId -> web3j, store);
+        contracts.get(address(5)).remove(DECIMALS); //the node fails the decimals call
+
+        //the default is used for now, but isn't kept
+        assertEquals(18, registry.fetch(CHAIN, address(5)).decimals);
+        assertEquals("Token 5", registry.fetch(CHAIN, address(5)).name);
+        assertEquals(-1, store.saved.get(ContractMeta.key(CHAIN, address(5))).decimals);
+        assertNull(registry.get(CHAIN, address(5)));
+        assertEquals(2, node.getHttpCalls());
+
+        //read properly once the node answers, and then kept
+        addToken(address(5), "Token 5", "TK5", 5);
+        assertEquals(5, registry.fetch(CHAIN, address(5)).decimals);
+        assertEquals(5, registry.fetch(CHAIN, address(5)).decimals);
+        assertEquals(5, store.saved.get(ContractMeta.key(CHAIN, address(5))).decimals);
+        assertEquals(3, node.getHttpCalls());
+    }
+
+    private JsonObject answer(JsonObject call)
+    {
+        JsonObject tx = call.getAsJsonArray("params").get(0).getAsJsonObject();
+        String to = tx.get("to").getAsString();
+        String data = tx.get("data").getAsString();
+        contractCalls.computeIfAbsent(to, k -> new AtomicInteger()).incrementAndGet();
+
+        Map<String, String> functions = contracts.get(to);
+        String value = functions != null ? functions.get(data) : null;
+        return value != null ? StubRpcNode.result(call, value) : StubRpcNode.error(call, 3, "execution reverted");
+    }
+
+    private void addToken(String address, String name, String symbol, int decimals)
+    {
+        Map<String, String> functions = new ConcurrentHashMap<>();
+        functions.put(NAME, encodeString(name));
+        functions.put(SYMBOL, encodeString(symbol));
+        functions.put(DECIMALS, Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(decimals), 64));
+        contracts.put(address, functions);
+    }
+
+    private static String encodeString(String value)
+    {
+        return "0x" + repeat("00", 31) + "20" + TypeEncoder.encode(new Utf8String(value));
+    }
+
+    private static List<String> addresses(int from, int to)
+    {
+        List<String> addresses = new ArrayList<>();
+        for (int i = from; i <= to; i++) addresses.add(address(i));
+        return addresses;
+    }
+
+    private static String address(int index)
+    {
+        return Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(0xabc000 + index), 40);
+    }
+
+    private static String repeat(String s, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append(s);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.web3.DappInjectionCache;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class DappInjectionCacheTest
+{
+    private static final String WALLET = "0xd8e5f58de3933e1e35f9c65eb72cb188674624f3";
+    private static final String OTHER_WALLET = "0x63cCEF733a093E5Bd773b41C96D3eCE361464942";
+
+    @Test
+    public void injectionsBuiltOncePerChainWalletAndRpc()
+    {
+        DappInjectionCache cache = new DappInjectionCache();
+        AtomicInteger builds = new AtomicInteger(0);
+        String rpc = "https://mainnet.infura.io/v3/key";
+        for (int i = 0; i < 20; i++)
+        {
+            for (int chainId : new int[] { 1, 137 })
+            {
+                byte[] injection = cache.getInjection("<script>%1$s%2$s</script>", chainId, WALLET, rpc, () -> {
+                    builds.incrementAndGet();
+                    return ("lib;init(" + chainId + ")").getBytes();
+                });
+                assertEquals("lib;init(" + chainId + ")", new String(injection));
+            }
+        }
+        assertEquals(2, builds.get());
+
+        //a different wallet, RPC or page template is a different injection
+        cache.getInjection("<script>%1$s%2$s</script>", 1, OTHER_WALLET, rpc, () -> { builds.incrementAndGet(); return new byte[1]; });
+        cache.getInjection("<script>%1$s%2$s</script>", 1, WALLET, rpc + "2", () -> { builds.incrementAndGet(); return new byte[1]; });
+        cache.getInjection("%1$s%2$s", 1, WALLET, rpc, () -> { builds.incrementAndGet(); return new byte[1]; });
+        assertEquals(5, builds.get());
+    }
+}
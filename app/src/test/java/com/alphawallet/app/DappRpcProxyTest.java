@@ -0,0 +1,198 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.service.DappRpcProxy;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DappRpcProxyTest
+{
+    private static final String WALLET = "0x007bee82bdd9e866b2bd114780a47f2261c684e3";
+    private static final String CONTRACT = "0xbc9a1026a4bc6f0ba8bbe486d1d09da5732b39e4";
+    private static final String REVERT_DATA = "0xdeadbeef";
+
+    private StubRpcNode node;
+    private Web3j web3j;
+    private final AtomicLong headBlock = new AtomicLong(100);
+
+    @Before
+    public void setUp() throws Exception
+    {
+        node = new StubRpcNode(this::answer);
+        web3j = node.getWeb3j();
+    }
+
+    @After
+    public void tearDown()
+    {
+        node.stop();
+    }
+
+    @Test
+    public void burstIsOneBatch()
+    {
+        DappRpcProxy proxy = new DappRpcProxy(1, web3j);
+        //a page load: 10 different view calls, each made 3 times
+        List<Single<String>> results = new ArrayList<>();
+        for (int repeat = 0; repeat < 3; repeat++)
+        {
+            for (int i = 0; i < 10; i++) results.add(proxy.ethCall(WALLET, CONTRACT, callData(i), DefaultBlockParameterName.LATEST));
+        }
+
+        for (int i = 0; i < results.size(); i++)
+        {
+            assertEquals(expected(i % 10, 100), await(results.get(i)));
+        }
+        assertEquals(1, node.getHttpCalls());
+        assertEquals(10, node.getCalls("eth_call"));
+
+        //the same calls again at the same block come from the cache
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals(expected(i, 100), await(proxy.ethCall(WALLET, CONTRACT, callData(i), DefaultBlockParameterName.LATEST)));
+        }
+        assertEquals(1, node.getHttpCalls());
+    }
+
+    @Test
+    public void newHeadClearsResults()
+    {
+        DappRpcProxy proxy = new DappRpcProxy(1, web3j);
+        assertEquals(expected(0, 100), await(proxy.ethCall(WALLET, CONTRACT, callData(0), DefaultBlockParameterName.LATEST)));
+
+        //a different call sees the new head, so the first call's result is stale
+        headBlock.set(101);
+        assertEquals(expected(1, 101), await(proxy.ethCall(WALLET, CONTRACT, callData(1), DefaultBlockParameterName.LATEST)));
+        assertEquals(expected(0, 101), await(proxy.ethCall(WALLET, CONTRACT, callData(0), DefaultBlockParameterName.LATEST)));
+        assertEquals(3, node.getHttpCalls());
+
+        //different caller is a different call
+        assertEquals(expected(0, 101), await(proxy.ethCall(CONTRACT, CONTRACT, callData(0), DefaultBlockParameterName.LATEST)));
+        assertEquals(4, node.getHttpCalls());
+
+        proxy.invalidate();
+        assertEquals(expected(1, 101), await(proxy.ethCall(WALLET, CONTRACT, callData(1), DefaultBlockParameterName.LATEST)));
+        assertEquals(5, node.getHttpCalls());
+    }
+
+    @Test
+    public void callSentBeforeInvalidateIsNotReused() throws Exception
+    {
+        DappRpcProxy proxy = new DappRpcProxy(1, web3j);
+        node.setLatency(300);
+
+        //eg the dapp sent a transaction while a call was at the node: its result isn't cached
+        Single<String> before = proxy.ethCall(WALLET, CONTRACT, callData(0), DefaultBlockParameterName.LATEST);
+        Thread.sleep(100);
+        proxy.invalidate();
+        assertEquals(expected(0, 100), await(before));
+        assertEquals(expected(0, 100), await(proxy.ethCall(WALLET, CONTRACT, callData(0), DefaultBlockParameterName.LATEST)));
+        assertEquals(2, node.getHttpCalls());
+
+        //and the same call made after the invalidate goes to the node rather than joining it
+        before = proxy.ethCall(WALLET, CONTRACT, callData(1), DefaultBlockParameterName.LATEST);
+        Thread.sleep(100);
+        proxy.invalidate();
+        Single<String> after = proxy.ethCall(WALLET, CONTRACT, callData(1), DefaultBlockParameterName.LATEST);
+        assertEquals(expected(1, 100), await(before));
+        assertEquals(expected(1, 100), await(after));
+        assertEquals(4, node.getHttpCalls());
+
+        //the result from after the invalidate is cached
+        assertEquals(expected(1, 100), await(proxy.ethCall(WALLET, CONTRACT, callData(1), DefaultBlockParameterName.LATEST)));
+        assertEquals(4, node.getHttpCalls());
+    }
+
+    @Test
+    public void revertsArePerCallAndNotCached()
+    {
+        DappRpcProxy proxy = new DappRpcProxy(1, web3j);
+        Single<String> good = proxy.ethCall(WALLET, CONTRACT, callData(3), DefaultBlockParameterName.LATEST);
+        Single<String> bad = proxy.ethCall(WALLET, CONTRACT, REVERT_DATA, DefaultBlockParameterName.LATEST);
+
+        assertEquals(expected(3, 100), await(good));
+        try
+        {
+            await(bad);
+            fail("Reverted call must fail");
+        }
+        catch (RuntimeException e)
+        {
+            assertTrue(e.getMessage().contains("execution reverted"));
+        }
+        assertEquals(1, node.getHttpCalls());
+
+        try
+        {
+            await(proxy.ethCall(WALLET, CONTRACT, REVERT_DATA, DefaultBlockParameterName.LATEST));
+            fail("Reverted call must fail");
+        }
+        catch (RuntimeException e)
+        {
+            //expected
+        }
+        assertEquals(2, node.getHttpCalls());
+    }
+
+    @Test
+    public void largeBurstIsSplit()
+    {
+        DappRpcProxy proxy = new DappRpcProxy(1, web3j);
+        int count = DappRpcProxy.MAX_BATCH_CALLS * 2 + 10;
+        List<Single<String>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) results.add(proxy.ethCall(WALLET, CONTRACT, callData(i), DefaultBlockParameterName.LATEST));
+        for (int i = 0; i < count; i++) assertEquals(expected(i, 100), await(results.get(i)));
+
+        assertEquals(count, node.getCalls("eth_call"));
+        assertTrue(node.getHttpCalls() >= 3);
+        assertTrue(node.getMaxBatch() <= DappRpcProxy.MAX_BATCH_CALLS + 1);
+    }
+
+    private static String await(Single<String> result)
+    {
+        return result.timeout(10, TimeUnit.SECONDS).blockingGet();
+    }
+
+    private static String callData(int i)
+    {
+        return "0x70a08231" + Numeric.toHexStringNoPrefixZeroPadded(BigInteger.valueOf(i), 64);
+    }
+
+    private static String expected(int i, long block)
+    {
+        return Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(block * 1000 + i), 64);
+    }
+
+    private JsonObject answer(JsonObject call)
+    {
+        switch (call.get("method").getAsString())
+        {
+            case "eth_blockNumber":
+                return StubRpcNode.result(call, Numeric.toHexStringWithPrefix(BigInteger.valueOf(headBlock.get())));
+            case "eth_call":
+                String data = call.getAsJsonArray("params").get(0).getAsJsonObject().get("data").getAsString();
+                if (data.equals(REVERT_DATA)) return StubRpcNode.error(call, 3, "execution reverted");
+                long i = Numeric.toBigInt(data.substring(10)).longValue();
+                return StubRpcNode.result(call, expected((int) i, headBlock.get()));
+            default:
+                return StubRpcNode.error(call, -32601, "method not found");
+        }
+    }
+}
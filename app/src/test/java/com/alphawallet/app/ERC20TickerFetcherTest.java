@@ -0,0 +1,124 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.CoinGeckoTicker;
+import com.alphawallet.app.service.ERC20TickerFetcher;
+import com.alphawallet.app.service.HostRateLimiter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the ticker fetcher against a local stand-in for the Coingecko token price API.
+ * The stand-in lists every contract whose last hex digit is even.
+ */
+public class ERC20TickerFetcherTest
+{
+    private static final int TOKEN_COUNT = 300;
+    private static final int MAX_URL_LENGTH = 2048;
+
+    private StubRpcNode coingecko;
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failNext = new AtomicInteger(0);
+    private ERC20TickerFetcher fetcher;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        coingecko = new StubRpcNode("/api/v3/simple/token_price/ethereum", exchange -> {
+            String query = exchange.getRequestURI().getRawQuery();
+            queries.add(query);
+            int code = 200;
+            StringBuilder sb = new StringBuilder("{");
+            if (failNext.getAndDecrement() > 0)
+            {
+                code = 500;
+            }
+            else if (exchange.getRequestURI().toString().length() > MAX_URL_LENGTH)
+            {
+                code = 414;
+            }
+            else
+            {
+                String addresses = query.substring("contract_addresses=".length(), query.indexOf('&'));
+                for (String address : addresses.split(","))
+                {
+                    if (Character.digit(address.charAt(address.length() - 1), 16) % 2 != 0) continue;
+                    if (sb.length() > 1) sb.append(",");
+                    sb.append("\"").append(address).append("\":{\"usd\":1.5,\"usd_24h_change\":-2.25}");
+                }
+            }
+            sb.append("}");
+            StubRpcNode.reply(exchange, code, null, sb.toString());
+        });
+
+        String api = coingecko.getUrl()
+                + "/api/v3/simple/token_price/ethereum?contract_addresses=[CONTRACT_ADDR]&vs_currencies=USD&include_24hr_change=true";
+        fetcher = new ERC20TickerFetcher(new OkHttpClient(), new HostRateLimiter(2, 0), api);
+    }
+
+    @After
+    public void tearDown()
+    {
+        coingecko.stop();
+    }
+
+    private static List<String> tokens()
+    {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < TOKEN_COUNT; i++) addresses.add(String.format("0x%040X", i + 1));
+        return addresses;
+    }
+
+    @Test
+    public void largeWalletFetchedInChunks() throws Exception
+    {
+        Map<String, CoinGeckoTicker> tickers = fetcher.fetchTickers(tokens());
+
+        assertEquals(TOKEN_COUNT / 2, tickers.size());
+        assertTrue(queries.size() > 1);
+        CoinGeckoTicker ticker = tickers.get(String.format("0x%040x", 2));
+        assertEquals(1.5, ticker.usdPrice, 0.0);
+        assertEquals(-2.25, ticker.usdChange, 0.0);
+    }
+
+    @Test
+    public void unlistedContractsNotRequeried() throws Exception
+    {
+        fetcher.fetchTickers(tokens());
+        assertTrue(fetcher.isUnlisted(String.format("0x%040x", 1)));
+        assertFalse(fetcher.isUnlisted(String.format("0x%040x", 2)));
+
+        queries.clear();
+        Map<String, CoinGeckoTicker> tickers = fetcher.fetchTickers(tokens());
+        assertEquals(TOKEN_COUNT / 2, tickers.size());
+        for (String query : queries)
+        {
+            assertFalse(query.contains(String.format("0x%040x", 1)));
+        }
+    }
+
+    @Test
+    public void failedChunkDoesNotMarkUnlisted() throws Exception
+    {
+        failNext.set(1);
+        Map<String, CoinGeckoTicker> tickers = fetcher.fetchTickers(tokens());
+        assertTrue(tickers.size() < TOKEN_COUNT / 2);
+        assertTrue(tickers.size() > 0);
+
+        //contracts in the failed chunk are fetched again on the next cycle
+        assertEquals(TOKEN_COUNT / 2, fetcher.fetchTickers(tokens()).size());
+    }
+}
@@ -0,0 +1,251 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.util.EnsCache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ENS cache against a fake resolver backend
+ */
+public class EnsCacheTest
+{
+    private static final String NAMED = "0xbc8dAfeacA658Ae0857C80D8Aa6dE4D487577c63";
+    private static final String UNNAMED = "0x007bEe82BDd9e866b2bd114780a47f2261C684E3";
+    private static final String OTHER_NAMED = "0x2F5f3eC2E2B7a7e0Dd0bd5A2e6E4Cc2DEb1a3C5b";
+
+    private FakeResolver resolver;
+    private MemoryStore store;
+
+    private static class FakeResolver implements EnsCache.Backend
+    {
+        final Map<String, String> reverse = new HashMap<>();
+        final AtomicInteger reverseCalls = new AtomicInteger(0);
+        final AtomicInteger forwardCalls = new AtomicInteger(0);
+        final AtomicInteger batchCalls = new AtomicInteger(0);
+        volatile boolean offline = false;
+        volatile long latency = 0;
+
+        @Override
+        public String reverseResolve(String address) throws Exception
+        {
+            reverseCalls.incrementAndGet();
+            if (latency > 0) Thread.sleep(latency);
+            if (offline) throw new Exception("No connection");
+            String name = reverse.get(address.toLowerCase());
+            return name != null ? name : "";
+        }
+
+        @Override
+        public String resolve(String ensName) throws Exception
+        {
+            forwardCalls.incrementAndGet();
+            if (offline) throw new Exception("No connection");
+            for (Map.Entry<String, String> entry : reverse.entrySet())
+            {
+                if (entry.getValue().equals(ensName)) return entry.getKey();
+            }
+            return "";
+        }
+
+        @Override
+        public List<String> reverseResolveBatch(List<String> addresses) throws Exception
+        {
+            batchCalls.incrementAndGet();
+            if (offline) throw new Exception("No connection");
+            List<String> names = new ArrayList<>();
+            for (String address : addresses)
+            {
+                String name = reverse.get(address.toLowerCase());
+                names.add(name != null ? name : "");
+            }
+            return names;
+        }
+    }
+
+    private static class MemoryStore implements EnsCache.Store
+    {
+        volatile Map<String, EnsCache.Entry> saved = new HashMap<>();
+        final AtomicInteger saves = new AtomicInteger(0);
+
+        @Override
+        public Map<String, EnsCache.Entry> load()
+        {
+            return new HashMap<>(saved);
+        }
+
+        @Override
+        public void save(Map<String, EnsCache.Entry> entries)
+        {
+            saves.incrementAndGet();
+            saved = new HashMap<>(entries);
+        }
+    }
+
+    @Before
+    public void setUp()
+    {
+        resolver = new FakeResolver();
+        resolver.reverse.put(NAMED.toLowerCase(), "vitalik.eth");
+        resolver.reverse.put(OTHER_NAMED.toLowerCase(), "alphawallet.eth");
+        store = new MemoryStore();
+    }
+
+    @Test
+    public void positiveAndNegativeResultsAreCached()
+    {
+        EnsCache cache = new EnsCache(store);
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("vitalik.eth", cache.lookupName(NAMED, resolver));
+            assertEquals("", cache.lookupName(UNNAMED, resolver));
+        }
+
+        assertEquals(2, resolver.reverseCalls.get());
+
+        assertEquals(NAMED.toLowerCase(), cache.lookupAddress("vitalik.eth", resolver));
+        assertEquals(NAMED.toLowerCase(), cache.lookupAddress("Vitalik.eth", resolver));
+        assertEquals(1, resolver.forwardCalls.get());
+    }
+
+    @Test
+    public void persistsAcrossInstances()
+    {
+        new EnsCache(store, 0).lookupName(NAMED, resolver);
+
+        EnsCache restarted = new EnsCache(store);
+        assertEquals("vitalik.eth", restarted.lookupName(NAMED, resolver));
+        assertEquals(1, resolver.reverseCalls.get());
+    }
+
+    @Test
+    public void expiredEntryIsRefreshedOrServedStaleWhenOffline()
+    {
+        store.saved.put("n:" + NAMED.toLowerCase(), new EnsCache.Entry("old-name.eth", System.currentTimeMillis() - 1));
+        EnsCache cache = new EnsCache(store);
+
+        resolver.offline = true;
+        assertEquals("old-name.eth", cache.lookupName(NAMED, resolver));
+
+        resolver.offline = false;
+        assertEquals("vitalik.eth", cache.lookupName(NAMED, resolver));
+        assertEquals(2, resolver.reverseCalls.get());
+    }
+
+    @Test
+    public void sharedCacheUsesEachCallersBackend()
+    {
+        EnsCache cache = new EnsCache(store);
+        FakeResolver unreachable = new FakeResolver();
+        unreachable.offline = true;
+
+        //a failed lookup isn't cached, and the next caller's own backend is asked
+        assertEquals("", cache.lookupName(NAMED, unreachable));
+        assertEquals("vitalik.eth", cache.lookupName(NAMED, resolver));
+        assertEquals("vitalik.eth", cache.lookupName(NAMED, unreachable));
+        assertEquals(1, unreachable.reverseCalls.get());
+        assertEquals(1, resolver.reverseCalls.get());
+    }
+
+    @Test
+    public void concurrentLookupsShareOneResolverCall() throws Exception
+    {
+        EnsCache cache = new EnsCache(store);
+        resolver.latency = 100;
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<String> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            pool.execute(() -> {
+                try
+                {
+                    start.await();
+                    String name = cache.lookupName(NAMED, resolver);
+                    synchronized (results) { results.add(name); }
+                }
+                catch (InterruptedException e)
+                {
+                    //fail below on result count
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(threads, results.size());
+        for (String name : results) assertEquals("vitalik.eth", name);
+        assertEquals(1, resolver.reverseCalls.get());
+    }
+
+    @Test
+    public void batchOnlyResolvesMisses()
+    {
+        EnsCache cache = new EnsCache(store);
+        cache.lookupName(NAMED, resolver);
+
+        Map<String, String> names = cache.lookupNames(Arrays.asList(NAMED, UNNAMED, OTHER_NAMED, UNNAMED), resolver);
+        assertEquals("vitalik.eth", names.get(NAMED.toLowerCase()));
+        assertEquals("alphawallet.eth", names.get(OTHER_NAMED.toLowerCase()));
+        assertEquals("", names.get(UNNAMED.toLowerCase()));
+        assertEquals(1, resolver.batchCalls.get());
+        assertEquals(1, resolver.reverseCalls.get());
+
+        //everything is now cached, including the negative result
+        cache.lookupNames(Arrays.asList(NAMED, UNNAMED, OTHER_NAMED), resolver);
+        assertEquals("alphawallet.eth", cache.lookupName(OTHER_NAMED, resolver));
+        assertEquals(1, resolver.batchCalls.get());
+        assertEquals(1, resolver.reverseCalls.get());
+    }
+
+    @Test
+    public void negativeResultsExpireSoonerThanNames()
+    {
+        EnsCache cache = new EnsCache(store, 0);
+        cache.lookupName(NAMED, resolver);
+        cache.lookupName(UNNAMED, resolver);
+
+        long namedExpiry = store.saved.get("n:" + NAMED.toLowerCase()).expiry;
+        long unnamedExpiry = store.saved.get("n:" + UNNAMED.toLowerCase()).expiry;
+        assertTrue(namedExpiry - unnamedExpiry >= EnsCache.POSITIVE_TTL - EnsCache.NEGATIVE_TTL - 1000);
+    }
+
+    @Test
+    public void burstOfLookupsIsSavedOnce() throws Exception
+    {
+        EnsCache cache = new EnsCache(store, 200);
+        cache.lookupName(NAMED, resolver);
+        cache.lookupName(UNNAMED, resolver);
+        cache.lookupAddress("alphawallet.eth", resolver);
+        cache.lookupNames(Arrays.asList(OTHER_NAMED, UNNAMED), resolver);
+        assertEquals(0, store.saves.get());
+
+        Thread.sleep(600);
+        assertEquals(1, store.saves.get());
+        assertEquals(4, store.saved.size());
+        assertEquals("vitalik.eth", store.saved.get("n:" + NAMED.toLowerCase()).value);
+    }
+}
@@ -0,0 +1,82 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.repository.TokensRealmSource;
+import com.alphawallet.app.repository.entity.RealmEventBlock;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Conversion of the event read block markers stored as RealmAuxData rows before schema 25 into RealmEventBlock rows,
+ * and of event activity tokenIds to the padded form used from schema 27
+ */
+public class EventBlockMigrationTest
+{
+    private static final String CONTRACT = "0xBC9a1026A4BC6F0BA8Bbe486d1D09dA5732B39e4";
+
+    @Test
+    public void existingMarkersConvert()
+    {
+        String key = TokensRealmSource.eventBlockKey(1, CONTRACT, "Transfer", "to=${ownerAddress}");
+        assertTrue(RealmEventBlock.isEventBlockKey(key));
+        assertEquals(1, RealmEventBlock.getKeyChainId(key));
+        assertEquals(CONTRACT.toLowerCase(), RealmEventBlock.getKeyAddress(key));
+
+        //markers with a '-' in the filter were skipped by the old lookup, but still convert
+        key = TokensRealmSource.eventBlockKey(137, CONTRACT, "Approval", "owner=${ownerAddress}-x");
+        assertTrue(RealmEventBlock.isEventBlockKey(key));
+        assertEquals(137, RealmEventBlock.getKeyChainId(key));
+        assertEquals(CONTRACT.toLowerCase(), RealmEventBlock.getKeyAddress(key));
+    }
+
+    @Test
+    public void readBlockConverts()
+    {
+        BigInteger block = BigInteger.valueOf(12345678);
+        assertEquals(12345678L, RealmEventBlock.parseReadBlock(block.toString(16)));
+        assertEquals(0L, RealmEventBlock.parseReadBlock("0"));
+        assertEquals(-1L, RealmEventBlock.parseReadBlock(null));
+        assertEquals(-1L, RealmEventBlock.parseReadBlock(""));
+        assertEquals(-1L, RealmEventBlock.parseReadBlock("not a block"));
+    }
+
+    @Test
+    public void otherRowsStay()
+    {
+        assertFalse(RealmEventBlock.isEventBlockKey(TokensRealmSource.eventActivityKey("0xabcd", "Transfer")));
+        assertFalse(RealmEventBlock.isEventBlockKey("0xabcd-1")); //token image url
+        assertFalse(RealmEventBlock.isEventBlockKey("0xabcd-eventBlock"));
+        assertFalse(RealmEventBlock.isEventBlockKey("0xabcd-main-Transfer-x-eventBlock"));
+        assertFalse(RealmEventBlock.isEventBlockKey(null));
+    }
+
+    @Test
+    public void activityTokenIdPads()
+    {
+        String zero = TokensRealmSource.eventTokenId(BigInteger.ZERO);
+        assertEquals(TokensRealmSource.EVENT_TOKEN_ID_LENGTH, zero.length());
+        assertEquals(zero, TokensRealmSource.eventTokenId("0"));
+
+        BigInteger tokenId = new BigInteger("1b", 16);
+        String padded = TokensRealmSource.eventTokenId(tokenId);
+        assertEquals(TokensRealmSource.EVENT_TOKEN_ID_LENGTH, padded.length());
+        assertEquals(padded, TokensRealmSource.eventTokenId("1b"));
+        assertEquals(tokenId, new BigInteger(padded, 16));
+
+        //fixed width, so string order is numeric order
+        assertTrue(TokensRealmSource.eventTokenId(BigInteger.valueOf(0x100)).compareTo(padded) > 0);
+
+        BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        assertEquals(max, new BigInteger(TokensRealmSource.eventTokenId(max.toString(16)), 16));
+
+        //values no token's activity query could match become token 0
+        assertEquals(zero, TokensRealmSource.eventTokenId((String) null));
+        assertEquals(zero, TokensRealmSource.eventTokenId("not hex"));
+        assertEquals(zero, TokensRealmSource.eventTokenId(max.add(BigInteger.ONE).toString(16)));
+    }
+}
@@ -0,0 +1,299 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.tokenscript.EventUtils;
+import com.alphawallet.app.service.EventLogIngester;
+import com.alphawallet.token.entity.Attribute;
+import com.alphawallet.token.entity.ContractAddress;
+import com.alphawallet.token.entity.ContractInfo;
+import com.alphawallet.token.entity.EventDefinition;
+import com.alphawallet.token.entity.NamedType;
+import com.alphawallet.token.entity.TransactionResult;
+import com.alphawallet.token.tools.TokenDefinition;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ingests pages of Transfer logs through a stand-in node and store, counting node calls and store commits
+ */
+public class EventLogIngesterTest
+{
+    private static final int CHAIN_ID = 1;
+    private static final String CONTRACT = "0xbc9a1026a4bc6f0ba8bbe486d1d09da5732b39e4";
+    private static final String WALLET = "0x007bee82bdd9e866b2bd114780a47f2261c684e3";
+    private static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+    private static final long FIRST_BLOCK = 1000;
+
+    private StubRpcNode node;
+    private Web3j web3j;
+    private final Set<String> missingBlocks = Collections.synchronizedSet(new HashSet<>());
+    private final CountingStore store = new CountingStore();
+
+    private static class CountingStore implements EventLogIngester.EventStore
+    {
+        final List<EventLogIngester.Batch> commits = new ArrayList<>();
+        final Set<String> storedTransactions = new HashSet<>();
+        int storedQueries;
+
+        @Override
+        public TransactionResult getFunctionResult(ContractAddress contract, Attribute attr, BigInteger tokenId)
+        {
+            return new TransactionResult(contract.chainId, contract.address, tokenId, attr);
+        }
+
+        @Override
+        public Set<String> getStoredTransactions(String walletAddress, Collection<String> txHashes)
+        {
+            storedQueries++;
+            Set<String> stored = new HashSet<>(txHashes);
+            stored.retainAll(storedTransactions);
+            return stored;
+        }
+
+        @Override
+        public void commit(String walletAddress, EventLogIngester.Batch batch)
+        {
+            commits.add(batch);
+            for (com.alphawallet.app.entity.Transaction tx : batch.transactions) storedTransactions.add(tx.hash);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        node = new StubRpcNode(this::answer);
+        web3j = node.getWeb3j();
+    }
+
+    @After
+    public void tearDown()
+    {
+        node.stop();
+    }
+
+    @Test
+    public void pageIsOneCommitAndBatchedCalls() throws Exception
+    {
+        EventDefinition ev = transferEvent();
+        //250 logs in 50 blocks; the first 50 transactions emit two logs each
+        List<EthLog.LogResult> logs = new ArrayList<>();
+        for (int i = 0; i < 250; i++)
+        {
+            int txIndex = i < 100 ? i / 2 : i - 50;
+            logs.add(transferLog(FIRST_BLOCK + i / 5, txIndex, i));
+        }
+        //20 transactions already known to the wallet
+        for (int i = 0; i < 20; i++) store.storedTransactions.add(txHash(i));
+
+        String newestTx = new EventLogIngester(store).ingest(WALLET, ev, logs, web3j);
+
+        assertEquals(txHash(199), newestTx);
+        assertEquals(1, store.commits.size());
+        EventLogIngester.Batch batch = store.commits.get(0);
+        assertEquals(250, batch.activities.size());
+        assertEquals(180, batch.transactions.size());
+        assertEquals(BigInteger.valueOf(FIRST_BLOCK + 49 + 1), batch.readBlock);
+        assertEquals(BigInteger.valueOf(FIRST_BLOCK + 49 + 1), ev.readBlock);
+        for (EventLogIngester.Activity activity : batch.activities)
+        {
+            assertTrue(activity.blockTime >= blockTime(FIRST_BLOCK));
+            assertTrue(activity.eventData.contains(WALLET.substring(2)));
+        }
+
+        //one batch for the block times, transactions with receipts in batches of MAX_BATCH_REQUESTS
+        int txBatches = (180 * 2 + EventUtils.MAX_BATCH_REQUESTS - 1) / EventUtils.MAX_BATCH_REQUESTS;
+        assertEquals(1 + txBatches, node.getHttpCalls());
+        assertEquals(50, node.getCalls("eth_getBlockByHash"));
+        assertEquals(180, node.getCalls("eth_getTransactionByHash"));
+        assertEquals(180, node.getCalls("eth_getTransactionReceipt"));
+        assertEquals(1, store.storedQueries);
+
+        //the same page again: nothing new to fetch, and the read block doesn't move
+        new EventLogIngester(store).ingest(WALLET, ev, logs, web3j);
+        assertEquals(1 + txBatches + 1, node.getHttpCalls()); //block times only
+        assertEquals(2, store.commits.size());
+        assertEquals(0, store.commits.get(1).transactions.size());
+        assertEquals(null, store.commits.get(1).readBlock);
+    }
+
+    @Test
+    public void failedFetchWritesNothing() throws Exception
+    {
+        EventDefinition ev = transferEvent();
+        List<EthLog.LogResult> logs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) logs.add(transferLog(FIRST_BLOCK + i, i, i));
+        missingBlocks.add(blockHash(FIRST_BLOCK + 3));
+
+        try
+        {
+            new EventLogIngester(store).ingest(WALLET, ev, logs, web3j);
+            fail("Page with a missing block must not be stored");
+        }
+        catch (IOException e)
+        {
+            //expected
+        }
+
+        assertEquals(0, store.commits.size());
+        assertEquals(BigInteger.ZERO, ev.readBlock);
+        assertEquals(1, node.getHttpCalls());
+    }
+
+    @Test
+    public void laterEventInSameBlockWins() throws Exception
+    {
+        EventDefinition ev = transferEvent();
+        ev.parentAttribute = new Attribute(attributeElement("lastReceived"), new TokenDefinition());
+        ev.parentAttribute.originContract = ev.contract;
+        //every log is for the same token; the select value is the transferred tokenId
+        List<EthLog.LogResult> logs = new ArrayList<>();
+        logs.add(transferLog(FIRST_BLOCK, 0, 5));
+        logs.add(transferLog(FIRST_BLOCK + 1, 1, 6));
+        logs.add(transferLog(FIRST_BLOCK + 1, 2, 7));
+
+        new EventLogIngester(store).ingest(WALLET, ev, logs, web3j);
+
+        List<TransactionResult> results = store.commits.get(0).attributeResults;
+        assertEquals(1, results.size());
+        assertEquals("7", results.get(0).result);
+        assertEquals(FIRST_BLOCK + 1, results.get(0).resultTime);
+    }
+
+    @Test
+    public void emptyPage() throws Exception
+    {
+        assertEquals("", new EventLogIngester(store).ingest(WALLET, transferEvent(), new ArrayList<>(), web3j));
+        assertEquals(0, store.commits.size());
+        assertEquals(0, node.getHttpCalls());
+    }
+
+    private JsonObject answer(JsonObject call)
+    {
+        String param = call.getAsJsonArray("params").get(0).getAsString();
+        JsonObject result = new JsonObject();
+        switch (call.get("method").getAsString())
+        {
+            case "eth_getBlockByHash":
+                if (missingBlocks.contains(param)) return StubRpcNode.result(call, JsonNull.INSTANCE);
+                long blockNumber = Numeric.toBigInt(param).longValue();
+                result.addProperty("hash", param);
+                result.addProperty("number", Numeric.toHexStringWithPrefix(BigInteger.valueOf(blockNumber)));
+                result.addProperty("timestamp", Numeric.toHexStringWithPrefix(BigInteger.valueOf(blockTime(blockNumber))));
+                result.add("transactions", new JsonArray());
+                break;
+            case "eth_getTransactionByHash":
+                result.addProperty("hash", param);
+                result.addProperty("nonce", "0x1");
+                result.addProperty("blockNumber", Numeric.toHexStringWithPrefix(BigInteger.valueOf(FIRST_BLOCK)));
+                result.addProperty("from", "0x1111111111111111111111111111111111111111");
+                result.addProperty("to", CONTRACT);
+                result.addProperty("value", "0x0");
+                result.addProperty("gas", "0x5208");
+                result.addProperty("gasPrice", "0x3b9aca00");
+                result.addProperty("input", "0x");
+                break;
+            case "eth_getTransactionReceipt":
+                result.addProperty("transactionHash", param);
+                result.addProperty("status", "0x1");
+                break;
+            default:
+                return StubRpcNode.result(call, JsonNull.INSTANCE);
+        }
+
+        return StubRpcNode.result(call, result);
+    }
+
+    private static EventDefinition transferEvent()
+    {
+        NamedType type = new NamedType("Transfer");
+        type.sequence.add(element(type, "from", "address", true));
+        type.sequence.add(element(type, "to", "address", true));
+        type.sequence.add(element(type, "tokenId", "uint256", true));
+
+        Map<Integer, List<String>> addresses = new HashMap<>();
+        addresses.put(CHAIN_ID, Collections.singletonList(CONTRACT));
+
+        EventDefinition ev = new EventDefinition();
+        ev.contract = new ContractInfo("ERC721", addresses);
+        ev.type = type;
+        ev.filter = "to=${ownerAddress}";
+        ev.select = "tokenId";
+        ev.activityName = "received";
+        return ev;
+    }
+
+    // An attribute with no children: DirectoryString syntax
+    private static Element attributeElement(String name) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Element element = factory.newDocumentBuilder().newDocument().createElement("attribute");
+        element.setAttribute("name", name);
+        return element;
+    }
+
+    private static NamedType.SequenceElement element(NamedType type, String name, String solidityType, boolean indexed)
+    {
+        NamedType.SequenceElement se = type.new SequenceElement();
+        se.name = name;
+        se.type = solidityType;
+        se.indexed = indexed;
+        return se;
+    }
+
+    private static EthLog.LogResult transferLog(long blockNumber, int txIndex, int tokenId)
+    {
+        EthLog.LogObject log = new EthLog.LogObject();
+        log.setAddress(CONTRACT);
+        log.setBlockNumber(Numeric.toHexStringWithPrefix(BigInteger.valueOf(blockNumber)));
+        log.setBlockHash(blockHash(blockNumber));
+        log.setTransactionHash(txHash(txIndex));
+        log.setData("0x");
+        log.setTopics(Arrays.asList(TRANSFER_TOPIC,
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.ONE, 64),
+                Numeric.toHexStringWithPrefixZeroPadded(Numeric.toBigInt(WALLET), 64),
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(tokenId), 64)));
+        return log;
+    }
+
+    private static String blockHash(long blockNumber)
+    {
+        return Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(blockNumber), 64);
+    }
+
+    private static String txHash(int index)
+    {
+        return Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(index).add(BigInteger.ONE.shiftLeft(128)), 64);
+    }
+
+    private static long blockTime(long blockNumber)
+    {
+        return 1600000000L + blockNumber * 15;
+    }
+}
@@ -0,0 +1,185 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.GasPriceSpread;
+import com.alphawallet.app.service.FeeOracle;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Fee oracle percentiles and incremental window maintenance, against canned blocks
+ */
+public class FeeOracleTest
+{
+    private static final int CHAIN_ID = 1;
+
+    private static class CannedBlocks implements FeeOracle.BlockSource
+    {
+        final Map<Long, List<BigInteger>> blocks = new HashMap<>();
+        final List<Long> fetched = new ArrayList<>();
+        long latest;
+
+        void addBlock(long number, long... gwei)
+        {
+            List<BigInteger> prices = new ArrayList<>();
+            for (long g : gwei) prices.add(BigInteger.valueOf(g));
+            blocks.put(number, prices);
+            latest = Math.max(latest, number);
+        }
+
+        @Override
+        public long getLatestBlockNumber(int chainId)
+        {
+            return latest;
+        }
+
+        @Override
+        public List<BigInteger> getBlockGasPrices(int chainId, long blockNumber)
+        {
+            fetched.add(blockNumber);
+            List<BigInteger> prices = blocks.get(blockNumber);
+            return prices != null ? prices : new ArrayList<>();
+        }
+    }
+
+    @Test
+    public void percentilesFromBlockPrices() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        source.addBlock(100, 1, 2, 3, 4, 5);
+        source.addBlock(101, 6, 7, 8, 9, 10, 0); //zero price is ignored
+
+        FeeOracle oracle = new FeeOracle(source, 5);
+        GasPriceSpread spread = oracle.update(CHAIN_ID);
+
+        assertEquals(10, oracle.getSampleCount(CHAIN_ID));
+        assertEquals(BigInteger.valueOf(3), spread.slow);
+        assertEquals(BigInteger.valueOf(6), spread.standard);
+        assertEquals(BigInteger.valueOf(8), spread.fast);
+        assertEquals(BigInteger.valueOf(9), spread.rapid);
+        assertSame(spread, oracle.getSpread(CHAIN_ID));
+    }
+
+    @Test
+    public void updateFetchesOnlyNewBlocks() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        for (long b = 1; b <= 10; b++) source.addBlock(b, b);
+
+        FeeOracle oracle = new FeeOracle(source, 4);
+        oracle.update(CHAIN_ID);
+        assertEquals(4, source.fetched.size()); //only the window, not all history
+        assertEquals(Long.valueOf(7), source.fetched.get(0));
+
+        source.fetched.clear();
+        GasPriceSpread unchanged = oracle.getSpread(CHAIN_ID);
+        assertSame(unchanged, oracle.update(CHAIN_ID));
+        assertEquals(0, source.fetched.size());
+
+        source.addBlock(11, 11);
+        source.addBlock(12, 12);
+        oracle.update(CHAIN_ID);
+        assertEquals(2, source.fetched.size());
+        assertEquals(Long.valueOf(11), source.fetched.get(0));
+    }
+
+    @Test
+    public void fetchesAreCappedPerUpdate() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        for (long b = 1; b <= 100; b++) source.addBlock(b, b);
+
+        FeeOracle oracle = new FeeOracle(source, 20, 4);
+        oracle.update(CHAIN_ID);
+        assertEquals(4, source.fetched.size()); //newest blocks first; the window fills over later updates
+        assertEquals(Long.valueOf(97), source.fetched.get(0));
+
+        source.addBlock(101, 101);
+        source.addBlock(102, 102);
+        oracle.update(CHAIN_ID);
+        assertEquals(6, oracle.getSampleCount(CHAIN_ID));
+
+        //a long gap replaces the old samples rather than mixing them with new ones
+        for (long b = 103; b <= 200; b++) source.addBlock(b, b);
+        source.fetched.clear();
+        oracle.update(CHAIN_ID);
+        assertEquals(4, source.fetched.size());
+        assertEquals(4, oracle.getSampleCount(CHAIN_ID));
+        assertEquals(BigInteger.valueOf(199), oracle.getSpread(CHAIN_ID).standard);
+    }
+
+    @Test
+    public void oldBlocksRetire() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        source.addBlock(1, 100, 100, 100);
+        source.addBlock(2, 5);
+        source.addBlock(3, 5);
+
+        FeeOracle oracle = new FeeOracle(source, 3);
+        assertEquals(BigInteger.valueOf(100), oracle.update(CHAIN_ID).standard);
+
+        source.addBlock(4, 5);
+        GasPriceSpread spread = oracle.update(CHAIN_ID);
+        assertEquals(3, oracle.getSampleCount(CHAIN_ID));
+        assertEquals(BigInteger.valueOf(5), spread.standard);
+        assertEquals(BigInteger.valueOf(5), spread.rapid);
+    }
+
+    @Test
+    public void emptyBlocksGiveNoSpread() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        source.addBlock(1);
+        source.addBlock(2, 0);
+
+        FeeOracle oracle = new FeeOracle(source);
+        assertNull(oracle.update(CHAIN_ID));
+        assertNull(oracle.getSpread(CHAIN_ID));
+        assertNull(oracle.getSpread(5));
+    }
+
+    @Test
+    public void chainsHaveUniqueTimestamps() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        source.addBlock(1, 1);
+
+        FeeOracle oracle = new FeeOracle(source);
+        GasPriceSpread first = oracle.update(1);
+        GasPriceSpread second = oracle.update(2);
+        assertNotEquals(first.timeStamp, second.timeStamp);
+    }
+
+    @Test
+    public void seededSpreadIsServedUntilFirstUpdate() throws Exception
+    {
+        CannedBlocks source = new CannedBlocks();
+        source.addBlock(1, 7);
+
+        FeeOracle oracle = new FeeOracle(source);
+        GasPriceSpread persisted = new GasPriceSpread(BigInteger.valueOf(4), BigInteger.valueOf(3), BigInteger.valueOf(2), BigInteger.valueOf(1), 1000);
+        oracle.seed(CHAIN_ID, persisted);
+        oracle.seed(CHAIN_ID, new GasPriceSpread(BigInteger.valueOf(9))); //only the first (newest) seed is kept
+        assertSame(persisted, oracle.getSpread(CHAIN_ID));
+        assertEquals(0, oracle.getSampleCount(CHAIN_ID));
+        assertEquals(0, source.fetched.size());
+
+        GasPriceSpread sampled = oracle.update(CHAIN_ID);
+        assertEquals(BigInteger.valueOf(7), sampled.standard);
+        assertSame(sampled, oracle.getSpread(CHAIN_ID));
+
+        oracle.seed(CHAIN_ID, persisted);
+        assertSame(sampled, oracle.getSpread(CHAIN_ID));
+    }
+}
@@ -0,0 +1,196 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.service.GasEstimateCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthEstimateGas;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Gas estimate cache against a stub node
+ */
+public class GasEstimateCacheTest
+{
+    private static final int CHAIN_ID = 1;
+    private static final String CONTRACT = "0xA0b86991c6218b36c1d19D4a2e9Eb0cE3606eB48";
+    private static final String SENDER = "0xbc8dAfeacA658Ae0857C80D8Aa6dE4D487577c63";
+    private static final String OTHER_SENDER = "0x007bEe82BDd9e866b2bd114780a47f2261C684E3";
+
+    private StubRpcNode node;
+    private Web3j web3j;
+    private volatile long gasEstimate;
+    private volatile String revertReason;
+    private volatile String code;
+    private final Deque<Runnable> refreshes = new ArrayDeque<>();
+    private GasEstimateCache cache;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        gasEstimate = 50000;
+        revertReason = null;
+        code = "0x6080604052";
+        node = new StubRpcNode(call -> {
+            switch (call.get("method").getAsString())
+            {
+                case "eth_estimateGas":
+                    return revertReason != null ? StubRpcNode.error(call, 3, revertReason)
+                            : StubRpcNode.result(call, Numeric.toHexStringWithPrefix(BigInteger.valueOf(gasEstimate)));
+                case "eth_getCode":
+                    return StubRpcNode.result(call, code);
+                default:
+                    return StubRpcNode.error(call, -32601, "method not found");
+            }
+        });
+        web3j = node.getWeb3j();
+        //refreshes are run by the test, so it can see the cached answer before the node is asked again
+        cache = new GasEstimateCache(this::getCodeHash, refreshes::add, GasEstimateCache.ESTIMATE_TTL);
+    }
+
+    @After
+    public void tearDown()
+    {
+        node.stop();
+    }
+
+    private String getCodeHash(int chainId, String address) throws Exception
+    {
+        return Hash.sha3(web3j.ethGetCode(address, DefaultBlockParameterName.LATEST).send().getCode());
+    }
+
+    private BigInteger estimate(byte[] data) throws Exception
+    {
+        String txData = Numeric.toHexString(data);
+        return cache.getEstimate(CHAIN_ID, SENDER, CONTRACT, BigInteger.ZERO, data, () -> {
+            EthEstimateGas response = web3j.ethEstimateGas(Transaction.createEthCallTransaction(SENDER, CONTRACT, txData)).send();
+            if (response.hasError()) throw new Exception(response.getError().getMessage());
+            return response.getAmountUsed();
+        });
+    }
+
+    private void runRefreshes()
+    {
+        while (!refreshes.isEmpty()) refreshes.poll().run();
+    }
+
+    private static byte[] transferCall(int seed)
+    {
+        byte[] data = new byte[68];
+        data[0] = (byte) 0xa9; data[1] = 0x05; data[2] = (byte) 0x9c; data[3] = (byte) 0xbb;
+        data[35] = (byte) seed;
+        return data;
+    }
+
+    private static BigInteger withMargin(long gas)
+    {
+        return BigInteger.valueOf(gas * (100 + GasEstimateCache.ESTIMATE_MARGIN_PERCENT) / 100);
+    }
+
+    @Test
+    public void repeatIsAnsweredFromCacheThenRefined() throws Exception
+    {
+        assertEquals(BigInteger.valueOf(50000), estimate(transferCall(1)));
+        runRefreshes();
+        assertEquals(1, node.getCalls("eth_estimateGas"));
+
+        //same call shape: answered without asking the node, then refined in the background
+        gasEstimate = 36000;
+        assertEquals(withMargin(50000), estimate(transferCall(2)));
+        assertEquals(1, node.getCalls("eth_estimateGas"));
+        runRefreshes();
+        assertEquals(2, node.getCalls("eth_estimateGas"));
+
+        assertEquals(withMargin(36000), estimate(transferCall(3)));
+        runRefreshes();
+        assertEquals(3, node.getCalls("eth_estimateGas"));
+    }
+
+    @Test
+    public void failedRefreshDropsEntry() throws Exception
+    {
+        estimate(transferCall(1));
+        runRefreshes();
+        assertEquals(1, cache.size());
+
+        revertReason = "execution reverted";
+        assertEquals(withMargin(50000), estimate(transferCall(2)));
+        runRefreshes();
+        assertEquals(0, cache.size());
+
+        //with no cached estimate the node is asked first, and its failure is reported
+        try
+        {
+            estimate(transferCall(3));
+            fail("expected estimate failure");
+        }
+        catch (Exception e)
+        {
+            assertEquals("execution reverted", e.getMessage());
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void codeChangeDropsEntry() throws Exception
+    {
+        estimate(transferCall(1));
+        runRefreshes();
+
+        code = "0x6080604053"; //eg a proxy upgrade
+        gasEstimate = 70000;
+        assertEquals(withMargin(50000), estimate(transferCall(2)));
+        runRefreshes();
+        assertEquals(0, cache.size());
+
+        int calls = node.getCalls("eth_estimateGas");
+        assertEquals(BigInteger.valueOf(70000), estimate(transferCall(3)));
+        assertEquals(calls + 1, node.getCalls("eth_estimateGas"));
+    }
+
+    @Test
+    public void expiredEntryIsEstimatedAgain() throws Exception
+    {
+        cache = new GasEstimateCache(this::getCodeHash, refreshes::add, 50);
+        estimate(transferCall(1));
+        runRefreshes();
+        Thread.sleep(100);
+
+        gasEstimate = 36000;
+        assertEquals(BigInteger.valueOf(36000), estimate(transferCall(2)));
+        assertEquals(2, node.getCalls("eth_estimateGas"));
+    }
+
+    @Test
+    public void callShapeKey()
+    {
+        BigInteger zero = BigInteger.ZERO;
+        assertEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, transferCall(1)),
+                GasEstimateCache.callShape(CHAIN_ID, SENDER.toLowerCase(), CONTRACT.toLowerCase(), zero, transferCall(9)));
+        assertNotEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, transferCall(1)),
+                GasEstimateCache.callShape(137, SENDER, CONTRACT, zero, transferCall(1)));
+        assertNotEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, transferCall(1)),
+                GasEstimateCache.callShape(CHAIN_ID, OTHER_SENDER, CONTRACT, zero, transferCall(1)));
+        assertNotEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, null),
+                GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, BigInteger.TEN, null));
+        assertNotEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, new byte[4 + 32 * 2]),
+                GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, new byte[4 + 32 * 3]));
+        //long dynamic calldata is bucketed
+        assertEquals(GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, new byte[4 + 32 * 20]),
+                GasEstimateCache.callShape(CHAIN_ID, SENDER, CONTRACT, zero, new byte[4 + 32 * 30]));
+    }
+}
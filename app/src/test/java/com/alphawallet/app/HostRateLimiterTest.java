@@ -0,0 +1,164 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.service.HostRateLimiter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs several 'chains' against a local stand-in explorer host and checks the shared host budget is respected
+ */
+public class HostRateLimiterTest
+{
+    private static final int CHAIN_COUNT = 5;
+    private static final int REQUESTS_PER_CHAIN = 4;
+    private static final int HOST_CONCURRENCY = 2;
+
+    private StubRpcNode explorer;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger maxInFlight = new AtomicInteger(0);
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger(0);
+    private final List<String> servedOrder = Collections.synchronizedList(new ArrayList<>());
+    private final OkHttpClient client = new OkHttpClient();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        explorer = new StubRpcNode("/api", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            int code = 200;
+            try
+            {
+                String query = exchange.getRequestURI().getQuery();
+                servedOrder.add(query);
+                Thread.sleep(20); //slow explorer
+                if (rateLimitedResponses.get() > 0 && rateLimitedResponses.getAndDecrement() > 0)
+                {
+                    code = 429;
+                    exchange.getResponseHeaders().add("Retry-After", "0");
+                }
+            }
+            catch (InterruptedException e)
+            {
+                code = 500;
+            }
+            finally
+            {
+                //before the response is sent, as the client may start its next request as soon as it's received
+                inFlight.decrementAndGet();
+            }
+            StubRpcNode.reply(exchange, code, null, "{\"status\":\"1\",\"result\":[]}");
+        });
+    }
+
+    @After
+    public void tearDown()
+    {
+        explorer.stop();
+    }
+
+    private String url(String query)
+    {
+        return explorer.getUrl() + "/api?" + query;
+    }
+
+    @Test
+    public void sharedHostRespectsConcurrencyAndServesChainsFairly() throws Exception
+    {
+        HostRateLimiter limiter = new HostRateLimiter(HOST_CONCURRENCY, 0);
+        ExecutorService chains = Executors.newFixedThreadPool(CHAIN_COUNT);
+        CountDownLatch done = new CountDownLatch(CHAIN_COUNT);
+        AtomicInteger failures = new AtomicInteger(0);
+
+        for (int chain = 0; chain < CHAIN_COUNT; chain++)
+        {
+            final int chainId = chain;
+            chains.execute(() -> {
+                try
+                {
+                    for (int i = 0; i < REQUESTS_PER_CHAIN; i++)
+                    {
+                        Request request = new Request.Builder().url(url("chain=" + chainId + "&page=" + i)).get().build();
+                        try (Response response = limiter.execute(client, request))
+                        {
+                            if (response.code() != 200) failures.incrementAndGet();
+                        }
+                    }
+                }
+                catch (Exception e)
+                {
+                    failures.incrementAndGet();
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        chains.shutdown();
+
+        assertEquals(0, failures.get());
+        assertEquals(CHAIN_COUNT * REQUESTS_PER_CHAIN, servedOrder.size());
+        assertTrue("Host concurrency exceeded: " + maxInFlight.get(), maxInFlight.get() <= HOST_CONCURRENCY);
+
+        //fairness: every chain gets its first request served before any chain can finish all of its requests
+        int firstRoundEnd = 0;
+        for (int chain = 0; chain < CHAIN_COUNT; chain++)
+        {
+            firstRoundEnd = Math.max(firstRoundEnd, servedOrder.indexOf("chain=" + chain + "&page=0"));
+        }
+        for (int chain = 0; chain < CHAIN_COUNT; chain++)
+        {
+            int lastPage = servedOrder.indexOf("chain=" + chain + "&page=" + (REQUESTS_PER_CHAIN - 1));
+            assertTrue("Chain " + chain + " starved others", lastPage > firstRoundEnd);
+        }
+    }
+
+    @Test
+    public void backsOffOnRateLimitAndRecovers() throws Exception
+    {
+        final long baseInterval = 10;
+        HostRateLimiter limiter = new HostRateLimiter(1, baseInterval);
+        String host = "127.0.0.1";
+        rateLimitedResponses.set(3);
+
+        for (int i = 0; i < 3; i++)
+        {
+            limiter.execute(client, new Request.Builder().url(url("limited=" + i)).get().build()).close();
+        }
+
+        long backedOff = limiter.getInterval(host);
+        assertTrue("Interval did not back off: " + backedOff, backedOff >= baseInterval * 8);
+
+        long start = System.currentTimeMillis();
+        limiter.execute(client, new Request.Builder().url(url("next")).get().build()).close();
+        assertTrue("Next request was not spaced out", System.currentTimeMillis() - start >= backedOff / 2);
+
+        for (int i = 0; i < 20; i++)
+        {
+            limiter.execute(client, new Request.Builder().url(url("ok=" + i)).get().build()).close();
+        }
+
+        assertEquals(baseInterval, limiter.getInterval(host));
+    }
+}
@@ -0,0 +1,148 @@
+package com.alphawallet.app;
+
+import com.alphawallet.token.entity.MagicLinkData;
+import com.alphawallet.token.entity.SalesOrderMalformed;
+import com.alphawallet.token.tools.MagicLinkFactory;
+import com.alphawallet.token.tools.ParseMagicLink;
+
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Sign;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MagicLinkFactoryTest
+{
+    private static final ParseMagicLink parser = new ParseMagicLink(new CryptoFunctions(), null);
+    private static final String CONTRACT_ADDR = "0xbc9a1026a4bc6f0ba8bbe486d1d09da5732b39e4";
+    private static final int CHAIN_ID = 1;
+    private static final long EXPIRY = 0x5AB5B400L;
+    private static final int LINK_COUNT = 200;
+
+    private final ECKeyPair testKey = ECKeyPair.create("Test Key".getBytes());
+    private final String ownerAddress = "0x" + Keys.getAddress(testKey.getPublicKey());
+    private final MagicLinkFactory.LinkSigner signer = message -> sigBytes(Sign.signMessage(message, testKey));
+
+    @Test
+    public void spawnableLinksVerify() throws Exception
+    {
+        MagicLinkFactory factory = new MagicLinkFactory(parser, CHAIN_ID, CONTRACT_ADDR, BigInteger.ZERO, signer);
+        List<MagicLinkFactory.LinkSpec> specs = new ArrayList<>();
+        List<List<BigInteger>> tokens = new ArrayList<>();
+        for (int i = 0; i < LINK_COUNT; i++)
+        {
+            List<BigInteger> ids = Arrays.asList(BigInteger.valueOf(1000 + i), BigInteger.ONE.shiftLeft(240).add(BigInteger.valueOf(i)));
+            tokens.add(ids);
+            specs.add(MagicLinkFactory.LinkSpec.spawnable(ids, EXPIRY + i));
+        }
+
+        String[] links = generate(factory, specs);
+        assertEquals(LINK_COUNT, links.length);
+
+        for (int i = 0; i < LINK_COUNT; i++)
+        {
+            MagicLinkData data = parser.parseUniversalLink(links[i]);
+            assertEquals(ParseMagicLink.spawnable, data.contractType);
+            assertEquals(tokens.get(i), data.tokenIds);
+            assertEquals(EXPIRY + i, data.expiry);
+            assertEquals(CHAIN_ID, data.chainId);
+            assertEquals(ownerAddress, parser.getOwnerKey(data));
+
+            //same bytes as the one at a time path
+            byte[] message = parser.getSpawnableBytes(tokens.get(i), CONTRACT_ADDR, BigInteger.ZERO, EXPIRY + i);
+            assertArrayEquals(message, factory.getMessage(specs.get(i)));
+            byte[] linkData = ParseMagicLink.generateSpawnableLeadingLinkBytes(tokens.get(i), CONTRACT_ADDR, BigInteger.ZERO, EXPIRY + i);
+            assertEquals(parser.completeUniversalLink(CHAIN_ID, linkData, signer.sign(message)), links[i]);
+        }
+    }
+
+    @Test
+    public void tradeLinksVerify() throws Exception
+    {
+        BigInteger price = Convert.toWei("0.1", Convert.Unit.ETHER).toBigInteger();
+        MagicLinkFactory factory = new MagicLinkFactory(parser, CHAIN_ID, CONTRACT_ADDR, price, signer);
+        List<MagicLinkFactory.LinkSpec> specs = new ArrayList<>();
+        for (int i = 0; i < LINK_COUNT; i++)
+        {
+            specs.add(MagicLinkFactory.LinkSpec.trade(new int[] { i, i + 127, i + 300 }, EXPIRY));
+        }
+
+        String[] links = generate(factory, specs);
+        assertEquals(LINK_COUNT, links.length);
+
+        for (int i = 0; i < LINK_COUNT; i++)
+        {
+            int[] indices = new int[] { i, i + 127, i + 300 };
+            MagicLinkData data = parser.parseUniversalLink(links[i]);
+            assertArrayEquals(indices, data.indices);
+            assertEquals(price, data.priceWei);
+            assertEquals(ownerAddress, parser.getOwnerKey(data));
+            assertArrayEquals(parser.getTradeBytes(indices, CONTRACT_ADDR, price, EXPIRY), data.message);
+
+            byte[] linkData = ParseMagicLink.generateLeadingLinkBytes(indices, CONTRACT_ADDR, price, EXPIRY);
+            assertEquals(parser.completeUniversalLink(CHAIN_ID, linkData, signer.sign(data.message)), links[i]);
+        }
+    }
+
+    @Test
+    public void rejectsBadLinks() throws Exception
+    {
+        BigInteger tooHigh = Convert.toWei("5000", Convert.Unit.ETHER).toBigInteger();
+        try
+        {
+            new MagicLinkFactory(parser, CHAIN_ID, CONTRACT_ADDR, tooHigh, signer);
+            fail("Price too high for a link");
+        }
+        catch (SalesOrderMalformed e)
+        {
+            //expected
+        }
+
+        MagicLinkFactory factory = new MagicLinkFactory(parser, CHAIN_ID, CONTRACT_ADDR, BigInteger.ZERO, signer);
+        List<MagicLinkFactory.LinkSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            specs.add(MagicLinkFactory.LinkSpec.spawnable(Collections.singletonList(BigInteger.valueOf(i)), EXPIRY));
+        }
+        specs.add(MagicLinkFactory.LinkSpec.spawnable(Collections.singletonList(BigInteger.ONE), 0x100000000L));
+
+        try
+        {
+            factory.writeLinks(specs, new StringWriter(), 4);
+            fail("Expiry doesn't fit in a link");
+        }
+        catch (SalesOrderMalformed e)
+        {
+            //expected
+        }
+    }
+
+    private static String[] generate(MagicLinkFactory factory, List<MagicLinkFactory.LinkSpec> specs) throws Exception
+    {
+        StringWriter out = new StringWriter();
+        int written = factory.writeLinks(specs, out, 4);
+        assertEquals(specs.size(), written);
+        return out.toString().split("\n");
+    }
+
+    private static byte[] sigBytes(Sign.SignatureData sig)
+    {
+        byte[] sigBytes = new byte[65];
+        System.arraycopy(Numeric.toBytesPadded(Numeric.toBigInt(sig.getR()), 32), 0, sigBytes, 0, 32);
+        System.arraycopy(Numeric.toBytesPadded(Numeric.toBigInt(sig.getS()), 32), 0, sigBytes, 32, 32);
+        sigBytes[64] = sig.getV()[0];
+        return sigBytes;
+    }
+}
@@ -7,6 +7,7 @@ import com.alphawallet.app.entity.BaseViewCallback;
 import com.alphawallet.app.entity.ContractType;
 import com.alphawallet.app.entity.NetworkInfo;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.entity.tokens.Token;
 import com.alphawallet.app.entity.tokens.TokenInfo;
 import com.alphawallet.app.entity.TradeInstance;
@@ -139,6 +140,12 @@ public class MarketOrderTest
                 });
             }
 
+            @Override
+            public Single<SigningSession> openSigningSession(Wallet wallet, int maxSignatures)
+            {
+                return Single.fromCallable(() -> SigningSession.fromKeyPair(testKey, maxSignatures, SigningSession.DEFAULT_TTL));
+            }
+
             @Override
             public Transaction fetchCachedTransaction(String walletAddr, String hash)
             {
@@ -0,0 +1,206 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.service.NonceManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pipelined submissions against a stub node whose pending pool lags behind what it has accepted
+ */
+public class NonceManagerTest
+{
+    private static final int CHAIN_ID = 1;
+    private static final String WALLET = "0x007bEe82BDd9e866b2bd114780a47f2261C684E3";
+
+    private StubNode node;
+    private NonceManager nonceManager;
+
+    /**
+     * Accepts transactions strictly in nonce order; reports a PENDING count that only updates when told to
+     */
+    private static class StubNode implements NonceManager.NonceSource
+    {
+        final AtomicInteger nonceQueries = new AtomicInteger(0);
+        final Set<Long> accepted = ConcurrentHashMap.newKeySet();
+        final List<BigInteger> localPending = Collections.synchronizedList(new ArrayList<>());
+        volatile long reportedNonce;
+
+        StubNode(long startNonce)
+        {
+            reportedNonce = startNonce;
+        }
+
+        @Override
+        public BigInteger getPendingNonce(int chainId, String walletAddress) throws Exception
+        {
+            nonceQueries.incrementAndGet();
+            Thread.sleep(20); //round trip
+            return BigInteger.valueOf(reportedNonce);
+        }
+
+        @Override
+        public List<BigInteger> getLocalPendingNonces(int chainId, String walletAddress)
+        {
+            synchronized (localPending)
+            {
+                return new ArrayList<>(localPending);
+            }
+        }
+
+        String send(BigInteger nonce)
+        {
+            if (!accepted.add(nonce.longValue())) return "already known";
+            if (nonce.longValue() < reportedNonce) return "nonce too low";
+            localPending.add(nonce);
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp()
+    {
+        node = new StubNode(7);
+        nonceManager = new NonceManager(node);
+    }
+
+    @Test
+    public void concurrentSendsGetUniqueContiguousNonces() throws Exception
+    {
+        final int threads = 8;
+        final int sendsPerThread = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        Set<Long> used = ConcurrentHashMap.newKeySet();
+        AtomicInteger errors = new AtomicInteger(0);
+
+        for (int t = 0; t < threads; t++)
+        {
+            pool.execute(() -> {
+                try
+                {
+                    for (int i = 0; i < sendsPerThread; i++)
+                    {
+                        BigInteger nonce = nonceManager.reserve(CHAIN_ID, WALLET);
+                        String error = node.send(nonce);
+                        if (error == null)
+                        {
+                            nonceManager.confirm(CHAIN_ID, WALLET, nonce);
+                            used.add(nonce.longValue());
+                        }
+                        else
+                        {
+                            errors.incrementAndGet();
+                            nonceManager.release(CHAIN_ID, WALLET, nonce, NonceManager.isNonceError(error));
+                        }
+                    }
+                }
+                catch (Exception e)
+                {
+                    errors.incrementAndGet();
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(0, errors.get());
+        assertEquals(threads * sendsPerThread, used.size());
+        for (long n = 7; n < 7 + threads * sendsPerThread; n++)
+        {
+            assertTrue("Gap at nonce " + n, used.contains(n));
+        }
+        //only the first reservation needed a round trip
+        assertEquals(1, node.nonceQueries.get());
+    }
+
+    @Test
+    public void abandonedReservationIsDropped() throws Exception
+    {
+        nonceManager = new NonceManager(node, 50);
+        BigInteger abandoned = nonceManager.reserve(CHAIN_ID, WALLET);
+        BigInteger sent = nonceManager.reserve(CHAIN_ID, WALLET);
+        assertEquals(null, node.send(sent));
+        nonceManager.confirm(CHAIN_ID, WALLET, sent);
+
+        //the first send never confirmed or released; once it's stale the node's count is trusted again
+        Thread.sleep(100);
+        assertEquals(abandoned, nonceManager.reserve(CHAIN_ID, WALLET));
+        assertEquals(2, node.nonceQueries.get());
+    }
+
+    @Test
+    public void failedSubmissionGapIsReused() throws Exception
+    {
+        BigInteger first = nonceManager.reserve(CHAIN_ID, WALLET);
+        BigInteger second = nonceManager.reserve(CHAIN_ID, WALLET);
+        BigInteger third = nonceManager.reserve(CHAIN_ID, WALLET);
+
+        //second fails (eg insufficient funds); first and third make it
+        nonceManager.confirm(CHAIN_ID, WALLET, first);
+        nonceManager.release(CHAIN_ID, WALLET, second, false);
+        nonceManager.confirm(CHAIN_ID, WALLET, third);
+
+        assertEquals(second, nonceManager.reserve(CHAIN_ID, WALLET));
+        assertEquals(third.add(BigInteger.ONE), nonceManager.reserve(CHAIN_ID, WALLET));
+    }
+
+    @Test
+    public void releasingTopNonceRollsBackCounter() throws Exception
+    {
+        BigInteger first = nonceManager.reserve(CHAIN_ID, WALLET);
+        nonceManager.release(CHAIN_ID, WALLET, first, false);
+        assertEquals(first, nonceManager.reserve(CHAIN_ID, WALLET));
+    }
+
+    @Test
+    public void reconcilesWithLocalPendingAndResyncsOnNonceError() throws Exception
+    {
+        //we have transactions the lagging node doesn't report yet
+        node.localPending.add(BigInteger.valueOf(7));
+        node.localPending.add(BigInteger.valueOf(8));
+        assertEquals(BigInteger.valueOf(9), nonceManager.reserve(CHAIN_ID, WALLET));
+
+        //meanwhile another client used nonces 9 and 10; ours is rejected
+        node.reportedNonce = 11;
+        node.accepted.add(9L);
+        BigInteger rejected = BigInteger.valueOf(9);
+        String error = node.send(rejected);
+        assertTrue(NonceManager.isNonceError(error));
+        nonceManager.release(CHAIN_ID, WALLET, rejected, NonceManager.isNonceError(error));
+
+        assertEquals(BigInteger.valueOf(11), nonceManager.reserve(CHAIN_ID, WALLET));
+        assertEquals(2, node.nonceQueries.get());
+    }
+
+    @Test
+    public void localPendingAfterGapIsNotTrusted() throws Exception
+    {
+        //7 and 8 are still reaching the node; 9 was dropped, so the stored 10 can never be mined
+        node.localPending.add(BigInteger.valueOf(7));
+        node.localPending.add(BigInteger.valueOf(8));
+        node.localPending.add(BigInteger.valueOf(10));
+        assertEquals(BigInteger.valueOf(9), nonceManager.reserve(CHAIN_ID, WALLET));
+        assertEquals(BigInteger.valueOf(10), nonceManager.reserve(CHAIN_ID, WALLET));
+    }
+}
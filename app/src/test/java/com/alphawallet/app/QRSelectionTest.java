@@ -8,6 +8,7 @@ import com.alphawallet.app.entity.Transaction;
 import com.alphawallet.app.entity.TransactionData;
 import com.alphawallet.app.entity.Wallet;
 import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
 import com.alphawallet.app.interact.SignatureGenerateInteract;
 import com.alphawallet.app.repository.TransactionRepositoryType;
 import com.alphawallet.app.repository.entity.RealmAuxData;
@@ -122,6 +123,12 @@ public class QRSelectionTest
                 });
             }
 
+            @Override
+            public Single<SigningSession> openSigningSession(Wallet wallet, int maxSignatures)
+            {
+                return null;
+            }
+
             @Override
             public Transaction fetchCachedTransaction(String walletAddr, String hash)
             {
@@ -0,0 +1,114 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.util.ScopedInstanceTracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-thread scoped instances as used by RealmManager's read and write helpers
+ */
+public class ScopedInstanceTrackerTest
+{
+    private final AtomicInteger opened = new AtomicInteger(0);
+    private final AtomicInteger closed = new AtomicInteger(0);
+    private ScopedInstanceTracker<Object> tracker;
+
+    @Before
+    public void setUp()
+    {
+        tracker = new ScopedInstanceTracker<>(name -> {
+            opened.incrementAndGet();
+            return new Object();
+        }, instance -> closed.incrementAndGet(), true);
+    }
+
+    @Test
+    public void nestedScopesShareOneInstance()
+    {
+        Object outer = tracker.acquire("wallet-db.realm");
+        Object inner = tracker.acquire("wallet-db.realm");
+        assertSame(outer, inner);
+        assertEquals(1, opened.get());
+
+        tracker.release("wallet-db.realm");
+        assertEquals(0, closed.get());
+        assertEquals(1, tracker.getOpenCount());
+
+        tracker.release("wallet-db.realm");
+        assertEquals(1, closed.get());
+        assertEquals(0, tracker.getOpenCount());
+        assertTrue(tracker.describeOpen().isEmpty());
+
+        //different names are separate instances
+        Object a = tracker.acquire("a");
+        Object b = tracker.acquire("b");
+        assertNotSame(a, b);
+        tracker.release("a");
+        tracker.release("b");
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    public void threadsGetTheirOwnInstances() throws Exception
+    {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch allOpen = new CountDownLatch(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++)
+        {
+            pool.execute(() -> {
+                tracker.acquire("WalletData-db.realm");
+                allOpen.countDown();
+                try
+                {
+                    allOpen.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                tracker.release("WalletData-db.realm");
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(threads, opened.get());
+        assertEquals(threads, closed.get());
+        assertEquals(0, tracker.getOpenCount());
+    }
+
+    @Test
+    public void leaksAreReported() throws Exception
+    {
+        Thread leaker = new Thread(() -> tracker.acquire("leaky-db.realm"), "leaker");
+        leaker.start();
+        leaker.join();
+
+        List<String> open = tracker.describeOpen();
+        assertEquals(1, open.size());
+        assertTrue(open.get(0).startsWith("leaker: leaky-db.realm"));
+        assertTrue(open.get(0).contains("ScopedInstanceTrackerTest"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseWithoutAcquire()
+    {
+        tracker.release("never-opened");
+    }
+}
@@ -0,0 +1,289 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.entity.cryptokeys.SignatureFromKey;
+import com.alphawallet.app.entity.cryptokeys.SignatureReturnType;
+import com.alphawallet.app.entity.cryptokeys.SigningSession;
+import com.alphawallet.app.service.KeystoreAccountService;
+
+import org.junit.Test;
+import org.web3j.crypto.Bip32ECKeyPair;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.MnemonicUtils;
+import org.web3j.crypto.Sign;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a signing session gives the same signatures as unlocking the key per message, with a single unlock,
+ * and times both paths
+ */
+public class SigningSessionTest
+{
+    private static final String PASSWORD = "hackintosh";
+    private static final int MESSAGE_COUNT = 16;
+
+    private final ECKeyPair testKey = ECKeyPair.create("Test Key".getBytes());
+
+    private List<byte[]> buildMessages()
+    {
+        List<byte[]> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            messages.add(("trade message " + i).getBytes());
+        }
+        return messages;
+    }
+
+    //web3.js accounts.sign example: key, its address, and the signature of "Some data" with the personal message prefix
+    private static final String VECTOR_KEY = "4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318";
+    private static final String VECTOR_ADDRESS = "2c7536e3605d9c16a7a3d7b1898e529396a65c23";
+    private static final String VECTOR_SIGNATURE = "b91467e570a6466aa9e9876cbcd013baba02900b8979d43fe208a4a4f339f5fd"
+            + "6007e74cd82e037b800186422fc2da167c747ef045e5d18a5f5d4300f8e1a0291c";
+    //BIP39 test mnemonic; its first Ethereum account, m/44'/60'/0'/0/0
+    private static final String MNEMONIC = "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon about";
+    private static final String MNEMONIC_ADDRESS = "9858effd232b4033e47d90003d41ec34ecaeda94";
+
+    private int unlocks;
+
+    // Keystore unlock and key derivation, as in KeyService.signWithKeystore
+    private ECKeyPair unlock(WalletFile walletFile) throws Exception
+    {
+        unlocks++;
+        return Credentials.create(Wallet.decrypt(PASSWORD, walletFile)).getEcKeyPair();
+    }
+
+    // Mnemonic unlock and key derivation, as in the HDKEY path of KeyService.signData; PBKDF2 seed, then BIP44
+    private ECKeyPair unlockHd()
+    {
+        unlocks++;
+        Bip32ECKeyPair master = Bip32ECKeyPair.generateKeyPair(MnemonicUtils.generateSeed(MNEMONIC, ""));
+        int[] path = { 44 | Bip32ECKeyPair.HARDENED_BIT, 60 | Bip32ECKeyPair.HARDENED_BIT, Bip32ECKeyPair.HARDENED_BIT, 0, 0 };
+        return Bip32ECKeyPair.deriveKeyPair(master, path);
+    }
+
+    /**
+     * Signs as KeyService.HDKeySigner does: keccak256 digest signed directly, recovery id 0 or 1
+     */
+    private static class HDSigner implements SigningSession.DigestSigner
+    {
+        private ECKeyPair keyPair;
+
+        HDSigner(ECKeyPair keyPair)
+        {
+            this.keyPair = keyPair;
+        }
+
+        @Override
+        public byte[] sign(byte[] data)
+        {
+            return hdSignature(keyPair, data);
+        }
+
+        @Override
+        public void destroy()
+        {
+            keyPair = null;
+        }
+    }
+
+    private static byte[] hdSignature(ECKeyPair keyPair, byte[] data)
+    {
+        byte[] signature = KeystoreAccountService.bytesFromSignature(Sign.signMessage(Hash.sha3(data), keyPair, false));
+        signature[64] -= 27;
+        return signature;
+    }
+
+    /**
+     * Key holder that counts its use
+     */
+    private static class CountingSigner implements SigningSession.DigestSigner
+    {
+        private ECKeyPair keyPair;
+        int signs;
+        int destroys;
+
+        CountingSigner(ECKeyPair keyPair)
+        {
+            this.keyPair = keyPair;
+        }
+
+        @Override
+        public byte[] sign(byte[] data)
+        {
+            signs++;
+            return KeystoreAccountService.bytesFromSignature(Sign.signMessage(data, keyPair));
+        }
+
+        @Override
+        public void destroy()
+        {
+            destroys++;
+            keyPair = null;
+        }
+    }
+
+    @Test
+    public void sessionMatchesPerMessageSigning() throws Exception
+    {
+        WalletFile walletFile = Wallet.createLight(PASSWORD, testKey);
+        List<byte[]> messages = buildMessages();
+
+        //per message path: unlock the keystore for every message
+        List<byte[]> perMessage = new ArrayList<>();
+        for (byte[] message : messages)
+        {
+            perMessage.add(KeystoreAccountService.bytesFromSignature(Sign.signMessage(message, unlock(walletFile))));
+        }
+        assertEquals(MESSAGE_COUNT, unlocks);
+
+        //session path: one unlock for the batch
+        unlocks = 0;
+        List<SignatureFromKey> batch;
+        try (SigningSession session = SigningSession.fromKeyPair(unlock(walletFile), MESSAGE_COUNT, SigningSession.DEFAULT_TTL))
+        {
+            batch = session.signBatch(messages);
+        }
+        assertEquals(1, unlocks);
+
+        assertEquals(MESSAGE_COUNT, batch.size());
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            assertEquals(SignatureReturnType.SIGNATURE_GENERATED, batch.get(i).sigType);
+            assertArrayEquals(perMessage.get(i), batch.get(i).signature);
+        }
+    }
+
+    @Test
+    public void sessionSignsWithTheWalletKey()
+    {
+        ECKeyPair key = ECKeyPair.create(Numeric.toBigInt(VECTOR_KEY));
+        assertEquals(VECTOR_ADDRESS, Keys.getAddress(key));
+
+        byte[] message = "Some data".getBytes(StandardCharsets.UTF_8);
+        byte[] prefixed = ("\u0019Ethereum Signed Message:\n" + message.length + "Some data").getBytes(StandardCharsets.UTF_8);
+        try (SigningSession session = SigningSession.fromKeyPair(key, 1, SigningSession.DEFAULT_TTL))
+        {
+            SignatureFromKey sig = session.signData(prefixed);
+            assertEquals(SignatureReturnType.SIGNATURE_GENERATED, sig.sigType);
+            assertEquals(VECTOR_SIGNATURE, Numeric.toHexStringNoPrefix(sig.signature));
+        }
+    }
+
+    @Test
+    public void hdSessionUnlocksOnce() throws Exception
+    {
+        List<byte[]> messages = buildMessages();
+
+        //per message path: decode the mnemonic and derive the key for every message
+        List<byte[]> perMessage = new ArrayList<>();
+        for (byte[] message : messages) perMessage.add(hdSignature(unlockHd(), message));
+        assertEquals(MESSAGE_COUNT, unlocks);
+
+        unlocks = 0;
+        ECKeyPair key = unlockHd();
+        assertEquals(MNEMONIC_ADDRESS, Keys.getAddress(key));
+        List<SignatureFromKey> batch;
+        try (SigningSession session = new SigningSession(new HDSigner(key), MESSAGE_COUNT, SigningSession.DEFAULT_TTL))
+        {
+            batch = session.signBatch(messages);
+        }
+        assertEquals(1, unlocks);
+
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            assertEquals(SignatureReturnType.SIGNATURE_GENERATED, batch.get(i).sigType);
+            assertArrayEquals(perMessage.get(i), batch.get(i).signature);
+            //and it's the wallet's key that signed
+            byte[] sig = batch.get(i).signature;
+            Sign.SignatureData data = new Sign.SignatureData((byte) (sig[64] + 27),
+                    Arrays.copyOfRange(sig, 0, 32), Arrays.copyOfRange(sig, 32, 64));
+            BigInteger publicKey = Sign.signedMessageHashToKey(Hash.sha3(messages.get(i)), data);
+            assertEquals(MNEMONIC_ADDRESS, Keys.getAddress(publicKey));
+        }
+    }
+
+    @Test
+    public void sessionBenchmark() throws Exception
+    {
+        WalletFile walletFile = Wallet.createLight(PASSWORD, testKey);
+        List<byte[]> messages = buildMessages();
+
+        long start = System.nanoTime();
+        for (byte[] message : messages) Sign.signMessage(message, unlock(walletFile));
+        long perMessageTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        try (SigningSession session = SigningSession.fromKeyPair(unlock(walletFile), MESSAGE_COUNT, SigningSession.DEFAULT_TTL))
+        {
+            session.signBatch(messages);
+        }
+        long sessionTime = System.nanoTime() - start;
+
+        System.out.println("Signed " + MESSAGE_COUNT + " messages. Per message unlock: " + perMessageTime / 1000000
+                + "ms, session: " + sessionTime / 1000000 + "ms");
+        //sixteen scrypt unlocks against one: far apart, so this holds on a loaded machine
+        assertTrue(sessionTime < perMessageTime);
+    }
+
+    @Test
+    public void sessionUsesOneKeyHolderForBatch() throws Exception
+    {
+        CountingSigner signer = new CountingSigner(testKey);
+        SigningSession session = new SigningSession(signer, MESSAGE_COUNT, SigningSession.DEFAULT_TTL);
+
+        List<SignatureFromKey> batch = session.signBatch(buildMessages());
+        assertEquals(MESSAGE_COUNT, signer.signs);
+        for (SignatureFromKey sig : batch) assertEquals(SignatureReturnType.SIGNATURE_GENERATED, sig.sigType);
+
+        //count used up: key wiped once, no further signing
+        assertFalse(session.isOpen());
+        assertEquals(SignatureReturnType.KEY_AUTHENTICATION_ERROR, session.signData("extra".getBytes()).sigType);
+        session.close();
+        assertEquals(MESSAGE_COUNT, signer.signs);
+        assertEquals(1, signer.destroys);
+    }
+
+    @Test
+    public void sessionWipesKeyAfterCount()
+    {
+        SigningSession session = SigningSession.fromKeyPair(testKey, 2, SigningSession.DEFAULT_TTL);
+        assertEquals(SignatureReturnType.SIGNATURE_GENERATED, session.signData("one".getBytes()).sigType);
+        assertEquals(SignatureReturnType.SIGNATURE_GENERATED, session.signData("two".getBytes()).sigType);
+        assertFalse(session.isOpen());
+        assertEquals(SignatureReturnType.KEY_AUTHENTICATION_ERROR, session.signData("three".getBytes()).sigType);
+    }
+
+    @Test
+    public void sessionWipesKeyAfterTTL() throws Exception
+    {
+        SigningSession session = SigningSession.fromKeyPair(testKey, MESSAGE_COUNT, 50);
+        assertEquals(SignatureReturnType.SIGNATURE_GENERATED, session.signData("one".getBytes()).sigType);
+        Thread.sleep(100);
+        assertEquals(SignatureReturnType.KEY_AUTHENTICATION_ERROR, session.signData("two".getBytes()).sigType);
+        assertEquals(0, session.remaining());
+    }
+
+    @Test
+    public void failedSessionReportsReason()
+    {
+        SigningSession session = SigningSession.failed("Key not found in keystore. Re-import key.");
+        SignatureFromKey sig = session.signData("one".getBytes());
+        assertEquals(SignatureReturnType.KEY_AUTHENTICATION_ERROR, sig.sigType);
+        assertEquals("Key not found in keystore. Re-import key.", sig.failMessage);
+    }
+}
@@ -0,0 +1,213 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.ui.widget.adapter.SortedItemIndex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SortedItemIndexTest
+{
+    private static final int TOKEN_COUNT = 600;
+    private static final int OPERATIONS = 50000;
+
+    private static class Item
+    {
+        final String key;
+        final int weight;
+
+        Item(String key, int weight)
+        {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Same semantics as androidx SortedList: binary search by weight, then items with equal weight are matched by key
+     */
+    private static class SortedItems implements SortedItemIndex.ItemList<Item>
+    {
+        final List<Item> data = new ArrayList<>();
+        int updatedInPlace;
+        int moved;
+        long visited;
+
+        @Override
+        public int add(Item item)
+        {
+            int start = lowerBound(item.weight);
+            int i = start;
+            for (; i < data.size() && data.get(i).weight == item.weight; i++)
+            {
+                visited++;
+                if (data.get(i).key.equals(item.key))
+                {
+                    data.set(i, item);
+                    return i;
+                }
+            }
+            data.add(i, item);
+            return i;
+        }
+
+        @Override
+        public boolean remove(Item item)
+        {
+            int index = indexOf(item);
+            if (index < 0) return false;
+            data.remove(index);
+            return true;
+        }
+
+        @Override
+        public int indexOf(Item item)
+        {
+            for (int i = lowerBound(item.weight); i < data.size() && data.get(i).weight == item.weight; i++)
+            {
+                visited++;
+                if (data.get(i).key.equals(item.key)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public void updateItemAt(int index, Item item)
+        {
+            Item existing = data.get(index);
+            if (compare(existing, item) == 0)
+            {
+                data.set(index, item);
+                updatedInPlace++;
+            }
+            else
+            {
+                data.remove(index);
+                add(item);
+                moved++;
+            }
+        }
+
+        @Override
+        public int compare(Item item1, Item item2)
+        {
+            return Integer.compare(item1.weight, item2.weight);
+        }
+
+        private int lowerBound(int weight)
+        {
+            int lo = 0;
+            int hi = data.size();
+            while (lo < hi)
+            {
+                visited++;
+                int mid = (lo + hi) >>> 1;
+                if (data.get(mid).weight < weight) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    @Test
+    public void randomUpdatesStayInSync()
+    {
+        Random rand = new Random(44);
+        SortedItems list = new SortedItems();
+        SortedItemIndex<Item> index = new SortedItemIndex<>(list);
+        Map<String, Item> expected = new HashMap<>();
+        int sameOrderUpdates = 0;
+
+        for (int op = 0; op < OPERATIONS; op++)
+        {
+            String key = "0x" + Integer.toHexString(rand.nextInt(TOKEN_COUNT)) + "-" + (1 + rand.nextInt(3));
+            //keys are case insensitive, like token ids
+            if (rand.nextBoolean()) key = key.toUpperCase();
+            String lowerKey = key.toLowerCase();
+            int choice = rand.nextInt(100);
+            Item current = expected.get(lowerKey);
+
+            if (choice < 70 && current != null)
+            {
+                //balance update: same weight
+                Item update = new Item(lowerKey, current.weight);
+                int position = index.put(key, update);
+                assertSame(update, list.data.get(position));
+                expected.put(lowerKey, update);
+                sameOrderUpdates++;
+            }
+            else if (choice < 90)
+            {
+                //new token, or renamed: new weight. Some weights are shared to exercise equal ranges
+                Item update = new Item(lowerKey, rand.nextInt(TOKEN_COUNT * 4));
+                int position = index.put(key, update);
+                assertSame(update, list.data.get(position));
+                expected.put(lowerKey, update);
+            }
+            else if (choice < 99)
+            {
+                assertEquals(current != null, index.remove(key));
+                expected.remove(lowerKey);
+            }
+            else if (op % 7 == 0)
+            {
+                list.data.clear();
+                index.clear();
+                expected.clear();
+            }
+
+            if (op % 500 == 0) checkInSync(list, index, expected);
+        }
+
+        checkInSync(list, index, expected);
+        assertTrue(list.updatedInPlace >= sameOrderUpdates);
+        assertEquals(0, list.moved);
+        //each operation is a few binary searches, never a scan of the whole list
+        assertTrue("visited " + list.visited, list.visited < (long) OPERATIONS * 100);
+    }
+
+    @Test
+    public void missingKeys()
+    {
+        SortedItems list = new SortedItems();
+        SortedItemIndex<Item> index = new SortedItemIndex<>(list);
+        assertNull(index.get("0xabc-1"));
+        assertEquals(-1, index.indexOf("0xabc-1"));
+        assertFalse(index.remove("0xabc-1"));
+
+        index.put("0xABC-1", new Item("0xabc-1", 5));
+        assertEquals(0, index.indexOf("0xabc-1"));
+        assertTrue(index.remove("0xabc-1"));
+        assertEquals(0, list.data.size());
+        assertEquals(0, index.size());
+    }
+
+    private static void checkInSync(SortedItems list, SortedItemIndex<Item> index, Map<String, Item> expected)
+    {
+        assertEquals(expected.size(), list.data.size());
+        assertEquals(expected.size(), index.size());
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < list.data.size(); i++)
+        {
+            Item item = list.data.get(i);
+            if (i > 0) assertTrue(list.data.get(i - 1).weight <= item.weight);
+            assertTrue("duplicate " + item.key, seen.add(item.key));
+            assertSame(expected.get(item.key), item);
+            assertSame(item, index.get(item.key));
+            assertEquals(i, index.indexOf(item.key.toUpperCase()));
+        }
+    }
+}
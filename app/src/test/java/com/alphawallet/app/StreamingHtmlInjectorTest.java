@@ -0,0 +1,213 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.web3.StreamingHtmlInjector;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingHtmlInjectorTest
+{
+    private static final String JS = "<script type=\"text/javascript\">window.ethereum = {}; // é中</script>";
+    private static final int FILLER_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Network stream that returns whatever length it likes, so tags get split across reads
+     */
+    private static class ChoppyStream extends InputStream
+    {
+        private final byte[] data;
+        private final Random rand;
+        private final int maxRead;
+        int position;
+        boolean closed;
+
+        ChoppyStream(byte[] data, long seed, int maxRead)
+        {
+            this.data = data;
+            this.rand = new Random(seed);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read()
+        {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0) return 0;
+            if (position >= data.length) return -1;
+            int count = Math.min(Math.min(len, 1 + rand.nextInt(maxRead)), data.length - position);
+            System.arraycopy(data, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void matchesStringInjection() throws IOException
+    {
+        String filler = filler(FILLER_SIZE);
+        String[] pages = {
+                "<html><head><title>Dapp üñî</title><script src=\"app.js\"></script></head><body>" + filler + "</body></html>",
+                "<!DOCTYPE html><HTML><HEAD><META charset=\"utf-8\"><SCRIPT>var a = 1;</SCRIPT></HEAD><BODY>" + filler + "</BODY></HTML>",
+                "<html><head><!--[if lt IE 9]><link rel=\"x\"><![endif]--><script>1</script></head><body>" + filler + "</body></html>",
+                "<html><head><!--[if IE]>old<![endif]--></head><body>" + filler + "</body></html>", //IE tag but no script
+                "<html><head><title>日本</title></head><body>" + filler + "<script>late()</script></body></html>",
+                "<html><head><title>static</title></head><body>" + filler + "</body></html>",
+                "<html><body>" + filler + "</body></html>",
+                "<html><head><style>" + filler + "</style><scrip>not a tag</scrip><script>x()</script></head></html>",
+                "<script>",
+                "<scrip",
+                "x",
+                "\uFEFF<html><head><script></script></head></html>",
+                "\uFEFF",
+        };
+
+        for (int p = 0; p < pages.length; p++)
+        {
+            byte[] page = pages[p].getBytes(StandardCharsets.UTF_8);
+            String decoded = pages[p].startsWith("\uFEFF") ? pages[p].substring(1) : pages[p]; //as ResponseBody.string()
+            String expected = legacyInjectJS(decoded, JS);
+
+            for (int maxRead : new int[] { 1, 3, 7, 100, 8192, 65536 })
+            {
+                if (maxRead < 7 && page.length > 100000) continue;
+                InputStream result = StreamingHtmlInjector.inject(new ChoppyStream(page, p * 31 + maxRead, maxRead), JS.getBytes(StandardCharsets.UTF_8));
+                if (expected.isEmpty())
+                {
+                    assertNull(result);
+                }
+                else
+                {
+                    assertArrayEquals("page " + p + " read " + maxRead, expected.getBytes(StandardCharsets.UTF_8), readAll(result));
+                }
+            }
+        }
+
+        assertNull(StreamingHtmlInjector.inject(new ByteArrayInputStream(new byte[0]), JS.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void onlyPageHeadIsBuffered() throws IOException
+    {
+        byte[] page = ("<html><head><script src=\"app.js\"></script></head><body>" + filler(FILLER_SIZE) + "</body></html>")
+                .getBytes(StandardCharsets.UTF_8);
+        ChoppyStream network = new ChoppyStream(page, 47, 8192);
+
+        InputStream result = StreamingHtmlInjector.inject(network, JS.getBytes(StandardCharsets.UTF_8));
+        assertTrue("read " + network.position + " before streaming", network.position <= 8192);
+
+        byte[] injected = readAll(result);
+        assertTrue(network.closed);
+        assertArrayEquals(legacyInjectJS(new String(page, StandardCharsets.UTF_8), JS).getBytes(StandardCharsets.UTF_8), injected);
+    }
+
+    @Test
+    public void randomPages() throws IOException
+    {
+        Random rand = new Random(47);
+        String[] parts = { "<script", "<SCRIPT", "<ScRiPt", "<!--[if", "</head", "</HEAD>", "<scr", "<!--", "<", "</he",
+                "é", "€", "😀", "text ", "<div>", ">" };
+        for (int run = 0; run < 2000; run++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int count = rand.nextInt(40);
+            for (int i = 0; i < count; i++) sb.append(parts[rand.nextInt(parts.length)]);
+            String html = sb.toString();
+            byte[] page = html.getBytes(StandardCharsets.UTF_8);
+
+            InputStream result = StreamingHtmlInjector.inject(new ChoppyStream(page, run, 1 + rand.nextInt(12)), JS.getBytes(StandardCharsets.UTF_8));
+            if (html.isEmpty())
+            {
+                assertNull(result);
+            }
+            else
+            {
+                assertArrayEquals(html, legacyInjectJS(html, JS).getBytes(StandardCharsets.UTF_8), readAll(result));
+            }
+        }
+    }
+
+    private static String filler(int size)
+    {
+        StringBuilder sb = new StringBuilder(size);
+        int line = 0;
+        while (sb.length() < size)
+        {
+            sb.append("<div class=\"row\"><p>Item ").append(line++).append(" äöü €</p><a href=\"/x\">link</a></div>\n");
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) out.write(buffer, 0, read);
+        in.close();
+        return out.toByteArray();
+    }
+
+    // JsInjectorClient.injectJS(String, String), as it injects the whole page body
+    private static String legacyInjectJS(String html, String js)
+    {
+        if (TextUtils.isEmpty(html))
+        {
+            return html;
+        }
+        int position = legacyInjectionPosition(html);
+        if (position >= 0)
+        {
+            String beforeTag = html.substring(0, position);
+            String afterTab = html.substring(position);
+            return beforeTag + js + afterTab;
+        }
+        return html;
+    }
+
+    private static int legacyInjectionPosition(String body)
+    {
+        body = body.toLowerCase();
+        int ieDetectTagIndex = body.indexOf("<!--[if");
+        int scriptTagIndex = body.indexOf("<script");
+
+        int index;
+        if (ieDetectTagIndex < 0)
+        {
+            index = scriptTagIndex;
+        }
+        else
+        {
+            index = Math.min(scriptTagIndex, ieDetectTagIndex);
+        }
+        if (index < 0)
+        {
+            index = body.indexOf("</head");
+        }
+        if (index < 0)
+        {
+            index = 0;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,85 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.web3j.StructuredDataEncoder;
+
+import org.junit.Test;
+import org.web3j.utils.Numeric;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * EIP-712 encoding against the reference vectors, including nested struct arrays
+ */
+public class StructuredDataEncoderTest
+{
+    private static final String MAIL_TYPES = "\"types\":{"
+            + "\"EIP712Domain\":[{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"version\",\"type\":\"string\"},"
+            + "{\"name\":\"chainId\",\"type\":\"uint256\"},{\"name\":\"verifyingContract\",\"type\":\"address\"}],"
+            + "\"Person\":[{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"wallet\",\"type\":\"address\"}],"
+            + "\"Mail\":[{\"name\":\"from\",\"type\":\"Person\"},{\"name\":\"to\",\"type\":\"Person\"},{\"name\":\"contents\",\"type\":\"string\"}]},";
+
+    private static final String DOMAIN = "\"domain\":{\"name\":\"Ether Mail\",\"version\":\"1\",\"chainId\":1,"
+            + "\"verifyingContract\":\"0xCcCCccccCCCCcCCCCCCcCcCccCcCCCcCcccccccC\"},";
+
+    private static final String MAIL = "{" + MAIL_TYPES + "\"primaryType\":\"Mail\"," + DOMAIN
+            + "\"message\":{\"from\":{\"name\":\"Cow\",\"wallet\":\"0xCD2a3d9F938E13CD947Ec05AbC7FE734Df8DD826\"},"
+            + "\"to\":{\"name\":\"Bob\",\"wallet\":\"0xbBbBBBBbbBBBbbbBbbBbbbbBBbBbbbbBbBbbBBbB\"},\"contents\":\"Hello, Bob!\"}}";
+
+    //Mail with arrays of nested structs
+    private static final String GROUP_MAIL = "{\"types\":{"
+            + "\"EIP712Domain\":[{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"version\",\"type\":\"string\"},"
+            + "{\"name\":\"chainId\",\"type\":\"uint256\"},{\"name\":\"verifyingContract\",\"type\":\"address\"}],"
+            + "\"Person\":[{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"wallets\",\"type\":\"address[]\"}],"
+            + "\"Mail\":[{\"name\":\"from\",\"type\":\"Person\"},{\"name\":\"to\",\"type\":\"Person[]\"},{\"name\":\"contents\",\"type\":\"string\"}],"
+            + "\"Group\":[{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"members\",\"type\":\"Person[]\"}]},"
+            + "\"primaryType\":\"Mail\"," + DOMAIN
+            + "\"message\":{\"from\":{\"name\":\"Cow\",\"wallets\":[\"0xCD2a3d9F938E13CD947Ec05AbC7FE734Df8DD826\",\"0xDeaDbeefdEAdbeefdEadbEEFdeadbeEFdEaDbeeF\"]},"
+            + "\"to\":[{\"name\":\"Bob\",\"wallets\":[\"0xbBbBBBBbbBBBbbbBbbBbbbbBBbBbbbbBbBbbBBbB\",\"0xB0BdaBea57B0BDABeA57b0bdABEA57b0BDabEa57\",\"0xB0B0b0b0b0b0B000000000000000000000000000\"]}],"
+            + "\"contents\":\"Hello, Bob!\"}}";
+
+    @Test
+    public void mailVectors() throws Exception
+    {
+        StructuredDataEncoder encoder = new StructuredDataEncoder(MAIL);
+        assertEquals("Mail(Person from,Person to,string contents)Person(string name,address wallet)", encoder.encodeType("Mail"));
+        assertEquals("0xf2cee375fa42b42143804025fc449deafd50cc031ca257e0b194a650a912090f", Numeric.toHexString(encoder.hashDomain()));
+        assertEquals("0xc52c0ee5d84264471806290a3f2c4cecfc5490626bf912d01f240d7a274b371e",
+                Numeric.toHexString(encoder.hashMessage("Mail", (HashMap<String, Object>) encoder.jsonMessageObject.getMessage())));
+        assertEquals("0xbe609aee343fb3c4b28e1df9e632fca64fcfaede20f02e86244efddf30957bd2", Numeric.toHexString(encoder.hashStructuredData()));
+    }
+
+    @Test
+    public void nestedStructArrayVectors() throws Exception
+    {
+        StructuredDataEncoder encoder = new StructuredDataEncoder(GROUP_MAIL);
+        assertEquals("Mail(Person from,Person[] to,string contents)Person(string name,address[] wallets)", encoder.encodeType("Mail"));
+        assertEquals("Group(string name,Person[] members)Person(string name,address[] wallets)", encoder.encodeType("Group"));
+        assertEquals("0x4bd8a9a2b93427bb184aca81e24beb30ffa3c747e2a33d4225ec08bf12e2e753", Numeric.toHexString(encoder.typeHash("Mail")));
+        assertEquals("0xfabfe1ed996349fc6027709802be19d047da1aa5d6894ff5f6486d92db2e6860", Numeric.toHexString(encoder.typeHash("Person")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bulkHashingMatchesSingle() throws Exception
+    {
+        StructuredDataEncoder encoder = new StructuredDataEncoder(MAIL);
+        HashMap<String, Object> message = (HashMap<String, Object>) encoder.jsonMessageObject.getMessage();
+        List<HashMap<String, Object>> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            HashMap<String, Object> copy = new HashMap<>(message);
+            copy.put("contents", "Hello " + i);
+            messages.add(copy);
+        }
+
+        List<byte[]> hashes = encoder.hashMessages("Mail", messages);
+        for (int i = 0; i < messages.size(); i++)
+        {
+            assertEquals(Numeric.toHexString(encoder.hashMessage("Mail", messages.get(i))), Numeric.toHexString(hashes.get(i)));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.alphawallet.app;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for a node, or for another HTTP API the app calls, for tests that run a service against it.
+ *
+ * As a JSON-RPC node it answers single and batched calls through the test's Handler, after an optional delay, and
+ * counts HTTP requests, calls by method and the largest batch. Requests are served concurrently.
+ */
+public class StubRpcNode
+{
+    public interface Handler
+    {
+        /**
+         * @return the response to one call; see result and error
+         */
+        JsonElement answer(JsonObject call);
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Web3j web3j;
+    private final AtomicInteger httpCalls = new AtomicInteger(0);
+    private final AtomicInteger maxBatch = new AtomicInteger(0);
+    private final Map<String, AtomicInteger> methodCalls = new ConcurrentHashMap<>();
+    private volatile long latency;
+
+    /**
+     * JSON-RPC node at the root path; use getWeb3j to call it
+     */
+    public StubRpcNode(Handler handler) throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> serve(exchange, handler));
+        server.start();
+        web3j = Web3j.build(new HttpService(getUrl() + "/"));
+    }
+
+    /**
+     * Plain HTTP API, eg an explorer or price feed, with the test's handler at the path; reply sends the response
+     */
+    public StubRpcNode(String path, HttpHandler handler) throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext(path, exchange -> {
+            httpCalls.incrementAndGet();
+            handler.handle(exchange);
+        });
+        server.start();
+        web3j = null;
+    }
+
+    public Web3j getWeb3j()
+    {
+        return web3j;
+    }
+
+    /**
+     * @return http://host:port, with no trailing slash
+     */
+    public String getUrl()
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delay before each request is answered
+     */
+    public void setLatency(long latency)
+    {
+        this.latency = latency;
+    }
+
+    public int getHttpCalls()
+    {
+        return httpCalls.get();
+    }
+
+    public int getMaxBatch()
+    {
+        return maxBatch.get();
+    }
+
+    public int getCalls(String method)
+    {
+        AtomicInteger count = methodCalls.get(method);
+        return count != null ? count.get() : 0;
+    }
+
+    public void stop()
+    {
+        if (web3j != null) web3j.shutdown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static JsonObject result(JsonObject call, JsonElement result)
+    {
+        JsonObject response = response(call);
+        response.add("result", result);
+        return response;
+    }
+
+    public static JsonObject result(JsonObject call, String result)
+    {
+        JsonObject response = response(call);
+        response.addProperty("result", result);
+        return response;
+    }
+
+    public static JsonObject error(JsonObject call, int code, String message)
+    {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject response = response(call);
+        response.add("error", error);
+        return response;
+    }
+
+    /**
+     * Sends the response and closes the exchange; a client that has given up is ignored
+     */
+    public static void reply(HttpExchange exchange, int code, String contentType, String body)
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try
+        {
+            if (contentType != null) exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream os = exchange.getResponseBody())
+            {
+                os.write(bytes);
+            }
+        }
+        catch (IOException e)
+        {
+            //client gave up
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private void serve(HttpExchange exchange, Handler handler)
+    {
+        httpCalls.incrementAndGet();
+        JsonElement request = new JsonParser().parse(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        try
+        {
+            if (latency > 0) Thread.sleep(latency);
+        }
+        catch (InterruptedException e)
+        {
+            exchange.close();
+            return;
+        }
+
+        JsonElement response;
+        if (request.isJsonArray())
+        {
+            JsonArray calls = request.getAsJsonArray();
+            maxBatch.accumulateAndGet(calls.size(), Math::max);
+            JsonArray responses = new JsonArray();
+            for (JsonElement call : calls) responses.add(answer(handler, call.getAsJsonObject()));
+            response = responses;
+        }
+        else
+        {
+            response = answer(handler, request.getAsJsonObject());
+        }
+
+        reply(exchange, 200, "application/json", response.toString());
+    }
+
+    private JsonElement answer(Handler handler, JsonObject call)
+    {
+        String method = call.get("method").getAsString();
+        AtomicInteger count = methodCalls.get(method);
+        if (count == null)
+        {
+            methodCalls.putIfAbsent(method, new AtomicInteger(0));
+            count = methodCalls.get(method);
+        }
+        count.incrementAndGet();
+        return handler.answer(call);
+    }
+
+    private static JsonObject response(JsonObject call)
+    {
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.add("id", call.get("id"));
+        return response;
+    }
+}
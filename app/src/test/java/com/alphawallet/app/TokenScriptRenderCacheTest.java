@@ -0,0 +1,109 @@
+package com.alphawallet.app;
+
+import com.alphawallet.app.util.BoundedLruCache;
+import com.alphawallet.app.web3.TokenScriptRenderCache;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Non-UI parts of the TokenScript card render path: LRU eviction, template and view memoization, render keys
+ */
+public class TokenScriptRenderCacheTest
+{
+    private static final String CONTRACT = "0xd8e5f58de3933e1e35f9c65eb72cb188674624f3";
+    private static final String OTHER_CONTRACT = "0x63cCEF733a093E5Bd773b41C96D3eCE361464942";
+
+    @Test
+    public void lruEvictsLeastRecentlyUsedByWeight()
+    {
+        BoundedLruCache<String, byte[]> cache = new BoundedLruCache<>(100, (k, v) -> v.length);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.get("a"); //'b' is now the eldest
+        cache.put("c", new byte[40]);
+
+        assertNull(cache.get("b"));
+        assertEquals(40, cache.get("a").length);
+        assertEquals(80, cache.weight());
+
+        //too big to ever fit; must not flush the cache
+        cache.put("huge", new byte[101]);
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void templatesLoadOnce()
+    {
+        TokenScriptRenderCache cache = new TokenScriptRenderCache();
+        AtomicInteger loads = new AtomicInteger(0);
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals("template-7", cache.getTemplate(7, id -> { loads.incrementAndGet(); return "template-" + id; }));
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void viewsCachedPerContractAndInvalidated()
+    {
+        TokenScriptRenderCache cache = new TokenScriptRenderCache();
+        AtomicInteger parses = new AtomicInteger(0);
+        TokenScriptRenderCache.ViewLoader loader = (chainId, address, viewName) -> {
+            parses.incrementAndGet();
+            return address + ":" + viewName;
+        };
+
+        //alternate between contracts, as a mixed list would
+        for (int i = 0; i < 10; i++)
+        {
+            cache.getView(1, CONTRACT, "item-view", loader);
+            cache.getView(1, OTHER_CONTRACT, "item-view", loader);
+        }
+        assertEquals(2, parses.get());
+
+        //address case doesn't matter
+        cache.getView(1, CONTRACT.toUpperCase().replace("0X", "0x"), "item-view", loader);
+        assertEquals(2, parses.get());
+
+        cache.invalidate(1, CONTRACT);
+        cache.getView(1, CONTRACT, "item-view", loader);
+        cache.getView(1, OTHER_CONTRACT, "item-view", loader);
+        assertEquals(3, parses.get());
+    }
+
+    @Test
+    public void unavailableDefinitionIsNotCached()
+    {
+        TokenScriptRenderCache cache = new TokenScriptRenderCache();
+        AtomicInteger parses = new AtomicInteger(0);
+        TokenScriptRenderCache.ViewLoader loader = (chainId, address, viewName) -> parses.incrementAndGet() == 1 ? null : "<div/>";
+
+        assertEquals("", cache.getView(1, CONTRACT, "view", loader));
+        assertEquals("<div/>", cache.getView(1, CONTRACT, "view", loader));
+        assertEquals("<div/>", cache.getView(1, CONTRACT, "view", loader));
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    public void renderKeyTracksContent()
+    {
+        BigInteger tokenId = BigInteger.valueOf(0x1234);
+        String key = TokenScriptRenderCache.renderKey("<div/>", "h1{}", "name: \"Ticket\",", tokenId);
+
+        assertEquals(key, TokenScriptRenderCache.renderKey("<div/>", "h1{}", "name: \"Ticket\",", tokenId));
+        assertNotEquals(key, TokenScriptRenderCache.renderKey("<div/>", "h1{}", "name: \"Ticket 2\",", tokenId));
+        assertNotEquals(key, TokenScriptRenderCache.renderKey("<div/>", "h1{}", "name: \"Ticket\",", BigInteger.ONE));
+        //field boundaries are part of the key
+        assertNotEquals(TokenScriptRenderCache.renderKey("ab", "c", "", tokenId),
+                TokenScriptRenderCache.renderKey("a", "bc", "", tokenId));
+    }
+}
@@ -1,6 +1,7 @@
 package com.alphawallet.token.web;
 
 import com.alphawallet.token.entity.Attribute;
+import com.github.cliftonlabs.json_simple.JsonArray;
 import com.github.cliftonlabs.json_simple.JsonObject;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -58,7 +59,8 @@ import com.alphawallet.token.entity.TokenScriptResult;
 import com.alphawallet.token.entity.TransactionResult;
 import com.alphawallet.token.tools.ParseMagicLink;
 import com.alphawallet.token.tools.TokenDefinition;
-import com.alphawallet.token.tools.XMLDSigVerifier;
+import com.alphawallet.token.tools.TrustAddressGenerator;
+import com.alphawallet.token.tools.XMLDSigVerificationService;
 import com.alphawallet.token.web.Ethereum.TokenscriptFunction;
 import com.alphawallet.token.web.Ethereum.TransactionHandler;
 import com.alphawallet.token.web.Service.CryptoFunctions;
@@ -72,6 +74,8 @@ import static com.alphawallet.token.web.Ethereum.TokenscriptFunction.ZERO_ADDRES
 public class AppSiteController implements AttributeInterface
 {
     private static CryptoFunctions cryptoFunctions = new CryptoFunctions();
+    private static final XMLDSigVerificationService xmlDSigVerificationService = new XMLDSigVerificationService();
+    private static final int MAX_DERIVE_BATCH = 100; //pairs per deriveTrustAddress request
     private static Map<Integer, Map<String, File>> addresses;
     private static Map<Integer, Map<String, Map<BigInteger, CachedResult>>> transactionResults = new ConcurrentHashMap<>();  //optimisation results
     private static final String appleAssociationConfig = "{\n" +
@@ -555,7 +559,7 @@ public class AppSiteController implements AttributeInterface
     public ResponseEntity<String> validateSSLCertificate(@RequestParam("file") MultipartFile file) throws IOException {
         HttpStatus status = HttpStatus.ACCEPTED;
         JsonObject result = new JsonObject();
-        XMLDsigVerificationResult XMLDsigVerificationResult = new XMLDSigVerifier().VerifyXMLDSig(file.getInputStream());
+        XMLDsigVerificationResult XMLDsigVerificationResult = xmlDSigVerificationService.verify(file.getBytes());
         if (XMLDsigVerificationResult.isValid)
         {
             result.put("result", "pass");
@@ -573,6 +577,53 @@ public class AppSiteController implements AttributeInterface
         return new ResponseEntity<String>(result.toJson(), status);
     }
 
+    /*
+    Derive the express-of-trust and revocation addresses for one or more (contract, digest) pairs:
+
+    $ curl --data-urlencode 'contract=0x63cCEF733a093E5Bd773b41C96D3eCE361464942' --data-urlencode 'digest=z+I6NxdALVtlc3TuUo2QEeV9rwyAmKB4UtQWkTLQhpE=' localhost:8080/api/v1/deriveTrustAddress
+    [{"contract":"0x63cCEF733a093E5Bd773b41C96D3eCE361464942","digest":"z+I6NxdALVtlc3TuUo2QEeV9rwyAmKB4UtQWkTLQhpE=","trustAddress":"0x...","revokeAddress":"0x..."}]
+
+    Repeat the contract and digest parameters to derive several pairs in one request, up to 100 pairs. Digests are
+    base64, so they must be URL encoded ('+' would otherwise arrive as a space).
+     */
+    @PostMapping("/api/v1/deriveTrustAddress")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<String> deriveTrustAddress(@RequestParam("contract") List<String> contracts,
+                                                     @RequestParam("digest") List<String> digests) {
+        if (contracts.size() != digests.size())
+        {
+            JsonObject error = new JsonObject();
+            error.put("failureReason", "Each contract needs a matching digest");
+            return new ResponseEntity<String>(error.toJson(), HttpStatus.BAD_REQUEST);
+        }
+        if (contracts.size() > MAX_DERIVE_BATCH)
+        {
+            JsonObject error = new JsonObject();
+            error.put("failureReason", "At most " + MAX_DERIVE_BATCH + " pairs per request");
+            return new ResponseEntity<String>(error.toJson(), HttpStatus.BAD_REQUEST);
+        }
+
+        List<TrustAddressGenerator.Request> requests = new ArrayList<>();
+        for (int i = 0; i < contracts.size(); i++)
+        {
+            requests.add(new TrustAddressGenerator.Request(contracts.get(i), digests.get(i)));
+        }
+
+        List<TrustAddressGenerator.Response> responses = TrustAddressGenerator.deriveAddresses(requests);
+        JsonArray result = new JsonArray();
+        for (int i = 0; i < responses.size(); i++)
+        {
+            JsonObject entry = new JsonObject();
+            entry.put("contract", contracts.get(i));
+            entry.put("digest", digests.get(i));
+            entry.put("trustAddress", responses.get(i).getTrustAddress());
+            entry.put("revokeAddress", responses.get(i).getRevokeAddress());
+            result.add(entry);
+        }
+        return new ResponseEntity<String>(result.toJson(), HttpStatus.OK);
+    }
+
     private static void loadInfuraKey()
     {
         try (InputStream input = new FileInputStream("../gradle.properties")) {
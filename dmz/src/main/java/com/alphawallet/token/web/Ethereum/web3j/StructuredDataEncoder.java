@@ -12,6 +12,7 @@
  */
 package com.alphawallet.token.web.Ethereum.web3j;
 
+import com.alphawallet.token.tools.EIP712Schema;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.web3j.abi.TypeEncoder;
@@ -26,7 +27,6 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -48,6 +48,7 @@ import static org.web3j.crypto.Hash.sha3String;
 
 public class StructuredDataEncoder {
     public final StructuredData.EIP712Message jsonMessageObject;
+    private final EIP712Schema schema;
 
     // Matches array declarations like arr[5][10], arr[][], arr[][34][], etc.
     // Doesn't match array declarations where there is a 0 in any dimension.
@@ -75,54 +76,34 @@ public class StructuredDataEncoder {
     public StructuredDataEncoder(String jsonMessageInString) throws IOException, RuntimeException {
         // Parse String Message into object and validate
         this.jsonMessageObject = parseJSONMessage(jsonMessageInString);
+        this.schema = compileSchema(jsonMessageObject);
     }
 
-    public Set<String> getDependencies(String primaryType) {
-        // Find all the dependencies of a type
-        HashMap<String, List<StructuredData.Entry>> types = jsonMessageObject.getTypes();
-        Set<String> deps = new HashSet<>();
-
-        if (!types.containsKey(primaryType)) {
-            return deps;
-        }
-
-        List<String> remainingTypes = new ArrayList<>();
-        remainingTypes.add(primaryType);
-
-        while (remainingTypes.size() > 0) {
-            String structName = remainingTypes.get(remainingTypes.size() - 1);
-            remainingTypes.remove(remainingTypes.size() - 1);
-            deps.add(structName);
-
-            for (StructuredData.Entry entry : types.get(primaryType)) {
-                if (!types.containsKey(entry.getType())) {
-                    // Don't expand on non-user defined types
-                } else if (deps.contains(entry.getType())) {
-                    // Skip types which are already expanded
-                } else {
-                    // Encountered a user defined type
-                    remainingTypes.add(entry.getType());
-                }
+    private static EIP712Schema compileSchema(StructuredData.EIP712Message message) {
+        Map<String, List<EIP712Schema.Field>> types = new HashMap<>();
+        for (Map.Entry<String, List<StructuredData.Entry>> struct : message.getTypes().entrySet()) {
+            List<EIP712Schema.Field> fields = new ArrayList<>();
+            for (StructuredData.Entry entry : struct.getValue()) {
+                fields.add(new EIP712Schema.Field(entry.getName(), entry.getType()));
             }
+            types.put(struct.getKey(), fields);
         }
 
-        return deps;
+        return EIP712Schema.compile(types);
     }
 
-    public String encodeStruct(String structName) {
-        HashMap<String, List<StructuredData.Entry>> types = jsonMessageObject.getTypes();
+    public Set<String> getDependencies(String primaryType) {
+        // All the dependencies of a type, including those of nested structs and struct arrays
+        return new HashSet<>(schema.getDependencies(primaryType));
+    }
 
+    public String encodeStruct(String structName) {
         StringBuilder structRepresentation = new StringBuilder(structName + "(");
-        for (StructuredData.Entry entry : types.get(structName)) {
-            structRepresentation.append(String.format("%s %s,", entry.getType(), entry.getName()));
-        }
-
-        //if (structRepresentation.lastIndexOf("(") != (structRepresentation.length()-1))
-        if (types.get(structName).size() > 0)
-        {
-            structRepresentation =
-                    new StringBuilder(
-                            structRepresentation.substring(0, structRepresentation.length() - 1));
+        boolean first = true;
+        for (EIP712Schema.Field field : schema.getFields(structName)) {
+            if (!first) structRepresentation.append(",");
+            structRepresentation.append(String.format("%s %s", field.type, field.name));
+            first = false;
         }
         structRepresentation.append(")");
 
@@ -130,24 +111,12 @@ public class StructuredDataEncoder {
     }
 
     public String encodeType(String primaryType) {
-        Set<String> deps = getDependencies(primaryType);
-        deps.remove(primaryType);
-
-        // Sort the other dependencies based on Alphabetical Order and finally add the primaryType
-        List<String> depsAsList = new ArrayList<>(deps);
-        Collections.sort(depsAsList);
-        depsAsList.add(0, primaryType);
-
-        StringBuilder result = new StringBuilder();
-        for (String structName : depsAsList) {
-            result.append(encodeStruct(structName));
-        }
-
-        return result.toString();
+        // Primary type followed by its dependencies in alphabetical order; computed once per schema
+        return schema.encodeType(primaryType);
     }
 
     public byte[] typeHash(String primaryType) {
-        return Numeric.hexStringToByteArray(sha3String(encodeType(primaryType)));
+        return schema.typeHash(primaryType);
     }
 
     public List<Integer> getArrayDimensionsFromDeclaration(String declaration) {
@@ -421,6 +390,19 @@ public class StructuredDataEncoder {
         return sha3(encodeData(primaryType, data));
     }
 
+    /**
+     * Hash several messages of the same schema, eg a batch of orders; type hashes are shared between them
+     */
+    public List<byte[]> hashMessages(String primaryType, List<HashMap<String, Object>> messages)
+            throws RuntimeException {
+        List<byte[]> hashes = new ArrayList<>(messages.size());
+        for (HashMap<String, Object> data : messages) {
+            hashes.add(hashMessage(primaryType, data));
+        }
+
+        return hashes;
+    }
+
     @SuppressWarnings("unchecked")
     public byte[] hashDomain() throws RuntimeException {
         ObjectMapper oMapper = new ObjectMapper();
@@ -1,14 +1,17 @@
 package com.alphawallet.token.web.Service;
 
 import com.alphawallet.token.entity.SalesOrderMalformed;
+import com.alphawallet.token.tools.MagicLinkFactory;
 import com.alphawallet.token.tools.Numeric;
 import com.alphawallet.token.tools.ParseMagicLink;
-import org.web3j.crypto.ECKeyPair;
-import org.web3j.crypto.Sign;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
-import static com.alphawallet.token.web.Service.SpawnableLinkGenerator.bytesFromSignature;
+import static com.alphawallet.token.web.Service.SpawnableLinkGenerator.linkSigner;
 
 public class EdconLinkGenerator {
 
@@ -40,32 +43,32 @@ public class EdconLinkGenerator {
     private static long expiry = (System.currentTimeMillis() + 5000000000L) / 1000L;;
 
 
-    public static void main(String[] args) throws SalesOrderMalformed {
+    // usage: EdconLinkGenerator [output file], links are written to stdout if no file is given
+    public static void main(String[] args) throws SalesOrderMalformed, IOException, InterruptedException {
         int rounds = 50;
+        List<MagicLinkFactory.LinkSpec> links = new ArrayList<>();
         while(rounds > 0) {
-            new com.alphawallet.token.web.Service.EdconLinkGenerator(date, VIENNA, BLOCKCHAIN_HALL, 1);
+            links.add(new com.alphawallet.token.web.Service.EdconLinkGenerator(date, VIENNA, BLOCKCHAIN_HALL, 1).spec);
             rounds--;
         }
+
+        MagicLinkFactory factory = new MagicLinkFactory(parseMagicLink, chainId, contractAddress, BigInteger.ZERO, linkSigner(privateKey));
+        try (Writer out = args.length > 0 ? new FileWriter(args[0]) : new OutputStreamWriter(System.out)) {
+            factory.writeLinks(links, out, Runtime.getRuntime().availableProcessors());
+        }
     }
 
+    private final MagicLinkFactory.LinkSpec spec;
+
     private EdconLinkGenerator(
             String date,
             long city,
             long venue,
             int quantity
-    ) throws SalesOrderMalformed {
+    ) {
         // Set values here
         List<BigInteger> tokens = setTokenIds(date, city, venue, A, quantity);
-        createSpawnableLink(tokens);
-    }
-
-    private void createSpawnableLink(List<BigInteger> tokens) throws SalesOrderMalformed {
-        byte[] message = parseMagicLink.getSpawnableBytes(tokens, contractAddress, BigInteger.ZERO, expiry);
-        byte[] signature = signMagicLink(message);
-        byte[] linkData = ParseMagicLink.generateSpawnableLeadingLinkBytes(tokens, contractAddress, BigInteger.ZERO, expiry);
-        String link = parseMagicLink.completeUniversalLink(chainId, linkData, signature);
-        System.out.println(link);
-        System.out.println();
+        spec = MagicLinkFactory.LinkSpec.spawnable(tokens, expiry);
     }
 
     private List<BigInteger> setTokenIds(String date, long city, long venue, long category, int quantity)
@@ -90,10 +93,4 @@ public class EdconLinkGenerator {
         return tokens;
     }
 
-    private byte[] signMagicLink(byte[] signData) {
-        ECKeyPair ecKeyPair  = ECKeyPair.create(privateKey);
-        Sign.SignatureData signatureData = Sign.signMessage(signData, ecKeyPair);
-        return bytesFromSignature(signatureData);
-    }
-
 }
@@ -1,13 +1,18 @@
 package com.alphawallet.token.web.Service;
 
 import com.alphawallet.token.entity.SalesOrderMalformed;
+import com.alphawallet.token.tools.MagicLinkFactory;
 import com.alphawallet.token.tools.Numeric;
 import com.alphawallet.token.tools.ParseMagicLink;
 import org.web3j.crypto.ECKeyPair;
 import org.web3j.crypto.Sign;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 class SpawnableLinkGenerator {
@@ -69,7 +74,7 @@ class SpawnableLinkGenerator {
     private static long expiry = (System.currentTimeMillis() + 1000000000) / 1000L;;
 
 
-    public static void main(String[] args) throws SalesOrderMalformed {
+    public static void main(String[] args) throws SalesOrderMalformed, IOException, InterruptedException {
         //TODO set token ids here
         new SpawnableLinkGenerator(date, LONDON, PARKEN_STADIUM, TEAM_A, TEAM_B, 1);
     }
@@ -81,18 +86,16 @@ class SpawnableLinkGenerator {
             String teamA,
             String teamB,
             int quantity
-    ) throws SalesOrderMalformed {
+    ) throws SalesOrderMalformed, IOException, InterruptedException {
         // Set values here
         setTokenIds(date, city, venue, teamA, teamB, THE_CLUB, quantity);
         createSpawnableLink();
     }
 
-    private void createSpawnableLink() throws SalesOrderMalformed {
-        byte[] message = parseMagicLink.getSpawnableBytes(tokens, contractAddress, BigInteger.ZERO, expiry);
-        byte[] signature = signMagicLink(message);
-        byte[] linkData = ParseMagicLink.generateSpawnableLeadingLinkBytes(tokens, contractAddress, BigInteger.ZERO, expiry);
-        String link = parseMagicLink.completeUniversalLink(chainId, linkData, signature);
-        System.out.println(link);
+    private void createSpawnableLink() throws SalesOrderMalformed, IOException, InterruptedException {
+        MagicLinkFactory factory = new MagicLinkFactory(parseMagicLink, chainId, contractAddress, BigInteger.ZERO, linkSigner(privateKey));
+        Writer out = new OutputStreamWriter(System.out);
+        factory.writeLinks(Collections.singletonList(MagicLinkFactory.LinkSpec.spawnable(tokens, expiry)), out, 1);
     }
 
     private void setTokenIds(String date, long city, long venue, String teamA, String teamB, long category, int quantity)
@@ -116,10 +119,10 @@ class SpawnableLinkGenerator {
         }
     }
 
-    private byte[] signMagicLink(byte[] signData) {
-        ECKeyPair ecKeyPair  = ECKeyPair.create(privateKey);
-        Sign.SignatureData signatureData = Sign.signMessage(signData, ecKeyPair);
-        return bytesFromSignature(signatureData);
+    // key pair is derived once, not per link
+    static MagicLinkFactory.LinkSigner linkSigner(BigInteger privateKey) {
+        ECKeyPair ecKeyPair = ECKeyPair.create(privateKey);
+        return message -> bytesFromSignature(Sign.signMessage(message, ecKeyPair));
     }
 
     //TODO this function should be in the libs module not here or in the app
@@ -8,7 +8,10 @@ import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1GeneralizedTime;
 import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1TaggedObject;
+import org.bouncycastle.asn1.ASN1UTCTime;
 import org.bouncycastle.asn1.DERNull;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.DERTaggedObject;
@@ -44,6 +47,53 @@ public class Attestation implements Signable {
 
     }
 
+    /**
+     * Decode an attestation from its DER encoding, ie the output of getPrehash()
+     *
+     * @throws IOException if the encoding isn't valid ASN.1
+     * @throws IllegalArgumentException if it isn't an attestation
+     */
+    public Attestation(byte[] derEncoding) throws IOException {
+        ASN1Sequence asn1 = ASN1Sequence.getInstance(ASN1Primitive.fromByteArray(derEncoding));
+        try {
+            int index = 0;
+            this.version = ASN1Integer.getInstance(ASN1TaggedObject.getInstance(asn1.getObjectAt(index++)).getObject());
+            this.serialNumber = ASN1Integer.getInstance(asn1.getObjectAt(index++));
+            this.signature = AlgorithmIdentifier.getInstance(asn1.getObjectAt(index++));
+            this.issuer = decodeName(asn1.getObjectAt(index++));
+
+            // the validity window is optional, and told apart from the subject by its time values
+            ASN1Sequence next = ASN1Sequence.getInstance(asn1.getObjectAt(index));
+            if (next.size() == 2 && isTime(next.getObjectAt(0))) {
+                this.notValidBefore = toGeneralizedTime(next.getObjectAt(0));
+                this.notValidAfter = toGeneralizedTime(next.getObjectAt(1));
+                index++;
+            }
+
+            this.subject = decodeName(asn1.getObjectAt(index++));
+            ASN1Encodable spki = asn1.getObjectAt(index++);
+            this.subjectPublicKeyInfo = spki instanceof DERNull ? null : SubjectPublicKeyInfo.getInstance(spki);
+
+            for (; index < asn1.size(); index++) {
+                ASN1Encodable element = asn1.getObjectAt(index);
+                if (element instanceof ASN1TaggedObject) {
+                    ASN1TaggedObject tagged = (ASN1TaggedObject) element;
+                    if (tagged.getTagNo() == 3) {
+                        this.extensions = ASN1Sequence.getInstance(tagged.getObject());
+                    } else if (tagged.getTagNo() == 4) {
+                        this.dataObject = ASN1Sequence.getInstance(tagged.getObject());
+                    } else {
+                        throw new IllegalArgumentException("Unknown attestation field tag " + tagged.getTagNo());
+                    }
+                } else {
+                    this.smartcontracts = ASN1Sequence.getInstance(element);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | ClassCastException e) {
+            throw new IllegalArgumentException("Not an attestation", e);
+        }
+    }
+
     public int getVersion() {
         return version.getValue().intValueExact();
     }
@@ -210,6 +260,46 @@ public class Attestation implements Signable {
         return true;
     }
 
+    /**
+     * Returns true if the time is inside the validity window. An attestation without a window is always in it.
+     */
+    public boolean isValidAt(Date time) {
+        if (notValidBefore == null && notValidAfter == null) {
+            return true;
+        }
+        if (notValidBefore == null || notValidAfter == null) {
+            return false;
+        }
+        Date before = getNotValidBefore();
+        Date after = getNotValidAfter();
+        return !before.after(after) && !time.before(before) && !time.after(after);
+    }
+
+    /**
+     * Returns true if the smart contract list, when present, is non-empty and holds only positive integers
+     */
+    public boolean hasValidSmartcontracts() {
+        if (smartcontracts == null) {
+            return true;
+        }
+        if (smartcontracts.size() == 0) {
+            return false;
+        }
+        for (ASN1Encodable contract : smartcontracts) {
+            if (!(contract instanceof ASN1Integer) || ((ASN1Integer) contract).getValue().signum() <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the attestation may be used with the contract; one with no smart contract list isn't restricted
+     */
+    public boolean isValidForContract(long contract) {
+        return smartcontracts == null || getSmartcontracts().contains(contract);
+    }
+
     @Override
     public String getMessage() {
         throw new RuntimeException("Not allowed");
@@ -269,6 +359,22 @@ public class Attestation implements Signable {
         return null;
     }
 
+    private static X500Name decodeName(ASN1Encodable name) {
+        ASN1Sequence seq = ASN1Sequence.getInstance(name);
+        return seq.size() == 0 ? null : X500Name.getInstance(seq);
+    }
+
+    private static boolean isTime(ASN1Encodable value) {
+        return value instanceof ASN1GeneralizedTime || value instanceof ASN1UTCTime;
+    }
+
+    private static ASN1GeneralizedTime toGeneralizedTime(ASN1Encodable value) {
+        if (value instanceof ASN1GeneralizedTime) {
+            return (ASN1GeneralizedTime) value;
+        }
+        return new ASN1GeneralizedTime(Time.getInstance(value).getDate());
+    }
+
     @Override
     public SignMessageType getMessageType()
     {
@@ -1,64 +1,67 @@
 package com.alphawallet.attestation;
 
-import com.alphawallet.attestation.Attestation;
 import com.alphawallet.token.entity.Signable;
 import java.security.KeyPair;
 import java.security.PublicKey;
 import java.security.Security;
 import java.security.Signature;
-import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.ASN1ObjectIdentifier;
-import org.bouncycastle.asn1.ASN1Primitive;
-import org.bouncycastle.asn1.DERBitString;
-import org.bouncycastle.asn1.DERSequence;
-import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 public class AttestationManager {
 //  private static final AlgorithmIdentifier identifier = new AlgorithmIdentifier(new ASN1ObjectIdentifier(Attestation.OID_SHA256ECDSA));
 
     private final KeyPair keys;
-    private final Signature sig;
+    // Signature objects are stateful, so each thread using the manager gets its own
+    private final ThreadLocal<Signature> sig;
 
-    public AttestationManager(String signatureOid, KeyPair keys) {
+    public AttestationManager(final String signatureOid, KeyPair keys) {
         this.keys = keys;
-        try {
-            Security.addProvider(new BouncyCastleProvider());
-            sig = Signature.getInstance(signatureOid, "BC");
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        newSignature(signatureOid); // fail here rather than on first use if the algorithm isn't supported
+        this.sig = new ThreadLocal<Signature>() {
+            @Override
+            protected Signature initialValue() {
+                return newSignature(signatureOid);
+            }
+        };
     }
 
     public byte[] sign(Signable signable) {
         try {
             byte[] toSign = signable.getPrehash();
-            sig.initSign(keys.getPrivate());
-            sig.update(toSign);
-            return sig.sign();
+            Signature signature = sig.get();
+            signature.initSign(keys.getPrivate());
+            signature.update(toSign);
+            return signature.sign();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     public byte[] constructSignedAttestation(Attestation unsignedAtt, byte[] signature) {
+        return new SignedAttestation(unsignedAtt, signature).getDerEncoding();
+    }
+
+    public SignedAttestation signAttestation(Attestation unsignedAtt) {
+        return new SignedAttestation(unsignedAtt, sign(unsignedAtt));
+    }
+
+    public boolean verifySigned(Signable unsignedAtt, byte[] signature, PublicKey verificationKey) {
         try {
-            byte[] toSign = unsignedAtt.getPrehash();
-            ASN1EncodableVector res = new ASN1EncodableVector();
-            res.add(ASN1Primitive.fromByteArray(toSign));
-            res.add(new AlgorithmIdentifier(new ASN1ObjectIdentifier(unsignedAtt.getSignature())));
-            res.add(new DERBitString(signature));
-            return new DERSequence(res).getEncoded();
+            Signature verifier = sig.get();
+            verifier.initVerify(verificationKey);
+            verifier.update(unsignedAtt.getPrehash());
+            return verifier.verify(signature);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public boolean verifySigned(Signable unsignedAtt, byte[] signature, PublicKey verificationKey) {
+    static Signature newSignature(String signatureOid) {
         try {
-            sig.initVerify(verificationKey);
-            sig.update(unsignedAtt.getPrehash());
-            return sig.verify(signature);
+            if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+                Security.addProvider(new BouncyCastleProvider());
+            }
+            return Signature.getInstance(signatureOid, "BC");
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,110 @@
+package com.alphawallet.attestation;
+
+import com.alphawallet.token.tools.DaemonThreadFactory;
+
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies signed attestations from an issuer: the signature, the validity window and the smart contract list.
+ * Safe to share between threads; each thread verifies with its own Signature instances, and verifyAll checks
+ * many attestations in parallel on the verifier's daemon threads. Close the verifier when done with it.
+ */
+public class AttestationVerifier implements AutoCloseable {
+    private final PublicKey issuerKey;
+    private final ExecutorService verifyPool;
+    private final ThreadLocal<Map<String, Signature>> signatures = new ThreadLocal<Map<String, Signature>>() {
+        @Override
+        protected Map<String, Signature> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    public AttestationVerifier(PublicKey issuerKey) {
+        this(issuerKey, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AttestationVerifier(PublicKey issuerKey, int threads) {
+        this.issuerKey = issuerKey;
+        this.verifyPool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("attestation-verify"));
+    }
+
+    /**
+     * Returns true if the attestation is well formed, currently valid and signed by the issuer
+     */
+    public boolean verify(SignedAttestation signed) {
+        return verify(signed, new Date());
+    }
+
+    public boolean verify(SignedAttestation signed, Date time) {
+        Attestation att = signed.getAttestation();
+        if (!att.isValid() || !signed.isAlgorithmConsistent() || !att.isValidAt(time) || !att.hasValidSmartcontracts()) {
+            return false;
+        }
+        return checkSignature(signed);
+    }
+
+    /**
+     * As verify, and the attestation must also allow use with the contract
+     */
+    public boolean verifyForContract(SignedAttestation signed, long contract) {
+        return verify(signed) && signed.getAttestation().isValidForContract(contract);
+    }
+
+    /**
+     * Decode and verify DER encoded signed attestations in parallel
+     *
+     * @return results in the same order as the attestations; false for any that couldn't be decoded
+     */
+    public List<Boolean> verifyAll(List<byte[]> encodedAttestations) throws InterruptedException {
+        final Date now = new Date();
+        List<Future<Boolean>> pending = new ArrayList<>();
+        for (final byte[] encoded : encodedAttestations) {
+            pending.add(verifyPool.submit(() -> verify(new SignedAttestation(encoded), now)));
+        }
+
+        List<Boolean> results = new ArrayList<>();
+        for (Future<Boolean> result : pending) {
+            try {
+                results.add(result.get());
+            } catch (ExecutionException e) {
+                results.add(false);
+            }
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        verifyPool.shutdown();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private boolean checkSignature(SignedAttestation signed) {
+        try {
+            Map<String, Signature> threadSignatures = signatures.get();
+            Signature sig = threadSignatures.get(signed.getSignatureAlgorithm());
+            if (sig == null) {
+                sig = AttestationManager.newSignature(signed.getSignatureAlgorithm());
+                threadSignatures.put(signed.getSignatureAlgorithm(), sig);
+            }
+            sig.initVerify(issuerKey);
+            sig.update(signed.getSignedBytes());
+            return sig.verify(signed.getSignature());
+        } catch (Exception e) {
+            return false; // unsupported algorithm or malformed signature
+        }
+    }
+}
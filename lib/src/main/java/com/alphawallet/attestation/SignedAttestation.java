@@ -0,0 +1,86 @@
+package com.alphawallet.attestation;
+
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+
+import java.io.IOException;
+
+/**
+ * An attestation together with its issuer's signature, as encoded by AttestationManager.constructSignedAttestation:
+ * SEQUENCE { attestation, signatureAlgorithm, signature BIT STRING }
+ */
+public class SignedAttestation {
+    private final Attestation attestation;
+    private final byte[] signedBytes; // the DER encoding the signature covers
+    private final String signatureAlgorithm;
+    private final byte[] signature;
+
+    public SignedAttestation(Attestation attestation, byte[] signature) {
+        this.attestation = attestation;
+        this.signedBytes = attestation.getPrehash();
+        this.signatureAlgorithm = attestation.getSignature();
+        this.signature = signature.clone();
+    }
+
+    /**
+     * Decode a signed attestation
+     *
+     * @throws IOException if the encoding isn't valid ASN.1
+     * @throws IllegalArgumentException if it isn't a signed attestation
+     */
+    public SignedAttestation(byte[] derEncoding) throws IOException {
+        ASN1Sequence asn1 = ASN1Sequence.getInstance(ASN1Primitive.fromByteArray(derEncoding));
+        if (asn1.size() != 3) {
+            throw new IllegalArgumentException("Signed attestation must have 3 elements, found " + asn1.size());
+        }
+        try {
+            this.signedBytes = asn1.getObjectAt(0).toASN1Primitive().getEncoded();
+            this.attestation = new Attestation(signedBytes);
+            this.signatureAlgorithm = AlgorithmIdentifier.getInstance(asn1.getObjectAt(1)).getAlgorithm().getId();
+            this.signature = DERBitString.getInstance(asn1.getObjectAt(2)).getBytes();
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Not a signed attestation", e);
+        }
+    }
+
+    public Attestation getAttestation() {
+        return attestation;
+    }
+
+    public byte[] getSignedBytes() {
+        return signedBytes.clone();
+    }
+
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    public byte[] getSignature() {
+        return signature.clone();
+    }
+
+    /**
+     * Returns true if the outer signature algorithm matches the one named inside the attestation,
+     * as required for X509 certificates
+     */
+    public boolean isAlgorithmConsistent() {
+        return signatureAlgorithm.equals(attestation.getSignature());
+    }
+
+    public byte[] getDerEncoding() {
+        try {
+            ASN1EncodableVector res = new ASN1EncodableVector();
+            res.add(ASN1Primitive.fromByteArray(signedBytes));
+            res.add(new AlgorithmIdentifier(new ASN1ObjectIdentifier(signatureAlgorithm)));
+            res.add(new DERBitString(signature));
+            return new DERSequence(res).getEncoded();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.alphawallet.token.tools;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named daemon threads for the verify and signing pools, so a pool that isn't closed can't keep the JVM alive
+ */
+public class DaemonThreadFactory implements ThreadFactory
+{
+    private final String name;
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    public DaemonThreadFactory(String name)
+    {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable r)
+    {
+        Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
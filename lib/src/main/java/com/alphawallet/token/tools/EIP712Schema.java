@@ -0,0 +1,200 @@
+package com.alphawallet.token.tools;
+
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compiled EIP-712 type schema: for each struct the full dependency set, encodeType string and type hash are
+ * computed once. Schemas are cached by their type definitions, so messages that share a schema (eg repeated
+ * permit or order signing requests) don't repeat the work. Shared by the app and dmz structured data encoders.
+ */
+public class EIP712Schema
+{
+    private static final int MAX_CACHED_SCHEMAS = 32;
+
+    private static final Map<String, EIP712Schema> schemaCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, EIP712Schema>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EIP712Schema> eldest)
+                {
+                    return size() > MAX_CACHED_SCHEMAS;
+                }
+            });
+
+    public static class Field
+    {
+        public final String name;
+        public final String type;
+
+        public Field(String name, String type)
+        {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, List<Field>> types;
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, String> encodedTypes = new HashMap<>();
+    private final Map<String, byte[]> typeHashes = new HashMap<>();
+
+    private EIP712Schema(Map<String, List<Field>> types)
+    {
+        this.types = types;
+        for (String structName : types.keySet())
+        {
+            dependencies.put(structName, findDependencies(structName));
+        }
+        for (String structName : types.keySet())
+        {
+            String encoded = buildEncodeType(structName);
+            encodedTypes.put(structName, encoded);
+            typeHashes.put(structName, keccak(encoded.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Compiled schema for the type definitions, from the cache if an identical schema has been seen
+     *
+     * @param types struct name to its fields, in declaration order
+     */
+    public static EIP712Schema compile(Map<String, List<Field>> types)
+    {
+        String key = schemaKey(types);
+        EIP712Schema schema = schemaCache.get(key);
+        if (schema == null)
+        {
+            schema = new EIP712Schema(types);
+            schemaCache.put(key, schema);
+        }
+        return schema;
+    }
+
+    public boolean isStruct(String type)
+    {
+        return types.containsKey(type);
+    }
+
+    public List<Field> getFields(String structName)
+    {
+        return types.get(structName);
+    }
+
+    /**
+     * @return the struct and every struct it references, directly or transitively; empty if not a struct
+     */
+    public Set<String> getDependencies(String structName)
+    {
+        Set<String> deps = dependencies.get(structName);
+        return deps != null ? Collections.unmodifiableSet(deps) : Collections.<String>emptySet();
+    }
+
+    /**
+     * @return eg "Mail(Person from,Person to,string contents)Person(string name,address wallet)"
+     */
+    public String encodeType(String structName)
+    {
+        String encoded = encodedTypes.get(structName);
+        return encoded != null ? encoded : buildEncodeType(structName);
+    }
+
+    /**
+     * @return keccak256 of encodeType
+     */
+    public byte[] typeHash(String structName)
+    {
+        byte[] hash = typeHashes.get(structName);
+        return hash != null ? hash.clone() : keccak(encodeType(structName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Struct name for a field type, stripping any array dimensions ("Person[][2]" -> "Person")
+     */
+    public static String baseType(String type)
+    {
+        int index = type.indexOf('[');
+        return index >= 0 ? type.substring(0, index) : type;
+    }
+
+    private Set<String> findDependencies(String primaryType)
+    {
+        Set<String> deps = new LinkedHashSet<>();
+        Deque<String> remaining = new ArrayDeque<>();
+        remaining.push(primaryType);
+
+        while (!remaining.isEmpty())
+        {
+            String structName = remaining.pop();
+            if (!deps.add(structName)) continue;
+            for (Field field : types.get(structName))
+            {
+                String fieldType = baseType(field.type);
+                if (types.containsKey(fieldType) && !deps.contains(fieldType)) remaining.push(fieldType);
+            }
+        }
+
+        return deps;
+    }
+
+    private String buildEncodeType(String primaryType)
+    {
+        if (!types.containsKey(primaryType)) return "";
+
+        //primary type first, then the other dependencies in alphabetical order
+        List<String> deps = new ArrayList<>(dependencies.get(primaryType));
+        deps.remove(primaryType);
+        Collections.sort(deps);
+        deps.add(0, primaryType);
+
+        StringBuilder sb = new StringBuilder();
+        for (String structName : deps)
+        {
+            sb.append(structName).append("(");
+            boolean first = true;
+            for (Field field : types.get(structName))
+            {
+                if (!first) sb.append(",");
+                sb.append(field.type).append(" ").append(field.name);
+                first = false;
+            }
+            sb.append(")");
+        }
+
+        return sb.toString();
+    }
+
+    private static String schemaKey(Map<String, List<Field>> types)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Field>> entry : new TreeMap<>(types).entrySet())
+        {
+            sb.append(entry.getKey()).append("(");
+            for (Field field : entry.getValue())
+            {
+                sb.append(field.type).append(" ").append(field.name).append(",");
+            }
+            sb.append(")");
+        }
+        return sb.toString();
+    }
+
+    private static byte[] keccak(byte[] input)
+    {
+        Keccak.Digest256 digest = new Keccak.Digest256();
+        digest.update(input);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,242 @@
+package com.alphawallet.token.tools;
+
+import com.alphawallet.token.entity.EthereumWriteBuffer;
+import com.alphawallet.token.entity.SalesOrderMalformed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.alphawallet.token.tools.ParseMagicLink.normal;
+import static com.alphawallet.token.tools.ParseMagicLink.spawnable;
+
+/**
+ * Generates many magic links for one contract and price. The price and contract address are encoded once,
+ * so each link only encodes its expiry and tokens before it's signed. Byte for byte the links are the same as
+ * ParseMagicLink.generateSpawnableLeadingLinkBytes / generateLeadingLinkBytes signed over getSpawnableBytes / getTradeBytes.
+ *
+ * writeLinks signs in parallel and streams the links out in order, so a run of thousands of links isn't held in memory.
+ */
+public class MagicLinkFactory
+{
+    private final static BigInteger maxPrice = Convert.toWei(BigDecimal.valueOf(0xFFFFFFFFL),
+            Convert.Unit.SZABO).toBigInteger();
+    private static final int MESSAGE_HEADER_SIZE = 32 + 32 + 20;
+    private static final int LINK_HEADER_SIZE = 1 + 4 + 4 + 20;
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    /**
+     * Signs a link message; must return the 65 byte r|s|v signature and be safe to call from several threads
+     */
+    public interface LinkSigner
+    {
+        byte[] sign(byte[] message);
+    }
+
+    /**
+     * The part of a link that varies: spawnable token ids, or indices of tokens to trade, and the expiry
+     */
+    public static class LinkSpec
+    {
+        final byte type;
+        final List<BigInteger> tokenIds;
+        final int[] indices;
+        final long expiry;
+
+        private LinkSpec(byte type, List<BigInteger> tokenIds, int[] indices, long expiry)
+        {
+            this.type = type;
+            this.tokenIds = tokenIds;
+            this.indices = indices;
+            this.expiry = expiry;
+        }
+
+        public static LinkSpec spawnable(List<BigInteger> tokenIds, long expiry)
+        {
+            return new LinkSpec(spawnable, tokenIds, null, expiry);
+        }
+
+        public static LinkSpec trade(int[] indices, long expiry)
+        {
+            return new LinkSpec(normal, null, indices, expiry);
+        }
+    }
+
+    private final ParseMagicLink parser;
+    private final int chainId;
+    private final LinkSigner signer;
+    private final byte[] messagePrice;  //32 byte price, signed message
+    private final byte[] messageAddress; //20 byte contract address, both signed message and link
+    private final byte[] linkPrice;     //4 byte price in szabo, link
+
+    public MagicLinkFactory(ParseMagicLink parser, int chainId, String contractAddress, BigInteger priceWei,
+                            LinkSigner signer) throws SalesOrderMalformed
+    {
+        if (priceWei.compareTo(maxPrice) > 0)
+        {
+            throw new SalesOrderMalformed("Order's price too high to be used in a link");
+        }
+
+        this.parser = parser;
+        this.chainId = chainId;
+        this.signer = signer;
+        this.messagePrice = Numeric.toBytesPadded(priceWei, 32);
+        this.messageAddress = Numeric.toBytesPadded(new BigInteger(Numeric.cleanHexPrefix(contractAddress), 16), 20);
+
+        try
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(4);
+            EthereumWriteBuffer wb = new EthereumWriteBuffer(buffer);
+            wb.write4ByteMicroEth(priceWei);
+            wb.close();
+            this.linkPrice = buffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new SalesOrderMalformed(e.getMessage()); //not possible writing to memory
+        }
+    }
+
+    /**
+     * The message the link's signature covers, as built by the contract
+     */
+    public byte[] getMessage(LinkSpec spec) throws SalesOrderMalformed
+    {
+        boolean isSpawnable = spec.type == spawnable;
+        int tokenBytes = isSpawnable ? spec.tokenIds.size() * 32 : spec.indices.length * 2;
+        try
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(MESSAGE_HEADER_SIZE + tokenBytes);
+            EthereumWriteBuffer wb = new EthereumWriteBuffer(buffer);
+            wb.write(messagePrice);
+            wb.write32(BigInteger.valueOf(checkExpiry(spec.expiry)));
+            wb.write(messageAddress);
+            if (isSpawnable)
+            {
+                wb.writeTokenIds(spec.tokenIds);
+            }
+            else
+            {
+                for (int i : spec.indices)
+                {
+                    wb.writeShort(i); //big endian uint16
+                }
+            }
+            wb.close();
+            return buffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new SalesOrderMalformed(e.getMessage());
+        }
+    }
+
+    /**
+     * The link bytes before the signature
+     */
+    public byte[] getLinkBytes(LinkSpec spec) throws SalesOrderMalformed
+    {
+        boolean isSpawnable = spec.type == spawnable;
+        int tokenBytes = isSpawnable ? spec.tokenIds.size() * 32 : spec.indices.length * 2;
+        try
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(LINK_HEADER_SIZE + tokenBytes);
+            EthereumWriteBuffer wb = new EthereumWriteBuffer(buffer);
+            wb.writeByte(spec.type);
+            wb.write(linkPrice);
+            wb.writeUnsigned4(checkExpiry(spec.expiry));
+            wb.write(messageAddress);
+            if (isSpawnable)
+            {
+                wb.writeTokenIds(spec.tokenIds);
+            }
+            else
+            {
+                wb.writeCompressedIndices(spec.indices);
+            }
+            wb.close();
+            return buffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new SalesOrderMalformed(e.getMessage());
+        }
+    }
+
+    public String createLink(LinkSpec spec) throws SalesOrderMalformed
+    {
+        byte[] signature = signer.sign(getMessage(spec));
+        return parser.completeUniversalLink(chainId, getLinkBytes(spec), signature);
+    }
+
+    /**
+     * Create a link for each spec, signing on a pool of threads, and write them one per line in the order given.
+     * Stops at the first link that can't be created.
+     *
+     * @return number of links written
+     */
+    public int writeLinks(List<LinkSpec> specs, Writer out, int threads) throws IOException, SalesOrderMalformed, InterruptedException
+    {
+        ExecutorService signPool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("magiclink-sign"));
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        int written = 0;
+        try
+        {
+            for (final LinkSpec spec : specs)
+            {
+                //bound the links waiting to be written, so the output streams rather than accumulating
+                if (pending.size() >= threads * IN_FLIGHT_PER_THREAD)
+                {
+                    writeLine(out, pending.removeFirst());
+                    written++;
+                }
+                pending.addLast(signPool.submit(() -> createLink(spec)));
+            }
+
+            while (!pending.isEmpty())
+            {
+                writeLine(out, pending.removeFirst());
+                written++;
+            }
+            out.flush();
+            return written;
+        }
+        finally
+        {
+            for (Future<String> f : pending) f.cancel(true);
+            signPool.shutdown();
+        }
+    }
+
+    private static void writeLine(Writer out, Future<String> link) throws IOException, SalesOrderMalformed, InterruptedException
+    {
+        try
+        {
+            out.write(link.get());
+            out.write('\n');
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof SalesOrderMalformed) throw (SalesOrderMalformed) e.getCause();
+            throw new SalesOrderMalformed(String.valueOf(e.getCause()));
+        }
+    }
+
+    private static long checkExpiry(long expiry) throws SalesOrderMalformed
+    {
+        if (expiry < 0 || expiry > 0xFFFFFFFFL)
+        {
+            throw new SalesOrderMalformed("Expiry out of range for a link: " + expiry);
+        }
+        return expiry;
+    }
+}
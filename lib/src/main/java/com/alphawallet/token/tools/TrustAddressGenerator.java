@@ -3,21 +3,18 @@ package com.alphawallet.token.tools;
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.params.ECDomainParameters;
-import org.bouncycastle.jcajce.provider.asymmetric.util.EC5Util;
-import org.bouncycastle.jce.ECNamedCurveTable;
-import org.bouncycastle.jce.ECPointUtil;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
-import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
 import org.bouncycastle.jcajce.provider.digest.Keccak;
 import org.bouncycastle.util.encoders.Hex;
 
 import java.math.BigInteger;
 import java.security.*;
-import java.security.interfaces.ECPublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /***** WARNING *****
  *
@@ -34,6 +31,14 @@ public class TrustAddressGenerator {
 
     public static final byte[] masterPubKey = Hex.decode("04f0985bd9dbb6f461adc994a0c12595716a7f4fb2879bfc5155dffec3770096201c13f8314b46db8d8177887f8d95af1f2dd217291ce6ffe9183681186696bbe5");
 
+    // every derivation multiplies the same master point, so decode it once and precompute its comb table
+    private static final ECPoint MASTER_POINT = CURVE.getCurve().decodePoint(masterPubKey);
+    private static final FixedPointCombMultiplier MULTIPLIER = new FixedPointCombMultiplier();
+
+    static {
+        FixedPointUtil.precompute(MASTER_POINT);
+    }
+
     public static String getTrustAddress(String contractAddress, String digest) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException {
         return preimageToAddress((contractAddress + "TRUST" + digest).getBytes());
     }
@@ -45,37 +50,41 @@ public class TrustAddressGenerator {
     // this won't make sense at all if you didn't read security.md
     // https://github.com/AlphaWallet/TokenScript/blob/master/doc/security.md
     public static String preimageToAddress(byte[] preimage) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException {
-        Security.addProvider(new BouncyCastleProvider());
+        return getAddress(derivePoint(preimage).normalize());
+    }
+
+    /**
+     * Trust and revoke addresses for many (contract, digest) pairs. The derived points are normalised together,
+     * which costs one field inversion for the whole batch rather than one per address.
+     *
+     * @return responses in the same order as the requests
+     */
+    public static List<Response> deriveAddresses(List<Request> requests) {
+        ECPoint[] points = new ECPoint[requests.size() * 2];
+        for (int i = 0; i < requests.size(); i++) {
+            Request req = requests.get(i);
+            points[i * 2] = derivePoint((req.contract + "TRUST" + req.digest).getBytes());
+            points[i * 2 + 1] = derivePoint((req.contract + "REVOKE" + req.digest).getBytes());
+        }
+
+        CURVE.getCurve().normalizeAll(points);
 
+        List<Response> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            responses.add(new Response(getAddress(points[i * 2]), getAddress(points[i * 2 + 1])));
+        }
+        return responses;
+    }
+
+    private static ECPoint derivePoint(byte[] preimage) {
         // get the hash of the preimage text
         Keccak.Digest256 digest = new Keccak.Digest256();
         digest.update(preimage);
         byte[] hash = digest.digest();
 
         // use the hash to derive a new address
-        BigInteger keyDerivationFactor = new BigInteger(Numeric.toHexStringNoPrefix(hash), 16);
-        ECPoint donatePKPoint = extractPublicKey(decodeKey(masterPubKey));
-        ECPoint digestPKPoint = donatePKPoint.multiply(keyDerivationFactor);
-        return getAddress(digestPKPoint);
-    }
-
-    private static ECPoint extractPublicKey(ECPublicKey ecPublicKey) {
-        java.security.spec.ECPoint publicPointW = ecPublicKey.getW();
-        BigInteger xCoord = publicPointW.getAffineX();
-        BigInteger yCoord = publicPointW.getAffineY();
-        return CURVE.getCurve().createPoint(xCoord, yCoord);
-    }
-
-    private static ECPublicKey decodeKey(byte[] encoded)
-            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException {
-        ECNamedCurveParameterSpec params = ECNamedCurveTable.getParameterSpec("secp256k1");
-        KeyFactory fact = KeyFactory.getInstance("ECDSA", "BC");
-        ECCurve curve = params.getCurve();
-        java.security.spec.EllipticCurve ellipticCurve = EC5Util.convertCurve(curve, params.getSeed());
-        java.security.spec.ECPoint point = ECPointUtil.decodePoint(ellipticCurve, encoded);
-        java.security.spec.ECParameterSpec params2 = EC5Util.convertSpec(ellipticCurve, params);
-        java.security.spec.ECPublicKeySpec keySpec = new java.security.spec.ECPublicKeySpec(point, params2);
-        return (ECPublicKey) fact.generatePublic(keySpec);
+        BigInteger keyDerivationFactor = new BigInteger(1, hash);
+        return MULTIPLIER.multiply(MASTER_POINT, keyDerivationFactor);
     }
 
     private static String getAddress(ECPoint pub) {
@@ -130,9 +139,7 @@ public class TrustAddressGenerator {
      **********************************************************************************/
 
     public Response DeriveTrustAddress(Request req) throws Exception {
-        String trust = getTrustAddress(req.contract, req.getDigest());
-        String revoke = getRevokeAddress(req.contract, req.getDigest());
-        return new Response(trust, revoke);
+        return deriveAddresses(Arrays.asList(req)).get(0);
     }
 
     public static class Request {
@@ -0,0 +1,167 @@
+package com.alphawallet.token.tools;
+
+import com.alphawallet.token.entity.XMLDsigVerificationResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies TokenScript XMLDSig signatures, caching results by content hash so an unchanged file (eg a script
+ * re-uploaded to the verify endpoint, or checked again on startup) isn't verified twice. A failure that may pass
+ * later, such as a revocation check that couldn't reach the network, isn't cached. Several files can be verified in
+ * parallel with verifyAll, on the service's daemon threads; close the service when done with it.
+ */
+public class XMLDSigVerificationService implements AutoCloseable
+{
+    private static final long RESULT_CACHE_TIME = 60 * 60 * 1000; //certificate status can change
+    private static final int MAX_CACHED_RESULTS = 256;
+
+    private final XMLDSigVerifier verifier = new XMLDSigVerifier();
+    private final ExecutorService verifyPool;
+    private final Map<String, CachedResult> results = Collections.synchronizedMap(
+            new LinkedHashMap<String, CachedResult>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest)
+                {
+                    return size() > MAX_CACHED_RESULTS;
+                }
+            });
+
+    private static class CachedResult
+    {
+        final XMLDsigVerificationResult result;
+        final long expiry;
+
+        CachedResult(XMLDsigVerificationResult result, long expiry)
+        {
+            this.result = result;
+            this.expiry = expiry;
+        }
+    }
+
+    public XMLDSigVerificationService()
+    {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public XMLDSigVerificationService(int threads)
+    {
+        verifyPool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("xmldsig-verify"));
+    }
+
+    public XMLDsigVerificationResult verify(InputStream fileStream) throws IOException
+    {
+        return verify(readAll(fileStream));
+    }
+
+    /**
+     * @return verification result; a copy, so callers may modify it
+     */
+    public XMLDsigVerificationResult verify(byte[] content)
+    {
+        String hash = contentHash(content);
+        CachedResult cached = results.get(hash);
+        if (cached != null && System.currentTimeMillis() < cached.expiry) return copy(cached.result);
+
+        XMLDSigVerifier.Verification verification = verifier.verify(new ByteArrayInputStream(content));
+        if (!verification.undetermined)
+        {
+            results.put(hash, new CachedResult(copy(verification.result), System.currentTimeMillis() + RESULT_CACHE_TIME));
+        }
+        return verification.result;
+    }
+
+    /**
+     * Verify several files in parallel
+     *
+     * @return results in the same order as the files
+     */
+    public List<XMLDsigVerificationResult> verifyAll(List<byte[]> files) throws InterruptedException
+    {
+        List<Future<XMLDsigVerificationResult>> pending = new ArrayList<>();
+        for (final byte[] content : files)
+        {
+            pending.add(verifyPool.submit(() -> verify(content)));
+        }
+
+        List<XMLDsigVerificationResult> verified = new ArrayList<>();
+        for (Future<XMLDsigVerificationResult> result : pending)
+        {
+            try
+            {
+                verified.add(result.get());
+            }
+            catch (ExecutionException e)
+            {
+                XMLDsigVerificationResult failed = new XMLDsigVerificationResult();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                failed.failureReason = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+                verified.add(failed);
+            }
+        }
+
+        return verified;
+    }
+
+    public void clear()
+    {
+        results.clear();
+        XMLDSigVerifier.clearChainCache();
+    }
+
+    @Override
+    public void close()
+    {
+        verifyPool.shutdown();
+    }
+
+    public static String contentHash(byte[] content)
+    {
+        try
+        {
+            return Numeric.toHexString(MessageDigest.getInstance("SHA-256").digest(content));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e); //SHA-256 is always available
+        }
+    }
+
+    private static XMLDsigVerificationResult copy(XMLDsigVerificationResult result)
+    {
+        XMLDsigVerificationResult copy = new XMLDsigVerificationResult();
+        copy.isValid = result.isValid;
+        copy.keyName = result.keyName;
+        copy.issuerPrincipal = result.issuerPrincipal;
+        copy.subjectPrincipal = result.subjectPrincipal;
+        copy.keyType = result.keyType;
+        copy.failureReason = result.failureReason;
+        return copy;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -11,6 +11,7 @@ import java.security.Key;
 import java.security.KeyException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
 import java.security.PublicKey;
@@ -25,8 +26,11 @@ import java.security.cert.PKIXParameters;
 import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
@@ -69,10 +73,110 @@ import com.alphawallet.token.entity.XMLDsigVerificationResult;
  * - Ignores any public key provided in KeyInfo
  *
  * See the test case for usage examples.
+ *
+ * Parsers and signature factories are reused per thread, the JRE trust anchors are loaded once, and certificate
+ * chain validation results are cached by chain fingerprint for an hour, so verifying many files (see
+ * XMLDSigVerificationService) doesn't repeat that work. A chain whose revocation status couldn't be checked (eg the
+ * OCSP responder was unreachable) is only cached for a minute. Safe to use from several threads.
  */
 public class XMLDSigVerifier {
+    private static final long CHAIN_CACHE_TIME = 60 * 60 * 1000; //revocation status and expiry can change
+    private static final long UNDETERMINED_CHAIN_CACHE_TIME = 60 * 1000;
+    private static final int MAX_CACHED_CHAINS = 64;
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>()
+    {
+        @Override
+        protected DocumentBuilder initialValue()
+        {
+            try
+            {
+                DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+                dbFactory.setNamespaceAware(true);
+                return dbFactory.newDocumentBuilder();
+            }
+            catch (ParserConfigurationException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<XMLSignatureFactory> signatureFactory = new ThreadLocal<XMLSignatureFactory>()
+    {
+        @Override
+        protected XMLSignatureFactory initialValue()
+        {
+            return XMLSignatureFactory.getInstance("DOM");
+        }
+    };
+
+    private static volatile Set<TrustAnchor> trustAnchors;
+
+    //chain fingerprint -> validation outcome
+    private static final Map<String, ChainResult> chainCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, ChainResult>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ChainResult> eldest)
+                {
+                    return size() > MAX_CACHED_CHAINS;
+                }
+            });
+
+    private static class ChainResult
+    {
+        final String failureReason; //null if the chain is valid
+        final boolean undetermined;
+        final long expiry;
+
+        ChainResult(String failureReason, boolean undetermined, long expiry)
+        {
+            this.failureReason = failureReason;
+            this.undetermined = undetermined;
+            this.expiry = expiry;
+        }
+    }
+
+    /**
+     * Chain validation failed for a reason that may not hold later, such as a network error checking revocation
+     */
+    static class UndeterminedChainException extends CertPathValidatorException
+    {
+        private static final long serialVersionUID = 1L;
+
+        UndeterminedChainException(String msg)
+        {
+            super(msg);
+        }
+    }
+
+    /**
+     * Verification result, and whether a failure was undetermined rather than definitive
+     */
+    static class Verification
+    {
+        final XMLDsigVerificationResult result;
+        final boolean undetermined;
+
+        Verification(XMLDsigVerificationResult result, boolean undetermined)
+        {
+            this.result = result;
+            this.undetermined = undetermined;
+        }
+    }
+
+    public static void clearChainCache()
+    {
+        chainCache.clear();
+    }
 
     public XMLDsigVerificationResult VerifyXMLDSig(InputStream fileStream)
+    {
+        return verify(fileStream).result;
+    }
+
+    Verification verify(InputStream fileStream)
     {
         XMLDsigVerificationResult result = new XMLDsigVerificationResult();
         try
@@ -83,13 +187,19 @@ public class XMLDSigVerifier {
             XMLSignature signature = getValidXMLSignature(fileStream);
             result.isValid = true; //would go to catch if this was not the case
             //check that the tsml file is signed by a valid certificate
-            return validateCertificateIssuer(signature, result);
+            return new Verification(validateCertificateIssuer(signature, result), false);
+        }
+        catch (UndeterminedChainException e)
+        {
+            result.isValid = false;
+            result.failureReason = e.getMessage();
+            return new Verification(result, true);
         }
         catch(Exception e)
         {
             result.isValid = false;
             result.failureReason = e.getMessage();
-            return result;
+            return new Verification(result, false);
         }
     }
 
@@ -101,9 +211,8 @@ public class XMLDSigVerifier {
             XMLSignatureException,
             DOMException
     {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setNamespaceAware(true);
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        DocumentBuilder dBuilder = documentBuilder.get();
+        dBuilder.reset();
         Document xml = dBuilder.parse(fileStream);
         xml.getDocumentElement().normalize();
 
@@ -116,7 +225,7 @@ public class XMLDSigVerifier {
 
         // Create a DOM XMLSignatureFactory that will be used to unmarshal the
         // document containing the XMLSignature
-        XMLSignatureFactory fac = XMLSignatureFactory.getInstance("DOM");
+        XMLSignatureFactory fac = signatureFactory.get();
 
         // Create a DOMValidateContext and specify a KeyValue KeySelector
         // and document context
@@ -140,22 +249,17 @@ public class XMLDSigVerifier {
             CertificateException,
             CertPathValidatorException
     {
-        // By default on Oracle JRE, algorithm is PKIX
-        TrustManagerFactory tmf = TrustManagerFactory
-                .getInstance(TrustManagerFactory.getDefaultAlgorithm());
-        // 'null' will initialise the tmf with the default CA certs installed
-        // with the JRE.
-        tmf.init((KeyStore) null);
-
-        X509TrustManager tm = (X509TrustManager) tmf.getTrustManagers()[0];
-        CertPathValidator cpv = CertPathValidator.getInstance("PKIX");
-        Set<TrustAnchor> anch = new HashSet<>();
-        for (X509Certificate cert : tm.getAcceptedIssuers())
+        String fingerprint = chainFingerprint(certList);
+        ChainResult cached = chainCache.get(fingerprint);
+        if (cached != null && System.currentTimeMillis() < cached.expiry)
         {
-            anch.add(new TrustAnchor(cert, null));
+            if (cached.undetermined) throw new UndeterminedChainException(cached.failureReason);
+            if (cached.failureReason != null) throw new CertPathValidatorException(cached.failureReason);
+            return;
         }
-        PKIXParameters params = new PKIXParameters(anch);
-        Security.setProperty("ocsp.enable", "true");
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX");
+        PKIXParameters params = new PKIXParameters(getTrustAnchors());
         params.setRevocationEnabled(true);
         CertificateFactory factory = CertificateFactory.getInstance("X.509");
         try
@@ -169,9 +273,78 @@ public class XMLDSigVerifier {
             //we allow this to continue (code 0)
             if(e.getIndex() != 0)
             {
+                if (isUndetermined(e))
+                {
+                    chainCache.put(fingerprint, new ChainResult(e.getMessage(), true, System.currentTimeMillis() + UNDETERMINED_CHAIN_CACHE_TIME));
+                    throw new UndeterminedChainException(e.getMessage());
+                }
+                chainCache.put(fingerprint, new ChainResult(e.getMessage(), false, System.currentTimeMillis() + CHAIN_CACHE_TIME));
                 throw e;
             }
         }
+
+        chainCache.put(fingerprint, new ChainResult(null, false, System.currentTimeMillis() + CHAIN_CACHE_TIME));
+    }
+
+    /**
+     * @return true if the chain couldn't be validated because revocation status couldn't be checked or the network
+     * failed, rather than because a certificate is revoked, untrusted or invalid
+     */
+    static boolean isUndetermined(CertPathValidatorException e)
+    {
+        if (e.getReason() == CertPathValidatorException.BasicReason.UNDETERMINED_REVOCATION_STATUS) return true;
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof IOException) return true;
+        }
+        return false;
+    }
+
+    private static Set<TrustAnchor> getTrustAnchors() throws NoSuchAlgorithmException, KeyStoreException
+    {
+        if (trustAnchors == null)
+        {
+            synchronized (XMLDSigVerifier.class)
+            {
+                if (trustAnchors == null)
+                {
+                    // By default on Oracle JRE, algorithm is PKIX
+                    TrustManagerFactory tmf = TrustManagerFactory
+                            .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                    // 'null' will initialise the tmf with the default CA certs installed
+                    // with the JRE.
+                    tmf.init((KeyStore) null);
+
+                    X509TrustManager tm = (X509TrustManager) tmf.getTrustManagers()[0];
+                    Set<TrustAnchor> anch = new HashSet<>();
+                    for (X509Certificate cert : tm.getAcceptedIssuers())
+                    {
+                        anch.add(new TrustAnchor(cert, null));
+                    }
+                    Security.setProperty("ocsp.enable", "true");
+                    trustAnchors = Collections.unmodifiableSet(anch);
+                }
+            }
+        }
+
+        return trustAnchors;
+    }
+
+    private static String chainFingerprint(List<X509Certificate> certList) throws CertificateException
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (X509Certificate cert : certList)
+            {
+                if (cert != null) digest.update(cert.getEncoded());
+            }
+            return Numeric.toHexString(digest.digest());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new CertificateException(e);
+        }
     }
 
     private X509Certificate findRootCert(List<X509Certificate> certificates) {
@@ -231,7 +404,8 @@ public class XMLDSigVerifier {
         return signer;
     }
 
-    private XMLDsigVerificationResult validateCertificateIssuer(XMLSignature signature, XMLDsigVerificationResult result) {
+    private XMLDsigVerificationResult validateCertificateIssuer(XMLSignature signature, XMLDsigVerificationResult result)
+            throws UndeterminedChainException {
         try
         {
             KeyInfo xmlKeyInfo = signature.getKeyInfo();
@@ -252,6 +426,10 @@ public class XMLDSigVerifier {
                 }
             }
         }
+        catch (UndeterminedChainException e)
+        {
+            throw e;
+        }
         catch(Exception e)
         {
             result.isValid = false;
@@ -8,8 +8,14 @@ import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
 import java.security.cert.X509Certificate;
 import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.bouncycastle.asn1.ASN1Boolean;
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Integer;
@@ -137,5 +143,100 @@ public class TestAttestation {
         }
         cert.verify(issuerKeys.getPublic(), new BouncyCastleProvider());
     }
-}
 
+    @org.junit.Test
+    public void testSignedRoundTrip() throws Exception {
+        AttestationManager manager = new AttestationManager(OID_SHA256ECDSA, issuerKeys);
+        for (Attestation att : Arrays.asList(makeUnsignedAtt(), makeUnsignedx509Att())) {
+            byte[] encoded = manager.signAttestation(att).getDerEncoding();
+            SignedAttestation decoded = new SignedAttestation(encoded);
+            Assert.assertArrayEquals(att.getPrehash(), decoded.getAttestation().getPrehash());
+            Assert.assertArrayEquals(encoded, decoded.getDerEncoding());
+            Assert.assertEquals(OID_SHA256ECDSA, decoded.getSignatureAlgorithm());
+            Assert.assertEquals(att.getSerialNumber(), decoded.getAttestation().getSerialNumber());
+            Assert.assertTrue(new AttestationVerifier(issuerKeys.getPublic(), 1).verify(decoded));
+        }
+
+        SignedAttestation decoded = new SignedAttestation(manager.signAttestation(makeUnsignedAtt()).getDerEncoding());
+        Assert.assertEquals(Arrays.asList(42L, 1337L), decoded.getAttestation().getSmartcontracts());
+        Assert.assertEquals("CN=0x2042424242424564648", decoded.getAttestation().getSubject());
+    }
+
+    @org.junit.Test
+    public void testVerifierRejects() throws Exception {
+        AttestationManager manager = new AttestationManager(OID_SHA256ECDSA, issuerKeys);
+        AttestationVerifier verifier = new AttestationVerifier(issuerKeys.getPublic(), 1);
+        SignedAttestation signed = manager.signAttestation(makeUnsignedAtt());
+        Assert.assertTrue(verifier.verifyForContract(signed, 1337L));
+        Assert.assertFalse(verifier.verifyForContract(signed, 7L));
+
+        // wrong issuer
+        Assert.assertFalse(new AttestationVerifier(subjectKeys.getPublic(), 1).verify(signed));
+
+        // tampered signed bytes
+        byte[] encoded = signed.getDerEncoding();
+        int serialIndex = indexOf(encoded, new byte[] { 0x02, 0x01, 42 });
+        encoded[serialIndex + 2] = 43;
+        Assert.assertFalse(verifier.verify(new SignedAttestation(encoded)));
+
+        // outside the validity window
+        Attestation x509 = makeUnsignedx509Att();
+        SignedAttestation signedX509 = manager.signAttestation(x509);
+        Assert.assertTrue(verifier.verify(signedX509));
+        Assert.assertFalse(verifier.verify(signedX509, new Date(System.currentTimeMillis() + 7200000)));
+        Assert.assertFalse(verifier.verify(signedX509, new Date(System.currentTimeMillis() - 7200000)));
+
+        // empty smart contract list
+        Attestation att = makeUnsignedAtt();
+        att.setSmartcontracts(new ArrayList<Long>());
+        Assert.assertFalse(att.hasValidSmartcontracts());
+        att.setSmartcontracts(Arrays.asList(-1L));
+        Assert.assertFalse(verifier.verify(manager.signAttestation(att)));
+
+        // garbage in a batch doesn't affect the others
+        List<Boolean> results = verifier.verifyAll(Arrays.asList(signed.getDerEncoding(), new byte[] { 0x30, 0x00 }, encoded));
+        Assert.assertEquals(Arrays.asList(true, false, false), results);
+    }
+
+    @org.junit.Test
+    public void testConcurrentSignAndVerify() throws Exception {
+        final AttestationManager manager = new AttestationManager(OID_SHA256ECDSA, issuerKeys);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<byte[]>> signing = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final Attestation att = makeUnsignedAtt();
+            att.setSerialNumber(i + 1);
+            signing.add(pool.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    byte[] signature = manager.sign(att);
+                    Assert.assertTrue(manager.verifySigned(att, signature, issuerKeys.getPublic()));
+                    return manager.constructSignedAttestation(att, signature);
+                }
+            }));
+        }
+
+        List<byte[]> encoded = new ArrayList<>();
+        for (Future<byte[]> f : signing) {
+            encoded.add(f.get());
+        }
+        pool.shutdown();
+
+        AttestationVerifier verifier = new AttestationVerifier(issuerKeys.getPublic(), 8);
+        List<Boolean> results = verifier.verifyAll(encoded);
+        verifier.shutdown();
+        Assert.assertEquals(encoded.size(), results.size());
+        for (Boolean result : results) {
+            Assert.assertTrue(result);
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + pattern.length), pattern)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Pattern not found");
+    }
+}
@@ -0,0 +1,91 @@
+package com.alphawallet.token.tools;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class EIP712SchemaTest {
+
+    private static List<EIP712Schema.Field> fields(String... typeAndName) {
+        List<EIP712Schema.Field> fields = new ArrayList<>();
+        for (int i = 0; i < typeAndName.length; i += 2) {
+            fields.add(new EIP712Schema.Field(typeAndName[i + 1], typeAndName[i]));
+        }
+        return fields;
+    }
+
+    private static Map<String, List<EIP712Schema.Field>> mailTypes() {
+        Map<String, List<EIP712Schema.Field>> types = new HashMap<>();
+        types.put("EIP712Domain", fields("string", "name", "string", "version", "uint256", "chainId", "address", "verifyingContract"));
+        types.put("Person", fields("string", "name", "address", "wallet"));
+        types.put("Mail", fields("Person", "from", "Person", "to", "string", "contents"));
+        return types;
+    }
+
+    @Test
+    public void mailExampleVectors() {
+        EIP712Schema schema = EIP712Schema.compile(mailTypes());
+        assertEquals("Mail(Person from,Person to,string contents)Person(string name,address wallet)", schema.encodeType("Mail"));
+        assertEquals("0xa0cedeb2dc280ba39b857546d74f5549c3a1d7bdc2dd96bf881f76108e23dac2", Numeric.toHexString(schema.typeHash("Mail")));
+        assertEquals("0xb9d8c78acf9b987311de6c7b45bb6a9c8e1bf361fa7fd3467a2163f994c79500", Numeric.toHexString(schema.typeHash("Person")));
+        assertEquals("0x8b73c3c69bb8fe3d512ecc4cf759cc79239f7b179b0ffacaa9a75d522b39400f", Numeric.toHexString(schema.typeHash("EIP712Domain")));
+    }
+
+    @Test
+    public void deeplyNestedTypesExpandTransitively() {
+        Map<String, List<EIP712Schema.Field>> types = new HashMap<>();
+        types.put("Order", fields("Basket", "basket", "uint256", "nonce"));
+        types.put("Basket", fields("Item[]", "items", "Party", "seller"));
+        types.put("Item", fields("Asset", "asset", "uint256", "amount"));
+        types.put("Asset", fields("Party[2]", "issuers", "bytes32", "id"));
+        types.put("Party", fields("string", "name", "address", "wallet"));
+
+        EIP712Schema schema = EIP712Schema.compile(types);
+        assertEquals(new HashSet<>(Arrays.asList("Order", "Basket", "Item", "Asset", "Party")), schema.getDependencies("Order"));
+        assertEquals("Order(Basket basket,uint256 nonce)"
+                        + "Asset(Party[2] issuers,bytes32 id)"
+                        + "Basket(Item[] items,Party seller)"
+                        + "Item(Asset asset,uint256 amount)"
+                        + "Party(string name,address wallet)",
+                schema.encodeType("Order"));
+        assertEquals("Item(Asset asset,uint256 amount)Asset(Party[2] issuers,bytes32 id)Party(string name,address wallet)",
+                schema.encodeType("Item"));
+    }
+
+    @Test
+    public void recursiveTypesTerminate() {
+        Map<String, List<EIP712Schema.Field>> types = new HashMap<>();
+        types.put("Node", fields("Node[]", "children", "Leaf", "leaf"));
+        types.put("Leaf", fields("uint256", "value", "Node", "parent"));
+
+        EIP712Schema schema = EIP712Schema.compile(types);
+        assertEquals("Node(Node[] children,Leaf leaf)Leaf(uint256 value,Node parent)", schema.encodeType("Node"));
+        assertEquals("Leaf(uint256 value,Node parent)Node(Node[] children,Leaf leaf)", schema.encodeType("Leaf"));
+    }
+
+    @Test
+    public void emptyStruct() {
+        Map<String, List<EIP712Schema.Field>> types = new HashMap<>();
+        types.put("Empty", fields());
+        assertEquals("Empty()", EIP712Schema.compile(types).encodeType("Empty"));
+    }
+
+    @Test
+    public void schemaReusedAcrossMessages() {
+        EIP712Schema first = EIP712Schema.compile(mailTypes());
+        EIP712Schema second = EIP712Schema.compile(mailTypes());
+        assertSame(first, second);
+
+        //modifying the returned hash doesn't affect the schema
+        first.typeHash("Mail")[0] = 0;
+        assertEquals("0xa0cedeb2dc280ba39b857546d74f5549c3a1d7bdc2dd96bf881f76108e23dac2", Numeric.toHexString(second.typeHash("Mail")));
+    }
+}
@@ -8,8 +8,20 @@ import javax.xml.crypto.dsig.XMLSignature;
 import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.encoders.Base64;
 
+import static org.junit.Assert.assertEquals;
+
 public class TrustAddressGeneratorTest {
     String digest;
 
@@ -34,6 +46,45 @@ public class TrustAddressGeneratorTest {
         assert(revokeAddress.equals("0x6b4c50938caef365fa3e04bfe5a25da518dba447"));
     }
 
+    @Test
+    public void batchMatchesSingle() throws Exception {
+        List<TrustAddressGenerator.Request> requests = new ArrayList<>();
+        requests.add(new TrustAddressGenerator.Request("0x63cCEF733a093E5Bd773b41C96D3eCE361464942", digest));
+        Random random = new Random(712);
+        for (int i = 0; i < 20; i++) {
+            byte[] contract = new byte[20];
+            byte[] digestBytes = new byte[32];
+            random.nextBytes(contract);
+            random.nextBytes(digestBytes);
+            requests.add(new TrustAddressGenerator.Request(Numeric.toHexString(contract), Base64.toBase64String(digestBytes)));
+        }
+
+        List<TrustAddressGenerator.Response> responses = TrustAddressGenerator.deriveAddresses(requests);
+        assertEquals(requests.size(), responses.size());
+        assertEquals("0x2e02934b4ed1bee0defa7a58061dd8ee9440094c", responses.get(0).getTrustAddress());
+        assertEquals("0x6b4c50938caef365fa3e04bfe5a25da518dba447", responses.get(0).getRevokeAddress());
+
+        for (int i = 0; i < requests.size(); i++) {
+            TrustAddressGenerator.Request req = requests.get(i);
+            String trust = TrustAddressGenerator.getTrustAddress(req.getContractAddress(), req.getDigest());
+            String revoke = TrustAddressGenerator.getRevokeAddress(req.getContractAddress(), req.getDigest());
+            assertEquals(trust, responses.get(i).getTrustAddress());
+            assertEquals(revoke, responses.get(i).getRevokeAddress());
+            //pin against a plain point multiplication of the master key
+            assertEquals(referenceAddress((req.getContractAddress() + "TRUST" + req.getDigest()).getBytes()), trust);
+            assertEquals(referenceAddress((req.getContractAddress() + "REVOKE" + req.getDigest()).getBytes()), revoke);
+        }
+    }
+
+    private String referenceAddress(byte[] preimage) {
+        X9ECParameters params = CustomNamedCurves.getByName("secp256k1");
+        ECPoint master = params.getCurve().decodePoint(TrustAddressGenerator.masterPubKey);
+        ECPoint derived = master.multiply(new BigInteger(1, new Keccak.Digest256().digest(preimage))).normalize();
+        byte[] pub = derived.getEncoded(false);
+        byte[] hash = new Keccak.Digest256().digest(Arrays.copyOfRange(pub, 1, pub.length));
+        return Numeric.toHexString(Arrays.copyOfRange(hash, 0, 20));
+    }
+
     /*
      * the following utility functions are moved from
      * TrustAddressGenerator because it doesn't belong
@@ -0,0 +1,88 @@
+package com.alphawallet.token.tools;
+
+import com.alphawallet.token.entity.XMLDsigVerificationResult;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.cert.CertPathValidatorException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class XMLDSigVerificationServiceTest {
+    private static final String[] SCRIPTS = {
+            "src/test/ts/EntryToken.tsml",
+            "src/test/ts/fifa.tsml",
+            "src/test/ts/EntryToken-duplicate-Values.tsml",
+            "src/test/ts/EntryToken-future-cert-self-signed.tsml"
+    };
+
+    private static void assertSameResult(XMLDsigVerificationResult expected, XMLDsigVerificationResult actual) {
+        assertEquals(expected.isValid, actual.isValid);
+        assertEquals(expected.failureReason, actual.failureReason);
+        assertEquals(expected.keyName, actual.keyName);
+        assertEquals(expected.issuerPrincipal, actual.issuerPrincipal);
+        assertEquals(expected.subjectPrincipal, actual.subjectPrincipal);
+        assertEquals(expected.keyType, actual.keyType);
+    }
+
+    private static List<XMLDsigVerificationResult> uncachedResults() throws Exception {
+        List<XMLDsigVerificationResult> results = new ArrayList<>();
+        for (String script : SCRIPTS) {
+            XMLDSigVerifier.clearChainCache();
+            results.add(new XMLDSigVerifier().VerifyXMLDSig(new FileInputStream(script)));
+        }
+        return results;
+    }
+
+    @Test
+    public void cachedResultsMatchUncached() throws Exception {
+        List<XMLDsigVerificationResult> expected = uncachedResults();
+        XMLDSigVerificationService service = new XMLDSigVerificationService(2);
+
+        for (int pass = 0; pass < 2; pass++) { //second pass is served from the cache
+            for (int i = 0; i < SCRIPTS.length; i++) {
+                assertSameResult(expected.get(i), service.verify(new FileInputStream(SCRIPTS[i])));
+            }
+        }
+
+        //cached result can't be altered through a returned copy
+        service.verify(Files.readAllBytes(Paths.get(SCRIPTS[0]))).failureReason = "changed";
+        assertSameResult(expected.get(0), service.verify(Files.readAllBytes(Paths.get(SCRIPTS[0]))));
+    }
+
+    @Test
+    public void parallelResultsMatchUncached() throws Exception {
+        List<XMLDsigVerificationResult> expected = uncachedResults();
+        List<byte[]> files = new ArrayList<>();
+        for (int copies = 0; copies < 3; copies++) {
+            for (String script : SCRIPTS) files.add(Files.readAllBytes(Paths.get(script)));
+        }
+
+        List<XMLDsigVerificationResult> results;
+        try (XMLDSigVerificationService service = new XMLDSigVerificationService(4)) {
+            results = service.verifyAll(files);
+        }
+        assertEquals(files.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertSameResult(expected.get(i % SCRIPTS.length), results.get(i));
+        }
+    }
+
+    @Test
+    public void onlyNetworkFailuresAreUndetermined() {
+        assertTrue(XMLDSigVerifier.isUndetermined(new CertPathValidatorException("Unable to determine revocation status",
+                null, null, -1, CertPathValidatorException.BasicReason.UNDETERMINED_REVOCATION_STATUS)));
+        assertTrue(XMLDSigVerifier.isUndetermined(new CertPathValidatorException("OCSP request failed",
+                new SocketTimeoutException("connect timed out"))));
+        assertFalse(XMLDSigVerifier.isUndetermined(new CertPathValidatorException("Certificate has been revoked",
+                null, null, -1, CertPathValidatorException.BasicReason.REVOKED)));
+        assertFalse(XMLDSigVerifier.isUndetermined(new CertPathValidatorException("Path does not chain with any of the trust anchors")));
+    }
+}
@@ -0,0 +1,346 @@
+package com.alphawallet.scripttool;
+
+import com.alphawallet.ethereum.EthereumNetworkBase;
+import com.alphawallet.scripttool.Entity.CachedResult;
+import com.alphawallet.scripttool.Entity.TokenscriptFunction;
+import com.alphawallet.scripttool.Ethereum.TransactionHandler;
+import com.alphawallet.token.entity.Attribute;
+import com.alphawallet.token.entity.AttributeInterface;
+import com.alphawallet.token.entity.ContractAddress;
+import com.alphawallet.token.entity.ContractInfo;
+import com.alphawallet.token.entity.MethodArg;
+import com.alphawallet.token.entity.TokenScriptResult;
+import com.alphawallet.token.entity.TransactionResult;
+import com.alphawallet.token.tools.TokenDefinition;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.web3j.abi.datatypes.Address;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves TokenScript attributes for many (contract, wallet) pairs in one process.
+ *
+ * The manifest lists the TokenScripts, and for each the wallets and optionally the contracts (default is the
+ * script's holding contract addresses):
+ *
+ * {
+ *   "rpc": { "1": "http://localhost:8545" },
+ *   "jobs": [
+ *     { "tokenscript": "fifa.tsml", "wallets": [ "0x901dbb9771d30124bd25b2f86ef4d8c6c135d948" ],
+ *       "contracts": [ { "chainId": 1, "address": "0xa66a3f08068174e8f005112a8b2c7a507a822335" } ] }
+ *   ]
+ * }
+ *
+ * Pairs are resolved concurrently and one JSON object is written per pair as soon as it completes. Function call
+ * results are shared between pairs, so a call that doesn't depend on the wallet is only made once per token.
+ * Attribute resolution writes to its definition, so each worker thread parses its own copy of a script (at most
+ * once) rather than once per pair.
+ */
+public class BatchScriptTool
+{
+    public static final int DEFAULT_THREADS = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ExecutorService workers;
+    private final Map<String, CachedResult> transactionResults = new ConcurrentHashMap<>(); //optimisation results for all pairs
+    private final Map<String, TransactionHandler> txHandlers = new ConcurrentHashMap<>();
+    private final Map<Integer, String> nodeURLs = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> scripts = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, TokenDefinition>> definitions = new ThreadLocal<Map<String, TokenDefinition>>()
+    {
+        @Override
+        protected Map<String, TokenDefinition> initialValue()
+        {
+            return new HashMap<>();
+        }
+    };
+    private String defaultNodeURL;
+
+    private final TokenscriptFunction tokenscriptFunction = new TokenscriptFunction()
+    {
+        @Override
+        protected String getNodeURL(int chainId)
+        {
+            return nodeURL(chainId);
+        }
+    };
+
+    public BatchScriptTool(int threads)
+    {
+        workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Node to use for chains the manifest doesn't give a node for; null for the chain's default
+     */
+    public void setDefaultNodeURL(String nodeURL)
+    {
+        defaultNodeURL = nodeURL;
+    }
+
+    /**
+     * Resolve every pair in the manifest, writing each result as a line of JSON. TokenScript paths are relative
+     * to the manifest.
+     */
+    public void run(File manifestFile, PrintStream out) throws IOException, InterruptedException
+    {
+        JsonNode manifest = mapper.readTree(manifestFile);
+        File baseDir = manifestFile.getAbsoluteFile().getParentFile();
+
+        JsonNode rpc = manifest.path("rpc");
+        Iterator<Map.Entry<String, JsonNode>> rpcIt = rpc.fields();
+        while (rpcIt.hasNext())
+        {
+            Map.Entry<String, JsonNode> entry = rpcIt.next();
+            nodeURLs.put(Integer.parseInt(entry.getKey()), entry.getValue().asText());
+        }
+
+        List<Future<?>> pending = new ArrayList<>();
+        for (JsonNode job : manifest.path("jobs"))
+        {
+            String scriptName = job.path("tokenscript").asText();
+            File scriptFile = new File(scriptName).isAbsolute() ? new File(scriptName) : new File(baseDir, scriptName);
+            List<ContractAddress> contracts = new ArrayList<>();
+            for (JsonNode contract : job.path("contracts"))
+            {
+                contracts.add(new ContractAddress(contract.path("chainId").asInt(), contract.path("address").asText()));
+            }
+
+            TokenDefinition definition;
+            try
+            {
+                scripts.put(scriptName, Files.readAllBytes(scriptFile.toPath()));
+                definition = getDefinition(scriptName); //parse on this thread first to report a bad script once
+            }
+            catch (Exception e)
+            {
+                writeLine(out, error(scriptName, null, null, "Invalid TokenScript: " + e.getMessage()));
+                continue;
+            }
+
+            if (contracts.isEmpty())
+            {
+                ContractInfo holdingContract = definition.contracts.get(definition.holdingToken);
+                for (Integer chainId : holdingContract.addresses.keySet())
+                {
+                    for (String addr : holdingContract.addresses.get(chainId))
+                    {
+                        contracts.add(new ContractAddress(chainId, addr));
+                    }
+                }
+            }
+
+            for (ContractAddress cAddr : contracts)
+            {
+                for (JsonNode wallet : job.path("wallets"))
+                {
+                    final String walletAddr = wallet.asText();
+                    pending.add(workers.submit(() -> writeLine(out, resolvePair(scriptName, cAddr, walletAddr))));
+                }
+            }
+        }
+
+        for (Future<?> result : pending)
+        {
+            try
+            {
+                result.get();
+            }
+            catch (ExecutionException e)
+            {
+                e.getCause().printStackTrace();
+            }
+        }
+    }
+
+    public void shutdown()
+    {
+        workers.shutdown();
+    }
+
+    private ObjectNode resolvePair(String scriptName, ContractAddress cAddr, String walletAddr)
+    {
+        try
+        {
+            TokenDefinition definition = getDefinition(scriptName);
+            Address wallet = new Address(walletAddr);
+            TransactionHandler txHandler = getTxHandler(cAddr.chainId);
+            List<TokenScriptResult.Attribute> attrs = ScriptTool.resolveTokenAttributes(tokenscriptFunction, txHandler,
+                    new PairAttributes(definition, wallet), definition.contracts.get(definition.holdingToken), cAddr, definition, wallet);
+
+            ObjectNode result = pairNode(scriptName, cAddr, wallet.toString());
+            result.put("name", txHandler.getNameOnly(cAddr.address));
+            result.put("symbol", txHandler.getSymbolOnly(cAddr.address));
+            ObjectNode attributes = result.putObject("attributes");
+            for (TokenScriptResult.Attribute attr : attrs)
+            {
+                attributes.put(attr.id, attr.text);
+            }
+            return result;
+        }
+        catch (Exception e)
+        {
+            return error(scriptName, cAddr, walletAddr, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private TokenDefinition getDefinition(String scriptName) throws Exception
+    {
+        Map<String, TokenDefinition> threadDefinitions = definitions.get();
+        TokenDefinition definition = threadDefinitions.get(scriptName);
+        if (definition == null)
+        {
+            definition = new TokenDefinition(new ByteArrayInputStream(scripts.get(scriptName)), new Locale("en"), null);
+            if (definition.holdingToken == null)
+            {
+                throw new Exception("Has no <ts:ethereum contract=...> element");
+            }
+            threadDefinitions.put(scriptName, definition);
+        }
+        return definition;
+    }
+
+    private String nodeURL(int chainId)
+    {
+        String url = nodeURLs.get(chainId);
+        if (url == null) url = defaultNodeURL;
+        return url != null ? url : EthereumNetworkBase.getNetworkByChain(chainId).rpcServerUrl;
+    }
+
+    private TransactionHandler getTxHandler(int chainId)
+    {
+        String url = nodeURL(chainId);
+        TransactionHandler handler = txHandlers.get(url);
+        if (handler == null)
+        {
+            txHandlers.putIfAbsent(url, new TransactionHandler(url));
+            handler = txHandlers.get(url);
+        }
+        return handler;
+    }
+
+    private ObjectNode pairNode(String scriptName, ContractAddress cAddr, String walletAddr)
+    {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("tokenscript", scriptName);
+        if (cAddr != null)
+        {
+            node.put("chainId", cAddr.chainId);
+            node.put("contract", cAddr.address);
+        }
+        if (walletAddr != null) node.put("wallet", walletAddr);
+        return node;
+    }
+
+    private ObjectNode error(String scriptName, ContractAddress cAddr, String walletAddr, String message)
+    {
+        ObjectNode node = pairNode(scriptName, cAddr, walletAddr);
+        node.put("error", message);
+        return node;
+    }
+
+    private void writeLine(PrintStream out, ObjectNode line)
+    {
+        try
+        {
+            String json = mapper.writeValueAsString(line);
+            synchronized (out)
+            {
+                out.println(json);
+                out.flush();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Attribute interface for one pair, backed by the batch's shared result cache
+     */
+    private class PairAttributes implements AttributeInterface
+    {
+        private final TokenDefinition definition;
+        private final Address wallet;
+
+        PairAttributes(TokenDefinition definition, Address wallet)
+        {
+            this.definition = definition;
+            this.wallet = wallet;
+        }
+
+        @Override
+        public TransactionResult getFunctionResult(ContractAddress contract, Attribute attr, BigInteger tokenId)
+        {
+            TransactionResult tr = new TransactionResult(contract.chainId, contract.address, tokenId, attr);
+            CachedResult cached = transactionResults.get(resultKey(contract.chainId, contract.address, attr.name, tokenId));
+            if (cached != null)
+            {
+                tr.resultTime = cached.resultTime;
+                tr.result = cached.result;
+            }
+
+            return tr;
+        }
+
+        @Override
+        public TransactionResult storeAuxData(String walletAddress, TransactionResult tResult)
+        {
+            transactionResults.put(resultKey(tResult.contractChainId, tResult.contractAddress, tResult.attrId, tResult.tokenId),
+                    new CachedResult(tResult.resultTime, tResult.result));
+            return tResult;
+        }
+
+        @Override
+        public boolean resolveOptimisedAttr(ContractAddress contract, Attribute attr, TransactionResult transactionResult)
+        {
+            return false;
+        }
+
+        @Override
+        public String getWalletAddr()
+        {
+            return wallet.toString();
+        }
+
+        private String resultKey(int chainId, String address, String attrName, BigInteger tokenId)
+        {
+            String key = chainId + "-" + address.toLowerCase() + "-" + attrName + "-" + tokenId;
+            return dependsOnWallet(definition.attributes.get(attrName)) ? key + "-" + wallet.toString() : key;
+        }
+    }
+
+    /**
+     * True if the attribute's function takes an argument other than the tokenId, eg ownerAddress or another
+     * attribute, as those may differ between wallets
+     */
+    private static boolean dependsOnWallet(Attribute attr)
+    {
+        if (attr == null || attr.function == null || attr.function.parameters == null) return true;
+        for (MethodArg arg : attr.function.parameters)
+        {
+            if (arg.element != null && arg.element.ref != null && !arg.element.ref.equals("tokenId")) return true;
+        }
+        return false;
+    }
+}
@@ -2,5 +2,5 @@ package com.alphawallet.scripttool.Entity;
 
 public enum ParseState
 {
-    ARG, TS_FILE, USER_ADDR
+    ARG, TS_FILE, USER_ADDR, RPC_URL, BATCH_FILE, THREADS
 }
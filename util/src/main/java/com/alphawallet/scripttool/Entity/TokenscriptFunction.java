@@ -142,6 +142,21 @@ public abstract class TokenscriptFunction
     private final Map<String, Attribute> localAttrs = new ConcurrentHashMap<>();
     private final Map<String, String> refTags = new ConcurrentHashMap<>();
 
+    private static final OkHttpClient okClient = new OkHttpClient.Builder()
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(5, TimeUnit.SECONDS)
+            .writeTimeout(5, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(false)
+            .build();
+
+    /**
+     * Node used for function calls on the chain; override to use a different node
+     */
+    protected String getNodeURL(int chainId)
+    {
+        return EthereumNetworkBase.getNetworkByChain(chainId).rpcServerUrl;
+    }
+
     public Function generateTransactionFunction(String walletAddr, BigInteger tokenId, TokenDefinition definition, FunctionDefinition function, AttributeInterface attrIf)
     {
         boolean valueNotFound = false;
@@ -710,15 +725,7 @@ public abstract class TokenscriptFunction
             // 1: create transaction call
             org.web3j.abi.datatypes.Function transaction = generateTransactionFunction(walletAddress, tokenId, definition, attr.function, attrIf);
             // 2: create web3 connection
-            OkHttpClient okClient = new OkHttpClient.Builder()
-                    .connectTimeout(5, TimeUnit.SECONDS)
-                    .readTimeout(5, TimeUnit.SECONDS)
-                    .writeTimeout(5, TimeUnit.SECONDS)
-                    .retryOnConnectionFailure(false)
-                    .build();
-
-            String nodeURL = EthereumNetworkBase.getNetworkByChain(contractAddress.chainId).rpcServerUrl;
-            HttpService nodeService = new HttpService(nodeURL, okClient, false);
+            HttpService nodeService = new HttpService(getNodeURL(contractAddress.chainId), okClient, false);
 
             Web3j web3j = Web3j.build(nodeService);
 
@@ -913,7 +920,7 @@ public abstract class TokenscriptFunction
             else  //if cached value is invalid or if value is dynamic
             {
                 //for function query, never need wallet address
-                return fetchResultFromEthereum(walletAddress, useAddress, attr, tokenId, td, attrIf, 0)          // Fetch function result from blockchain
+                return fetchResultFromEthereum(walletAddress, useAddress, attr, tokenId, td, attrIf, System.currentTimeMillis())          // Fetch function result from blockchain
                         .map(result -> restoreFromDBIfRequired(result, cachedResult))  // If network unavailable restore value from cache
                         .map(result -> attrIf.storeAuxData("", result))                                     // store new data
                         .map(result -> parseFunctionResult(result, attr));    // write
@@ -959,7 +966,7 @@ public abstract class TokenscriptFunction
      */
     private TransactionResult restoreFromDBIfRequired(TransactionResult result, TransactionResult transactionResult)
     {
-        if (result.resultTime == 0 && transactionResult != null)
+        if (result.resultTime == 0 && transactionResult != null && result.result == null)
         {
             result.result = transactionResult.result;
             result.resultTime = transactionResult.resultTime;
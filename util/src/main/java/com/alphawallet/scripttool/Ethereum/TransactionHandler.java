@@ -30,16 +30,11 @@ import okhttp3.OkHttpClient;
 
 public class TransactionHandler
 {
-    private static Web3j mWeb3;
+    private final Web3j mWeb3;
 
     public TransactionHandler(int networkId)
     {
-        String nodeURL = EthereumNetworkBase.getNetworkByChain(networkId).rpcServerUrl;
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        builder.connectTimeout(20, TimeUnit.SECONDS);
-        builder.readTimeout(20, TimeUnit.SECONDS);
-        HttpService service = new HttpService(nodeURL, builder.build(), false);
-        mWeb3 = Web3j.build(service);
+        this(EthereumNetworkBase.getNetworkByChain(networkId).rpcServerUrl);
         try
         {
             Web3ClientVersion web3ClientVersion = mWeb3.web3ClientVersion().sendAsync().get();
@@ -51,6 +46,18 @@ public class TransactionHandler
         }
     }
 
+    /**
+     * Handler for a specific node, eg a local or archive node rather than the chain's default
+     */
+    public TransactionHandler(String nodeURL)
+    {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        builder.connectTimeout(20, TimeUnit.SECONDS);
+        builder.readTimeout(20, TimeUnit.SECONDS);
+        HttpService service = new HttpService(nodeURL, builder.build(), false);
+        mWeb3 = Web3j.build(service);
+    }
+
     public List<BigInteger> getBalanceArray(String address, String contractAddress) throws Exception
     {
         List<BigInteger> result = new ArrayList<>();
@@ -28,6 +28,9 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.alphawallet.scripttool.Entity.ParseState.ARG;
+import static com.alphawallet.scripttool.Entity.ParseState.BATCH_FILE;
+import static com.alphawallet.scripttool.Entity.ParseState.RPC_URL;
+import static com.alphawallet.scripttool.Entity.ParseState.THREADS;
 import static com.alphawallet.scripttool.Entity.ParseState.TS_FILE;
 import static com.alphawallet.scripttool.Entity.ParseState.USER_ADDR;
 
@@ -35,15 +38,36 @@ public class ScriptTool implements AttributeInterface
 {
     private File tokenScriptFile;
     private Address userAddress = Address.DEFAULT;
+    private String nodeURL; //overrides the chain's default node if set
+    private File batchFile;
+    private int batchThreads = BatchScriptTool.DEFAULT_THREADS;
 
     private Map<Integer, Map<String, Map<BigInteger, CachedResult>>> transactionResults = new ConcurrentHashMap<>();  //optimisation results
 
 
-    private final TokenscriptFunction tokenscriptFunction = new TokenscriptFunction() { };
+    private final TokenscriptFunction tokenscriptFunction = new TokenscriptFunction()
+    {
+        @Override
+        protected String getNodeURL(int chainId)
+        {
+            return nodeURL != null ? nodeURL : super.getNodeURL(chainId);
+        }
+    };
 
     public static void main(String[] args) {
         new ScriptTool(args);
     }
+
+    /**
+     * Single run for a TokenScript and wallet without the command line, see getTokenAttributes
+     */
+    public ScriptTool(File tokenScriptFile, Address userAddress, String nodeURL)
+    {
+        this.tokenScriptFile = tokenScriptFile;
+        this.userAddress = userAddress;
+        this.nodeURL = nodeURL;
+    }
+
     public ScriptTool(String[] args)
     {
         ParseState p = ARG;
@@ -67,6 +91,15 @@ public class ScriptTool implements AttributeInterface
                         case "-address":
                             p = USER_ADDR;
                             break;
+                        case "-rpc":
+                            p = RPC_URL;
+                            break;
+                        case "-batch":
+                            p = BATCH_FILE;
+                            break;
+                        case "-threads":
+                            p = THREADS;
+                            break;
                         case "-help":
                             showUsage();
                             break;
@@ -83,6 +116,30 @@ public class ScriptTool implements AttributeInterface
                     }
                     p = ARG;
                     break;
+                case RPC_URL:
+                    nodeURL = arg;
+                    p = ARG;
+                    break;
+                case BATCH_FILE:
+                    batchFile = new File(arg);
+                    if (!batchFile.exists())
+                    {
+                        System.out.println("ERROR: " + arg + " File not found.");
+                        batchFile = null;
+                    }
+                    p = ARG;
+                    break;
+                case THREADS:
+                    try
+                    {
+                        batchThreads = Math.max(1, Integer.parseInt(arg));
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        System.out.println("ERROR: " + arg + " is not a number");
+                    }
+                    p = ARG;
+                    break;
                 case TS_FILE:
                     try
                     {
@@ -110,7 +167,11 @@ public class ScriptTool implements AttributeInterface
             }
         }
 
-        if (tokenScriptFile != null)
+        if (batchFile != null)
+        {
+            runBatch();
+        }
+        else if (tokenScriptFile != null)
         {
             dumpTokenInfo();
         }
@@ -119,7 +180,26 @@ public class ScriptTool implements AttributeInterface
     private void showUsage()
     {
         System.out.println("Usage:");
-        System.out.println("scripttool -tokenscript <TokenScript File> -address <Ethereum address>");
+        System.out.println("scripttool -tokenscript <TokenScript File> -address <Ethereum address> [-rpc <node URL>]");
+        System.out.println("scripttool -batch <manifest JSON> [-rpc <node URL>] [-threads <count>]");
+        System.out.println("  batch results are written to stdout as one JSON object per line");
+    }
+
+    private void runBatch()
+    {
+        try
+        {
+            BatchScriptTool batch = new BatchScriptTool(batchThreads);
+            batch.setDefaultNodeURL(nodeURL);
+            batch.run(batchFile, System.out);
+        }
+        catch (Exception e)
+        {
+            System.out.println("ERROR in batch manifest:");
+            e.printStackTrace();
+        }
+
+        Runtime.getRuntime().exit(0);
     }
 
     private void dumpTokenInfo()
@@ -174,8 +254,7 @@ public class ScriptTool implements AttributeInterface
 
     private String tokenAttributesToJson(ContractInfo holdingContract, ContractAddress cAddr, TokenDefinition definition) throws java.lang.Exception {
         StringBuilder      tokenData = new StringBuilder();
-        TransactionHandler txHandler = new TransactionHandler(cAddr.chainId);
-        List<BigInteger>   balanceArray = null;
+        TransactionHandler txHandler = nodeURL != null ? new TransactionHandler(nodeURL) : new TransactionHandler(cAddr.chainId);
 
         String tokenName = txHandler.getNameOnly(cAddr.address);
         String symbol = txHandler.getSymbolOnly(cAddr.address);
@@ -186,6 +265,30 @@ public class ScriptTool implements AttributeInterface
         System.out.println("JSON dictionary for token attributes:");
         System.out.println("-----------");
 
+        for (TokenScriptResult.Attribute attr : resolveTokenAttributes(tokenscriptFunction, txHandler, this, holdingContract, cAddr, definition, userAddress))
+        {
+            TokenScriptResult.addPair(tokenData, "\"" + attr.id + "\"", attr.text);
+        }
+
+        return tokenData.toString() + "\"ownerAddress\": \"" + userAddress + "\"";
+    }
+
+    /**
+     * Attribute values for the token script at the contract, from the view of the wallet
+     */
+    public List<TokenScriptResult.Attribute> getTokenAttributes(ContractAddress cAddr) throws Exception
+    {
+        TokenDefinition definition = getTokenDefinition();
+        if (!checkValidity(definition)) return new ArrayList<>();
+        TransactionHandler txHandler = nodeURL != null ? new TransactionHandler(nodeURL) : new TransactionHandler(cAddr.chainId);
+        return resolveTokenAttributes(tokenscriptFunction, txHandler, this, definition.contracts.get(definition.holdingToken), cAddr, definition, userAddress);
+    }
+
+    static List<TokenScriptResult.Attribute> resolveTokenAttributes(TokenscriptFunction tokenscriptFunction, TransactionHandler txHandler,
+                                                                   AttributeInterface attrIf, ContractInfo holdingContract,
+                                                                   ContractAddress cAddr, TokenDefinition definition, Address userAddress) throws Exception
+    {
+        List<BigInteger> balanceArray = null;
         if (holdingContract.contractInterface != null && holdingContract.contractInterface.equalsIgnoreCase("ERC875"))
         {
             //fetch balance array
@@ -197,11 +300,8 @@ public class ScriptTool implements AttributeInterface
             balanceArray.add(BigInteger.ZERO);
         }
 
-        tokenscriptFunction.resolveAttributes(userAddress.toString(), balanceArray.get(0), this, cAddr, definition)
-                .forEach(attr -> TokenScriptResult.addPair(tokenData, "\"" + attr.id + "\"", attr.text))
-                .isDisposed();
-
-        return tokenData.toString() + "\"ownerAddress\": \"" + userAddress + "\"";
+        return tokenscriptFunction.resolveAttributes(userAddress.toString(), balanceArray.get(0), attrIf, cAddr, definition)
+                .toList().blockingGet();
     }
 
     private boolean checkValidity(TokenDefinition definition)
@@ -275,7 +375,7 @@ public class ScriptTool implements AttributeInterface
         return userAddress.toString();
     }
 
-    private List<BigInteger> fetchArrayBalance(
+    private static List<BigInteger> fetchArrayBalance(
             String contractAddress, Address address,
             TransactionHandler txHandler) throws Exception {
         return txHandler.getBalanceArray(address.toString(), contractAddress);
@@ -0,0 +1,209 @@
+package com.alphawallet.scripttool;
+
+import com.alphawallet.token.entity.ContractAddress;
+import com.alphawallet.token.entity.TokenScriptResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.utils.Numeric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchScriptToolTest
+{
+    private static final String SAI = "0x89d24a6b4ccb1b6faa2625fe562bdd9a23260359";
+    private static final List<String> WALLETS = Arrays.asList(
+            "0x901dbb9771d30124bd25b2f86ef4d8c6c135d948",
+            "0x2042424242424564648000000000000000000001",
+            "0x2042424242424564648000000000000000000002",
+            "0x2042424242424564648000000000000000000003");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, AtomicInteger> callCounts = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private String nodeURL;
+    private File tokenScript;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        tokenScript = new File("../lib/src/test/ts/DAI.tsml").getAbsoluteFile();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", exchange -> {
+            byte[] response;
+            try (InputStream in = exchange.getRequestBody())
+            {
+                response = mapper.writeValueAsBytes(handleRpc(mapper.readTree(in)));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(response);
+            }
+        });
+        server.start();
+        nodeURL = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void batchMatchesSingleRun() throws Exception
+    {
+        Map<String, Map<String, String>> batch = runBatch(manifest(tokenScript.getPath(), WALLETS));
+        assertEquals(WALLETS.size(), batch.size());
+        assertEquals(WALLETS.size(), callCounts.get("0x70a08231").get()); //one balanceOf per wallet
+
+        for (String wallet : WALLETS)
+        {
+            ScriptTool single = new ScriptTool(tokenScript, new Address(wallet), nodeURL);
+            Map<String, String> expected = new HashMap<>();
+            for (TokenScriptResult.Attribute attr : single.getTokenAttributes(new ContractAddress(1, SAI)))
+            {
+                expected.put(attr.id, attr.text);
+            }
+
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, batch.get(new Address(wallet).toString()));
+        }
+
+        //wallet dependent calls aren't shared between wallets
+        assertFalse(batch.get(new Address(WALLETS.get(1)).toString()).equals(batch.get(new Address(WALLETS.get(2)).toString())));
+    }
+
+    @Test
+    public void badScriptReported() throws Exception
+    {
+        File bad = File.createTempFile("bad", ".tsml");
+        bad.deleteOnExit();
+        Files.write(bad.toPath(), "<not a tokenscript/>".getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchScriptTool batch = new BatchScriptTool(2);
+        batch.run(manifest(bad.getPath(), WALLETS), new PrintStream(out, true, "UTF-8"));
+        batch.shutdown();
+
+        String[] lines = out.toString("UTF-8").trim().split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(mapper.readTree(lines[0]).has("error"));
+    }
+
+    private Map<String, Map<String, String>> runBatch(File manifest) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchScriptTool batch = new BatchScriptTool(3);
+        batch.run(manifest, new PrintStream(out, true, "UTF-8"));
+        batch.shutdown();
+
+        Map<String, Map<String, String>> results = new HashMap<>();
+        for (String line : out.toString("UTF-8").trim().split("\n"))
+        {
+            JsonNode node = mapper.readTree(line);
+            assertFalse(line, node.has("error"));
+            assertEquals("SAI", node.path("symbol").asText());
+            Map<String, String> attrs = new HashMap<>();
+            node.path("attributes").fields().forEachRemaining(e -> attrs.put(e.getKey(), e.getValue().asText()));
+            results.put(node.path("wallet").asText(), attrs);
+        }
+        return results;
+    }
+
+    private File manifest(String scriptPath, List<String> wallets) throws Exception
+    {
+        ObjectNode manifest = mapper.createObjectNode();
+        manifest.putObject("rpc").put("1", nodeURL);
+        ObjectNode job = manifest.putArray("jobs").addObject();
+        job.put("tokenscript", scriptPath);
+        for (String wallet : wallets) job.withArray("wallets").add(wallet);
+
+        File file = File.createTempFile("manifest", ".json");
+        file.deleteOnExit();
+        mapper.writeValue(file, manifest);
+        return file;
+    }
+
+    // minimal node: answers the calls DAI.tsml makes with values derived from the arguments
+    private ObjectNode handleRpc(JsonNode request)
+    {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+        switch (request.path("method").asText())
+        {
+            case "eth_call":
+                String data = request.path("params").get(0).path("data").asText();
+                String selector = data.substring(0, 10);
+                callCounts.computeIfAbsent(selector, k -> new AtomicInteger()).incrementAndGet();
+                response.put("result", ethCall(selector, data.substring(10)));
+                break;
+            case "web3_clientVersion":
+                response.put("result", "stub");
+                break;
+            default:
+                response.putObject("error").put("code", -32601).put("message", "method not found");
+                break;
+        }
+        return response;
+    }
+
+    private String ethCall(String selector, String args)
+    {
+        switch (selector)
+        {
+            case "0x06fdde03": //name()
+                return encodeString("Sai Stablecoin v1.0");
+            case "0x95d89b41": //symbol()
+                return encodeString("SAI");
+            case "0x70a08231": //balanceOf(address)
+                return encodeUint(new BigInteger(args.substring(0, 64), 16).mod(BigInteger.valueOf(65536)).multiply(BigInteger.TEN.pow(15)));
+            case "0xdd62ed3e": //allowance(address,address)
+                return encodeUint(new BigInteger(args.substring(0, 64), 16).mod(BigInteger.valueOf(256)));
+            default:
+                return "0x";
+        }
+    }
+
+    private static String encodeUint(BigInteger value)
+    {
+        return Numeric.toHexStringWithPrefixZeroPadded(value, 64);
+    }
+
+    private static String encodeString(String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = Arrays.copyOf(bytes, ((bytes.length + 31) / 32) * 32);
+        return encodeUint(BigInteger.valueOf(32)) + Numeric.toHexStringNoPrefix(Numeric.toBytesPadded(BigInteger.valueOf(bytes.length), 32))
+                + Numeric.toHexStringNoPrefix(padded);
+    }
+}